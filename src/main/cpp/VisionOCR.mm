@@ -11,6 +11,9 @@
  * - AppKit: 提供NSImage等图像处理类
  * - JNI: Java本地接口，用于Java和C/C++代码交互
  *
+ * 除JNI入口外，本文件还实现了 applevision_c.h 中声明的纯C接口，
+ * 供Java外部函数接口（java.lang.foreign）直接调用。
+ *
  * 作者：xiebaiyuan
  * 版本：1.0.0
  * 创建时间：2025
@@ -20,7 +23,11 @@
 #import <Vision/Vision.h>
 #import <AppKit/AppKit.h>
 #include <jni.h>
+#include <string.h>
+#include <string>
+#include <vector>
 #include "com_applevision_VisionOCR.h"
+#include "applevision_c.h"
 
 /**
  * 辅助函数：创建Java OCR结果对象
@@ -97,6 +104,270 @@ jobject createOCRResultObject(JNIEnv *env, NSString *text, float confidence, CGR
     return ocrResult;
 }
 
+/**
+ * 文本块处理回调
+ * 每识别出一个有效文本块调用一次，坐标已转换为左上角原点的归一化坐标。
+ * 返回NO表示调用方不再需要后续文本块，识别结果的遍历随即停止
+ */
+typedef BOOL (^OCRBlockHandler)(NSString *text, float confidence, CGRect boundingBox);
+
+/**
+ * 识别请求选项
+ * languages 为空数组时由Vision自动检测语言（macOS 13+）
+ * regionOfInterest 使用左上角原点的归一化坐标，(0, 0, 1, 1) 表示整张图像
+ */
+struct OCRRequestOptions {
+    NSArray<NSString *> *languages;                 // 识别语言，按优先级排列
+    VNRequestTextRecognitionLevel recognitionLevel; // 识别级别：快速或精确
+    BOOL usesLanguageCorrection;                    // 是否启用语言校正
+    CGRect regionOfInterest;                        // 识别区域
+};
+
+/**
+ * 默认识别选项：简体中文与繁体中文，最高精度，启用语言校正
+ */
+static OCRRequestOptions defaultRequestOptions() {
+    // 语言数组只创建一次并长期持有，调用方可能不在自动释放池内
+    static NSArray<NSString *> *defaultLanguages = nil;
+    static dispatch_once_t onceToken;
+    dispatch_once(&onceToken, ^{
+        defaultLanguages = [@[@"zh-Hans", @"zh-Hant"] retain];
+    });
+
+    OCRRequestOptions options;
+    options.languages = defaultLanguages;
+    options.recognitionLevel = VNRequestTextRecognitionLevelAccurate;
+    options.usesLanguageCorrection = YES;
+    options.regionOfInterest = CGRectMake(0.0, 0.0, 1.0, 1.0);
+    return options;
+}
+
+/**
+ * 核心函数：对CGImage执行Vision文本识别
+ *
+ * 功能描述：
+ * 与调用方式无关的识别实现，JNI入口与C ABI入口共用。
+ * 每个识别出的文本块通过handler回调交给调用方，由调用方决定如何封装结果。
+ *
+ * 参数说明：
+ * @param cgImage 待识别的图像
+ * @param requestOptions 识别选项
+ * @param handler 文本块处理回调
+ *
+ * 返回值：
+ * @return NSString 错误信息；识别成功时返回nil
+ *
+ * 注意：调用方需提供@autoreleasepool
+ */
+static NSString *recognizeTextInCGImage(CGImageRef cgImage, OCRRequestOptions requestOptions, OCRBlockHandler handler) {
+    // 第三步：创建Vision请求处理器
+    // 配置图像处理选项，添加更多选项来改善识别效果
+    NSDictionary *options = @{
+        VNImageOptionProperties: @{},              // 图像属性配置
+        VNImageOptionCameraIntrinsics: [NSNull null]  // 相机内参（此处不使用）
+    };
+    // 创建请求处理器，负责执行Vision请求
+    VNImageRequestHandler *requestHandler = [[VNImageRequestHandler alloc] initWithCGImage:cgImage options:options];
+
+    // 第四步：设置文本识别请求
+    // 使用块变量存储异步请求的结果
+    __block NSArray<VNRecognizedTextObservation *> *textObservations = nil;
+    __block NSError *requestError = nil;
+
+    // 创建文本识别请求，设置完成回调
+    VNRecognizeTextRequest *textRequest = [[VNRecognizeTextRequest alloc] initWithCompletionHandler:^(VNRequest * _Nonnull request, NSError * _Nullable error) {
+        // 回调函数：保存识别结果和错误信息
+        textObservations = request.results;  // 获取所有文本观察结果
+        requestError = error;                 // 保存可能的错误
+    }];
+
+    // 第五步：按选项配置识别参数（默认选项针对中文识别优化）
+    // 检查系统支持的语言（调试用）
+    NSArray<NSString *> *supportedLanguages = [VNRecognizeTextRequest supportedRecognitionLanguagesForTextRecognitionLevel:requestOptions.recognitionLevel revision:VNRecognizeTextRequestRevision1 error:nil];
+    NSLog(@"系统支持的语言: %@", supportedLanguages);
+
+    // 设置识别级别，默认为最高精度
+    textRequest.recognitionLevel = requestOptions.recognitionLevel;
+    // 语言校正，默认启用以提高识别准确性
+    textRequest.usesLanguageCorrection = requestOptions.usesLanguageCorrection;
+
+    if (requestOptions.languages.count > 0) {
+        // 明确设置识别语言，默认为简体中文和繁体中文
+        textRequest.recognitionLanguages = requestOptions.languages;
+
+        // 关闭自动语言检测，强制使用指定语言
+        // 这样可以提高指定语言的识别准确性
+        if (@available(macOS 13.0, *)) {
+            textRequest.automaticallyDetectsLanguage = NO;
+        }
+    } else {
+        // 未指定语言时由Vision自动检测
+        if (@available(macOS 13.0, *)) {
+            textRequest.automaticallyDetectsLanguage = YES;
+        }
+    }
+
+    // 只识别指定区域：Vision的区域使用左下角原点，需翻转Y坐标
+    CGRect roi = requestOptions.regionOfInterest;
+    CGRect visionRoi = CGRectMake(roi.origin.x, 1.0 - roi.origin.y - roi.size.height,
+                                  roi.size.width, roi.size.height);
+    textRequest.regionOfInterest = visionRoi;
+
+    // 第六步：执行识别请求
+    // 同步执行请求，等待结果返回
+    [requestHandler performRequests:@[textRequest] error:&requestError];
+
+    // 检查请求执行是否成功
+    if (requestError != nil) {
+        // 请求失败，构造详细错误信息
+        return [NSString stringWithFormat:@"Vision error: %@", requestError.localizedDescription];
+    }
+
+    // 第七步：处理识别结果
+    // 遍历所有文本观察结果
+    for (VNRecognizedTextObservation *observation in textObservations) {
+        // 获取多个候选文本，提高识别准确性
+        // topCandidates:3 表示获取置信度最高的3个候选结果
+        NSArray<VNRecognizedText *> *topCandidates = [observation topCandidates:3];
+        
+        // 选择置信度最高的文本作为最终结果
+        VNRecognizedText *bestCandidate = nil;
+        float bestConfidence = 0.0;
+        
+        // 遍历候选结果，找出置信度最高的
+        for (VNRecognizedText *candidate in topCandidates) {
+            if (candidate.confidence > bestConfidence) {
+                bestCandidate = candidate;
+                bestConfidence = candidate.confidence;
+            }
+        }
+        
+        // 如果找到有效的文本候选（非空且置信度合理）
+        if (bestCandidate && bestCandidate.string.length > 0) {
+            NSString *text = bestCandidate.string;          // 识别的文本
+            float confidence = bestCandidate.confidence;    // 置信度
+            CGRect boundingBox = observation.boundingBox;   // 边界框（相对于识别区域）
+
+            // 指定了识别区域时，边界框相对于该区域，先换算为整张图像的归一化坐标
+            boundingBox = CGRectMake(
+                visionRoi.origin.x + boundingBox.origin.x * visionRoi.size.width,
+                visionRoi.origin.y + boundingBox.origin.y * visionRoi.size.height,
+                boundingBox.size.width * visionRoi.size.width,
+                boundingBox.size.height * visionRoi.size.height
+            );
+
+            // 第八步：坐标系转换
+            // Vision框架使用左下角为原点的坐标系
+            // 需要转换为常用的左上角原点坐标系
+            CGRect convertedBoundingBox = CGRectMake(
+                boundingBox.origin.x,                                      // X坐标保持不变
+                1.0 - boundingBox.origin.y - boundingBox.size.height,     // Y坐标翻转
+                boundingBox.size.width,                                    // 宽度保持不变
+                boundingBox.size.height                                    // 高度保持不变
+            );
+
+            // 第九步：将结果交给调用方处理
+            if (!handler(text, confidence, convertedBoundingBox)) {
+                break;
+            }
+        }
+    }
+
+    return nil;
+}
+
+/**
+ * 辅助函数：对已加载的NSImage执行Vision文本识别
+ *
+ * 参数说明：
+ * @param nsImage 已加载的图像
+ * @param options 识别选项
+ * @param handler 文本块处理回调
+ *
+ * 返回值：
+ * @return NSString 错误信息；识别成功时返回nil
+ */
+static NSString *recognizeTextInImage(NSImage *nsImage, OCRRequestOptions options, OCRBlockHandler handler) {
+    // 第二步：转换为CGImage格式
+    // Vision框架需要CGImage格式，NSImage需要转换
+    CGImageRef cgImage = [nsImage CGImageForProposedRect:nil context:nil hints:nil];
+    if (cgImage == NULL) {
+        // CGImage转换失败，可能是图像数据损坏
+        return @"Failed to convert image to CGImage";
+    }
+    return recognizeTextInCGImage(cgImage, options, handler);
+}
+
+/**
+ * 辅助函数：识别指定路径图像中的文本
+ *
+ * 功能描述：
+ * 加载图像并执行Vision文本识别，将所有结果封装为Java ArrayList。
+ * 单张识别与批量识别入口共用此函数。
+ *
+ * 参数说明：
+ * @param env JNI环境指针
+ * @param nsImagePath 图像文件路径（NSString类型）
+ * @param options 识别选项
+ *
+ * 返回值：
+ * @return jobject Java ArrayList对象；失败时返回NULL并在env中挂起Java异常
+ */
+static jobject recognizeImageAtPath(JNIEnv *env, NSString *nsImagePath, OCRRequestOptions options) {
+    // 创建返回的ArrayList - 用于存储所有OCR识别结果
+    jclass arrayListClass = env->FindClass("java/util/ArrayList");
+    if (arrayListClass == NULL) {
+        return NULL; // ArrayList类未找到，可能是Java环境问题
+    }
+
+    // 获取ArrayList的构造函数和add方法
+    jmethodID arrayListConstructor = env->GetMethodID(arrayListClass, "<init>", "()V");
+    jmethodID arrayListAdd = env->GetMethodID(arrayListClass, "add", "(Ljava/lang/Object;)Z");
+
+    // 创建ArrayList实例用于收集识别结果
+    jobject resultList = env->NewObject(arrayListClass, arrayListConstructor);
+
+    // 使用自动释放池管理Objective-C对象内存
+    // 确保所有NSString、NSImage等对象在池销毁时自动释放
+    @autoreleasepool {
+        // 第一步：加载图像文件
+        // 将文件路径转换为NSURL，支持本地文件系统路径
+        NSURL *imageURL = [NSURL fileURLWithPath:nsImagePath];
+        // 使用NSImage加载图像，支持多种图像格式（JPEG、PNG、TIFF等）
+        NSImage *nsImage = [[NSImage alloc] initWithContentsOfURL:imageURL];
+
+        // 检查图像是否成功加载
+        if (nsImage == nil) {
+            // 图像加载失败，可能是文件不存在、格式不支持或权限问题
+            jclass exceptionClass = env->FindClass("java/lang/RuntimeException");
+            env->ThrowNew(exceptionClass, "Failed to load the image");
+            return NULL;
+        }
+
+        // 第二步至第八步：执行识别，每个文本块创建Java结果对象并添加到列表
+        NSString *errorMessage = recognizeTextInImage(nsImage, options, ^BOOL(NSString *text, float confidence, CGRect boundingBox) {
+            // 调用辅助函数创建OCRResult对象
+            jobject ocrResult = createOCRResultObject(env, text, confidence, boundingBox);
+            if (ocrResult != NULL) {
+                // 添加到结果列表
+                env->CallBooleanMethod(resultList, arrayListAdd, ocrResult);
+                // 释放本地引用
+                env->DeleteLocalRef(ocrResult);
+            }
+            return YES;
+        });
+
+        if (errorMessage != nil) {
+            jclass exceptionClass = env->FindClass("java/lang/RuntimeException");
+            env->ThrowNew(exceptionClass, [errorMessage UTF8String]);
+            return NULL;
+        }
+    } // @autoreleasepool 结束，自动释放所有Objective-C对象
+
+    // 返回包含所有识别结果的ArrayList
+    return resultList;
+}
+
 // extern "C" 块确保函数使用C链接约定，避免C++名称修饰
 extern "C" {
 
@@ -140,151 +411,594 @@ JNIEXPORT jobject JNICALL Java_com_applevision_VisionOCR_recognizeText
     // 立即释放C字符串，避免内存泄漏
     env->ReleaseStringUTFChars(imagePath, pathStr);
 
-    // 创建返回的ArrayList - 用于存储所有OCR识别结果
+    return recognizeImageAtPath(env, nsImagePath, defaultRequestOptions());
+}
+
+/**
+ * JNI入口函数：按指定选项识别文本
+ *
+ * 功能描述：
+ * 与recognizeText相同，但识别语言、识别级别和语言校正由调用方指定，
+ * 用于非中文图像或以快速级别执行的探测识别。
+ *
+ * 参数说明：
+ * @param env JNI环境指针
+ * @param thisObj Java对象实例（本例中未使用）
+ * @param imagePath 图像文件路径
+ * @param languages 识别语言数组，按优先级排列；为空时由Vision自动检测
+ * @param fast 是否使用快速识别级别
+ * @param languageCorrection 是否启用语言校正
+ * @param roiX, roiY, roiWidth, roiHeight 识别区域（左上角原点的归一化坐标）
+ *
+ * 返回值：
+ * @return jobject Java ArrayList对象，包含所有识别的OCRResult对象
+ */
+JNIEXPORT jobject JNICALL Java_com_applevision_VisionOCR_recognizeTextWithOptions
+  (JNIEnv *env, jobject thisObj, jstring imagePath, jobjectArray languages, jboolean fast, jboolean languageCorrection,
+   jdouble roiX, jdouble roiY, jdouble roiWidth, jdouble roiHeight) {
+
+    const char *pathStr = env->GetStringUTFChars(imagePath, NULL);
+    if (pathStr == NULL) {
+        return NULL;
+    }
+    NSString *nsImagePath = [NSString stringWithUTF8String:pathStr];
+    env->ReleaseStringUTFChars(imagePath, pathStr);
+
+    jobject resultList = NULL;
+    @autoreleasepool {
+        // 将Java语言数组转换为NSArray
+        jsize count = env->GetArrayLength(languages);
+        NSMutableArray<NSString *> *languageArray = [NSMutableArray arrayWithCapacity:(NSUInteger) count];
+        for (jsize i = 0; i < count; i++) {
+            jstring language = (jstring) env->GetObjectArrayElement(languages, i);
+            if (language == NULL) {
+                // Java侧已拒绝null语言，此处防止GetStringUTFChars(NULL)导致JVM崩溃
+                jclass exceptionClass = env->FindClass("java/lang/IllegalArgumentException");
+                env->ThrowNew(exceptionClass, "languages must not contain null");
+                return NULL;
+            }
+            const char *languageStr = env->GetStringUTFChars(language, NULL);
+            if (languageStr == NULL) {
+                env->DeleteLocalRef(language);
+                return NULL;
+            }
+            [languageArray addObject:[NSString stringWithUTF8String:languageStr]];
+            env->ReleaseStringUTFChars(language, languageStr);
+            env->DeleteLocalRef(language);
+        }
+
+        OCRRequestOptions options;
+        options.languages = languageArray;
+        options.recognitionLevel = fast ? VNRequestTextRecognitionLevelFast : VNRequestTextRecognitionLevelAccurate;
+        options.usesLanguageCorrection = languageCorrection ? YES : NO;
+        options.regionOfInterest = CGRectMake(roiX, roiY, roiWidth, roiHeight);
+        resultList = recognizeImageAtPath(env, nsImagePath, options);
+    }
+    return resultList;
+}
+
+/**
+ * JNI入口函数：批量文本识别
+ *
+ * 功能描述：
+ * 在一次本地调用中依次识别多张图像，返回与输入顺序一致的结果列表，
+ * 避免调用方逐张跨越JNI边界。
+ *
+ * 参数说明：
+ * @param env JNI环境指针
+ * @param thisObj Java对象实例（本例中未使用）
+ * @param imagePaths Java字符串数组，包含待识别图像的完整文件路径
+ *
+ * 返回值：
+ * @return jobject Java ArrayList对象，每个元素为对应图像的OCRResult列表
+ *
+ * 异常处理：
+ * - 任意一张图像识别失败即中止，并抛出对应的RuntimeException
+ */
+JNIEXPORT jobject JNICALL Java_com_applevision_VisionOCR_recognizeTextBatch
+  (JNIEnv *env, jobject thisObj, jobjectArray imagePaths) {
+
+    jsize count = env->GetArrayLength(imagePaths);
+
+    // 创建外层ArrayList，预分配容量
     jclass arrayListClass = env->FindClass("java/util/ArrayList");
     if (arrayListClass == NULL) {
-        return NULL; // ArrayList类未找到，可能是Java环境问题
+        return NULL;
     }
-
-    // 获取ArrayList的构造函数和add方法
-    jmethodID arrayListConstructor = env->GetMethodID(arrayListClass, "<init>", "()V");
+    jmethodID arrayListConstructor = env->GetMethodID(arrayListClass, "<init>", "(I)V");
     jmethodID arrayListAdd = env->GetMethodID(arrayListClass, "add", "(Ljava/lang/Object;)Z");
+    jobject batchList = env->NewObject(arrayListClass, arrayListConstructor, count);
 
-    // 创建ArrayList实例用于收集识别结果
-    jobject resultList = env->NewObject(arrayListClass, arrayListConstructor);
+    for (jsize i = 0; i < count; i++) {
+        jstring imagePath = (jstring) env->GetObjectArrayElement(imagePaths, i);
+        const char *pathStr = env->GetStringUTFChars(imagePath, NULL);
+        if (pathStr == NULL) {
+            return NULL; // 内存不足
+        }
+        NSString *nsImagePath = [NSString stringWithUTF8String:pathStr];
+        env->ReleaseStringUTFChars(imagePath, pathStr);
+        env->DeleteLocalRef(imagePath);
 
-    // 使用自动释放池管理Objective-C对象内存
-    // 确保所有NSString、NSImage等对象在池销毁时自动释放
-    @autoreleasepool {
-        // 第一步：加载图像文件
-        // 将文件路径转换为NSURL，支持本地文件系统路径
-        NSURL *imageURL = [NSURL fileURLWithPath:nsImagePath];
-        // 使用NSImage加载图像，支持多种图像格式（JPEG、PNG、TIFF等）
-        NSImage *nsImage = [[NSImage alloc] initWithContentsOfURL:imageURL];
+        // 每张图像使用独立的本地引用帧，避免批量较大时本地引用累积
+        if (env->PushLocalFrame(16) < 0) {
+            return NULL;
+        }
+        jobject resultList = recognizeImageAtPath(env, nsImagePath, defaultRequestOptions());
+        if (resultList == NULL) {
+            env->PopLocalFrame(NULL);
+            return NULL; // 异常已挂起，直接返回
+        }
+        resultList = env->PopLocalFrame(resultList);
+        env->CallBooleanMethod(batchList, arrayListAdd, resultList);
+        env->DeleteLocalRef(resultList);
+    }
 
-        // 检查图像是否成功加载
+    return batchList;
+}
+
+/**
+ * JNI入口函数：逐块回调的文本识别
+ *
+ * 功能描述：
+ * 不构建完整的结果列表，每识别出一个文本块就立即创建OCRResult并调用
+ * Java Consumer的accept方法，调用方可以边接收边处理，Java侧不需要同时持有全部结果。
+ *
+ * 参数说明：
+ * @param env JNI环境指针
+ * @param thisObj Java对象实例（本例中未使用）
+ * @param imagePath Java字符串，包含待识别图像的完整文件路径
+ * @param consumer java.util.function.Consumer对象，逐个接收OCRResult
+ *
+ * 异常处理：
+ * - 图像加载或识别失败：抛出RuntimeException
+ * - Consumer抛出异常（例如调用方取消）：停止遍历后续文本块，异常原样传回Java
+ */
+JNIEXPORT void JNICALL Java_com_applevision_VisionOCR_recognizeTextEach
+  (JNIEnv *env, jobject thisObj, jstring imagePath, jobject consumer) {
+
+    const char *pathStr = env->GetStringUTFChars(imagePath, NULL);
+    if (pathStr == NULL) {
+        return; // 内存不足
+    }
+    NSString *nsImagePath = [NSString stringWithUTF8String:pathStr];
+    env->ReleaseStringUTFChars(imagePath, pathStr);
+
+    // 获取Consumer.accept方法，整个调用只查找一次
+    jclass consumerClass = env->FindClass("java/util/function/Consumer");
+    if (consumerClass == NULL) {
+        return;
+    }
+    jmethodID acceptMethod = env->GetMethodID(consumerClass, "accept", "(Ljava/lang/Object;)V");
+    if (acceptMethod == NULL) {
+        return;
+    }
+
+    @autoreleasepool {
+        NSImage *nsImage = [[NSImage alloc] initWithContentsOfURL:[NSURL fileURLWithPath:nsImagePath]];
         if (nsImage == nil) {
-            // 图像加载失败，可能是文件不存在、格式不支持或权限问题
             jclass exceptionClass = env->FindClass("java/lang/RuntimeException");
             env->ThrowNew(exceptionClass, "Failed to load the image");
-            return NULL;
+            return;
         }
 
-        // 第二步：转换为CGImage格式
-        // Vision框架需要CGImage格式，NSImage需要转换
-        CGImageRef cgImage = [nsImage CGImageForProposedRect:nil context:nil hints:nil];
-        if (cgImage == NULL) {
-            // CGImage转换失败，可能是图像数据损坏
+        NSString *errorMessage = recognizeTextInImage(nsImage, defaultRequestOptions(), ^BOOL(NSString *text, float confidence, CGRect boundingBox) {
+            // 每个文本块使用独立的本地引用帧，文本块再多本地引用也不会累积
+            if (env->PushLocalFrame(8) < 0) {
+                return NO;
+            }
+            jobject ocrResult = createOCRResultObject(env, text, confidence, boundingBox);
+            if (ocrResult != NULL) {
+                env->CallVoidMethod(consumer, acceptMethod, ocrResult);
+            }
+            env->PopLocalFrame(NULL);
+            // Consumer抛出异常时停止遍历，异常留给Java侧处理
+            return env->ExceptionCheck() ? NO : YES;
+        });
+
+        if (errorMessage != nil && !env->ExceptionCheck()) {
             jclass exceptionClass = env->FindClass("java/lang/RuntimeException");
-            env->ThrowNew(exceptionClass, "Failed to convert image to CGImage");
-            return NULL;
+            env->ThrowNew(exceptionClass, [errorMessage UTF8String]);
         }
+    }
+}
 
-        // 第三步：创建Vision请求处理器
-        // 配置图像处理选项，添加更多选项来改善识别效果
-        NSDictionary *options = @{
-            VNImageOptionProperties: @{},              // 图像属性配置
-            VNImageOptionCameraIntrinsics: [NSNull null]  // 相机内参（此处不使用）
-        };
-        // 创建请求处理器，负责执行Vision请求
-        VNImageRequestHandler *requestHandler = [[VNImageRequestHandler alloc] initWithCGImage:cgImage options:options];
-
-        // 第四步：设置文本识别请求
-        // 使用块变量存储异步请求的结果
-        __block NSArray<VNRecognizedTextObservation *> *textObservations = nil;
-        __block NSError *requestError = nil;
-
-        // 创建文本识别请求，设置完成回调
-        VNRecognizeTextRequest *textRequest = [[VNRecognizeTextRequest alloc] initWithCompletionHandler:^(VNRequest * _Nonnull request, NSError * _Nullable error) {
-            // 回调函数：保存识别结果和错误信息
-            textObservations = request.results;  // 获取所有文本观察结果
-            requestError = error;                 // 保存可能的错误
-        }];
-
-        // 第五步：配置识别参数以优化中文识别
-        // 检查系统支持的语言（调试用）
-        NSArray<NSString *> *supportedLanguages = [VNRecognizeTextRequest supportedRecognitionLanguagesForTextRecognitionLevel:VNRequestTextRecognitionLevelAccurate revision:VNRecognizeTextRequestRevision1 error:nil];
-        NSLog(@"系统支持的语言: %@", supportedLanguages);
-
-        // 设置识别级别为最高精度
-        textRequest.recognitionLevel = VNRequestTextRecognitionLevelAccurate;
-        // 启用语言校正，提高识别准确性
-        textRequest.usesLanguageCorrection = YES;
-        
-        // 明确设置中文为主要识别语言
-        // 支持简体中文和繁体中文
-        NSArray<NSString *> *preferredLanguages = @[@"zh-Hans", @"zh-Hant"];
-        textRequest.recognitionLanguages = preferredLanguages;
-        
-        // 关闭自动语言检测，强制使用指定语言
-        // 这样可以提高中文识别的准确性
-        if (@available(macOS 11.0, *)) {
-            textRequest.automaticallyDetectsLanguage = NO;
-        }
+/**
+ * JNI入口函数：识别原始像素缓冲区中的文本
+ *
+ * 功能描述：
+ * 由Java侧解码后的像素直接构造CGImage进行识别，无需经过文件或图像编码，
+ * 用于多页TIFF等需要在Java侧逐页解码的场景。
+ *
+ * 参数说明：
+ * @param env JNI环境指针
+ * @param thisObj Java对象实例（本例中未使用）
+ * @param pixels 像素数据
+ * @param width 图像宽度（像素）
+ * @param height 图像高度（像素）
+ * @param bytesPerRow 每行字节数
+ * @param bytesPerPixel 每像素字节数：1为8位灰度，4为Java TYPE_4BYTE_ABGR布局（A、B、G、R，忽略Alpha）
+ *
+ * 返回值：
+ * @return jobject Java ArrayList对象，包含所有识别的OCRResult对象
+ */
+JNIEXPORT jobject JNICALL Java_com_applevision_VisionOCR_recognizePixels
+  (JNIEnv *env, jobject thisObj, jbyteArray pixels, jint width, jint height, jint bytesPerRow, jint bytesPerPixel) {
+
+    jsize length = env->GetArrayLength(pixels);
+    if (width <= 0 || height <= 0 || (bytesPerPixel != 1 && bytesPerPixel != 4)
+            || bytesPerRow < width * bytesPerPixel || (jlong) bytesPerRow * height > length) {
+        jclass exceptionClass = env->FindClass("java/lang/IllegalArgumentException");
+        env->ThrowNew(exceptionClass, "Invalid pixel buffer layout");
+        return NULL;
+    }
 
-        // 第六步：执行识别请求
-        // 同步执行请求，等待结果返回
-        [requestHandler performRequests:@[textRequest] error:&requestError];
+    jclass arrayListClass = env->FindClass("java/util/ArrayList");
+    if (arrayListClass == NULL) {
+        return NULL;
+    }
+    jmethodID arrayListConstructor = env->GetMethodID(arrayListClass, "<init>", "()V");
+    jmethodID arrayListAdd = env->GetMethodID(arrayListClass, "add", "(Ljava/lang/Object;)Z");
+    jobject resultList = env->NewObject(arrayListClass, arrayListConstructor);
 
-        // 检查请求执行是否成功
-        if (requestError != nil) {
-            // 请求失败，构造详细错误信息
-            NSString *errorMessage = [NSString stringWithFormat:@"Vision error: %@", requestError.localizedDescription];
+    // 拷贝像素数据，识别期间不持有Java数组
+    CFMutableDataRef pixelData = CFDataCreateMutable(NULL, (CFIndex) bytesPerRow * height);
+    CFDataSetLength(pixelData, (CFIndex) bytesPerRow * height);
+    env->GetByteArrayRegion(pixels, 0, bytesPerRow * height, (jbyte *) CFDataGetMutableBytePtr(pixelData));
+
+    CGDataProviderRef provider = CGDataProviderCreateWithCFData(pixelData);
+    CGColorSpaceRef colorSpace;
+    CGBitmapInfo bitmapInfo;
+    if (bytesPerPixel == 1) {
+        colorSpace = CGColorSpaceCreateDeviceGray();
+        bitmapInfo = (CGBitmapInfo) kCGImageAlphaNone;
+    } else {
+        // TYPE_4BYTE_ABGR 在内存中的字节顺序为 A、B、G、R，对应32位小端的RGBX
+        colorSpace = CGColorSpaceCreateDeviceRGB();
+        bitmapInfo = kCGBitmapByteOrder32Little | (CGBitmapInfo) kCGImageAlphaNoneSkipLast;
+    }
+    CGImageRef cgImage = CGImageCreate((size_t) width, (size_t) height, 8, (size_t) bytesPerPixel * 8,
+                                       (size_t) bytesPerRow, colorSpace, bitmapInfo, provider,
+                                       NULL, false, kCGRenderingIntentDefault);
+    CGColorSpaceRelease(colorSpace);
+    CGDataProviderRelease(provider);
+    CFRelease(pixelData);
+
+    if (cgImage == NULL) {
+        jclass exceptionClass = env->FindClass("java/lang/RuntimeException");
+        env->ThrowNew(exceptionClass, "Failed to create CGImage from pixels");
+        return NULL;
+    }
+
+    NSString *errorMessage = nil;
+    @autoreleasepool {
+        errorMessage = recognizeTextInCGImage(cgImage, defaultRequestOptions(), ^BOOL(NSString *text, float confidence, CGRect boundingBox) {
+            jobject ocrResult = createOCRResultObject(env, text, confidence, boundingBox);
+            if (ocrResult != NULL) {
+                env->CallBooleanMethod(resultList, arrayListAdd, ocrResult);
+                env->DeleteLocalRef(ocrResult);
+            }
+            return YES;
+        });
+        if (errorMessage != nil) {
             jclass exceptionClass = env->FindClass("java/lang/RuntimeException");
             env->ThrowNew(exceptionClass, [errorMessage UTF8String]);
-            return NULL;
         }
+    }
+    CGImageRelease(cgImage);
 
-        // 第七步：处理识别结果
-        // 遍历所有文本观察结果
-        for (VNRecognizedTextObservation *observation in textObservations) {
-            // 获取多个候选文本，提高识别准确性
-            // topCandidates:3 表示获取置信度最高的3个候选结果
-            NSArray<VNRecognizedText *> *topCandidates = [observation topCandidates:3];
-            
-            // 选择置信度最高的文本作为最终结果
-            VNRecognizedText *bestCandidate = nil;
-            float bestConfidence = 0.0;
-            
-            // 遍历候选结果，找出置信度最高的
-            for (VNRecognizedText *candidate in topCandidates) {
-                if (candidate.confidence > bestConfidence) {
-                    bestCandidate = candidate;
-                    bestConfidence = candidate.confidence;
-                }
+    return errorMessage != nil ? NULL : resultList;
+}
+
+/**
+ * JNI入口函数：生成合成结果
+ *
+ * 功能描述：
+ * 不加载图像也不识别，生成 blockCount 个文本块，按与识别结果相同的方式
+ * （createOCRResultObject 逐个构造Java对象并加入ArrayList）返回，
+ * 用于与 avocr_echo 对比测量JNI与外部函数接口两种绑定本身的开销。
+ * 第i个文本块的文本为 "第<i>行 line <i> synthetic"。
+ *
+ * 参数说明：
+ * @param env JNI环境指针
+ * @param thisObj Java对象实例（本例中未使用）
+ * @param blockCount 文本块数
+ *
+ * 返回值：
+ * @return jobject Java ArrayList对象，包含所有合成的OCRResult对象
+ */
+JNIEXPORT jobject JNICALL Java_com_applevision_VisionOCR_echoBlocks
+  (JNIEnv *env, jobject thisObj, jint blockCount) {
+    jclass arrayListClass = env->FindClass("java/util/ArrayList");
+    if (arrayListClass == NULL) {
+        return NULL;
+    }
+    jmethodID arrayListConstructor = env->GetMethodID(arrayListClass, "<init>", "()V");
+    jmethodID arrayListAdd = env->GetMethodID(arrayListClass, "add", "(Ljava/lang/Object;)Z");
+    jobject resultList = env->NewObject(arrayListClass, arrayListConstructor);
+
+    @autoreleasepool {
+        for (jint i = 0; i < blockCount; i++) {
+            NSString *text = [NSString stringWithFormat:@"第%d行 line %d synthetic", i + 1, i + 1];
+            CGRect boundingBox = CGRectMake(0.05, (double) i / blockCount, 0.9, 0.8 / blockCount);
+            jobject ocrResult = createOCRResultObject(env, text, 0.9f, boundingBox);
+            if (ocrResult != NULL) {
+                env->CallBooleanMethod(resultList, arrayListAdd, ocrResult);
+                env->DeleteLocalRef(ocrResult);
+            }
+        }
+    }
+    return resultList;
+}
+
+} // extern "C" 结束
+
+/**
+ * 辅助函数：将错误信息写入C接口的错误缓冲区
+ */
+static void writeCError(char *error, int32_t errorCapacity, NSString *message) {
+    if (error == NULL || errorCapacity <= 0) {
+        return;
+    }
+    snprintf(error, (size_t) errorCapacity, "%s", [message UTF8String]);
+}
+
+/**
+ * 缓冲区不足时保存在本地的识别结果（applevision_c.h 中的不透明类型）
+ */
+struct avocr_result {
+    std::vector<avocr_block> blocks;
+    std::string text;
+};
+
+/**
+ * 辅助函数：向结果追加一个文本块
+ */
+static void appendCBlock(avocr_result *result, const char *utf8, size_t length,
+                         float confidence, CGRect boundingBox) {
+    avocr_block block;
+    block.x = boundingBox.origin.x;
+    block.y = boundingBox.origin.y;
+    block.width = boundingBox.size.width;
+    block.height = boundingBox.size.height;
+    block.confidence = confidence;
+    block.text_offset = (int32_t) result->text.size();
+    block.text_length = (int32_t) length;
+    block.reserved = 0;
+    result->text.append(utf8, length);
+    result->blocks.push_back(block);
+}
+
+/**
+ * 辅助函数：容量足够时把结果拷贝到调用方缓冲区，否则只输出所需大小
+ */
+static int32_t copyCResult(const avocr_result *result,
+                           avocr_block *blocks, int32_t maxBlocks,
+                           char *text, int32_t textCapacity,
+                           int32_t *required) {
+    required[0] = (int32_t) result->blocks.size();
+    required[1] = (int32_t) result->text.size();
+    if (required[0] > maxBlocks || required[1] > textCapacity) {
+        return AVOCR_ERR_BUFFER_TOO_SMALL;
+    }
+    if (!result->blocks.empty()) {
+        memcpy(blocks, result->blocks.data(), result->blocks.size() * sizeof(avocr_block));
+    }
+    if (!result->text.empty()) {
+        memcpy(text, result->text.data(), result->text.size());
+    }
+    return required[0];
+}
+
+/**
+ * 辅助函数：交付收集好的结果
+ *
+ * 实现细节：
+ * 容量足够时拷贝到调用方缓冲区并释放结果；容量不足且调用方提供了overflow时，
+ * 把结果的所有权交给调用方，扩容后通过 avocr_copy_result 取出，避免重新识别
+ */
+static int32_t deliverCResult(avocr_result *result,
+                              avocr_block *blocks, int32_t maxBlocks,
+                              char *text, int32_t textCapacity,
+                              int32_t *required, avocr_result **overflow,
+                              char *error, int32_t errorCapacity) {
+    int32_t count = copyCResult(result, blocks, maxBlocks, text, textCapacity, required);
+    if (count == AVOCR_ERR_BUFFER_TOO_SMALL) {
+        writeCError(error, errorCapacity, @"Result buffer too small");
+        if (overflow != NULL) {
+            *overflow = result;
+            return count;
+        }
+    }
+    delete result;
+    return count;
+}
+
+/**
+ * 辅助函数：检查输出参数，并将overflow初始化为NULL
+ */
+static bool checkCOutput(avocr_block *blocks, int32_t maxBlocks, char *text, int32_t textCapacity,
+                         int32_t *required, avocr_result **overflow,
+                         char *error, int32_t errorCapacity) {
+    if (overflow != NULL) {
+        *overflow = NULL;
+    }
+    if (required == NULL || maxBlocks < 0 || textCapacity < 0
+            || (maxBlocks > 0 && blocks == NULL) || (textCapacity > 0 && text == NULL)) {
+        writeCError(error, errorCapacity, @"Invalid argument");
+        return false;
+    }
+    return true;
+}
+
+/**
+ * 辅助函数：识别图像并将结果写入调用方提供的C缓冲区
+ *
+ * 实现细节：
+ * 先在本地收集全部文本块和文本字节，再一次性检查容量并拷贝，
+ * 容量不足时不写入任何结果，只输出所需大小，结果保留在overflow中
+ */
+static int32_t recognizeIntoCBuffers(NSImage *nsImage, OCRRequestOptions options,
+                                     avocr_block *blocks, int32_t maxBlocks,
+                                     char *text, int32_t textCapacity,
+                                     int32_t *required, avocr_result **overflow,
+                                     char *error, int32_t errorCapacity) {
+    avocr_result *result = new avocr_result();
+
+    NSString *errorMessage = recognizeTextInImage(nsImage, options, ^BOOL(NSString *blockText, float confidence, CGRect boundingBox) {
+        const char *utf8 = [blockText UTF8String];
+        appendCBlock(result, utf8, strlen(utf8), confidence, boundingBox);
+        return YES;
+    });
+
+    if (errorMessage != nil) {
+        delete result;
+        writeCError(error, errorCapacity, errorMessage);
+        return [errorMessage hasPrefix:@"Vision error"] ? AVOCR_ERR_VISION : AVOCR_ERR_IMAGE_CONVERT;
+    }
+    return deliverCResult(result, blocks, maxBlocks, text, textCapacity, required, overflow, error, errorCapacity);
+}
+
+/**
+ * 辅助函数：加载指定路径的图像，按选项识别并将结果写入调用方提供的C缓冲区
+ * 调用方需提供@autoreleasepool
+ */
+static int32_t recognizePathIntoCBuffers(const char *path, int32_t pathLength, OCRRequestOptions options,
+                                         avocr_block *blocks, int32_t maxBlocks,
+                                         char *text, int32_t textCapacity,
+                                         int32_t *required, avocr_result **overflow,
+                                         char *error, int32_t errorCapacity) {
+    // 路径不要求以'\0'结尾，先拷贝再转换为NSString
+    std::string pathCopy(path, (size_t) pathLength);
+    NSString *nsImagePath = [NSString stringWithUTF8String:pathCopy.c_str()];
+    if (nsImagePath == nil) {
+        writeCError(error, errorCapacity, @"Image path is not valid UTF-8");
+        return AVOCR_ERR_INVALID_ARGUMENT;
+    }
+
+    NSImage *nsImage = [[NSImage alloc] initWithContentsOfURL:[NSURL fileURLWithPath:nsImagePath]];
+    if (nsImage == nil) {
+        writeCError(error, errorCapacity, @"Failed to load the image");
+        return AVOCR_ERR_IMAGE_LOAD;
+    }
+
+    return recognizeIntoCBuffers(nsImage, options, blocks, maxBlocks, text, textCapacity,
+                                 required, overflow, error, errorCapacity);
+}
+
+/**
+ * C接口：识别指定路径图像中的文本
+ * 参数与返回值说明见 applevision_c.h
+ */
+int32_t avocr_recognize_path(const char *path, int32_t path_length,
+                             avocr_block *blocks, int32_t max_blocks,
+                             char *text, int32_t text_capacity,
+                             int32_t *required, avocr_result **overflow,
+                             char *error, int32_t error_capacity) {
+    if (!checkCOutput(blocks, max_blocks, text, text_capacity, required, overflow, error, error_capacity)) {
+        return AVOCR_ERR_INVALID_ARGUMENT;
+    }
+    if (path == NULL || path_length <= 0) {
+        writeCError(error, error_capacity, @"Invalid argument");
+        return AVOCR_ERR_INVALID_ARGUMENT;
+    }
+
+    @autoreleasepool {
+        return recognizePathIntoCBuffers(path, path_length, defaultRequestOptions(), blocks, max_blocks,
+                                         text, text_capacity, required, overflow, error, error_capacity);
+    }
+}
+
+/**
+ * C接口：按指定选项识别指定路径图像中的文本
+ * 参数与返回值说明见 applevision_c.h
+ */
+int32_t avocr_recognize_path_with_options(const char *path, int32_t path_length,
+                                          const char *languages, int32_t languages_length,
+                                          int32_t fast, int32_t language_correction,
+                                          double roi_x, double roi_y, double roi_width, double roi_height,
+                                          avocr_block *blocks, int32_t max_blocks,
+                                          char *text, int32_t text_capacity,
+                                          int32_t *required, avocr_result **overflow,
+                                          char *error, int32_t error_capacity) {
+    if (!checkCOutput(blocks, max_blocks, text, text_capacity, required, overflow, error, error_capacity)) {
+        return AVOCR_ERR_INVALID_ARGUMENT;
+    }
+    if (path == NULL || path_length <= 0 || languages_length < 0 || (languages_length > 0 && languages == NULL)) {
+        writeCError(error, error_capacity, @"Invalid argument");
+        return AVOCR_ERR_INVALID_ARGUMENT;
+    }
+
+    @autoreleasepool {
+        // 逗号分隔的语言列表转换为NSArray，忽略空项
+        NSMutableArray<NSString *> *languageArray = [NSMutableArray array];
+        if (languages_length > 0) {
+            std::string languagesCopy(languages, (size_t) languages_length);
+            NSString *joined = [NSString stringWithUTF8String:languagesCopy.c_str()];
+            if (joined == nil) {
+                writeCError(error, error_capacity, @"Languages are not valid UTF-8");
+                return AVOCR_ERR_INVALID_ARGUMENT;
             }
-            
-            // 如果找到有效的文本候选（非空且置信度合理）
-            if (bestCandidate && bestCandidate.string.length > 0) {
-                NSString *text = bestCandidate.string;          // 识别的文本
-                float confidence = bestCandidate.confidence;    // 置信度
-                CGRect boundingBox = observation.boundingBox;   // 边界框
-
-                // 第八步：坐标系转换
-                // Vision框架使用左下角为原点的坐标系
-                // 需要转换为常用的左上角原点坐标系
-                CGRect convertedBoundingBox = CGRectMake(
-                    boundingBox.origin.x,                                      // X坐标保持不变
-                    1.0 - boundingBox.origin.y - boundingBox.size.height,     // Y坐标翻转
-                    boundingBox.size.width,                                    // 宽度保持不变
-                    boundingBox.size.height                                    // 高度保持不变
-                );
-
-                // 第九步：创建Java结果对象并添加到列表
-                // 调用辅助函数创建OCRResult对象
-                jobject ocrResult = createOCRResultObject(env, text, confidence, convertedBoundingBox);
-                if (ocrResult != NULL) {
-                    // 添加到结果列表
-                    env->CallBooleanMethod(resultList, arrayListAdd, ocrResult);
-                    // 释放本地引用
-                    env->DeleteLocalRef(ocrResult);
+            for (NSString *language in [joined componentsSeparatedByString:@","]) {
+                if (language.length > 0) {
+                    [languageArray addObject:language];
                 }
             }
         }
-    } // @autoreleasepool 结束，自动释放所有Objective-C对象
 
-    // 返回包含所有识别结果的ArrayList
-    return resultList;
+        OCRRequestOptions options;
+        options.languages = languageArray;
+        options.recognitionLevel = fast ? VNRequestTextRecognitionLevelFast : VNRequestTextRecognitionLevelAccurate;
+        options.usesLanguageCorrection = language_correction ? YES : NO;
+        options.regionOfInterest = CGRectMake(roi_x, roi_y, roi_width, roi_height);
+        return recognizePathIntoCBuffers(path, path_length, options, blocks, max_blocks,
+                                         text, text_capacity, required, overflow, error, error_capacity);
+    }
 }
 
-} // extern "C" 结束
+/**
+ * C接口：生成合成结果，不加载图像也不识别
+ * 文本与坐标和JNI入口 echoBlocks 相同，参数与返回值说明见 applevision_c.h
+ */
+int32_t avocr_echo(int32_t block_count,
+                   avocr_block *blocks, int32_t max_blocks,
+                   char *text, int32_t text_capacity,
+                   int32_t *required, avocr_result **overflow,
+                   char *error, int32_t error_capacity) {
+    if (!checkCOutput(blocks, max_blocks, text, text_capacity, required, overflow, error, error_capacity)) {
+        return AVOCR_ERR_INVALID_ARGUMENT;
+    }
+    if (block_count < 0) {
+        writeCError(error, error_capacity, @"Invalid argument");
+        return AVOCR_ERR_INVALID_ARGUMENT;
+    }
+
+    avocr_result *result = new avocr_result();
+    char line[64];
+    for (int32_t i = 0; i < block_count; i++) {
+        int length = snprintf(line, sizeof(line), "第%d行 line %d synthetic", i + 1, i + 1);
+        appendCBlock(result, line, (size_t) length, 0.9f,
+                     CGRectMake(0.05, (double) i / block_count, 0.9, 0.8 / block_count));
+    }
+    return deliverCResult(result, blocks, max_blocks, text, text_capacity, required, overflow, error, error_capacity);
+}
+
+/**
+ * C接口：将保存的结果拷贝到调用方缓冲区
+ * 参数与返回值说明见 applevision_c.h
+ */
+int32_t avocr_copy_result(const avocr_result *result,
+                          avocr_block *blocks, int32_t max_blocks,
+                          char *text, int32_t text_capacity,
+                          int32_t *required) {
+    if (result == NULL || required == NULL) {
+        return AVOCR_ERR_INVALID_ARGUMENT;
+    }
+    return copyCResult(result, blocks, max_blocks, text, text_capacity, required);
+}
+
+/**
+ * C接口：释放保存的结果
+ */
+void avocr_free_result(avocr_result *result) {
+    delete result;
+}
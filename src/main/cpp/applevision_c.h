@@ -0,0 +1,141 @@
+/**
+ * applevision_c.h - Apple Vision OCR 纯C接口
+ *
+ * 功能描述：
+ * 不依赖JNI的C ABI，供Java的外部函数接口（java.lang.foreign）直接调用。
+ * 输入通过调用方提供的内存传入，识别结果写入调用方预先分配的缓冲区。
+ * 只有缓冲区不足时本库才分配内存：结果保存为 avocr_result，由调用方扩容后取出并释放。
+ *
+ * 结果布局：
+ * - blocks：avocr_block 数组，每个元素48字节，字段偏移固定（见结构体定义）
+ * - text：所有文本块的UTF-8字节依次拼接，不含结束符，通过 text_offset/text_length 定位
+ * - required：长度为2的int32数组，输出实际所需的文本块数与文本字节数
+ *
+ * 缓冲区不足时返回 AVOCR_ERR_BUFFER_TOO_SMALL，并在 overflow 中返回保存了完整结果的句柄，
+ * 调用方按 required 扩容后调用 avocr_copy_result 取出结果，不必重新识别，
+ * 之后调用 avocr_free_result 释放句柄。
+ *
+ * 作者：xiebaiyuan
+ */
+
+#ifndef APPLEVISION_C_H
+#define APPLEVISION_C_H
+
+#include <stdint.h>
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+/* 错误码（成功时返回值为非负的文本块数） */
+#define AVOCR_ERR_IMAGE_LOAD        (-1)  /* 图像加载失败 */
+#define AVOCR_ERR_IMAGE_CONVERT     (-2)  /* 图像转换为CGImage失败 */
+#define AVOCR_ERR_VISION            (-3)  /* Vision框架识别失败 */
+#define AVOCR_ERR_BUFFER_TOO_SMALL  (-4)  /* 结果缓冲区不足，所需大小已写入required */
+#define AVOCR_ERR_INVALID_ARGUMENT  (-5)  /* 参数无效 */
+
+/** 缓冲区不足时保存在本地的识别结果（不透明类型） */
+typedef struct avocr_result avocr_result;
+
+/**
+ * 单个文本块（48字节）
+ * 坐标为左上角原点的归一化坐标 (0.0-1.0)
+ */
+typedef struct {
+    double x;              /* 偏移 0 */
+    double y;              /* 偏移 8 */
+    double width;          /* 偏移 16 */
+    double height;         /* 偏移 24 */
+    float confidence;      /* 偏移 32 */
+    int32_t text_offset;   /* 偏移 36，文本在text缓冲区中的起始字节 */
+    int32_t text_length;   /* 偏移 40，文本的UTF-8字节数 */
+    int32_t reserved;      /* 偏移 44，保留，用于对齐 */
+} avocr_block;
+
+/**
+ * 识别指定路径图像中的文本
+ *
+ * @param path 图像路径的UTF-8字节（无需结束符）
+ * @param path_length 路径字节数
+ * @param blocks 文本块输出缓冲区
+ * @param max_blocks blocks可容纳的文本块数
+ * @param text 文本输出缓冲区
+ * @param text_capacity text的字节数
+ * @param required 长度为2的输出数组：所需文本块数、所需文本字节数
+ * @param overflow 返回 AVOCR_ERR_BUFFER_TOO_SMALL 时输出保存了结果的句柄，其他情况下输出NULL；
+ *                 为NULL时缓冲区不足的结果直接丢弃
+ * @param error 错误信息输出缓冲区（UTF-8，以'\0'结尾），可为NULL
+ * @param error_capacity error的字节数
+ * @return 非负数为写入的文本块数，负数为错误码
+ */
+int32_t avocr_recognize_path(const char *path, int32_t path_length,
+                             avocr_block *blocks, int32_t max_blocks,
+                             char *text, int32_t text_capacity,
+                             int32_t *required, avocr_result **overflow,
+                             char *error, int32_t error_capacity);
+
+/**
+ * 按指定选项识别指定路径图像中的文本
+ *
+ * @param path 图像路径的UTF-8字节（无需结束符）
+ * @param path_length 路径字节数
+ * @param languages 识别语言代码的UTF-8字节，以逗号分隔，按优先级排列（如 "ja-JP,en-US"，无需结束符）
+ * @param languages_length 语言字节数，为0时由Vision自动检测语言
+ * @param fast 非0时使用快速识别级别，否则使用精确级别
+ * @param language_correction 非0时启用语言校正
+ * @param roi_x 识别区域（左上角原点的归一化坐标），(0, 0, 1, 1) 表示整张图像；结果坐标仍相对于整张图像
+ * @param roi_y 同上
+ * @param roi_width 同上
+ * @param roi_height 同上
+ * 其余参数与返回值同 avocr_recognize_path
+ */
+int32_t avocr_recognize_path_with_options(const char *path, int32_t path_length,
+                                          const char *languages, int32_t languages_length,
+                                          int32_t fast, int32_t language_correction,
+                                          double roi_x, double roi_y, double roi_width, double roi_height,
+                                          avocr_block *blocks, int32_t max_blocks,
+                                          char *text, int32_t text_capacity,
+                                          int32_t *required, avocr_result **overflow,
+                                          char *error, int32_t error_capacity);
+
+/**
+ * 生成合成结果，不加载图像也不识别
+ * 第i个文本块的文本为 "第<i>行 line <i> synthetic"，结果的写入方式与 avocr_recognize_path 相同，
+ * 用于测量绑定本身（参数传递、结果写入与解码）的开销
+ *
+ * @param block_count 文本块数
+ * 其余参数与返回值同 avocr_recognize_path
+ */
+int32_t avocr_echo(int32_t block_count,
+                   avocr_block *blocks, int32_t max_blocks,
+                   char *text, int32_t text_capacity,
+                   int32_t *required, avocr_result **overflow,
+                   char *error, int32_t error_capacity);
+
+/**
+ * 将保存的结果拷贝到调用方缓冲区
+ * 缓冲区仍不足时返回 AVOCR_ERR_BUFFER_TOO_SMALL，句柄保持有效，可以扩容后再次调用
+ *
+ * @param result avocr_recognize_path 或 avocr_echo 输出的句柄
+ * @param blocks 文本块输出缓冲区
+ * @param max_blocks blocks可容纳的文本块数
+ * @param text 文本输出缓冲区
+ * @param text_capacity text的字节数
+ * @param required 长度为2的输出数组：所需文本块数、所需文本字节数
+ * @return 非负数为写入的文本块数，负数为错误码
+ */
+int32_t avocr_copy_result(const avocr_result *result,
+                          avocr_block *blocks, int32_t max_blocks,
+                          char *text, int32_t text_capacity,
+                          int32_t *required);
+
+/**
+ * 释放保存的结果，result为NULL时不做任何事
+ */
+void avocr_free_result(avocr_result *result);
+
+#ifdef __cplusplus
+}
+#endif
+
+#endif /* APPLEVISION_C_H */
@@ -17,11 +17,43 @@ JNIEXPORT jobject JNICALL Java_com_applevision_VisionOCR_recognizeText
 
 /*
  * Class:     com_applevision_VisionOCR
- * Method:    recognizeTextWithLanguage
- * Signature: (Ljava/lang/String;Ljava/lang/String;)Ljava/util/List;
+ * Method:    recognizeTextWithOptions
+ * Signature: (Ljava/lang/String;[Ljava/lang/String;ZZDDDD)Ljava/util/List;
  */
-JNIEXPORT jobject JNICALL Java_com_applevision_VisionOCR_recognizeTextWithLanguage
-  (JNIEnv *, jobject, jstring, jstring);
+JNIEXPORT jobject JNICALL Java_com_applevision_VisionOCR_recognizeTextWithOptions
+  (JNIEnv *, jobject, jstring, jobjectArray, jboolean, jboolean, jdouble, jdouble, jdouble, jdouble);
+
+/*
+ * Class:     com_applevision_VisionOCR
+ * Method:    recognizeTextBatch
+ * Signature: ([Ljava/lang/String;)Ljava/util/List;
+ */
+JNIEXPORT jobject JNICALL Java_com_applevision_VisionOCR_recognizeTextBatch
+  (JNIEnv *, jobject, jobjectArray);
+
+/*
+ * Class:     com_applevision_VisionOCR
+ * Method:    recognizeTextEach
+ * Signature: (Ljava/lang/String;Ljava/util/function/Consumer;)V
+ */
+JNIEXPORT void JNICALL Java_com_applevision_VisionOCR_recognizeTextEach
+  (JNIEnv *, jobject, jstring, jobject);
+
+/*
+ * Class:     com_applevision_VisionOCR
+ * Method:    recognizePixels
+ * Signature: ([BIIII)Ljava/util/List;
+ */
+JNIEXPORT jobject JNICALL Java_com_applevision_VisionOCR_recognizePixels
+  (JNIEnv *, jobject, jbyteArray, jint, jint, jint, jint);
+
+/*
+ * Class:     com_applevision_VisionOCR
+ * Method:    echoBlocks
+ * Signature: (I)Ljava/util/List;
+ */
+JNIEXPORT jobject JNICALL Java_com_applevision_VisionOCR_echoBlocks
+  (JNIEnv *, jobject, jint);
 
 #ifdef __cplusplus
 }
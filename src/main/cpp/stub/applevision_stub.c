@@ -0,0 +1,254 @@
+/**
+ * applevision_stub.c - applevision_c.h 的桩实现
+ *
+ * 功能描述：
+ * 不依赖Vision框架，按固定规则生成识别结果，用于在Linux等非macOS环境下
+ * 测试和压测Java外部函数接口绑定的参数传递、结果解码与缓冲区扩容逻辑。
+ *
+ * 行为约定：
+ * - 路径对应的文件不存在时返回 AVOCR_ERR_IMAGE_LOAD
+ * - 文本块数量由环境变量 AVOCR_STUB_BLOCKS 指定，默认为3
+ * - 第i个文本块的文本为 "第<i>行 line <i> <文件名>"，坐标按行均匀排列
+ * - avocr_recognize_path_with_options 在文件名后附加 " [<语言>|<fast或accurate>]"，
+ *   用于检查选项是否原样传入；识别区域只做范围检查
+ * - avocr_echo 的文本块以 "synthetic" 代替文件名，与macOS上的实现一致
+ *
+ * 编译：
+ *   gcc -O2 -shared -fPIC -I src/main/cpp -o libapplevision_stub.so src/main/cpp/stub/applevision_stub.c
+ */
+
+#include "applevision_c.h"
+
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+
+struct avocr_result {
+    int32_t block_count;
+    int32_t text_length;
+    avocr_block *blocks;
+    char *text;
+};
+
+static void write_error(char *error, int32_t error_capacity, const char *message) {
+    if (error != NULL && error_capacity > 0) {
+        snprintf(error, (size_t) error_capacity, "%s", message);
+    }
+}
+
+/**
+ * 生成文本块写入blocks和text，两者为NULL时只计算文本字节数
+ */
+static int32_t generate(const char *label, int32_t block_count, avocr_block *blocks, char *text) {
+    char line[4096 + 64];
+    int32_t text_length = 0;
+    int32_t i;
+
+    for (i = 0; i < block_count; i++) {
+        int32_t length = snprintf(line, sizeof(line), "第%d行 line %d %s", i + 1, i + 1, label);
+        if (blocks != NULL) {
+            memcpy(text + text_length, line, (size_t) length);
+            blocks[i].x = 0.05;
+            blocks[i].y = (double) i / block_count;
+            blocks[i].width = 0.9;
+            blocks[i].height = 0.8 / block_count;
+            blocks[i].confidence = 0.9f;
+            blocks[i].text_offset = text_length;
+            blocks[i].text_length = length;
+            blocks[i].reserved = 0;
+        }
+        text_length += length;
+    }
+    return text_length;
+}
+
+/**
+ * 容量足够时直接写入调用方缓冲区；不足时把结果保存到 avocr_result 中交给调用方
+ */
+static int32_t deliver(const char *label, int32_t block_count,
+                       avocr_block *blocks, int32_t max_blocks,
+                       char *text, int32_t text_capacity,
+                       int32_t *required, avocr_result **overflow,
+                       char *error, int32_t error_capacity) {
+    int32_t text_length = generate(label, block_count, NULL, NULL);
+    avocr_result *result;
+
+    required[0] = block_count;
+    required[1] = text_length;
+    if (block_count <= max_blocks && text_length <= text_capacity) {
+        generate(label, block_count, blocks, text);
+        return block_count;
+    }
+
+    write_error(error, error_capacity, "Result buffer too small");
+    if (overflow == NULL) {
+        return AVOCR_ERR_BUFFER_TOO_SMALL;
+    }
+    result = (avocr_result *) malloc(sizeof(avocr_result));
+    if (result != NULL) {
+        result->blocks = (avocr_block *) malloc(sizeof(avocr_block) * (size_t) (block_count > 0 ? block_count : 1));
+        result->text = (char *) malloc((size_t) (text_length > 0 ? text_length : 1));
+        if (result->blocks == NULL || result->text == NULL) {
+            avocr_free_result(result);
+            result = NULL;
+        } else {
+            result->block_count = block_count;
+            result->text_length = generate(label, block_count, result->blocks, result->text);
+        }
+    }
+    *overflow = result;
+    return AVOCR_ERR_BUFFER_TOO_SMALL;
+}
+
+static int32_t check_output(avocr_block *blocks, int32_t max_blocks, char *text, int32_t text_capacity,
+                            int32_t *required, avocr_result **overflow,
+                            char *error, int32_t error_capacity) {
+    if (overflow != NULL) {
+        *overflow = NULL;
+    }
+    if (required == NULL || max_blocks < 0 || text_capacity < 0
+            || (max_blocks > 0 && blocks == NULL) || (text_capacity > 0 && text == NULL)) {
+        write_error(error, error_capacity, "Invalid argument");
+        return AVOCR_ERR_INVALID_ARGUMENT;
+    }
+    return 0;
+}
+
+/**
+ * 检查图像路径并计算文本块数，成功时返回0并把文件名写入label
+ */
+static int32_t load_path(const char *path, int32_t path_length, char *label, size_t label_capacity,
+                         int32_t *block_count, char *error, int32_t error_capacity) {
+    char path_copy[4096];
+    const char *file_name;
+    const char *env;
+    FILE *file;
+
+    if (path == NULL || path_length <= 0 || path_length >= (int32_t) sizeof(path_copy)) {
+        write_error(error, error_capacity, "Invalid argument");
+        return AVOCR_ERR_INVALID_ARGUMENT;
+    }
+    memcpy(path_copy, path, (size_t) path_length);
+    path_copy[path_length] = '\0';
+
+    file = fopen(path_copy, "rb");
+    if (file == NULL) {
+        write_error(error, error_capacity, "Failed to load the image");
+        return AVOCR_ERR_IMAGE_LOAD;
+    }
+    fclose(file);
+
+    *block_count = 3;
+    env = getenv("AVOCR_STUB_BLOCKS");
+    if (env != NULL) {
+        *block_count = atoi(env);
+        if (*block_count < 0) {
+            *block_count = 0;
+        }
+    }
+    file_name = strrchr(path_copy, '/');
+    file_name = file_name == NULL ? path_copy : file_name + 1;
+    snprintf(label, label_capacity, "%s", file_name);
+    return 0;
+}
+
+int32_t avocr_recognize_path(const char *path, int32_t path_length,
+                             avocr_block *blocks, int32_t max_blocks,
+                             char *text, int32_t text_capacity,
+                             int32_t *required, avocr_result **overflow,
+                             char *error, int32_t error_capacity) {
+    char label[4096];
+    int32_t block_count;
+    int32_t status;
+
+    if (check_output(blocks, max_blocks, text, text_capacity, required, overflow, error, error_capacity) != 0) {
+        return AVOCR_ERR_INVALID_ARGUMENT;
+    }
+    status = load_path(path, path_length, label, sizeof(label), &block_count, error, error_capacity);
+    if (status != 0) {
+        return status;
+    }
+    return deliver(label, block_count, blocks, max_blocks, text, text_capacity,
+                   required, overflow, error, error_capacity);
+}
+
+int32_t avocr_recognize_path_with_options(const char *path, int32_t path_length,
+                                          const char *languages, int32_t languages_length,
+                                          int32_t fast, int32_t language_correction,
+                                          double roi_x, double roi_y, double roi_width, double roi_height,
+                                          avocr_block *blocks, int32_t max_blocks,
+                                          char *text, int32_t text_capacity,
+                                          int32_t *required, avocr_result **overflow,
+                                          char *error, int32_t error_capacity) {
+    char label[4096];
+    size_t length;
+    int32_t block_count;
+    int32_t status;
+
+    (void) language_correction;
+    if (check_output(blocks, max_blocks, text, text_capacity, required, overflow, error, error_capacity) != 0) {
+        return AVOCR_ERR_INVALID_ARGUMENT;
+    }
+    if (languages_length < 0 || languages_length > 256 || (languages_length > 0 && languages == NULL)
+            || roi_x < 0 || roi_y < 0 || roi_width <= 0 || roi_height <= 0
+            || roi_x + roi_width > 1.0 + 1e-9 || roi_y + roi_height > 1.0 + 1e-9) {
+        write_error(error, error_capacity, "Invalid argument");
+        return AVOCR_ERR_INVALID_ARGUMENT;
+    }
+    status = load_path(path, path_length, label, sizeof(label) - 300, &block_count, error, error_capacity);
+    if (status != 0) {
+        return status;
+    }
+    length = strlen(label);
+    length += (size_t) snprintf(label + length, sizeof(label) - length, " [%.*s|%s]",
+                                (int) languages_length, languages_length > 0 ? languages : "",
+                                fast ? "fast" : "accurate");
+    return deliver(label, block_count, blocks, max_blocks, text, text_capacity,
+                   required, overflow, error, error_capacity);
+}
+
+int32_t avocr_echo(int32_t block_count,
+                   avocr_block *blocks, int32_t max_blocks,
+                   char *text, int32_t text_capacity,
+                   int32_t *required, avocr_result **overflow,
+                   char *error, int32_t error_capacity) {
+    if (check_output(blocks, max_blocks, text, text_capacity, required, overflow, error, error_capacity) != 0) {
+        return AVOCR_ERR_INVALID_ARGUMENT;
+    }
+    if (block_count < 0) {
+        write_error(error, error_capacity, "Invalid argument");
+        return AVOCR_ERR_INVALID_ARGUMENT;
+    }
+    return deliver("synthetic", block_count, blocks, max_blocks, text, text_capacity,
+                   required, overflow, error, error_capacity);
+}
+
+int32_t avocr_copy_result(const avocr_result *result,
+                          avocr_block *blocks, int32_t max_blocks,
+                          char *text, int32_t text_capacity,
+                          int32_t *required) {
+    if (result == NULL || required == NULL) {
+        return AVOCR_ERR_INVALID_ARGUMENT;
+    }
+    required[0] = result->block_count;
+    required[1] = result->text_length;
+    if (result->block_count > max_blocks || result->text_length > text_capacity) {
+        return AVOCR_ERR_BUFFER_TOO_SMALL;
+    }
+    if (result->block_count > 0) {
+        memcpy(blocks, result->blocks, sizeof(avocr_block) * (size_t) result->block_count);
+    }
+    if (result->text_length > 0) {
+        memcpy(text, result->text, (size_t) result->text_length);
+    }
+    return result->block_count;
+}
+
+void avocr_free_result(avocr_result *result) {
+    if (result == NULL) {
+        return;
+    }
+    free(result->blocks);
+    free(result->text);
+    free(result);
+}
@@ -0,0 +1,25 @@
+package com.applevision;
+
+import java.util.List;
+
+/**
+ * JNI绑定诊断入口
+ * 只用于基准测试测量绑定本身的开销，不属于受支持的识别API，可能随时变更或移除。
+ */
+public final class BindingDiagnostics {
+    private BindingDiagnostics() {
+    }
+
+    /**
+     * 生成合成结果，不加载图像也不识别
+     * 本地代码生成 blockCount 个文本块（第i个为 "第&lt;i&gt;行 line &lt;i&gt; synthetic"），
+     * 按与识别结果相同的方式构造 OCRResult 返回
+     *
+     * @param ocr JNI绑定实例
+     * @param blockCount 文本块数
+     * @return 合成的结果列表
+     */
+    public static List<OCRResult> echoBlocks(VisionOCR ocr, int blockCount) {
+        return ocr.echoBlocks(blockCount);
+    }
+}
@@ -0,0 +1,127 @@
+package com.applevision;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * OCR引擎接口
+ * 抽象出文本识别能力，便于在引擎前后叠加调度、缓存等组件，
+ * 也便于在非macOS环境下使用替代实现进行测试和压测
+ */
+public interface OCREngine {
+
+    /**
+     * 识别图片中的文字并返回结果
+     *
+     * @param imagePath 图片的路径
+     * @return 识别结果列表，包含文字内容及位置坐标
+     * @throws RuntimeException 如果OCR过程中发生错误
+     */
+    List<OCRResult> recognizeText(String imagePath);
+
+    /**
+     * 按指定选项识别图片中的文字
+     * 默认实现会丢弃选项，直接调用 {@link #recognizeText(String)}，语言、快速级别和识别区域都不生效。
+     * 支持这些设置的引擎应覆盖此方法；包装其他引擎的装饰器（调度器、限流器等）必须覆盖此方法并把选项
+     * 原样转发给下层引擎，否则叠加在其上的语言路由或级联识别会静默退化为默认识别
+     *
+     * @param imagePath 图片的路径
+     * @param options 识别语言、识别级别和语言校正选项
+     * @return 识别结果列表，包含文字内容及位置坐标
+     * @throws RuntimeException 如果OCR过程中发生错误
+     */
+    default List<OCRResult> recognizeText(String imagePath, RecognitionOptions options) {
+        return recognizeText(imagePath);
+    }
+
+    /**
+     * 识别已解码图像中的文字
+     * 默认实现将图像编码为PNG临时文件后调用 {@link #recognizeText(String)}，
+     * 能够直接接收像素数据的引擎应覆盖此方法
+     *
+     * @param image 已解码的图像
+     * @return 识别结果列表，包含文字内容及位置坐标
+     * @throws RuntimeException 如果OCR过程中发生错误
+     */
+    default List<OCRResult> recognizeImage(BufferedImage image) {
+        File tempFile = null;
+        try {
+            tempFile = File.createTempFile("applevision-page", ".png");
+            if (!ImageIO.write(image, "png", tempFile)) {
+                throw new RuntimeException("No PNG writer available");
+            }
+            return recognizeText(tempFile.getAbsolutePath());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write temporary image", e);
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile.toPath());
+                } catch (IOException ignored) {
+                    tempFile.deleteOnExit();
+                }
+            }
+        }
+    }
+
+    /**
+     * 批量识别多张图片中的文字
+     * 默认实现逐张调用 {@link #recognizeText(String)}，支持批量调用的引擎应覆盖此方法
+     *
+     * @param imagePaths 图片路径列表
+     * @return 与输入顺序一一对应的识别结果列表
+     * @throws RuntimeException 如果任意一张图片识别失败
+     */
+    default List<List<OCRResult>> recognizeTextBatch(List<String> imagePaths) {
+        List<List<OCRResult>> results = new ArrayList<>(imagePaths.size());
+        for (String imagePath : imagePaths) {
+            results.add(recognizeText(imagePath));
+        }
+        return results;
+    }
+
+    /**
+     * 识别图片中的文字，每得到一个文本块即交给consumer处理
+     * 默认实现先完成整张图片的识别再逐个回调，支持逐块产出的引擎应覆盖此方法
+     *
+     * @param imagePath 图片的路径
+     * @param consumer 文本块处理函数；抛出的异常会中止后续回调并传播给调用方
+     * @throws RuntimeException 如果OCR过程中发生错误
+     */
+    default void recognizeText(String imagePath, Consumer<OCRResult> consumer) {
+        for (OCRResult result : recognizeText(imagePath)) {
+            consumer.accept(result);
+        }
+    }
+
+    /**
+     * 以 {@link Flow.Publisher} 形式逐块发布识别结果，支持背压与取消
+     * 每次订阅新建一个线程执行识别
+     *
+     * @param imagePath 图片的路径
+     * @return 识别结果发布者
+     */
+    default Flow.Publisher<OCRResult> recognizeTextPublisher(String imagePath) {
+        return new OCRResultPublisher(this, imagePath, null);
+    }
+
+    /**
+     * 以 {@link Flow.Publisher} 形式逐块发布识别结果，支持背压与取消
+     *
+     * @param imagePath 图片的路径
+     * @param executor 执行识别的线程池；背压期间会占用其中一个线程
+     * @return 识别结果发布者
+     */
+    default Flow.Publisher<OCRResult> recognizeTextPublisher(String imagePath, Executor executor) {
+        return new OCRResultPublisher(this, imagePath, executor);
+    }
+}
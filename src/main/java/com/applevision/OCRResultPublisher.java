@@ -0,0 +1,153 @@
+package com.applevision;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 识别结果发布者
+ * 将 {@link OCREngine#recognizeText(String, java.util.function.Consumer)} 的逐块回调适配为
+ * {@link Flow.Publisher}。每次订阅都会执行一次识别（冷发布者）。
+ *
+ * 背压：识别在生产线程上执行，订阅者未请求更多元素时，生产线程在回调中阻塞等待，
+ * 本地识别随之暂停，不会在内存中堆积未消费的文本块。
+ * 取消：订阅者取消后，回调抛出 {@link CancellationException}，本地识别停止遍历后续文本块。
+ */
+public class OCRResultPublisher implements Flow.Publisher<OCRResult> {
+    private final OCREngine engine;
+    private final String imagePath;
+    private final Executor executor;
+
+    /**
+     * 构造函数
+     *
+     * @param engine 执行识别的引擎
+     * @param imagePath 图片的路径
+     * @param executor 执行识别的线程池，为null时每次订阅新建一个守护线程
+     */
+    public OCRResultPublisher(OCREngine engine, String imagePath, Executor executor) {
+        this.engine = engine;
+        this.imagePath = imagePath;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super OCRResult> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        subscriber.onSubscribe(new ResultSubscription(subscriber));
+    }
+
+    private final class ResultSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super OCRResult> subscriber;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition demandAvailable = lock.newCondition();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private long demand = 0;
+        private boolean cancelled = false;
+        private IllegalArgumentException invalidRequest = null;
+
+        ResultSubscription(Flow.Subscriber<? super OCRResult> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            lock.lock();
+            try {
+                if (cancelled) {
+                    return;
+                }
+                if (n <= 0) {
+                    invalidRequest = new IllegalArgumentException("Non-positive request: " + n);
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+                demandAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            // 首次请求时才开始识别
+            if (started.compareAndSet(false, true)) {
+                start();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            lock.lock();
+            try {
+                cancelled = true;
+                demandAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void start() {
+            if (executor != null) {
+                executor.execute(this::produce);
+            } else {
+                Thread thread = new Thread(this::produce, "ocr-result-publisher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+
+        private void produce() {
+            RuntimeException failure = null;
+            try {
+                engine.recognizeText(imagePath, this::emit);
+            } catch (CancellationException e) {
+                // 订阅已取消或收到无效请求，识别已停止
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+
+            IllegalArgumentException invalid;
+            boolean wasCancelled;
+            lock.lock();
+            try {
+                invalid = invalidRequest;
+                wasCancelled = cancelled;
+                cancelled = true;
+            } finally {
+                lock.unlock();
+            }
+            if (invalid != null) {
+                subscriber.onError(invalid);
+            } else if (wasCancelled) {
+                return;
+            } else if (failure != null) {
+                subscriber.onError(failure);
+            } else {
+                subscriber.onComplete();
+            }
+        }
+
+        /**
+         * 向订阅者发送一个文本块，需求不足时阻塞等待（在生产线程上调用）
+         */
+        private void emit(OCRResult result) {
+            lock.lock();
+            try {
+                while (demand == 0 && !cancelled && invalidRequest == null) {
+                    demandAvailable.awaitUninterruptibly();
+                }
+                if (cancelled || invalidRequest != null) {
+                    throw new CancellationException("Subscription cancelled");
+                }
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+            } finally {
+                lock.unlock();
+            }
+            subscriber.onNext(result);
+        }
+    }
+}
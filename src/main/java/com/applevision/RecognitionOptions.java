@@ -0,0 +1,184 @@
+package com.applevision;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 识别选项
+ * 指定识别语言、识别级别、是否启用语言校正以及识别区域，不可变
+ */
+public final class RecognitionOptions {
+    /** 默认选项：简体中文与繁体中文，精确级别，启用语言校正 */
+    public static final RecognitionOptions DEFAULT =
+            new RecognitionOptions(Arrays.asList("zh-Hans", "zh-Hant"), Level.ACCURATE, true);
+
+    /**
+     * 识别级别
+     */
+    public enum Level {
+        /** 快速：速度快，适合探测或拉丁字母文本 */
+        FAST,
+        /** 精确：速度慢，识别质量高 */
+        ACCURATE
+    }
+
+    private final List<String> languages;
+    private final Level level;
+    private final boolean languageCorrection;
+    private final OCRResult.BoundingBox regionOfInterest;
+
+    /**
+     * 构造函数
+     *
+     * @param languages 识别语言代码，按优先级排列 (如: "zh-Hans", "ja-JP", "en-US")；为空时由Vision自动检测语言
+     * @param level 识别级别
+     * @param languageCorrection 是否启用语言校正
+     */
+    public RecognitionOptions(List<String> languages, Level level, boolean languageCorrection) {
+        this(languages, level, languageCorrection, null);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param languages 识别语言代码，按优先级排列；为空时由Vision自动检测语言
+     * @param level 识别级别
+     * @param languageCorrection 是否启用语言校正
+     * @param regionOfInterest 只识别该区域（左上角原点的归一化坐标），结果坐标仍相对于整张图像；为null时识别整张图像
+     * @throws IllegalArgumentException 如果语言列表为null或包含null、空字符串，或识别区域超出图像
+     */
+    public RecognitionOptions(List<String> languages, Level level, boolean languageCorrection,
+                              OCRResult.BoundingBox regionOfInterest) {
+        if (languages == null) {
+            throw new IllegalArgumentException("languages must not be null");
+        }
+        for (String language : languages) {
+            if (language == null || language.isEmpty()) {
+                throw new IllegalArgumentException("languages must not contain null or empty entries: " + languages);
+            }
+        }
+        if (level == null) {
+            throw new IllegalArgumentException("level must not be null");
+        }
+        if (regionOfInterest != null && (regionOfInterest.getX() < 0 || regionOfInterest.getY() < 0
+                || regionOfInterest.getWidth() <= 0 || regionOfInterest.getHeight() <= 0
+                || regionOfInterest.getMaxX() > 1.0 + 1e-9 || regionOfInterest.getMaxY() > 1.0 + 1e-9)) {
+            throw new IllegalArgumentException("regionOfInterest must lie within the unit square: " + regionOfInterest);
+        }
+        this.languages = Collections.unmodifiableList(new ArrayList<>(languages));
+        this.level = level;
+        this.languageCorrection = languageCorrection;
+        this.regionOfInterest = regionOfInterest;
+    }
+
+    /**
+     * 使用默认识别级别和语言校正，仅指定语言
+     *
+     * @param languages 识别语言代码，按优先级排列
+     * @return 识别选项
+     */
+    public static RecognitionOptions forLanguages(List<String> languages) {
+        return new RecognitionOptions(languages, DEFAULT.level, DEFAULT.languageCorrection);
+    }
+
+    /**
+     * 获取识别语言
+     *
+     * @return 按优先级排列的语言代码（不可修改）
+     */
+    public List<String> getLanguages() {
+        return languages;
+    }
+
+    /**
+     * 获取识别级别
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * 是否启用语言校正
+     */
+    public boolean isLanguageCorrection() {
+        return languageCorrection;
+    }
+
+    /**
+     * 获取识别区域
+     *
+     * @return 左上角原点的归一化坐标；识别整张图像时返回null
+     */
+    public OCRResult.BoundingBox getRegionOfInterest() {
+        return regionOfInterest;
+    }
+
+    /**
+     * 返回仅识别级别不同的副本
+     *
+     * @param level 识别级别
+     * @return 识别选项
+     */
+    public RecognitionOptions withLevel(Level level) {
+        return new RecognitionOptions(languages, level, languageCorrection, regionOfInterest);
+    }
+
+    /**
+     * 返回仅识别区域不同的副本
+     *
+     * @param regionOfInterest 识别区域（左上角原点的归一化坐标）；为null时识别整张图像
+     * @return 识别选项
+     */
+    public RecognitionOptions withRegionOfInterest(OCRResult.BoundingBox regionOfInterest) {
+        return new RecognitionOptions(languages, level, languageCorrection, regionOfInterest);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RecognitionOptions)) {
+            return false;
+        }
+        RecognitionOptions that = (RecognitionOptions) o;
+        return languageCorrection == that.languageCorrection
+                && level == that.level
+                && languages.equals(that.languages)
+                && sameRegion(regionOfInterest, that.regionOfInterest);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = languages.hashCode();
+        result = 31 * result + level.hashCode();
+        result = 31 * result + (languageCorrection ? 1 : 0);
+        if (regionOfInterest != null) {
+            result = 31 * result + Double.hashCode(regionOfInterest.getX());
+            result = 31 * result + Double.hashCode(regionOfInterest.getY());
+            result = 31 * result + Double.hashCode(regionOfInterest.getWidth());
+            result = 31 * result + Double.hashCode(regionOfInterest.getHeight());
+        }
+        return result;
+    }
+
+    private static boolean sameRegion(OCRResult.BoundingBox a, OCRResult.BoundingBox b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getX() == b.getX() && a.getY() == b.getY()
+                && a.getWidth() == b.getWidth() && a.getHeight() == b.getHeight();
+    }
+
+    @Override
+    public String toString() {
+        return "RecognitionOptions{" +
+                "languages=" + languages +
+                ", level=" + level +
+                ", languageCorrection=" + languageCorrection +
+                (regionOfInterest != null ? ", regionOfInterest=" + regionOfInterest : "") +
+                '}';
+    }
+}
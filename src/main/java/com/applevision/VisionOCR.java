@@ -1,10 +1,20 @@
 package com.applevision;
 
 import com.applevision.util.NativeLibraryLoader;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
-public class VisionOCR {
+public class VisionOCR implements OCREngine {
     static {
         try {
             // 使用工具类加载本地库
@@ -23,8 +33,137 @@ public class VisionOCR {
      * @return 识别结果列表，包含文字内容及位置坐标
      * @throws RuntimeException 如果OCR过程中发生错误
      */
+    @Override
     public native List<OCRResult> recognizeText(String imagePath);
 
+    /**
+     * 批量识别多张图片中的文字
+     * 在一次本地调用中依次处理所有图片，省去逐张跨越JNI边界的开销
+     *
+     * @param imagePaths 图片路径列表
+     * @return 与输入顺序一一对应的识别结果列表
+     * @throws RuntimeException 如果任意一张图片识别失败
+     */
+    @Override
+    public List<List<OCRResult>> recognizeTextBatch(List<String> imagePaths) {
+        if (imagePaths.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return recognizeTextBatch(imagePaths.toArray(new String[0]));
+    }
+
+    private native List<List<OCRResult>> recognizeTextBatch(String[] imagePaths);
+
+    /**
+     * 识别图片中的文字，每得到一个文本块即交给consumer处理
+     * 本地代码不构建完整的结果列表，逐块创建OCRResult后立即回调，
+     * 下游处理可以与结果封送重叠进行，Java侧内存占用不随文本块数量增长
+     *
+     * @param imagePath 图片的路径
+     * @param consumer 文本块处理函数；抛出的异常会中止后续回调并传播给调用方
+     * @throws RuntimeException 如果OCR过程中发生错误
+     */
+    @Override
+    public void recognizeText(String imagePath, Consumer<OCRResult> consumer) {
+        recognizeTextEach(imagePath, consumer);
+    }
+
+    private native void recognizeTextEach(String imagePath, Consumer<OCRResult> consumer);
+
+    /**
+     * 识别已解码图像中的文字
+     * 像素数据直接交给本地代码构造CGImage，不经过临时文件和图像编码。
+     * 灰度及二值图像（如传真TIFF）以每像素1字节传递，其余图像转换为每像素4字节，
+     * 已是目标布局的不透明图像不做拷贝转换。本地代码忽略alpha通道，
+     * 带透明度的图像先合成到白色背景上，避免透明区域（如GIF画布的初始值）变成黑色而遮住深色文字。
+     *
+     * @param image 已解码的图像
+     * @return 识别结果列表，包含文字内容及位置坐标
+     * @throws RuntimeException 如果OCR过程中发生错误
+     */
+    @Override
+    public List<OCRResult> recognizeImage(BufferedImage image) {
+        boolean gray = image.getType() == BufferedImage.TYPE_BYTE_GRAY
+                || image.getType() == BufferedImage.TYPE_BYTE_BINARY
+                || image.getColorModel().getNumColorComponents() == 1;
+        int targetType = gray ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_4BYTE_ABGR;
+        int bytesPerPixel = gray ? 1 : 4;
+        boolean alpha = image.getColorModel().hasAlpha();
+
+        BufferedImage pixels = image;
+        if (alpha || image.getType() != targetType || !isCompactRaster(image.getRaster(), bytesPerPixel)) {
+            pixels = new BufferedImage(image.getWidth(), image.getHeight(), targetType);
+            Graphics2D graphics = pixels.createGraphics();
+            try {
+                if (alpha) {
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+                }
+                graphics.drawImage(image, 0, 0, null);
+            } finally {
+                graphics.dispose();
+            }
+        }
+        Raster raster = pixels.getRaster();
+        byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+        int bytesPerRow = ((ComponentSampleModel) raster.getSampleModel()).getScanlineStride();
+        return recognizePixels(data, pixels.getWidth(), pixels.getHeight(), bytesPerRow, bytesPerPixel);
+    }
+
+    /**
+     * 判断栅格数据是否从缓冲区起点开始连续存放（非子图像、单一数据块）
+     */
+    private static boolean isCompactRaster(Raster raster, int bytesPerPixel) {
+        if (!(raster.getDataBuffer() instanceof DataBufferByte)
+                || !(raster.getSampleModel() instanceof ComponentSampleModel)) {
+            return false;
+        }
+        DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+        ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+        return buffer.getNumBanks() == 1 && buffer.getOffset() == 0
+                && raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+                && sampleModel.getPixelStride() == bytesPerPixel
+                && sampleModel.getScanlineStride() >= raster.getWidth() * bytesPerPixel;
+    }
+
+    private native List<OCRResult> recognizePixels(byte[] pixels, int width, int height,
+                                                   int bytesPerRow, int bytesPerPixel);
+
+    /**
+     * 按指定选项识别图片中的文字
+     *
+     * @param imagePath 图片的路径
+     * @param options 识别语言、识别级别、语言校正和识别区域选项
+     * @return 识别结果列表，包含文字内容及位置坐标（相对于整张图像）
+     * @throws RuntimeException 如果OCR过程中发生错误
+     */
+    @Override
+    public List<OCRResult> recognizeText(String imagePath, RecognitionOptions options) {
+        OCRResult.BoundingBox roi = options.getRegionOfInterest();
+        if (roi == null) {
+            roi = new OCRResult.BoundingBox(0.0, 0.0, 1.0, 1.0);
+        }
+        return recognizeTextWithOptions(imagePath, options.getLanguages().toArray(new String[0]),
+                options.getLevel() == RecognitionOptions.Level.FAST, options.isLanguageCorrection(),
+                roi.getX(), roi.getY(), roi.getWidth(), roi.getHeight());
+    }
+
+    private native List<OCRResult> recognizeTextWithOptions(String imagePath, String[] languages,
+                                                            boolean fast, boolean languageCorrection,
+                                                            double roiX, double roiY,
+                                                            double roiWidth, double roiHeight);
+
+    /**
+     * 生成合成结果，不加载图像也不识别
+     * 本地代码生成 blockCount 个文本块（第i个为 "第&lt;i&gt;行 line &lt;i&gt; synthetic"），
+     * 按与识别结果相同的方式构造 OCRResult 返回，用于测量JNI绑定本身的开销。
+     * 不属于公开API，基准测试通过 {@link BindingDiagnostics} 调用
+     *
+     * @param blockCount 文本块数
+     * @return 合成的结果列表
+     */
+    native List<OCRResult> echoBlocks(int blockCount);
+
     /**
      * 使用指定语言识别图片中的文字
      *
@@ -33,7 +172,9 @@ public class VisionOCR {
      * @return 识别结果列表，包含文字内容及位置坐标
      * @throws RuntimeException 如果OCR过程中发生错误
      */
-    public native List<OCRResult> recognizeTextWithLanguage(String imagePath, String language);
+    public List<OCRResult> recognizeTextWithLanguage(String imagePath, String language) {
+        return recognizeText(imagePath, RecognitionOptions.forLanguages(Collections.singletonList(language)));
+    }
 
     /**
      * 识别图片中的文字并返回结果（带调试信息）
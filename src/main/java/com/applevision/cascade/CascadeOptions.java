@@ -0,0 +1,96 @@
+package com.applevision.cascade;
+
+import com.applevision.RecognitionOptions;
+
+/**
+ * 快速-精确级联识别的选项，不可变
+ */
+public final class CascadeOptions {
+    /** 默认选项：默认识别语言，置信度阈值0.8，区域向外扩展半个文本块高度，重识别面积超过一半时改为整张精确识别 */
+    public static final CascadeOptions DEFAULT = new CascadeOptions(RecognitionOptions.DEFAULT, 0.8, 0.5, 0.5);
+
+    private final RecognitionOptions recognition;
+    private final double confidenceThreshold;
+    private final double padding;
+    private final double maxRerunArea;
+
+    /**
+     * 构造函数
+     *
+     * @param recognition 识别语言和语言校正选项；识别级别由级联决定，识别区域被忽略
+     * @param confidenceThreshold 快速识别结果的置信度达到该值即保留，否则对其所在区域做精确识别
+     * @param padding 重识别区域在低置信度文本块四周扩展的距离，以该文本块的高度为单位
+     * @param maxRerunArea 重识别区域的总面积（占整张图像的比例）超过该值时，改为对整张图像做一次精确识别
+     */
+    public CascadeOptions(RecognitionOptions recognition, double confidenceThreshold, double padding,
+                          double maxRerunArea) {
+        if (recognition == null) {
+            throw new IllegalArgumentException("recognition must not be null");
+        }
+        if (confidenceThreshold < 0 || confidenceThreshold > 1) {
+            throw new IllegalArgumentException("confidenceThreshold must be in [0, 1]: " + confidenceThreshold);
+        }
+        if (padding < 0) {
+            throw new IllegalArgumentException("padding must not be negative: " + padding);
+        }
+        if (maxRerunArea < 0 || maxRerunArea > 1) {
+            throw new IllegalArgumentException("maxRerunArea must be in [0, 1]: " + maxRerunArea);
+        }
+        this.recognition = recognition.withRegionOfInterest(null);
+        this.confidenceThreshold = confidenceThreshold;
+        this.padding = padding;
+        this.maxRerunArea = maxRerunArea;
+    }
+
+    /**
+     * 获取识别语言和语言校正选项
+     */
+    public RecognitionOptions getRecognition() {
+        return recognition;
+    }
+
+    /**
+     * 获取置信度阈值
+     */
+    public double getConfidenceThreshold() {
+        return confidenceThreshold;
+    }
+
+    /**
+     * 获取重识别区域的扩展距离（以文本块高度为单位）
+     */
+    public double getPadding() {
+        return padding;
+    }
+
+    /**
+     * 获取改为整张精确识别的重识别面积比例
+     */
+    public double getMaxRerunArea() {
+        return maxRerunArea;
+    }
+
+    /**
+     * 返回仅置信度阈值不同的副本
+     */
+    public CascadeOptions withConfidenceThreshold(double confidenceThreshold) {
+        return new CascadeOptions(recognition, confidenceThreshold, padding, maxRerunArea);
+    }
+
+    /**
+     * 返回仅识别语言和语言校正选项不同的副本
+     */
+    public CascadeOptions withRecognition(RecognitionOptions recognition) {
+        return new CascadeOptions(recognition, confidenceThreshold, padding, maxRerunArea);
+    }
+
+    @Override
+    public String toString() {
+        return "CascadeOptions{" +
+                "recognition=" + recognition +
+                ", confidenceThreshold=" + confidenceThreshold +
+                ", padding=" + padding +
+                ", maxRerunArea=" + maxRerunArea +
+                '}';
+    }
+}
@@ -0,0 +1,323 @@
+package com.applevision.cascade;
+
+import com.applevision.OCREngine;
+import com.applevision.OCRResult;
+import com.applevision.RecognitionOptions;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 快速-精确级联识别
+ *
+ * 先以快速级别识别整张图像，置信度达到阈值的文本块直接保留；低置信度文本块向外扩展后合并为若干区域，
+ * 仅对这些区域（{@link RecognitionOptions#getRegionOfInterest()}）做精确识别，最后合并为一个结果列表。
+ * 快速与精确识别对同一行的分段可能不同（例如快速识别把一行拆成高、低置信度两块，精确识别返回整行），
+ * 因此按面积逐块决定：快速文本块（无论是否保留）的大部分面积被精确结果覆盖时，由这些精确结果取代；
+ * 精确结果大部分落在未被取代的快速文本块内时，视为其片段而丢弃；精确识别未覆盖的低置信度文本块仍保留快速结果。
+ * 重识别面积超过 {@link CascadeOptions#getMaxRerunArea()} 时直接对整张图像做一次精确识别。
+ *
+ * 节省的时间以整张精确识别的耗时为基线估计：整张精确识别（回退或校准）的耗时按指数加权平均，
+ * 每 calibrationInterval 张图像额外做一次校准（快速识别后对整张图像精确识别并返回其结果）。
+ * 基线假设图像大小相近。校准本身的快速识别是相对基线的额外开销，计为负的节省。
+ *
+ * 引擎需支持 {@link OCREngine#recognizeText(String, RecognitionOptions)} 的识别级别和识别区域，
+ * 否则级联没有意义。线程安全。
+ */
+public class CascadeRecognizer implements OCREngine {
+    /** 文本块被另一组文本块覆盖的面积超过其自身面积的该比例时视为重复 */
+    static final double DUPLICATE_OVERLAP = 0.5;
+    private static final double BASELINE_WEIGHT = 0.2;
+
+    private final OCREngine engine;
+    private final CascadeOptions defaultOptions;
+    private final int calibrationInterval;
+
+    private final AtomicLong images = new AtomicLong();
+    private final LongAdder fastOnlyImages = new LongAdder();
+    private final LongAdder regionImages = new LongAdder();
+    private final LongAdder fallbackImages = new LongAdder();
+    private final LongAdder calibrationImages = new LongAdder();
+    private final DoubleAdder rerunArea = new DoubleAdder();
+    private final LongAdder savedNanos = new LongAdder();
+    private final Object baselineLock = new Object();
+    private double baselineNanos;
+
+    /**
+     * 使用默认选项，每20张图像校准一次
+     *
+     * @param engine 识别引擎
+     */
+    public CascadeRecognizer(OCREngine engine) {
+        this(engine, CascadeOptions.DEFAULT, 20);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param engine 识别引擎
+     * @param defaultOptions {@link #recognizeText(String)} 使用的级联选项
+     * @param calibrationInterval 每多少张图像校准一次基线，0表示只在回退到整张精确识别时更新基线
+     */
+    public CascadeRecognizer(OCREngine engine, CascadeOptions defaultOptions, int calibrationInterval) {
+        if (engine == null || defaultOptions == null) {
+            throw new IllegalArgumentException("engine and defaultOptions must not be null");
+        }
+        if (calibrationInterval < 0) {
+            throw new IllegalArgumentException("calibrationInterval must not be negative: " + calibrationInterval);
+        }
+        this.engine = engine;
+        this.defaultOptions = defaultOptions;
+        this.calibrationInterval = calibrationInterval;
+    }
+
+    /**
+     * 使用默认级联选项识别
+     */
+    @Override
+    public List<OCRResult> recognizeText(String imagePath) {
+        return recognize(imagePath, defaultOptions).getResults();
+    }
+
+    /**
+     * 使用指定的识别语言和语言校正做级联识别；识别级别和识别区域由级联决定
+     */
+    @Override
+    public List<OCRResult> recognizeText(String imagePath, RecognitionOptions options) {
+        return recognize(imagePath, defaultOptions.withRecognition(options)).getResults();
+    }
+
+    /**
+     * 级联识别一张图像
+     *
+     * @param imagePath 图片的路径
+     * @param options 本次调用的阈值和识别选项
+     * @return 合并后的结果及统计
+     * @throws RuntimeException 如果OCR过程中发生错误
+     */
+    public CascadeResult recognize(String imagePath, CascadeOptions options) {
+        long sequence = images.incrementAndGet();
+        RecognitionOptions fast = options.getRecognition().withLevel(RecognitionOptions.Level.FAST);
+        RecognitionOptions accurate = options.getRecognition().withLevel(RecognitionOptions.Level.ACCURATE);
+
+        long start = System.nanoTime();
+        List<OCRResult> fastResults = engine.recognizeText(imagePath, fast);
+        long fastNanos = System.nanoTime() - start;
+
+        List<OCRResult> low = new ArrayList<>();
+        for (OCRResult result : fastResults) {
+            if (result.getConfidence() < options.getConfidenceThreshold()) {
+                low.add(result);
+            }
+        }
+
+        boolean calibrate = calibrationInterval > 0 && (sequence == 1 || sequence % calibrationInterval == 0);
+        List<double[]> regions = mergeRegions(low, options.getPadding());
+        double area = 0;
+        for (double[] region : regions) {
+            area += region[2] * region[3];
+        }
+
+        if (calibrate || area > options.getMaxRerunArea()) {
+            start = System.nanoTime();
+            List<OCRResult> results = new ArrayList<>(engine.recognizeText(imagePath, accurate));
+            long accurateNanos = System.nanoTime() - start;
+            long baseline = updateBaseline(accurateNanos);
+            sortReadingOrder(results);
+            CascadeResult.Mode mode = calibrate ? CascadeResult.Mode.CALIBRATION : CascadeResult.Mode.FULL_FALLBACK;
+            (calibrate ? calibrationImages : fallbackImages).increment();
+            rerunArea.add(1.0);
+            // 校准图像以本次整张精确识别的实测耗时为基线，多花的正是快速识别；回退图像同样多花了一次快速识别
+            long imageBaseline = calibrate ? accurateNanos : baseline;
+            savedNanos.add(imageBaseline - fastNanos - accurateNanos);
+            return new CascadeResult(results, mode, fastResults.size(), low.size(), 1, 1.0,
+                    fastNanos, accurateNanos, imageBaseline);
+        }
+
+        List<OCRResult> rerun = new ArrayList<>();
+        start = System.nanoTime();
+        for (double[] region : regions) {
+            OCRResult.BoundingBox roi = new OCRResult.BoundingBox(region[0], region[1], region[2], region[3]);
+            rerun.addAll(engine.recognizeText(imagePath, accurate.withRegionOfInterest(roi)));
+        }
+        long accurateNanos = System.nanoTime() - start;
+
+        List<OCRResult> results = merge(fastResults, rerun);
+        sortReadingOrder(results);
+
+        (regions.isEmpty() ? fastOnlyImages : regionImages).increment();
+        rerunArea.add(area);
+        long baseline = currentBaseline();
+        if (baseline > 0) {
+            savedNanos.add(baseline - fastNanos - accurateNanos);
+        }
+        return new CascadeResult(results,
+                regions.isEmpty() ? CascadeResult.Mode.FAST_ONLY : CascadeResult.Mode.REGIONS,
+                fastResults.size(), low.size(), regions.size(), area, fastNanos, accurateNanos, baseline);
+    }
+
+    /**
+     * 获取已识别的图像数
+     */
+    public long getImageCount() {
+        return images.get();
+    }
+
+    /**
+     * 获取快速识别结果全部达到阈值的图像数
+     */
+    public long getFastOnlyCount() {
+        return fastOnlyImages.sum();
+    }
+
+    /**
+     * 获取只对部分区域精确识别的图像数
+     */
+    public long getRegionRerunCount() {
+        return regionImages.sum();
+    }
+
+    /**
+     * 获取回退到整张精确识别的图像数
+     */
+    public long getFallbackCount() {
+        return fallbackImages.sum();
+    }
+
+    /**
+     * 获取校准的图像数
+     */
+    public long getCalibrationCount() {
+        return calibrationImages.sum();
+    }
+
+    /**
+     * 获取平均每张图像精确识别的面积比例（含回退和校准）
+     */
+    public double getAverageRerunArea() {
+        long count = images.get();
+        return count > 0 ? rerunArea.sum() / count : 0.0;
+    }
+
+    /**
+     * 获取累计估计节省的时间（毫秒），见 {@link CascadeResult#getEstimatedSavedNanos()}
+     */
+    public double getTotalSavedMillis() {
+        return savedNanos.sum() / 1e6;
+    }
+
+    /**
+     * 获取当前整张精确识别耗时的基线（毫秒），尚无基线时为0
+     */
+    public double getBaselineAccurateMillis() {
+        return currentBaseline() / 1e6;
+    }
+
+    private long updateBaseline(long accurateNanos) {
+        synchronized (baselineLock) {
+            baselineNanos = baselineNanos == 0 ? accurateNanos
+                    : baselineNanos + BASELINE_WEIGHT * (accurateNanos - baselineNanos);
+            return (long) baselineNanos;
+        }
+    }
+
+    private long currentBaseline() {
+        synchronized (baselineLock) {
+            return (long) baselineNanos;
+        }
+    }
+
+    /**
+     * 低置信度文本块向外扩展 padding 个文本块高度并裁剪到图像内，再把相交的区域反复合并，直到两两不相交
+     *
+     * @return 区域列表，每个区域为 {x, y, width, height}
+     */
+    static List<double[]> mergeRegions(List<OCRResult> blocks, double padding) {
+        List<double[]> regions = new ArrayList<>(blocks.size());
+        for (OCRResult block : blocks) {
+            OCRResult.BoundingBox box = block.getBoundingBox();
+            double pad = box.getHeight() * padding;
+            double minX = Math.max(0.0, box.getX() - pad);
+            double minY = Math.max(0.0, box.getY() - pad);
+            double maxX = Math.min(1.0, box.getMaxX() + pad);
+            double maxY = Math.min(1.0, box.getMaxY() + pad);
+            if (maxX > minX && maxY > minY) {
+                regions.add(new double[]{minX, minY, maxX - minX, maxY - minY});
+            }
+        }
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            for (int i = 0; i < regions.size() && !merged; i++) {
+                for (int j = i + 1; j < regions.size(); j++) {
+                    double[] a = regions.get(i);
+                    double[] b = regions.get(j);
+                    if (intersects(a[0], a[1], a[2], a[3], b[0], b[1], b[2], b[3])) {
+                        double minX = Math.min(a[0], b[0]);
+                        double minY = Math.min(a[1], b[1]);
+                        double maxX = Math.max(a[0] + a[2], b[0] + b[2]);
+                        double maxY = Math.max(a[1] + a[3], b[1] + b[3]);
+                        regions.set(i, new double[]{minX, minY, maxX - minX, maxY - minY});
+                        regions.remove(j);
+                        merged = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * 合并快速结果与区域精确结果
+     * 快速文本块被精确结果覆盖的面积过半时由精确结果取代，其余快速文本块保留；
+     * 精确结果落在保留的快速文本块内的面积过半时视为重复片段，其余精确结果加入
+     */
+    private static List<OCRResult> merge(List<OCRResult> fastResults, List<OCRResult> rerun) {
+        List<OCRResult> remaining = new ArrayList<>(fastResults.size());
+        for (OCRResult result : fastResults) {
+            if (!isCovered(result, rerun)) {
+                remaining.add(result);
+            }
+        }
+        List<OCRResult> results = new ArrayList<>(remaining);
+        for (OCRResult result : rerun) {
+            if (!isCovered(result, remaining)) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 文本块与一组文本块的相交面积之和是否超过其自身面积的 {@link #DUPLICATE_OVERLAP}
+     */
+    private static boolean isCovered(OCRResult result, List<OCRResult> others) {
+        OCRResult.BoundingBox box = result.getBoundingBox();
+        double covered = 0;
+        for (OCRResult other : others) {
+            covered += intersection(box, other.getBoundingBox());
+        }
+        return covered > DUPLICATE_OVERLAP * box.getWidth() * box.getHeight();
+    }
+
+    private static double intersection(OCRResult.BoundingBox a, OCRResult.BoundingBox b) {
+        double width = Math.min(a.getMaxX(), b.getMaxX()) - Math.max(a.getX(), b.getX());
+        double height = Math.min(a.getMaxY(), b.getMaxY()) - Math.max(a.getY(), b.getY());
+        return width > 0 && height > 0 ? width * height : 0.0;
+    }
+
+    private static boolean intersects(double ax, double ay, double aw, double ah,
+                                      double bx, double by, double bw, double bh) {
+        return ax < bx + bw && bx < ax + aw && ay < by + bh && by < ay + ah;
+    }
+
+    private static void sortReadingOrder(List<OCRResult> results) {
+        results.sort(Comparator.comparingDouble((OCRResult r) -> r.getBoundingBox().getY())
+                .thenComparingDouble(r -> r.getBoundingBox().getX()));
+    }
+}
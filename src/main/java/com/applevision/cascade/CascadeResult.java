@@ -0,0 +1,128 @@
+package com.applevision.cascade;
+
+import com.applevision.OCRResult;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一张图像的级联识别结果及统计
+ */
+public class CascadeResult {
+    /**
+     * 精确识别的方式
+     */
+    public enum Mode {
+        /** 快速识别的结果全部达到阈值，没有精确识别 */
+        FAST_ONLY,
+        /** 只对低置信度区域做了精确识别 */
+        REGIONS,
+        /** 重识别面积过大，对整张图像做了精确识别 */
+        FULL_FALLBACK,
+        /** 校准：对整张图像做了精确识别，用于估计节省的时间 */
+        CALIBRATION
+    }
+
+    private final List<OCRResult> results;
+    private final Mode mode;
+    private final int fastBlocks;
+    private final int lowConfidenceBlocks;
+    private final int regions;
+    private final double rerunArea;
+    private final long fastNanos;
+    private final long accurateNanos;
+    private final long baselineNanos;
+
+    CascadeResult(List<OCRResult> results, Mode mode, int fastBlocks, int lowConfidenceBlocks, int regions,
+                  double rerunArea, long fastNanos, long accurateNanos, long baselineNanos) {
+        this.results = Collections.unmodifiableList(results);
+        this.mode = mode;
+        this.fastBlocks = fastBlocks;
+        this.lowConfidenceBlocks = lowConfidenceBlocks;
+        this.regions = regions;
+        this.rerunArea = rerunArea;
+        this.fastNanos = fastNanos;
+        this.accurateNanos = accurateNanos;
+        this.baselineNanos = baselineNanos;
+    }
+
+    /**
+     * 获取合并后的识别结果，按从上到下、从左到右排列
+     */
+    public List<OCRResult> getResults() {
+        return results;
+    }
+
+    /**
+     * 获取精确识别的方式
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * 获取快速识别得到的文本块数
+     */
+    public int getFastBlockCount() {
+        return fastBlocks;
+    }
+
+    /**
+     * 获取置信度低于阈值的快速识别文本块数
+     */
+    public int getLowConfidenceBlockCount() {
+        return lowConfidenceBlocks;
+    }
+
+    /**
+     * 获取精确识别的区域数（整张精确识别时为1）
+     */
+    public int getRegionCount() {
+        return regions;
+    }
+
+    /**
+     * 获取精确识别的面积占整张图像的比例
+     */
+    public double getRerunArea() {
+        return rerunArea;
+    }
+
+    /**
+     * 获取快速识别耗时（纳秒）
+     */
+    public long getFastNanos() {
+        return fastNanos;
+    }
+
+    /**
+     * 获取精确识别耗时（纳秒）
+     */
+    public long getAccurateNanos() {
+        return accurateNanos;
+    }
+
+    /**
+     * 获取估计节省的时间（纳秒）
+     * 基线为不做级联、直接对整张图像精确识别一次的耗时，减去本次快速与精确识别的实际耗时，可能为负。
+     * 校准图像的基线取本次整张精确识别的实测耗时，节省即为负的快速识别耗时；
+     * 其他图像取近期整张精确识别耗时的指数加权平均，尚无基线时为0。
+     */
+    public long getEstimatedSavedNanos() {
+        return baselineNanos > 0 ? baselineNanos - fastNanos - accurateNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "CascadeResult{" +
+                "mode=" + mode +
+                ", blocks=" + results.size() +
+                ", lowConfidenceBlocks=" + lowConfidenceBlocks +
+                ", regions=" + regions +
+                ", rerunArea=" + String.format("%.3f", rerunArea) +
+                ", fastMillis=" + fastNanos / 1_000_000 +
+                ", accurateMillis=" + accurateNanos / 1_000_000 +
+                ", estimatedSavedMillis=" + getEstimatedSavedNanos() / 1_000_000 +
+                '}';
+    }
+}
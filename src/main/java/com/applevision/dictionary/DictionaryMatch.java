@@ -0,0 +1,97 @@
+package com.applevision.dictionary;
+
+import com.applevision.OCRResult;
+
+/**
+ * 文本块中的一处词典匹配：完全匹配的词条，或在编辑距离界限内纠正为词条的近似文本
+ */
+public class DictionaryMatch {
+    private final int start;
+    private final int end;
+    private final String text;
+    private final String term;
+    private final String category;
+    private final int editDistance;
+    private final OCRResult.BoundingBox boundingBox;
+
+    DictionaryMatch(int start, int end, String text, String term, String category, int editDistance,
+                    OCRResult.BoundingBox boundingBox) {
+        this.start = start;
+        this.end = end;
+        this.text = text;
+        this.term = term;
+        this.category = category;
+        this.editDistance = editDistance;
+        this.boundingBox = boundingBox;
+    }
+
+    /**
+     * 获取在文本块中的起始位置（包含）
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * 获取在文本块中的结束位置（不包含）
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * 获取文本块中被匹配的原文
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * 获取词典中的词条
+     */
+    public String getTerm() {
+        return term;
+    }
+
+    /**
+     * 获取词条的分类，词典未提供分类时为null
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * 获取原文与词条的编辑距离，完全匹配（不区分大小写和全半角）时为0
+     */
+    public int getEditDistance() {
+        return editDistance;
+    }
+
+    /**
+     * 是否为纠正（原文与词条不完全相同）
+     */
+    public boolean isCorrection() {
+        return editDistance > 0;
+    }
+
+    /**
+     * 获取匹配文本在图像中的估计位置
+     * 按字符宽度（宽字符计2、其他字符计1）从文本块的边界框中按比例截取，假定文本块为单行横排
+     */
+    public OCRResult.BoundingBox getBoundingBox() {
+        return boundingBox;
+    }
+
+    @Override
+    public String toString() {
+        return "DictionaryMatch{" +
+                "start=" + start +
+                ", end=" + end +
+                ", text='" + text + '\'' +
+                ", term='" + term + '\'' +
+                ", category=" + category +
+                ", editDistance=" + editDistance +
+                ", boundingBox=" + boundingBox +
+                '}';
+    }
+}
@@ -0,0 +1,371 @@
+package com.applevision.dictionary;
+
+import com.applevision.OCRResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 词典后处理
+ * 对识别结果逐个文本块做术语抽取和纠正，返回每处匹配在文本块中的位置和估计的边界框。
+ *
+ * 先用 {@link TermDictionary} 的Aho-Corasick自动机一遍扫描文本，取最左最长、互不重叠的词条；
+ * 以字母或数字开头（结尾）的词条要求前（后）一个字符不是字母或数字，避免匹配到单词内部，宽字符没有此限制。
+ * 然后把文本切分为词（连续的字母数字，窄字符词可包含 "-_./" 连接符，宽字符与窄字符分开）做纠正：
+ * <ul>
+ *   <li>没有完全匹配的词整体做有界编辑距离查找：每4个字符允许1处编辑，最多 maxEdits 处，
+ *       短于4个字符的词不纠正；包含空格的词条只能完全匹配。</li>
+ *   <li>中日韩文本通常不分词，一个宽字符词里可能连着多个词条和普通文字，整体查找很少能命中。
+ *       开启不分词纠正后改为在其中查找近似子串（{@link TermDictionary#findNearestSubstrings}）：
+ *       同样每4个字符允许1处编辑，短于4个字的词条只能完全匹配。候选按编辑距离从小到大、匹配的原文从长到短依次采纳，
+ *       与已采纳的纠正重叠的候选被丢弃。候选可以取代其范围内的完全匹配（例如 "超薄铁吸手机壳" 中完全匹配的
+ *       "手机壳"），条件是词条本身包含完全匹配的文本，且完全匹配之外的原文本身足以允许这些编辑（每4个字符1处）；
+ *       与完全匹配部分重叠的候选被丢弃。大词典上普通文字也常与某个词条只差一处，且查找耗时是抽取的上千倍，
+ *       因此默认关闭。</li>
+ * </ul>
+ * 线程安全。
+ */
+public class DictionaryPostProcessor {
+    private static final int CHARS_PER_EDIT = 4;
+    private static final String CONNECTORS = "-_./";
+    private static final int NONE = -1;
+
+    private final TermDictionary dictionary;
+    private final int maxEdits;
+    private final boolean unsegmentedCorrection;
+
+    private final LongAdder blocks = new LongAdder();
+    private final LongAdder exactMatches = new LongAdder();
+    private final LongAdder corrections = new LongAdder();
+
+    /**
+     * 构造函数（最多纠正2处编辑）
+     *
+     * @param dictionary 编译后的词典
+     */
+    public DictionaryPostProcessor(TermDictionary dictionary) {
+        this(dictionary, 2);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param dictionary 编译后的词典
+     * @param maxEdits 纠正时允许的最大编辑距离，0表示只做完全匹配
+     */
+    public DictionaryPostProcessor(TermDictionary dictionary, int maxEdits) {
+        this(dictionary, maxEdits, false);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param dictionary 编译后的词典
+     * @param maxEdits 纠正时允许的最大编辑距离，0表示只做完全匹配
+     * @param unsegmentedCorrection 是否在不分词的中日韩文本中查找近似子串；false时宽字符词与窄字符词一样整体纠正
+     */
+    public DictionaryPostProcessor(TermDictionary dictionary, int maxEdits, boolean unsegmentedCorrection) {
+        if (dictionary == null) {
+            throw new IllegalArgumentException("dictionary must not be null");
+        }
+        if (maxEdits < 0) {
+            throw new IllegalArgumentException("maxEdits must not be negative: " + maxEdits);
+        }
+        this.dictionary = dictionary;
+        this.maxEdits = maxEdits;
+        this.unsegmentedCorrection = unsegmentedCorrection;
+    }
+
+    /**
+     * 处理一个文本块
+     *
+     * @param block 识别结果中的文本块
+     * @return 按起始位置排序的匹配列表
+     */
+    public List<DictionaryMatch> process(OCRResult block) {
+        String text = block.getText();
+        int length = text.length();
+        int[] longestEnd = new int[length];
+        int[] longestId = new int[length];
+        dictionary.match(text, (start, end, termId) -> {
+            if (end > longestEnd[start] && isBoundary(text, start, end)) {
+                longestEnd[start] = end;
+                longestId[start] = termId;
+            }
+        });
+
+        List<DictionaryMatch> matches = new ArrayList<>();
+        int[] exactAt = new int[length];
+        Arrays.fill(exactAt, -1);
+        for (int i = 0; i < length; ) {
+            int end = longestEnd[i];
+            if (end == 0) {
+                i++;
+                continue;
+            }
+            for (int j = i; j < end; j++) {
+                exactAt[j] = matches.size();
+            }
+            matches.add(newMatch(block, i, end, longestId[i], 0));
+            i = end;
+        }
+
+        int exact = matches.size();
+        List<DictionaryMatch> corrected = new ArrayList<>();
+        if (maxEdits > 0) {
+            List<int[]> candidates = new ArrayList<>();
+            for (int start = 0; start < length; ) {
+                int end = tokenEnd(text, start);
+                if (end == start) {
+                    start++;
+                    continue;
+                }
+                if (unsegmentedCorrection && TermDictionary.isWide(TermDictionary.fold(text.charAt(start)))) {
+                    candidates.addAll(dictionary.findNearestSubstrings(text, start, end, maxEdits, CHARS_PER_EDIT));
+                } else {
+                    int edits = Math.min(maxEdits, (end - start) / CHARS_PER_EDIT);
+                    if (edits > 0 && exactIn(exactAt, start, end) == NONE) {
+                        long found = dictionary.nearest(text.substring(start, end), edits);
+                        if (found >= 0) {
+                            corrected.add(newMatch(block, start, end, (int) found, (int) (found >>> 32)));
+                        }
+                    }
+                }
+                start = end;
+            }
+            if (!candidates.isEmpty()) {
+                exact -= acceptCandidates(block, candidates, matches, exactAt, corrected);
+            }
+        }
+
+        if (!corrected.isEmpty()) {
+            List<DictionaryMatch> merged = new ArrayList<>(exact + corrected.size());
+            for (DictionaryMatch match : matches) {
+                if (match != null) {
+                    merged.add(match);
+                }
+            }
+            merged.addAll(corrected);
+            merged.sort(Comparator.comparingInt(DictionaryMatch::getStart));
+            matches = merged;
+        }
+
+        blocks.increment();
+        exactMatches.add(exact);
+        corrections.add(corrected.size());
+        return matches;
+    }
+
+    /**
+     * 按编辑距离从小到大、匹配的原文从长到短、位置从前到后依次采纳宽字符文本中的近似子串
+     * 被取代的完全匹配在 matches 中置为null
+     *
+     * @return 被取代的完全匹配数
+     */
+    private int acceptCandidates(OCRResult block, List<int[]> candidates, List<DictionaryMatch> matches,
+                                 int[] exactAt, List<DictionaryMatch> corrected) {
+        candidates.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0])
+                : a[3] - a[2] != b[3] - b[2] ? Integer.compare(b[3] - b[2], a[3] - a[2])
+                : Integer.compare(a[2], b[2]));
+        String text = block.getText();
+        boolean[] taken = new boolean[text.length()];
+        int replaced = 0;
+        for (int[] candidate : candidates) {
+            int start = candidate[2];
+            int end = candidate[3];
+            if (anyTaken(taken, start, end)
+                    || !replacesExact(candidate[1], candidate[0], start, end, matches, exactAt)) {
+                continue;
+            }
+            for (int i = start; i < end; i++) {
+                taken[i] = true;
+                if (exactAt[i] != NONE && matches.get(exactAt[i]) != null) {
+                    matches.set(exactAt[i], null);
+                    replaced++;
+                }
+            }
+            corrected.add(newMatch(block, start, end, candidate[1], candidate[0]));
+        }
+        return replaced;
+    }
+
+    /**
+     * 候选范围内的完全匹配都完整地落在范围内、其文本都是候选词条的一部分，
+     * 且完全匹配之外的原文本身足以允许这些编辑（每4个字符1处）
+     */
+    private boolean replacesExact(int termId, int editDistance, int start, int end, List<DictionaryMatch> matches,
+                                  int[] exactAt) {
+        if ((start > 0 && exactAt[start] != NONE && exactAt[start - 1] == exactAt[start])
+                || (end < exactAt.length && exactAt[end - 1] != NONE && exactAt[end] == exactAt[end - 1])) {
+            return false;
+        }
+        String term = null;
+        int exactLength = 0;
+        for (int i = start; i < end; i++) {
+            if (exactAt[i] == NONE || (i > start && exactAt[i] == exactAt[i - 1])) {
+                continue;
+            }
+            DictionaryMatch exact = matches.get(exactAt[i]);
+            if (exact == null) {
+                return false;
+            }
+            if (term == null) {
+                term = TermDictionary.fold(dictionary.getTerm(termId));
+            }
+            if (!term.contains(TermDictionary.fold(exact.getText()))) {
+                return false;
+            }
+            exactLength += exact.getEnd() - exact.getStart();
+        }
+        return exactLength == 0 || end - start - exactLength >= CHARS_PER_EDIT * editDistance;
+    }
+
+    /**
+     * 逐个处理文本块
+     *
+     * @param blocks 识别结果
+     * @return 与输入一一对应的匹配列表
+     */
+    public List<List<DictionaryMatch>> process(List<OCRResult> blocks) {
+        List<List<DictionaryMatch>> results = new ArrayList<>(blocks.size());
+        for (OCRResult block : blocks) {
+            results.add(process(block));
+        }
+        return results;
+    }
+
+    /**
+     * 用词典中的词条替换文本块中被纠正的原文
+     *
+     * @param block 文本块
+     * @param matches 该文本块的匹配列表（按起始位置排序）
+     * @return 纠正后的文本块，置信度和边界框不变；没有纠正时返回原对象
+     */
+    public static OCRResult applyCorrections(OCRResult block, List<DictionaryMatch> matches) {
+        StringBuilder text = null;
+        int copied = 0;
+        for (DictionaryMatch match : matches) {
+            if (!match.isCorrection()) {
+                continue;
+            }
+            if (text == null) {
+                text = new StringBuilder(block.getText().length() + 16);
+            }
+            text.append(block.getText(), copied, match.getStart()).append(match.getTerm());
+            copied = match.getEnd();
+        }
+        if (text == null) {
+            return block;
+        }
+        text.append(block.getText(), copied, block.getText().length());
+        return new OCRResult(text.toString(), block.getConfidence(), block.getBoundingBox());
+    }
+
+    /**
+     * 获取已处理的文本块数
+     */
+    public long getBlockCount() {
+        return blocks.sum();
+    }
+
+    /**
+     * 获取完全匹配的次数
+     */
+    public long getExactMatchCount() {
+        return exactMatches.sum();
+    }
+
+    /**
+     * 获取纠正的次数
+     */
+    public long getCorrectionCount() {
+        return corrections.sum();
+    }
+
+    private DictionaryMatch newMatch(OCRResult block, int start, int end, int termId, int editDistance) {
+        String text = block.getText();
+        return new DictionaryMatch(start, end, text.substring(start, end), dictionary.getTerm(termId),
+                dictionary.getCategory(termId), editDistance, spanBox(block.getBoundingBox(), text, start, end));
+    }
+
+    /**
+     * 按字符宽度（宽字符计2、其他字符计1）从单行文本块的边界框中截取 [start, end) 的部分
+     */
+    static OCRResult.BoundingBox spanBox(OCRResult.BoundingBox box, String text, int start, int end) {
+        if (box == null) {
+            return null;
+        }
+        int before = 0;
+        int span = 0;
+        int total = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int width = TermDictionary.isWide(TermDictionary.fold(text.charAt(i))) ? 2 : 1;
+            total += width;
+            if (i < start) {
+                before += width;
+            } else if (i < end) {
+                span += width;
+            }
+        }
+        return new OCRResult.BoundingBox(box.getX() + box.getWidth() * before / total, box.getY(),
+                box.getWidth() * span / total, box.getHeight());
+    }
+
+    /**
+     * 从 start 开始的词的结束位置；start 处不是字母或数字时返回 start
+     */
+    private static int tokenEnd(String text, int start) {
+        char first = TermDictionary.fold(text.charAt(start));
+        if (!Character.isLetterOrDigit(first)) {
+            return start;
+        }
+        boolean wide = TermDictionary.isWide(first);
+        int end = start + 1;
+        while (end < text.length()) {
+            char c = TermDictionary.fold(text.charAt(end));
+            if (Character.isLetterOrDigit(c) && TermDictionary.isWide(c) == wide) {
+                end++;
+            } else if (!wide && CONNECTORS.indexOf(c) >= 0 && end + 1 < text.length()
+                    && isWordChar(text.charAt(end + 1))) {
+                end += 2;
+            } else {
+                break;
+            }
+        }
+        return end;
+    }
+
+    private static boolean isBoundary(String text, int start, int end) {
+        return !(start > 0 && isWordChar(text.charAt(start)) && isWordChar(text.charAt(start - 1)))
+                && !(end < text.length() && isWordChar(text.charAt(end - 1)) && isWordChar(text.charAt(end)));
+    }
+
+    private static boolean isWordChar(char c) {
+        c = TermDictionary.fold(c);
+        return Character.isLetterOrDigit(c) && !TermDictionary.isWide(c);
+    }
+
+    /**
+     * 范围内第一个完全匹配的下标，没有时返回 {@link #NONE}
+     */
+    private static int exactIn(int[] exactAt, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (exactAt[i] != NONE) {
+                return exactAt[i];
+            }
+        }
+        return NONE;
+    }
+
+    private static boolean anyTaken(boolean[] taken, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (taken[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,564 @@
+package com.applevision.dictionary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译后的词典
+ *
+ * 词条按规范化形式（{@link #fold(char)}：ASCII不区分大小写，全角ASCII视为半角）排序后编译为一棵字典树，
+ * 状态按广度优先顺序编号，同一状态的子状态编号连续，因此只用几个平行数组表示，不为每个状态创建对象：
+ * 边的字符、子状态区间起点、失败链接和输出。字典树加上失败链接即为Aho-Corasick自动机，
+ * 一遍扫描即可找出文本中出现的全部词条（{@link #match}）；同一棵字典树也用于有界编辑距离查找
+ * （{@link #findNearest}），按深度优先遍历逐行计算编辑距离矩阵，某行最小值超出界限时剪掉整棵子树。
+ * 不分词的中日韩文本用同一遍历做近似子串查找（{@link #findNearestSubstrings}）：矩阵首行全为0，
+ * 词条可以从文本的任意位置开始、在任意位置结束，每个单元格同时记录其最优对齐的起始位置。
+ *
+ * 规范化逐字符进行、不改变长度，匹配位置可以直接对应到原文本。不可变，线程安全。
+ */
+public final class TermDictionary {
+    private static final int ROOT = 0;
+    /** 近似子串查找中查询字符集合的位图字数（按字符低12位索引） */
+    private static final int CHAR_MASK_WORDS = 64;
+    /** 从该字符起视为宽字符（中日韩文字、全角符号等），编辑距离查找中不与窄字符互相替换 */
+    private static final char WIDE_START = '⺀';
+
+    /**
+     * 匹配回调
+     */
+    public interface MatchHandler {
+        /**
+         * 找到一个词条时调用
+         *
+         * @param start 词条在文本中的起始位置（包含）
+         * @param end 词条在文本中的结束位置（不包含）
+         * @param termId 词条编号
+         */
+        void onMatch(int start, int end, int termId);
+    }
+
+    private final String[] terms;
+    private final String[] categories;
+    private final char[] labels;
+    private final int[] firstChild;
+    private final int[] fail;
+    private final int[] output;
+    private final int[] outputLink;
+    private final int[] rootNext = new int[Character.MAX_VALUE + 1];
+    private final int maxTermLength;
+
+    /**
+     * 构造函数
+     * 规范化后相同的词条只保留最先出现的一个
+     *
+     * @param terms 词条，不能为空字符串
+     * @param categories 与词条一一对应的分类（如 SKU、公司名），为null时所有词条的分类均为null
+     */
+    public TermDictionary(List<String> terms, List<String> categories) {
+        if (categories != null && categories.size() != terms.size()) {
+            throw new IllegalArgumentException("terms and categories must have the same size: "
+                    + terms.size() + " != " + categories.size());
+        }
+        Map<String, Integer> firstIndex = new HashMap<>(terms.size() * 4 / 3 + 1);
+        List<String> keys = new ArrayList<>(terms.size());
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            if (term == null || term.isEmpty()) {
+                throw new IllegalArgumentException("Empty term at index " + i);
+            }
+            String key = fold(term);
+            if (firstIndex.putIfAbsent(key, i) == null) {
+                keys.add(key);
+            }
+        }
+        String[] sorted = keys.toArray(new String[0]);
+        Arrays.sort(sorted);
+
+        int count = sorted.length;
+        this.terms = new String[count];
+        this.categories = new String[count];
+        int states = 1;
+        int maxLength = 0;
+        for (int id = 0; id < count; id++) {
+            int source = firstIndex.get(sorted[id]);
+            this.terms[id] = terms.get(source);
+            this.categories[id] = categories == null ? null : categories.get(source);
+            int length = sorted[id].length();
+            states += length - (id == 0 ? 0 : commonPrefix(sorted[id - 1], sorted[id]));
+            maxLength = Math.max(maxLength, length);
+        }
+        this.maxTermLength = maxLength;
+
+        labels = new char[states];
+        firstChild = new int[states + 1];
+        fail = new int[states];
+        output = new int[states];
+        outputLink = new int[states];
+        // 构建期间每个状态对应的有序词条区间和深度
+        int[] low = new int[states];
+        int[] high = new int[states];
+        int[] depth = new int[states];
+        high[ROOT] = count;
+        output[ROOT] = -1;
+        int next = 1;
+        for (int state = 0; state < states; state++) {
+            firstChild[state] = next;
+            int d = depth[state];
+            int i = low[state];
+            if (state != ROOT && sorted[i].length() == d) {
+                // 以该状态结束的词条排在区间最前面
+                i++;
+            }
+            while (i < high[state]) {
+                char c = sorted[i].charAt(d);
+                int j = i + 1;
+                while (j < high[state] && sorted[j].charAt(d) == c) {
+                    j++;
+                }
+                labels[next] = c;
+                low[next] = i;
+                high[next] = j;
+                depth[next] = d + 1;
+                output[next] = sorted[i].length() == d + 1 ? i : -1;
+                if (state == ROOT) {
+                    rootNext[c] = next;
+                    fail[next] = ROOT;
+                } else {
+                    // 失败目标的深度更小，编号更小，其子状态已经建立
+                    fail[next] = step(fail[state], c);
+                }
+                next++;
+                i = j;
+            }
+        }
+        firstChild[states] = next;
+        outputLink[ROOT] = -1;
+        for (int state = 1; state < states; state++) {
+            int target = fail[state];
+            outputLink[state] = output[target] >= 0 ? target : outputLink[target];
+        }
+    }
+
+    /**
+     * 从UTF-8文本文件加载词典
+     * 每行一个词条，可用制表符分隔词条和分类；空行被忽略
+     *
+     * @param file 词典文件
+     * @return 编译后的词典
+     * @throws IOException 读取失败时抛出
+     */
+    public static TermDictionary load(Path file) throws IOException {
+        List<String> terms = new ArrayList<>();
+        List<String> categories = new ArrayList<>();
+        Map<String, String> interned = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                int tab = line.indexOf('\t');
+                terms.add(tab < 0 ? line : line.substring(0, tab));
+                String category = tab < 0 ? null : line.substring(tab + 1);
+                categories.add(category == null ? null : interned.computeIfAbsent(category, c -> c));
+            }
+        }
+        return new TermDictionary(terms, categories);
+    }
+
+    /**
+     * 获取词条数（去重后）
+     */
+    public int size() {
+        return terms.length;
+    }
+
+    /**
+     * 获取自动机的状态数
+     */
+    public int getStateCount() {
+        return labels.length;
+    }
+
+    /**
+     * 获取词条的原始形式
+     *
+     * @param termId 词条编号
+     */
+    public String getTerm(int termId) {
+        return terms[termId];
+    }
+
+    /**
+     * 获取词条的分类
+     *
+     * @param termId 词条编号
+     */
+    public String getCategory(int termId) {
+        return categories[termId];
+    }
+
+    /**
+     * 查找与文本（规范化后）完全相同的词条
+     *
+     * @param text 文本
+     * @return 词条编号，不存在时返回-1
+     */
+    public int find(CharSequence text) {
+        int state = ROOT;
+        for (int i = 0; i < text.length() && state >= 0; i++) {
+            char c = fold(text.charAt(i));
+            state = state == ROOT ? (rootNext[c] == ROOT ? -1 : rootNext[c]) : findChild(state, c);
+        }
+        return state > ROOT ? output[state] : -1;
+    }
+
+    /**
+     * 一遍扫描找出文本中出现的全部词条，包括相互重叠的词条
+     * 同一结束位置的多个词条按从长到短的顺序回调
+     *
+     * @param text 文本
+     * @param handler 匹配回调
+     */
+    public void match(CharSequence text, MatchHandler handler) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, fold(text.charAt(i)));
+            for (int s = output[state] >= 0 ? state : outputLink[state]; s >= 0; s = outputLink[s]) {
+                int termId = output[s];
+                handler.onMatch(i + 1 - terms[termId].length(), i + 1, termId);
+            }
+        }
+    }
+
+    /**
+     * 查找编辑距离（插入、删除、替换各计1）最小且不超过 maxEdits 的词条
+     * 距离相同时取规范化形式字典序最小的词条。宽字符与窄字符之间不互相替换，
+     * 只含窄字符的文本不会匹配到含宽字符的词条，反之亦然。
+     *
+     * @param text 文本
+     * @param maxEdits 最大编辑距离
+     * @return 词条编号，没有符合条件的词条时返回-1
+     */
+    public int findNearest(CharSequence text, int maxEdits) {
+        long found = nearest(text, maxEdits);
+        return found < 0 ? -1 : (int) found;
+    }
+
+    /**
+     * 有界编辑距离查找
+     *
+     * @return 高32位为编辑距离、低32位为词条编号；没有符合条件的词条时返回-1
+     */
+    long nearest(CharSequence text, int maxEdits) {
+        if (maxEdits < 0) {
+            throw new IllegalArgumentException("maxEdits must not be negative: " + maxEdits);
+        }
+        int length = text.length();
+        if (length == 0 || length - maxEdits > maxTermLength) {
+            return -1;
+        }
+        NearestSearch search = new NearestSearch(text, maxEdits, Math.min(maxTermLength, length + maxEdits));
+        search.visit(ROOT, 0);
+        return search.bestId < 0 ? -1 : ((long) search.best << 32) | search.bestId;
+    }
+
+    /**
+     * 在文本中查找与词条近似的子串，用于没有空格分词的中日韩文本
+     * 词条可以从文本的任意位置开始、在任意位置结束。长度为L的词条最多允许
+     * min(maxEdits, L / charsPerEdit) 处编辑，短于 charsPerEdit 的词条不参与；近似匹配的原文至少2个字符。
+     * 同一词条的相邻结束位置只报告编辑距离最小的一处（距离相同时取靠后的结束位置），
+     * 只报告编辑距离大于0的候选，完全匹配由 {@link #match} 负责。宽字符与窄字符之间不互相替换。
+     *
+     * @param text 文本
+     * @param start 查找范围的起点（包含）
+     * @param end 查找范围的终点（不包含）
+     * @param maxEdits 最大编辑距离
+     * @param charsPerEdit 每多少个字符允许1处编辑
+     * @return 候选列表，每项为 {编辑距离, 词条编号, 起始位置, 结束位置}，位置相对于整个文本
+     */
+    public List<int[]> findNearestSubstrings(CharSequence text, int start, int end, int maxEdits, int charsPerEdit) {
+        if (maxEdits < 0 || charsPerEdit < 1) {
+            throw new IllegalArgumentException("Invalid edit budget: maxEdits=" + maxEdits
+                    + ", charsPerEdit=" + charsPerEdit);
+        }
+        if (start < 0 || end > text.length() || start > end) {
+            throw new IndexOutOfBoundsException("Invalid range [" + start + ", " + end + ") for length "
+                    + text.length());
+        }
+        List<int[]> found = new ArrayList<>();
+        if (end - start < 2 || maxEdits == 0) {
+            return found;
+        }
+        SubstringSearch search = new SubstringSearch(text, start, end, maxEdits, charsPerEdit, found);
+        if (search.limit > 0) {
+            search.visit(ROOT, 0, 0);
+        }
+        return found;
+    }
+
+    /**
+     * 规范化一个字符：ASCII大写字母转为小写，全角ASCII转为半角，全角空格转为空格
+     */
+    public static char fold(char c) {
+        if (c >= '！' && c <= '～') {
+            c = (char) (c - 0xFEE0);
+        } else if (c == '　') {
+            return ' ';
+        }
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * 按字符规范化字符串，长度不变
+     */
+    public static String fold(CharSequence text) {
+        char[] chars = new char[text.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(text.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 是否为宽字符（中日韩文字、全角符号等）
+     */
+    static boolean isWide(char c) {
+        return c >= WIDE_START;
+    }
+
+    private int step(int state, char c) {
+        while (state != ROOT) {
+            int child = findChild(state, c);
+            if (child >= 0) {
+                return child;
+            }
+            state = fail[state];
+        }
+        return rootNext[c];
+    }
+
+    private int findChild(int state, char c) {
+        int low = firstChild[state];
+        int high = firstChild[state + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char label = labels[mid];
+            if (label < c) {
+                low = mid + 1;
+            } else if (label > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static int commonPrefix(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < n && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 一次有界编辑距离查找的状态：rows[d] 为深度 d 的字典树前缀与查询文本各前缀之间的编辑距离
+     */
+    private final class NearestSearch {
+        private final char[] query;
+        private final int[][] rows;
+        private final boolean hasWide;
+        private final boolean hasNarrow;
+        private int best;
+        private int bestId = -1;
+
+        NearestSearch(CharSequence text, int maxEdits, int maxDepth) {
+            query = new char[text.length()];
+            boolean wide = false;
+            boolean narrow = false;
+            for (int i = 0; i < query.length; i++) {
+                query[i] = fold(text.charAt(i));
+                if (isWide(query[i])) {
+                    wide = true;
+                } else {
+                    narrow = true;
+                }
+            }
+            hasWide = wide;
+            hasNarrow = narrow;
+            rows = new int[maxDepth + 1][query.length + 1];
+            for (int j = 0; j <= query.length; j++) {
+                rows[0][j] = j;
+            }
+            // 只接受严格小于 best 的结果，初始为界限加1
+            best = maxEdits + 1;
+        }
+
+        void visit(int state, int depth) {
+            if (depth + 1 >= rows.length) {
+                return;
+            }
+            int[] previous = rows[depth];
+            int[] row = rows[depth + 1];
+            int m = query.length;
+            for (int child = firstChild[state], end = firstChild[state + 1]; child < end; child++) {
+                char c = labels[child];
+                if (isWide(c) ? !hasWide : !hasNarrow) {
+                    continue;
+                }
+                row[0] = depth + 1;
+                int rowMin = row[0];
+                for (int j = 1; j <= m; j++) {
+                    int cost = query[j - 1] == c ? 0 : 1;
+                    int value = Math.min(Math.min(previous[j] + 1, row[j - 1] + 1), previous[j - 1] + cost);
+                    row[j] = value;
+                    if (value < rowMin) {
+                        rowMin = value;
+                    }
+                }
+                if (output[child] >= 0 && row[m] < best) {
+                    best = row[m];
+                    bestId = output[child];
+                }
+                if (rowMin < best) {
+                    visit(child, depth + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * 一次近似子串查找的状态：rows[d][j] 为深度 d 的字典树前缀与以查询第 j 个字符结尾的最优子串之间的编辑距离，
+     * starts[d][j] 为该子串的起始位置（相对于查询）
+     */
+    private final class SubstringSearch {
+        private final char[] query;
+        private final int offset;
+        private final int maxEdits;
+        private final int charsPerEdit;
+        private final int limit;
+        private final long[] charMask = new long[CHAR_MASK_WORDS];
+        private final int[][] rows;
+        private final int[][] starts;
+        private final boolean hasWide;
+        private final boolean hasNarrow;
+        private final List<int[]> found;
+
+        SubstringSearch(CharSequence text, int start, int end, int maxEdits, int charsPerEdit, List<int[]> found) {
+            query = new char[end - start];
+            boolean wide = false;
+            boolean narrow = false;
+            for (int i = 0; i < query.length; i++) {
+                query[i] = fold(text.charAt(start + i));
+                charMask[(query[i] >>> 6) & (CHAR_MASK_WORDS - 1)] |= 1L << query[i];
+                if (isWide(query[i])) {
+                    wide = true;
+                } else {
+                    narrow = true;
+                }
+            }
+            hasWide = wide;
+            hasNarrow = narrow;
+            this.offset = start;
+            this.maxEdits = maxEdits;
+            this.charsPerEdit = charsPerEdit;
+            this.found = found;
+            // 长度为L的词条至少要对齐 L - allowed(L) 个字符，超出查询长度的词条不可能匹配；
+            // 可能匹配的最长词条决定遍历深度，其允许的编辑数决定剪枝界限
+            int maxDepth = 0;
+            int maxAllowed = 0;
+            for (int length = 2; length <= Math.min(maxTermLength, query.length + maxEdits); length++) {
+                if (length - allowed(length) <= query.length) {
+                    maxDepth = length;
+                    maxAllowed = Math.max(maxAllowed, allowed(length));
+                }
+            }
+            limit = maxAllowed;
+            rows = new int[maxDepth + 1][query.length + 1];
+            starts = new int[maxDepth + 1][query.length + 1];
+            // 首行全为0：词条之前的文本不计编辑
+            for (int j = 0; j <= query.length; j++) {
+                starts[0][j] = j;
+            }
+        }
+
+        void visit(int state, int depth, int parentMin) {
+            if (depth + 1 >= rows.length) {
+                return;
+            }
+            int[] previous = rows[depth];
+            int[] previousStart = starts[depth];
+            int[] row = rows[depth + 1];
+            int[] rowStart = starts[depth + 1];
+            int m = query.length;
+            for (int child = firstChild[state], end = firstChild[state + 1]; child < end; child++) {
+                char c = labels[child];
+                if (isWide(c) ? !hasWide : !hasNarrow) {
+                    continue;
+                }
+                // 不在查询中出现的字符使每个单元格都比上一行的最小值至少大1
+                if (parentMin >= limit && (charMask[(c >>> 6) & (CHAR_MASK_WORDS - 1)] & (1L << c)) == 0) {
+                    continue;
+                }
+                row[0] = depth + 1;
+                rowStart[0] = 0;
+                int rowMin = row[0];
+                for (int j = 1; j <= m; j++) {
+                    // 距离相同时取起始位置靠后的对齐，使匹配的原文尽量短
+                    int value = previous[j - 1] + (query[j - 1] == c ? 0 : 1);
+                    int from = previousStart[j - 1];
+                    if (previous[j] + 1 < value || (previous[j] + 1 == value && previousStart[j] > from)) {
+                        value = previous[j] + 1;
+                        from = previousStart[j];
+                    }
+                    if (row[j - 1] + 1 < value || (row[j - 1] + 1 == value && rowStart[j - 1] > from)) {
+                        value = row[j - 1] + 1;
+                        from = rowStart[j - 1];
+                    }
+                    row[j] = value;
+                    rowStart[j] = from;
+                    if (value < rowMin) {
+                        rowMin = value;
+                    }
+                }
+                if (output[child] >= 0) {
+                    report(output[child], depth + 1, row, rowStart);
+                }
+                if (rowMin <= limit) {
+                    visit(child, depth + 1, rowMin);
+                }
+            }
+        }
+
+        private int allowed(int length) {
+            return Math.min(maxEdits, length / charsPerEdit);
+        }
+
+        private void report(int termId, int length, int[] row, int[] rowStart) {
+            int allowed = allowed(length);
+            if (allowed == 0) {
+                return;
+            }
+            int m = query.length;
+            for (int j = 2; j <= m; j++) {
+                int value = row[j];
+                // 只在局部最小处报告：向后延伸一个字符距离变大，向前缩短一个字符距离不变小
+                if (value > 0 && value <= allowed && value <= row[j - 1] && (j == m || value < row[j + 1])
+                        && j - rowStart[j] >= 2) {
+                    found.add(new int[]{value, termId, offset + rowStart[j], offset + j});
+                }
+            }
+        }
+    }
+}
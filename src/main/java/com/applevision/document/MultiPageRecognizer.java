@@ -0,0 +1,466 @@
+package com.applevision.document;
+
+import com.applevision.OCREngine;
+import com.applevision.OCRResult;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 多页文档识别器
+ * 通过 {@link ImageReader} 在Java侧枚举多页TIFF的各页或动画GIF的各帧，
+ * 并行解码和识别，按页码顺序返回每页的识别结果。
+ *
+ * <ul>
+ *   <li>并行：TIFF等可随机访问的格式由每个工作线程各自打开一个读取器，按页码递增顺序领取页面，
+ *       解码与识别都在工作线程上进行；GIF帧依赖前一帧的画布，由调用线程顺序解码合成，识别并行进行</li>
+ *   <li>内存预算：解码前按页面尺寸估算解码及像素转换所需内存并从预算中预留，识别完成后归还，
+ *       同时在途的页面总内存不超过预算（单页超过预算时独占全部预算）</li>
+ *   <li>有序重组：页面完成顺序不确定，结果先放入重排缓冲区，
+ *       一旦从首页开始的连续前缀完成即按页码顺序交给 {@link PageListener}</li>
+ * </ul>
+ */
+public class MultiPageRecognizer implements AutoCloseable {
+    private static final long PERMIT_BYTES = 1024;
+    private static final String GIF_IMAGE_FORMAT = "javax_imageio_gif_image_1.0";
+    private static final String GIF_STREAM_FORMAT = "javax_imageio_gif_stream_1.0";
+
+    private final OCREngine engine;
+    private final int parallelism;
+    private final long memoryBudgetBytes;
+    private final int budgetPermits;
+    private final Semaphore memoryBudget;
+    private final ExecutorService executor;
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final AtomicLong peakReservedBytes = new AtomicLong();
+
+    /**
+     * 页面完成监听器
+     */
+    public interface PageListener {
+        /**
+         * 某页识别完成时调用
+         * 按页码递增顺序调用，不会并发调用；抛出的异常会中止整个文档的识别
+         *
+         * @param pageIndex 页码（从0开始）
+         * @param results 该页的识别结果
+         */
+        void onPage(int pageIndex, List<OCRResult> results);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param engine 执行识别的引擎，需支持多线程并发调用
+     * @param parallelism 并行处理的页面数
+     * @param memoryBudgetBytes 在途页面解码内存的上限（字节）
+     */
+    public MultiPageRecognizer(OCREngine engine, int parallelism, long memoryBudgetBytes) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        if (memoryBudgetBytes < PERMIT_BYTES) {
+            throw new IllegalArgumentException("memoryBudgetBytes must be at least " + PERMIT_BYTES);
+        }
+        this.engine = engine;
+        this.parallelism = parallelism;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.budgetPermits = (int) Math.min(Integer.MAX_VALUE, memoryBudgetBytes / PERMIT_BYTES);
+        this.memoryBudget = new Semaphore(budgetPermits, true);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "multi-page-ocr-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 获取文档的页数（动画图像为帧数）
+     *
+     * @param file 文档文件
+     * @return 页数
+     * @throws IOException 如果文件无法读取或格式不受支持
+     */
+    public static int getPageCount(File file) throws IOException {
+        try (ImageInputStream input = openStream(file)) {
+            ImageReader reader = createReader(input, file);
+            try {
+                return reader.getNumImages(true);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 识别文档的所有页面
+     *
+     * @param file 文档文件（多页TIFF、动画GIF或任意ImageIO可读的单页图像）
+     * @return 按页码排列的识别结果
+     * @throws IOException 如果文件无法读取或某页解码失败
+     * @throws RuntimeException 如果某页识别失败
+     */
+    public List<List<OCRResult>> recognize(File file) throws IOException {
+        return recognize(file, null);
+    }
+
+    /**
+     * 识别文档的所有页面，每当从首页开始的连续页面完成即按页码顺序回调
+     *
+     * @param file 文档文件（多页TIFF、动画GIF或任意ImageIO可读的单页图像）
+     * @param listener 页面完成监听器，可为null
+     * @return 按页码排列的识别结果
+     * @throws IOException 如果文件无法读取或某页解码失败
+     * @throws RuntimeException 如果某页识别失败
+     */
+    public List<List<OCRResult>> recognize(File file, PageListener listener) throws IOException {
+        List<PageInfo> pages;
+        boolean sequentialFrames;
+        try (ImageInputStream input = openStream(file)) {
+            ImageReader reader = createReader(input, file);
+            try {
+                sequentialFrames = "gif".equalsIgnoreCase(reader.getFormatName());
+                pages = describePages(reader, sequentialFrames);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        PageCollector collector = new PageCollector(pages.size(), listener);
+        if (pages.isEmpty()) {
+            return collector.results();
+        }
+        if (sequentialFrames) {
+            recognizeFrames(file, pages, collector);
+        } else {
+            recognizePages(file, pages, collector);
+        }
+        return collector.results();
+    }
+
+    /**
+     * 获取在途页面预留内存的峰值（字节）
+     */
+    public long getPeakReservedBytes() {
+        return peakReservedBytes.get();
+    }
+
+    /**
+     * 获取内存预算（字节）
+     */
+    public long getMemoryBudgetBytes() {
+        return memoryBudgetBytes;
+    }
+
+    /**
+     * 关闭识别器，释放工作线程
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 可随机访问的格式：工作线程各自打开读取器，按页码顺序领取页面并解码、识别
+     */
+    private void recognizePages(File file, List<PageInfo> pages, PageCollector collector) throws IOException {
+        AtomicInteger nextPage = new AtomicInteger();
+        int workers = Math.min(parallelism, pages.size());
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            futures.add(executor.submit(() -> {
+                try (ImageInputStream input = openStream(file)) {
+                    ImageReader reader = createReader(input, file);
+                    try {
+                        int pageIndex;
+                        while (!collector.isFailed() && (pageIndex = nextPage.getAndIncrement()) < pages.size()) {
+                            PageInfo page = pages.get(pageIndex);
+                            int permits = reserve(page);
+                            try {
+                                BufferedImage image = reader.read(pageIndex);
+                                collector.complete(pageIndex, engine.recognizeImage(image));
+                            } finally {
+                                release(permits);
+                            }
+                        }
+                    } finally {
+                        reader.dispose();
+                    }
+                } catch (IOException | RuntimeException | Error e) {
+                    // 立即记录失败，其他工作线程不再领取新页面
+                    collector.fail(e);
+                    throw e;
+                }
+                return null;
+            }));
+        }
+        awaitAll(futures, collector);
+    }
+
+    /**
+     * 动画GIF：帧是在前一帧画布上的增量，由调用线程顺序解码并合成完整画面，识别交给工作线程
+     */
+    private void recognizeFrames(File file, List<PageInfo> pages, PageCollector collector) throws IOException {
+        List<Future<?>> futures = new ArrayList<>(pages.size());
+        try (ImageInputStream input = openStream(file)) {
+            ImageReader reader = createReader(input, file);
+            try {
+                int[] screen = gifScreenSize(reader);
+                BufferedImage canvas = new BufferedImage(screen[0], screen[1], BufferedImage.TYPE_4BYTE_ABGR);
+                for (int frameIndex = 0; frameIndex < pages.size() && !collector.isFailed(); frameIndex++) {
+                    IIOMetadataNode frameMetadata = gifFrameMetadata(reader, frameIndex);
+                    int left = intAttribute(frameMetadata, "ImageDescriptor", "imageLeftPosition", 0);
+                    int top = intAttribute(frameMetadata, "ImageDescriptor", "imageTopPosition", 0);
+                    String disposal = stringAttribute(frameMetadata, "GraphicControlExtension", "disposalMethod", "none");
+
+                    int permits = reserve(pages.get(frameIndex));
+                    BufferedImage frame;
+                    BufferedImage snapshot;
+                    BufferedImage previous = "restoreToPrevious".equals(disposal) ? copyOf(canvas) : null;
+                    try {
+                        frame = reader.read(frameIndex);
+                        Graphics2D graphics = canvas.createGraphics();
+                        try {
+                            graphics.drawImage(frame, left, top, null);
+                        } finally {
+                            graphics.dispose();
+                        }
+                        snapshot = copyOf(canvas);
+                    } catch (IOException | RuntimeException e) {
+                        release(permits);
+                        throw e;
+                    }
+
+                    int pageIndex = frameIndex;
+                    futures.add(executor.submit(() -> {
+                        try {
+                            collector.complete(pageIndex, engine.recognizeImage(snapshot));
+                        } catch (RuntimeException | Error e) {
+                            collector.fail(e);
+                            throw e;
+                        } finally {
+                            release(permits);
+                        }
+                        return null;
+                    }));
+
+                    // 按处置方式为下一帧准备画布
+                    if ("restoreToBackgroundColor".equals(disposal)) {
+                        Graphics2D graphics = canvas.createGraphics();
+                        try {
+                            graphics.setComposite(AlphaComposite.Clear);
+                            graphics.fillRect(left, top, frame.getWidth(), frame.getHeight());
+                        } finally {
+                            graphics.dispose();
+                        }
+                    } else if (previous != null) {
+                        canvas = previous;
+                    }
+                }
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            collector.fail(e);
+        }
+        awaitAll(futures, collector);
+    }
+
+    /**
+     * 读取每页的尺寸并估算解码所需内存
+     */
+    private List<PageInfo> describePages(ImageReader reader, boolean sequentialFrames) throws IOException {
+        int pageCount = reader.getNumImages(true);
+        List<PageInfo> pages = new ArrayList<>(pageCount);
+        int[] screen = sequentialFrames ? gifScreenSize(reader) : null;
+        for (int i = 0; i < pageCount; i++) {
+            long pixels = (long) reader.getWidth(i) * reader.getHeight(i);
+            long bytes;
+            if (sequentialFrames) {
+                // 解码帧、画布快照及识别前的像素转换
+                long screenPixels = (long) screen[0] * screen[1];
+                bytes = pixels * 4 + screenPixels * 4 * 2;
+            } else {
+                ImageTypeSpecifier type = reader.getRawImageType(i);
+                int bitsPerPixel = type != null ? type.getColorModel().getPixelSize() : 32;
+                // 二值图像（如传真页）按灰度转换
+                boolean gray = type != null && (bitsPerPixel == 1 || type.getColorModel().getNumColorComponents() == 1);
+                // 解码结果，加上识别前转换为灰度或四通道像素的拷贝
+                bytes = (pixels * bitsPerPixel + 7) / 8 + pixels * (gray ? 1 : 4);
+            }
+            pages.add(new PageInfo(bytes));
+        }
+        return pages;
+    }
+
+    private int reserve(PageInfo page) {
+        int permits = (int) Math.min(budgetPermits, Math.max(1, (page.estimatedBytes + PERMIT_BYTES - 1) / PERMIT_BYTES));
+        memoryBudget.acquireUninterruptibly(permits);
+        long reserved = reservedBytes.addAndGet(permits * PERMIT_BYTES);
+        peakReservedBytes.accumulateAndGet(reserved, Math::max);
+        return permits;
+    }
+
+    private void release(int permits) {
+        reservedBytes.addAndGet(-permits * PERMIT_BYTES);
+        memoryBudget.release(permits);
+    }
+
+    /**
+     * 等待所有任务结束，出现失败时抛出第一个失败
+     */
+    private static void awaitAll(List<Future<?>> futures, PageCollector collector) throws IOException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                collector.fail(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                collector.fail(e);
+                for (Future<?> f : futures) {
+                    f.cancel(true);
+                }
+                break;
+            }
+        }
+        Throwable failure = collector.failure();
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new RuntimeException("Document recognition failed", failure);
+        }
+    }
+
+    private static ImageInputStream openStream(File file) throws IOException {
+        ImageInputStream input = ImageIO.createImageInputStream(file);
+        if (input == null) {
+            throw new IOException("Cannot open image file: " + file);
+        }
+        return input;
+    }
+
+    private static ImageReader createReader(ImageInputStream input, File file) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            input.close();
+            throw new IOException("Unsupported image format: " + file);
+        }
+        ImageReader reader = readers.next();
+        reader.setInput(input, false, false);
+        return reader;
+    }
+
+    private static int[] gifScreenSize(ImageReader reader) throws IOException {
+        IIOMetadata streamMetadata = reader.getStreamMetadata();
+        if (streamMetadata != null) {
+            IIOMetadataNode root = (IIOMetadataNode) streamMetadata.getAsTree(GIF_STREAM_FORMAT);
+            int width = intAttribute(root, "LogicalScreenDescriptor", "logicalScreenWidth", 0);
+            int height = intAttribute(root, "LogicalScreenDescriptor", "logicalScreenHeight", 0);
+            if (width > 0 && height > 0) {
+                return new int[]{width, height};
+            }
+        }
+        return new int[]{reader.getWidth(0), reader.getHeight(0)};
+    }
+
+    private static IIOMetadataNode gifFrameMetadata(ImageReader reader, int frameIndex) throws IOException {
+        return (IIOMetadataNode) reader.getImageMetadata(frameIndex).getAsTree(GIF_IMAGE_FORMAT);
+    }
+
+    private static String stringAttribute(IIOMetadataNode root, String element, String attribute, String defaultValue) {
+        if (root == null || root.getElementsByTagName(element).getLength() == 0) {
+            return defaultValue;
+        }
+        IIOMetadataNode node = (IIOMetadataNode) root.getElementsByTagName(element).item(0);
+        String value = node.getAttribute(attribute);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    private static int intAttribute(IIOMetadataNode root, String element, String attribute, int defaultValue) {
+        String value = stringAttribute(root, element, attribute, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static BufferedImage copyOf(BufferedImage image) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
+        image.copyData(copy.getRaster());
+        return copy;
+    }
+
+    private static final class PageInfo {
+        final long estimatedBytes;
+
+        PageInfo(long estimatedBytes) {
+            this.estimatedBytes = estimatedBytes;
+        }
+    }
+
+    /**
+     * 重排缓冲区：收集乱序完成的页面，按页码顺序交付连续前缀
+     */
+    private static final class PageCollector {
+        private final List<List<OCRResult>> pages;
+        private final PageListener listener;
+        private int nextToDeliver = 0;
+        private volatile Throwable failure;
+
+        PageCollector(int pageCount, PageListener listener) {
+            this.pages = new ArrayList<>(Collections.nCopies(pageCount, null));
+            this.listener = listener;
+        }
+
+        synchronized void complete(int pageIndex, List<OCRResult> results) {
+            pages.set(pageIndex, results);
+            while (nextToDeliver < pages.size() && pages.get(nextToDeliver) != null && failure == null) {
+                if (listener != null) {
+                    listener.onPage(nextToDeliver, pages.get(nextToDeliver));
+                }
+                nextToDeliver++;
+            }
+        }
+
+        synchronized void fail(Throwable t) {
+            if (failure == null) {
+                failure = t;
+            }
+        }
+
+        boolean isFailed() {
+            return failure != null;
+        }
+
+        Throwable failure() {
+            return failure;
+        }
+
+        synchronized List<List<OCRResult>> results() {
+            return new ArrayList<>(pages);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.applevision.example;
+
+import com.applevision.OCREngine;
+import com.applevision.OCRResult;
+import com.applevision.scheduler.AdaptiveConcurrencyLimiter;
+import com.applevision.util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 自适应并发限制示例
+ *
+ * 使用一个有隐藏容量的模拟引擎：同时执行的调用数不超过容量时每次调用耗时固定，
+ * 超出容量的调用在引擎内部排队，并且每多一个超额调用，所有调用的处理时间都增加一定比例（模拟内存压力和争用），
+ * 因此过载时吞吐反而下降、延迟急剧上升。
+ *
+ * 固定数量的客户端线程不间断地发送请求（闭环），分别测量：直接调用引擎、按已知容量固定限制、
+ * {@link AdaptiveConcurrencyLimiter} 自适应限制、自适应限制加有界排队（超出时拒绝）四种情况下的
+ * 吞吐和延迟。每轮中间三分之一的时间内引擎容量减半（模拟同机的其他任务占用资源），
+ * 输出限制随时间的变化。
+ *
+ * 用法:
+ *   java AdaptiveConcurrencyExample [客户端线程数] [每轮秒数] [隐藏容量]
+ */
+public class AdaptiveConcurrencyExample {
+    private static final long BASE_LATENCY_MICROS = 5_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        System.out.println("客户端线程: " + clients + "，隐藏容量: " + capacity
+                + "，单次调用耗时: " + BASE_LATENCY_MICROS / 1000 + " ms");
+        System.out.println();
+
+        CapacityEngine engine = new CapacityEngine(capacity);
+        run("直接调用引擎", engine, engine, clients, seconds, null);
+
+        engine = new CapacityEngine(capacity);
+        AdaptiveConcurrencyLimiter fixed = new AdaptiveConcurrencyLimiter(engine, capacity, capacity, capacity,
+                1.5, Integer.MAX_VALUE, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        run("按初始容量固定限制 " + capacity, fixed, engine, clients, seconds, fixed);
+
+        engine = new CapacityEngine(capacity);
+        AdaptiveConcurrencyLimiter adaptive = new AdaptiveConcurrencyLimiter(engine, 256);
+        run("自适应限制", adaptive, engine, clients, seconds, adaptive);
+
+        engine = new CapacityEngine(capacity);
+        AdaptiveConcurrencyLimiter bounded = new AdaptiveConcurrencyLimiter(engine, 1, 1, 256,
+                1.25, clients / 4, 20, TimeUnit.MILLISECONDS);
+        run("自适应限制，最多排队 " + clients / 4 + " 个、最长 20 ms", bounded, engine, clients, seconds, bounded);
+    }
+
+    private static void run(String name, OCREngine target, CapacityEngine engine, int clients, int seconds,
+                            AdaptiveConcurrencyLimiter limiter) throws InterruptedException {
+        System.out.println("== " + name + " ==");
+        int capacity = engine.getCapacity();
+        LimitRange range = new LimitRange();
+        if (limiter != null) {
+            limiter.addLimitListener(range);
+        }
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder succeeded = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        long durationNanos = TimeUnit.SECONDS.toNanos(seconds);
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            String path = "client-" + i + ".png";
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    long begin = System.nanoTime();
+                    try {
+                        target.recognizeText(path);
+                        latency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin));
+                        succeeded.increment();
+                    } catch (RejectedExecutionException e) {
+                        rejected.increment();
+                        // 被拒绝的客户端稍后重试
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+                    }
+                }
+            }, "client-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+
+        StringBuilder timeline = new StringBuilder();
+        long tick = durationNanos / 12;
+        for (int step = 1; step <= 12; step++) {
+            LockSupport.parkNanos(start + step * tick - System.nanoTime());
+            if (step == 4) {
+                engine.setCapacity(Math.max(1, capacity / 2));
+            } else if (step == 8) {
+                engine.setCapacity(capacity);
+            }
+            if (limiter != null) {
+                timeline.append(String.format(Locale.ROOT, " %d/%d", limiter.getLimit(), engine.getCapacity()));
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf(Locale.ROOT, "吞吐: %.0f 次/秒，拒绝: %d%n", succeeded.sum() / elapsed, rejected.sum());
+        System.out.printf(Locale.ROOT, "端到端延迟 p50 %.1f ms，p99 %.1f ms；引擎耗时 p50 %.1f ms，p99 %.1f ms%n",
+                latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(99) / 1000.0,
+                engine.getServiceTime().getValueAtPercentile(50) / 1000.0,
+                engine.getServiceTime().getValueAtPercentile(99) / 1000.0);
+        if (limiter != null) {
+            System.out.println("限制/容量（每 " + TimeUnit.NANOSECONDS.toMillis(tick) + " ms）:" + timeline);
+            System.out.printf(Locale.ROOT, "当前限制 %d，上调 %d 次，下调 %d 次，范围 %s，基线延迟 %.1f ms%n",
+                    limiter.getLimit(), limiter.getLimitIncreaseCount(), limiter.getLimitDecreaseCount(),
+                    range, limiter.getBaselineLatencyMicros() / 1000.0);
+            System.out.printf(Locale.ROOT, "排队 %d 次，排队等待 p99 %.1f ms，排队已满拒绝 %d，排队超时拒绝 %d%n",
+                    limiter.getQueuedCount(), limiter.getQueueWaitHistogram().getValueAtPercentile(99) / 1000.0,
+                    limiter.getRejectedQueueFullCount(), limiter.getRejectedTimeoutCount());
+            limiter.close();
+        }
+        System.out.println();
+    }
+
+    /**
+     * 通过 {@link AdaptiveConcurrencyLimiter.LimitListener} 记录限制的取值范围
+     */
+    private static class LimitRange implements AdaptiveConcurrencyLimiter.LimitListener {
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+
+        @Override
+        public synchronized void onLimitChange(int previousLimit, int newLimit, long windowLatencyMicros,
+                                               long baselineLatencyMicros) {
+            min = Math.min(min, Math.min(previousLimit, newLimit));
+            max = Math.max(max, Math.max(previousLimit, newLimit));
+        }
+
+        @Override
+        public synchronized String toString() {
+            return min > max ? "-" : min + "-" + max;
+        }
+    }
+
+    /**
+     * 有隐藏容量的模拟引擎
+     * 同时最多 capacity 个调用在处理，其余在引擎内部排队；
+     * 处理时间随在途调用中超出容量的部分线性增加
+     */
+    static class CapacityEngine implements OCREngine {
+        private static final double OVERLOAD_PENALTY = 0.02;
+
+        private final LatencyHistogram serviceTime = new LatencyHistogram();
+        private int capacity;
+        private int running;
+        private int inFlight;
+
+        CapacityEngine(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized void setCapacity(int capacity) {
+            this.capacity = capacity;
+            notifyAll();
+        }
+
+        synchronized int getCapacity() {
+            return capacity;
+        }
+
+        LatencyHistogram getServiceTime() {
+            return serviceTime;
+        }
+
+        @Override
+        public List<OCRResult> recognizeText(String imagePath) {
+            long start = System.nanoTime();
+            int overload;
+            synchronized (this) {
+                inFlight++;
+                try {
+                    while (running >= capacity) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    inFlight--;
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted", e);
+                }
+                running++;
+                overload = Math.max(0, inFlight - capacity);
+            }
+            try {
+                sleepMicros((long) (BASE_LATENCY_MICROS * (1 + OVERLOAD_PENALTY * overload)));
+            } finally {
+                synchronized (this) {
+                    running--;
+                    inFlight--;
+                    notifyAll();
+                }
+            }
+            serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            return Collections.singletonList(
+                    new OCRResult(imagePath, 0.99, new OCRResult.BoundingBox(0.1, 0.1, 0.8, 0.1)));
+        }
+
+        private static void sleepMicros(long micros) {
+            long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(micros);
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+    }
+}
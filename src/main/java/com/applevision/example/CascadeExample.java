@@ -0,0 +1,234 @@
+package com.applevision.example;
+
+import com.applevision.OCREngine;
+import com.applevision.OCRResult;
+import com.applevision.RecognitionOptions;
+import com.applevision.VisionOCR;
+import com.applevision.cascade.CascadeOptions;
+import com.applevision.cascade.CascadeRecognizer;
+import com.applevision.cascade.CascadeResult;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 快速-精确级联识别示例
+ *
+ * simulated 模式：模拟每页30行文本、约15%的行快速识别不可靠的文档，对比整张精确识别与
+ * {@link CascadeRecognizer} 的耗时和正确行数，并比较估计节省时间与实测节省时间。
+ * 模拟引擎中精确识别的耗时与识别面积成正比，快速识别的耗时约为整张精确识别的五分之一。
+ * 另有约10%的行快速识别与精确识别分段不同：快速识别把一行拆成可靠的前半段和不可靠的后半段，
+ * 精确识别返回整行。一行只有在合并结果中按从左到右拼接恰好等于原文时才算正确，重复或丢失文字都算错误。
+ *
+ * vision 模式：对目录中的图片逐张做级联识别，输出每张图像的重识别面积和估计节省的时间。
+ *
+ * 用法:
+ *   java CascadeExample [simulated [页数] [置信度阈值]]
+ *   java CascadeExample vision &lt;图片目录&gt; [置信度阈值]
+ */
+public class CascadeExample {
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "simulated";
+        if ("vision".equals(mode)) {
+            if (args.length < 2) {
+                System.out.println("使用方法: java CascadeExample vision <图片目录> [置信度阈值]");
+                System.exit(1);
+            }
+            double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.8;
+            runVision(new File(args[1]), CascadeOptions.DEFAULT.withConfidenceThreshold(threshold));
+            return;
+        }
+        int pages = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.8;
+        runSimulated(pages, CascadeOptions.DEFAULT.withConfidenceThreshold(threshold));
+    }
+
+    private static void runSimulated(int pages, CascadeOptions options) {
+        SimulatedPageEngine engine = new SimulatedPageEngine();
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < pages; i++) {
+            paths.add("page-" + i + ".png");
+        }
+
+        long start = System.nanoTime();
+        int correct = 0;
+        for (String path : paths) {
+            correct += engine.countCorrect(path, engine.recognizeText(path, RecognitionOptions.DEFAULT));
+        }
+        long accurateNanos = System.nanoTime() - start;
+
+        CascadeRecognizer cascade = new CascadeRecognizer(engine, options, 20);
+        start = System.nanoTime();
+        int cascadeCorrect = 0;
+        for (String path : paths) {
+            cascadeCorrect += engine.countCorrect(path, cascade.recognize(path, options).getResults());
+        }
+        long cascadeNanos = System.nanoTime() - start;
+
+        int lines = pages * SimulatedPageEngine.LINES;
+        int split = 0;
+        for (String path : paths) {
+            split += engine.countSplitLines(path);
+        }
+        System.out.println("页数: " + pages + "，置信度阈值: " + options.getConfidenceThreshold()
+                + "，快速与精确分段不同的行: " + split);
+        System.out.printf(Locale.ROOT, "整张精确识别: %8.0f ms，正确行 %d / %d%n", accurateNanos / 1e6, correct, lines);
+        System.out.printf(Locale.ROOT, "级联识别:     %8.0f ms，正确行 %d / %d%n", cascadeNanos / 1e6, cascadeCorrect, lines);
+        printStats(cascade);
+        System.out.printf(Locale.ROOT, "实测节省: %.0f ms（%.0f%%）%n", (accurateNanos - cascadeNanos) / 1e6,
+                100.0 * (accurateNanos - cascadeNanos) / accurateNanos);
+    }
+
+    private static void runVision(File directory, CascadeOptions options) {
+        File[] files = directory.listFiles(File::isFile);
+        if (files == null || files.length == 0) {
+            System.err.println("错误：目录中没有文件: " + directory);
+            System.exit(1);
+            return;
+        }
+        Arrays.sort(files);
+        CascadeRecognizer cascade = new CascadeRecognizer(new VisionOCR(), options, 20);
+        for (File file : files) {
+            try {
+                CascadeResult result = cascade.recognize(file.getAbsolutePath(), options);
+                System.out.println(file.getName() + ": " + result);
+            } catch (RuntimeException e) {
+                System.out.println(file.getName() + " 识别失败: " + e.getMessage());
+            }
+        }
+        printStats(cascade);
+    }
+
+    private static void printStats(CascadeRecognizer cascade) {
+        System.out.printf(Locale.ROOT, "级联统计: 仅快速 %d，区域重识别 %d，整张回退 %d，校准 %d，平均重识别面积 %.1f%%%n",
+                cascade.getFastOnlyCount(), cascade.getRegionRerunCount(), cascade.getFallbackCount(),
+                cascade.getCalibrationCount(), cascade.getAverageRerunArea() * 100);
+        System.out.printf(Locale.ROOT, "整张精确识别基线: %.1f ms，估计节省: %.0f ms%n",
+                cascade.getBaselineAccurateMillis(), cascade.getTotalSavedMillis());
+    }
+
+    /**
+     * 模拟页面识别引擎
+     * 每页的文本行由路径决定；快速识别对难以识别的行给出低置信度的错误文本，对分段不同的行给出
+     * 高置信度的前半段和低置信度的错误后半段。精确识别返回与识别区域相交的整行，
+     * 耗时为固定开销加上与识别区域面积成正比的部分。
+     */
+    static class SimulatedPageEngine implements OCREngine {
+        static final int LINES = 30;
+        private static final double HARD_LINES = 0.15;
+        private static final double SPLIT_LINES = 0.1;
+        private static final double LINE_PITCH = 0.03;
+        private static final long FAST_MICROS = 1_000;
+        private static final long ACCURATE_OVERHEAD_MICROS = 300;
+        private static final long ACCURATE_FULL_PAGE_MICROS = 5_000;
+
+        @Override
+        public List<OCRResult> recognizeText(String imagePath) {
+            return recognizeText(imagePath, RecognitionOptions.DEFAULT);
+        }
+
+        @Override
+        public List<OCRResult> recognizeText(String imagePath, RecognitionOptions options) {
+            OCRResult.BoundingBox roi = options.getRegionOfInterest();
+            if (roi == null) {
+                roi = new OCRResult.BoundingBox(0, 0, 1, 1);
+            }
+            boolean fast = options.getLevel() == RecognitionOptions.Level.FAST;
+            sleepMicros(fast ? FAST_MICROS
+                    : ACCURATE_OVERHEAD_MICROS + (long) (ACCURATE_FULL_PAGE_MICROS * roi.getWidth() * roi.getHeight()));
+
+            Random random = new Random(imagePath.hashCode());
+            List<OCRResult> results = new ArrayList<>();
+            for (int line = 0; line < LINES; line++) {
+                double width = 0.4 + random.nextDouble() * 0.45;
+                double kind = random.nextDouble();
+                OCRResult.BoundingBox box = lineBox(line, width);
+                if (box.getX() >= roi.getMaxX() || box.getMaxX() <= roi.getX()
+                        || box.getY() >= roi.getMaxY() || box.getMaxY() <= roi.getY()) {
+                    continue;
+                }
+                String text = expected(imagePath, line);
+                if (fast && kind < HARD_LINES) {
+                    results.add(new OCRResult("l1ne-" + line + "?", 0.3, box));
+                } else if (fast && kind < HARD_LINES + SPLIT_LINES) {
+                    // 前半段可靠，后半段不可靠
+                    int cut = text.length() / 2;
+                    double cutX = box.getX() + box.getWidth() * cut / text.length();
+                    results.add(new OCRResult(text.substring(0, cut), 1.0,
+                            new OCRResult.BoundingBox(box.getX(), box.getY(), cutX - box.getX(), box.getHeight())));
+                    results.add(new OCRResult("?" + line, 0.3,
+                            new OCRResult.BoundingBox(cutX, box.getY(), box.getMaxX() - cutX, box.getHeight())));
+                } else {
+                    results.add(new OCRResult(text, fast ? 1.0 : 0.95, box));
+                }
+            }
+            return results;
+        }
+
+        int countSplitLines(String imagePath) {
+            Random random = new Random(imagePath.hashCode());
+            int split = 0;
+            for (int line = 0; line < LINES; line++) {
+                random.nextDouble();
+                double kind = random.nextDouble();
+                if (kind >= HARD_LINES && kind < HARD_LINES + SPLIT_LINES) {
+                    split++;
+                }
+            }
+            return split;
+        }
+
+        /**
+         * 每行的文本块按从左到右拼接，恰好等于原文的行数
+         */
+        int countCorrect(String imagePath, List<OCRResult> results) {
+            List<List<OCRResult>> rows = new ArrayList<>();
+            for (int line = 0; line < LINES; line++) {
+                rows.add(new ArrayList<>());
+            }
+            for (OCRResult result : results) {
+                int line = (int) Math.round((result.getBoundingBox().getY() - lineBox(0, 1).getY()) / LINE_PITCH);
+                if (line >= 0 && line < LINES) {
+                    rows.get(line).add(result);
+                }
+            }
+            int correct = 0;
+            for (int line = 0; line < LINES; line++) {
+                List<OCRResult> row = rows.get(line);
+                row.sort(Comparator.comparingDouble(r -> r.getBoundingBox().getX()));
+                StringBuilder text = new StringBuilder();
+                for (OCRResult result : row) {
+                    text.append(result.getText());
+                }
+                if (text.toString().equals(expected(imagePath, line))) {
+                    correct++;
+                }
+            }
+            return correct;
+        }
+
+        private static OCRResult.BoundingBox lineBox(int line, double width) {
+            return new OCRResult.BoundingBox(0.08, 0.04 + line * LINE_PITCH, width, 0.018);
+        }
+
+        private static String expected(String imagePath, int line) {
+            return imagePath + " line-" + line;
+        }
+
+        private static void sleepMicros(long micros) {
+            long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(micros);
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+    }
+}
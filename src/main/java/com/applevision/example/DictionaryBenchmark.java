@@ -0,0 +1,507 @@
+package com.applevision.example;
+
+import com.applevision.OCRResult;
+import com.applevision.dictionary.DictionaryMatch;
+import com.applevision.dictionary.DictionaryPostProcessor;
+import com.applevision.dictionary.TermDictionary;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 词典后处理基准测试
+ *
+ * 生成包含SKU、公司名和中文商品词（含2-3个字的短词条）的大词典，以及模拟识别结果的文本块：
+ * 每个文本块在普通词之间嵌入1-2个词条，部分词条带有一处OCR常见的字符混淆（O/0、I/1、S/5、B/8、Z/2，中文词条替换一个字）。
+ * 另有一组不分词的中文文本块（如 "订单超薄磁吸手机売数量2"），词条与普通中文词直接相连，
+ * 用开启不分词纠正的 {@link DictionaryPostProcessor} 检验近似子串纠正，并统计落在嵌入词条之外的误纠正数。
+ * 最后用只含普通中文词和完整词条的文本块（如 "今天台风天气防水布料"）检查不分词纠正不改写普通文字：
+ * 任何一处纠正落在嵌入词条之外，基准测试即以失败退出。
+ *
+ * 对比：
+ * <ul>
+ *   <li>抽取：{@link DictionaryPostProcessor}（Aho-Corasick），基线为把词条拼成一个正则表达式分支
+ *       （最长优先、带单词边界）逐块查找，在1万、10万和完整词典上分别测量，并核对两者的匹配数</li>
+ *   <li>纠正：字典树上的有界编辑距离查找，基线为对完整词典逐条计算编辑距离</li>
+ * </ul>
+ * 同时统计嵌入词条的完全匹配数和带噪词条的纠正结果。基线很慢，每项只测量前若干个文本块（约2秒）。
+ * 默认100万词条约需1GB堆内存。
+ *
+ * 用法:
+ *   java -Xmx2g DictionaryBenchmark [词条数] [文本块数]
+ */
+public class DictionaryBenchmark {
+    private static final String[] SYLLABLES = {
+            "al", "ber", "cor", "dan", "el", "fin", "gar", "hol", "ir", "jen", "kor", "lin", "mar", "nor",
+            "ost", "pel", "quin", "ros", "sal", "tor", "ul", "ven", "wes", "xan", "yor", "zel", "bra", "cle",
+            "dro", "fla", "gri", "kla", "plo", "stra", "tri", "vra", "mon", "sen", "tal", "rin"};
+    private static final String[] INDUSTRIES = {
+            "Logistics", "Trading", "Electronics", "Foods", "Textiles", "Machinery", "Pharma", "Packaging",
+            "Chemicals", "Software", "Motors", "Optics", "Metals", "Plastics", "Furniture", "Paper",
+            "Ceramics", "Marine", "Energy", "Instruments"};
+    private static final String[] SUFFIXES = {"Ltd", "Inc", "GmbH", "LLC", "Corp"};
+    private static final String CJK_MODIFIERS = "超薄磁吸防摔透明加厚便携折叠无线快充保温真空静音大容量迷你智能复古简约"
+            + "多功能防水防滑耐磨轻量抗菌可调节不锈钢陶瓷竹木纯棉硅胶铝合金实木";
+    private static final String[] CJK_PRODUCTS = {
+            "手机壳", "充电器", "保温杯", "笔记本", "收纳盒", "数据线", "台灯", "背包", "雨伞", "水杯",
+            "鼠标垫", "耳机", "支架", "键盘", "拖鞋", "毛巾", "餐具", "衣架", "枕头", "剪刀"};
+    private static final String[] FILLER = {
+            "invoice", "qty", "total", "ship", "to", "from", "order", "ref", "page", "date", "unit", "price",
+            "订单", "数量", "合计", "发货", "日期", "备注", "单价", "客户"};
+    private static final String[] CJK_FILLER = {"订单", "数量", "合计", "发货", "日期", "备注", "单价", "客户", "规格", "型号"};
+    /** 普通中文词，部分与商品名共用汉字（台、水、手机、充电） */
+    private static final String[] CJK_PROSE = {
+            "今天", "台风", "天气", "这是", "水果", "防水", "布料", "手机", "充电", "已经", "送达", "包装",
+            "完好", "请在", "收到", "后确认", "如有", "问题", "联系", "客服"};
+    private static final String SKU_CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZ0123456789";
+    private static final Map<Character, Character> CONFUSIONS = new HashMap<>();
+
+    static {
+        char[][] pairs = {{'O', '0'}, {'I', '1'}, {'S', '5'}, {'B', '8'}, {'Z', '2'}};
+        for (char[] pair : pairs) {
+            CONFUSIONS.put(pair[0], pair[1]);
+            CONFUSIONS.put(pair[1], pair[0]);
+        }
+    }
+
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        int dictionarySize = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int blockCount = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        Random random = new Random(39);
+
+        List<String> terms = new ArrayList<>(dictionarySize);
+        List<String> categories = new ArrayList<>(dictionarySize);
+        generateDictionary(dictionarySize, random, terms, categories);
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        TermDictionary dictionary = new TermDictionary(terms, categories);
+        double compileSeconds = (System.nanoTime() - start) / 1e9;
+        System.gc();
+        long usedAfter = runtime.totalMemory() - runtime.freeMemory();
+        System.out.printf(Locale.ROOT, "词典: %d 个词条，%d 个状态，编译 %.1f 秒，自动机约占 %d MB（不含与输入共用的词条字符串）%n",
+                dictionary.size(), dictionary.getStateCount(), compileSeconds, (usedAfter - usedBefore) >> 20);
+
+        List<OCRResult> blocks = new ArrayList<>(blockCount);
+        List<String[]> planted = new ArrayList<>(blockCount);
+        List<int[]> spans = new ArrayList<>(blockCount);
+        generateBlocks(blockCount, random, terms, blocks, planted, spans);
+        long chars = 0;
+        for (OCRResult block : blocks) {
+            chars += block.getText().length();
+        }
+        System.out.printf(Locale.ROOT, "文本块: %d 个，平均 %.0f 个字符%n%n", blockCount, (double) chars / blockCount);
+        List<String> cjkTerms = new ArrayList<>();
+        for (int i = 0; i < terms.size(); i++) {
+            if ("PRODUCT".equals(categories.get(i))) {
+                cjkTerms.add(terms.get(i));
+            }
+        }
+        List<OCRResult> cjkBlocks = new ArrayList<>(blockCount);
+        List<String[]> cjkPlanted = new ArrayList<>(blockCount);
+        List<int[]> cjkSpans = new ArrayList<>(blockCount);
+        generateUnsegmentedBlocks(blockCount, random, cjkTerms, CJK_FILLER, 0.3, cjkBlocks, cjkPlanted, cjkSpans);
+        List<OCRResult> proseBlocks = new ArrayList<>(blockCount);
+        List<String[]> prosePlanted = new ArrayList<>(blockCount);
+        List<int[]> proseSpans = new ArrayList<>(blockCount);
+        generateUnsegmentedBlocks(blockCount, random, cjkTerms, CJK_PROSE, 0, proseBlocks, prosePlanted, proseSpans);
+
+        // 抽取和纠正
+        DictionaryPostProcessor exactOnly = new DictionaryPostProcessor(dictionary, 0);
+        DictionaryPostProcessor processor = new DictionaryPostProcessor(dictionary);
+        DictionaryPostProcessor unsegmented = new DictionaryPostProcessor(dictionary, 2, true);
+        runProcessor(exactOnly, blocks);
+        runProcessor(processor, blocks);
+        double exactMicros = timePerBlock(exactOnly, blocks);
+        double fullMicros = timePerBlock(processor, blocks);
+        reportAccuracy("分词文本", processor, blocks, planted, spans);
+        runProcessor(exactOnly, cjkBlocks);
+        runProcessor(unsegmented, cjkBlocks);
+        double cjkExactMicros = timePerBlock(exactOnly, cjkBlocks);
+        double cjkFullMicros = timePerBlock(unsegmented, cjkBlocks);
+        System.out.println();
+        reportAccuracy("不分词中文", unsegmented, cjkBlocks, cjkPlanted, cjkSpans);
+        System.out.println();
+        int outside = reportAccuracy("普通中文文字", unsegmented, proseBlocks, prosePlanted, proseSpans);
+
+        // 基线在逐步增大的词典上实测，每项最多测量约2秒
+        System.out.println();
+        System.out.printf("%-24s %10s %14s %8s %16s%n", "方法", "词条数", "微秒/文本块", "测量块数", "匹配数(基线/AC)");
+        System.out.printf(Locale.ROOT, "%-24s %10d %14.1f %8d %16s%n", "Aho-Corasick 抽取", dictionary.size(),
+                exactMicros, blocks.size(), "-");
+        System.out.printf(Locale.ROOT, "%-24s %10d %14.1f %8d %16s%n", "Aho-Corasick 抽取+纠正", dictionary.size(),
+                fullMicros, blocks.size(), "-");
+        System.out.printf(Locale.ROOT, "%-24s %10d %14.1f %8d %16s%n", "不分词中文 抽取", dictionary.size(),
+                cjkExactMicros, cjkBlocks.size(), "-");
+        System.out.printf(Locale.ROOT, "%-24s %10d %14.1f %8d %16s%n", "不分词中文 抽取+子串纠正", dictionary.size(),
+                cjkFullMicros, cjkBlocks.size(), "-");
+        double regexMicros = 0;
+        List<Integer> sizes = new ArrayList<>();
+        for (int subset = 10_000; subset * 10 <= terms.size(); subset *= 10) {
+            sizes.add(subset);
+        }
+        sizes.add(terms.size());
+        for (int subset : sizes) {
+            List<String> subTerms = terms.subList(0, subset);
+            DictionaryPostProcessor subProcessor = new DictionaryPostProcessor(
+                    subset == terms.size() ? dictionary : new TermDictionary(subTerms, null), 0);
+            Pattern pattern = compileAlternation(subTerms);
+            long[] counts = new long[2];
+            double[] result = measure(blocks, block -> {
+                Matcher matcher = pattern.matcher(block.getText());
+                while (matcher.find()) {
+                    counts[0]++;
+                }
+            });
+            for (int i = 0; i < (int) result[1]; i++) {
+                counts[1] += subProcessor.process(blocks.get(i)).size();
+            }
+            regexMicros = result[0];
+            System.out.printf(Locale.ROOT, "%-24s %10d %14.1f %8d %16s%n", "正则分支", subset, result[0],
+                    (int) result[1], counts[0] + " / " + counts[1]);
+        }
+        long[] corrections = new long[2];
+        double[] brute = measure(blocks, block -> {
+            for (String token : block.getText().split("\\s+")) {
+                if (token.length() >= 4) {
+                    int distance = bruteForceDistance(token, terms, Math.min(2, token.length() / 4));
+                    corrections[0] += distance > 0 ? 1 : 0;
+                }
+            }
+        });
+        for (int i = 0; i < (int) brute[1]; i++) {
+            for (DictionaryMatch match : processor.process(blocks.get(i))) {
+                corrections[1] += match.isCorrection() ? 1 : 0;
+            }
+        }
+        System.out.printf(Locale.ROOT, "%-24s %10d %14.1f %8d %16s%n", "逐条计算编辑距离", terms.size(), brute[0],
+                (int) brute[1], corrections[0] + " / " + corrections[1]);
+        System.out.printf(Locale.ROOT, "%n完整词典上：抽取比正则分支快 %.0f 倍，抽取+纠正比正则分支加逐条纠正快 %.0f 倍%n",
+                regexMicros / exactMicros, (regexMicros + brute[0]) / fullMicros);
+        if (outside > 0) {
+            System.err.println("失败: 普通中文文字中有 " + outside + " 处纠正落在嵌入词条之外");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 按顺序处理文本块，直到用时超过约2秒或全部处理完
+     *
+     * @return {每块微秒数, 处理的块数}
+     */
+    private static double[] measure(List<OCRResult> blocks, Consumer<OCRResult> task) {
+        long budget = 2_000_000_000L;
+        long start = System.nanoTime();
+        int count = 0;
+        while (count < blocks.size() && System.nanoTime() - start < budget) {
+            task.accept(blocks.get(count++));
+        }
+        return new double[]{(System.nanoTime() - start) / 1e3 / count, count};
+    }
+
+    private static void runProcessor(DictionaryPostProcessor processor, List<OCRResult> blocks) {
+        for (OCRResult block : blocks) {
+            sink += processor.process(block).size();
+        }
+    }
+
+    private static double timePerBlock(DictionaryPostProcessor processor, List<OCRResult> blocks) {
+        double best = Double.MAX_VALUE;
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            runProcessor(processor, blocks);
+            best = Math.min(best, (System.nanoTime() - start) / 1e3 / blocks.size());
+        }
+        return best;
+    }
+
+    /**
+     * 统计嵌入词条的匹配和纠正结果
+     *
+     * @return 落在嵌入词条之外的纠正数
+     */
+    private static int reportAccuracy(String label, DictionaryPostProcessor processor, List<OCRResult> blocks,
+                                      List<String[]> planted, List<int[]> spans) {
+        int clean = 0;
+        int cleanFound = 0;
+        int noisy = 0;
+        int corrected = 0;
+        int ambiguous = 0;
+        int wrong = 0;
+        int spurious = 0;
+        for (int i = 0; i < blocks.size(); i++) {
+            List<DictionaryMatch> matches = processor.process(blocks.get(i));
+            String[] expected = planted.get(i);
+            for (DictionaryMatch match : matches) {
+                if (match.isCorrection() && !insideSpan(match, spans.get(i))) {
+                    spurious++;
+                }
+            }
+            for (int k = 0; k < expected.length; k += 2) {
+                String term = expected[k];
+                String noise = expected[k + 1];
+                DictionaryMatch found = null;
+                for (DictionaryMatch match : matches) {
+                    if (match.getText().equals(noise != null ? noise : term)) {
+                        found = match;
+                    }
+                }
+                if (noise == null) {
+                    clean++;
+                    cleanFound += found != null && found.getTerm().equals(term) ? 1 : 0;
+                    continue;
+                }
+                noisy++;
+                if (found == null) {
+                    continue;
+                }
+                if (found.getTerm().equals(term)) {
+                    corrected++;
+                } else if (found.getEditDistance() <= editDistance(noise, term)) {
+                    // 带噪文本与另一个词条同样接近或更近（例如噪声恰好产生了另一个词条），无法区分
+                    ambiguous++;
+                } else {
+                    wrong++;
+                }
+            }
+        }
+        System.out.printf(Locale.ROOT, "%s: 嵌入词条完全匹配: %d / %d；带噪词条: %d 个，纠正正确 %d，与其他词条同样接近或更近 %d，"
+                        + "纠正错误 %d，未纠正 %d；误纠正（落在嵌入词条之外）%d%n", label,
+                cleanFound, clean, noisy, corrected, ambiguous, wrong, noisy - corrected - ambiguous - wrong, spurious);
+        List<DictionaryMatch> example = processor.process(blocks.get(0));
+        System.out.println("示例: " + blocks.get(0).getText());
+        for (DictionaryMatch match : example) {
+            System.out.printf(Locale.ROOT, "  [%d, %d) %s -> %s (%s, 编辑距离 %d, x=%.3f, 宽 %.3f)%n",
+                    match.getStart(), match.getEnd(), match.getText(), match.getTerm(), match.getCategory(),
+                    match.getEditDistance(), match.getBoundingBox().getX(), match.getBoundingBox().getWidth());
+        }
+        return spurious;
+    }
+
+    /**
+     * 匹配是否完整地落在某个嵌入词条的范围内；spans 依次为各词条的 {起始位置, 结束位置}
+     */
+    private static boolean insideSpan(DictionaryMatch match, int[] spans) {
+        for (int k = 0; k < spans.length; k += 2) {
+            if (match.getStart() >= spans[k] && match.getEnd() <= spans[k + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void generateDictionary(int size, Random random, List<String> terms, List<String> categories) {
+        Set<String> seen = new LinkedHashSet<>();
+        // 商品名本身作为2-3个字的短词条
+        for (String product : CJK_PRODUCTS) {
+            if (terms.size() < size && seen.add(product)) {
+                terms.add(product);
+                categories.add("PRODUCT");
+            }
+        }
+        String[] vendors = new String[200];
+        for (int i = 0; i < vendors.length; i++) {
+            vendors[i] = randomChars(random, "ABCDEFGHJKLMNPQRSTUVWXYZ", 3);
+        }
+        while (terms.size() < size) {
+            double kind = random.nextDouble();
+            String term;
+            String category;
+            if (kind < 0.6) {
+                term = vendors[random.nextInt(vendors.length)] + "-" + randomChars(random, SKU_CHARS, 6);
+                category = "SKU";
+            } else if (kind < 0.9) {
+                StringBuilder name = new StringBuilder();
+                int syllables = 2 + random.nextInt(2);
+                for (int s = 0; s < syllables; s++) {
+                    name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+                }
+                name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+                term = name + " " + INDUSTRIES[random.nextInt(INDUSTRIES.length)] + " "
+                        + SUFFIXES[random.nextInt(SUFFIXES.length)];
+                category = "COMPANY";
+            } else {
+                term = randomChars(random, CJK_MODIFIERS, 2 + random.nextInt(3))
+                        + CJK_PRODUCTS[random.nextInt(CJK_PRODUCTS.length)];
+                category = "PRODUCT";
+            }
+            if (seen.add(term)) {
+                terms.add(term);
+                categories.add(category);
+            }
+        }
+    }
+
+    /**
+     * 生成文本块；planted 中每个文本块对应 {词条, 带噪原文或null, ...}，spans 对应 {起始位置, 结束位置, ...}
+     */
+    private static void generateBlocks(int count, Random random, List<String> terms, List<OCRResult> blocks,
+                                       List<String[]> planted, List<int[]> spans) {
+        for (int i = 0; i < count; i++) {
+            int termCount = 1 + random.nextInt(2);
+            String[] expected = new String[termCount * 2];
+            int[] span = new int[termCount * 2];
+            StringBuilder text = new StringBuilder();
+            for (int k = 0; k < termCount; k++) {
+                text.append(FILLER[random.nextInt(FILLER.length)]).append(' ')
+                        .append(random.nextInt(1000)).append(' ');
+                String term = terms.get(random.nextInt(terms.size()));
+                String noisy = random.nextDouble() < 0.3 ? addNoise(term, random) : null;
+                expected[k * 2] = term;
+                expected[k * 2 + 1] = noisy;
+                span[k * 2] = text.length();
+                text.append(noisy != null ? noisy : term);
+                span[k * 2 + 1] = text.length();
+                text.append(' ');
+            }
+            text.append(FILLER[random.nextInt(FILLER.length)]);
+            blocks.add(new OCRResult(text.toString(), 0.9, new OCRResult.BoundingBox(0.05, 0.1 + (i % 30) * 0.03,
+                    0.9, 0.02)));
+            planted.add(expected);
+            spans.add(span);
+        }
+    }
+
+    /**
+     * 生成不分词的中文文本块：普通中文词、词条和数字直接相连，如 "订单超薄磁吸手机売数量2"
+     *
+     * @param words 词条前后的普通中文词，每处取1-2个
+     * @param noiseRate 词条带噪声的比例
+     */
+    private static void generateUnsegmentedBlocks(int count, Random random, List<String> terms, String[] words,
+                                                  double noiseRate, List<OCRResult> blocks, List<String[]> planted,
+                                                  List<int[]> spans) {
+        for (int i = 0; i < count; i++) {
+            int termCount = 1 + random.nextInt(2);
+            String[] expected = new String[termCount * 2];
+            int[] span = new int[termCount * 2];
+            StringBuilder text = new StringBuilder();
+            for (int k = 0; k < termCount; k++) {
+                appendWords(text, words, random);
+                String term = terms.get(random.nextInt(terms.size()));
+                String noisy = random.nextDouble() < noiseRate ? addNoise(term, random) : null;
+                expected[k * 2] = term;
+                expected[k * 2 + 1] = noisy;
+                span[k * 2] = text.length();
+                text.append(noisy != null ? noisy : term);
+                span[k * 2 + 1] = text.length();
+            }
+            appendWords(text, words, random);
+            text.append(1 + random.nextInt(20));
+            blocks.add(new OCRResult(text.toString(), 0.9, new OCRResult.BoundingBox(0.05, 0.1 + (i % 30) * 0.03,
+                    0.9, 0.02)));
+            planted.add(expected);
+            spans.add(span);
+        }
+    }
+
+    private static void appendWords(StringBuilder text, String[] words, Random random) {
+        for (int n = 1 + random.nextInt(2); n > 0; n--) {
+            text.append(words[random.nextInt(words.length)]);
+        }
+    }
+
+    /**
+     * 在可纠正的词中做一处字符混淆；没有可混淆的字符时返回null（视为无噪声）
+     */
+    private static String addNoise(String term, Random random) {
+        char[] chars = term.toCharArray();
+        if (TermDictionary.fold(term).chars().anyMatch(c -> c >= '⺀')) {
+            int position = random.nextInt(chars.length);
+            char replacement;
+            do {
+                replacement = CJK_MODIFIERS.charAt(random.nextInt(CJK_MODIFIERS.length()));
+            } while (replacement == chars[position]);
+            chars[position] = replacement;
+            return new String(chars);
+        }
+        // 多词公司名的纠正只针对单个词，这里只给SKU加噪声
+        if (term.indexOf(' ') >= 0) {
+            return null;
+        }
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < chars.length; i++) {
+            if (CONFUSIONS.containsKey(chars[i])) {
+                positions.add(i);
+            }
+        }
+        if (positions.isEmpty()) {
+            return null;
+        }
+        int position = positions.get(random.nextInt(positions.size()));
+        chars[position] = CONFUSIONS.get(chars[position]);
+        return new String(chars);
+    }
+
+    private static Pattern compileAlternation(List<String> terms) {
+        List<String> sorted = new ArrayList<>(terms);
+        sorted.sort((a, b) -> b.length() - a.length());
+        StringBuilder regex = new StringBuilder("(?<![A-Za-z0-9])(?:");
+        for (int i = 0; i < sorted.size(); i++) {
+            if (i > 0) {
+                regex.append('|');
+            }
+            regex.append(Pattern.quote(sorted.get(i)));
+        }
+        return Pattern.compile(regex.append(")(?![A-Za-z0-9])").toString(), Pattern.CASE_INSENSITIVE);
+    }
+
+    /**
+     * 逐条计算编辑距离，返回不超过 maxEdits 的最小距离，没有时返回-1
+     */
+    private static int bruteForceDistance(String token, List<String> terms, int maxEdits) {
+        int bestDistance = maxEdits + 1;
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            if (Math.abs(term.length() - token.length()) >= bestDistance) {
+                continue;
+            }
+            int distance = editDistance(token, term);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+            }
+        }
+        return bestDistance <= maxEdits ? bestDistance : -1;
+    }
+
+    private static int editDistance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] row = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            row[0] = i;
+            char c = Character.toLowerCase(a.charAt(i - 1));
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = c == Character.toLowerCase(b.charAt(j - 1)) ? 0 : 1;
+                row[j] = Math.min(Math.min(previous[j] + 1, row[j - 1] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = row;
+            row = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static String randomChars(Random random, String alphabet, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,242 @@
+package com.applevision.example;
+
+import com.applevision.OCRResult;
+import com.applevision.geometry.BoxArray;
+import com.applevision.geometry.BoxGeometry;
+import com.applevision.geometry.BoxTransform;
+import com.applevision.geometry.PixelBoxArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 边界框批量几何运算基准测试
+ * 以逐对象方式（{@link OCRResult.BoundingBox#toPixelBoundingBox}、逐个创建变换后的对象、
+ * 嵌套循环计算交并比的NMS）为基线，对比 {@link BoxGeometry} 的列式批量实现，并核对两者结果一致。
+ *
+ * 测试数据模拟分块或重复识别：每个文本行的边界框带轻微抖动地出现3次，分数随机。
+ * 比较Vector API与标量实现时分别运行：
+ * <pre>
+ *   java --add-modules jdk.incubator.vector -cp target/classes com.applevision.example.GeometryBenchmark
+ *   java -Dapplevision.geometry.kernel=scalar -cp target/classes com.applevision.example.GeometryBenchmark
+ * </pre>
+ *
+ * 用法:
+ *   java GeometryBenchmark [边界框数量列表，如 1000,10000,100000]
+ */
+public class GeometryBenchmark {
+    private static final int IMAGE_WIDTH = 2480;
+    private static final int IMAGE_HEIGHT = 3508;
+    private static final double NMS_THRESHOLD = 0.5;
+    private static final int IOU_QUERIES = 200;
+    private static final long MIN_MEASURE_NANOS = 500_000_000L;
+
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0
+                ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[]{1_000, 10_000, 100_000};
+
+        System.out.println("批量实现: " + BoxGeometry.getKernelName() + "，时间单位为微秒（多次运行取最小值）");
+        warmUp();
+        System.out.printf("%-10s %8s %12s %12s %8s %6s%n", "运算", "数量", "逐对象", "批量", "加速比", "一致");
+
+        for (int n : sizes) {
+            List<OCRResult> results = generate(n, new Random(n));
+            BoxArray boxes = BoxArray.of(results);
+            double[] scores = new double[n];
+            for (int i = 0; i < n; i++) {
+                scores[i] = results.get(i).getConfidence();
+            }
+
+            // 像素坐标转换
+            List<OCRResult.PixelBoundingBox> objectPixels = new ArrayList<>();
+            double objectTime = measure(() -> {
+                objectPixels.clear();
+                for (OCRResult result : results) {
+                    objectPixels.add(result.getBoundingBox().toPixelBoundingBox(IMAGE_WIDTH, IMAGE_HEIGHT));
+                }
+                return objectPixels.size();
+            });
+            PixelBoxArray[] bulkPixels = new PixelBoxArray[1];
+            double bulkTime = measure(() -> {
+                bulkPixels[0] = BoxGeometry.toPixels(boxes, IMAGE_WIDTH, IMAGE_HEIGHT);
+                return bulkPixels[0].size();
+            });
+            boolean same = true;
+            for (int i = 0; i < n && same; i++) {
+                same = objectPixels.get(i).toString().equals(bulkPixels[0].get(i).toString());
+            }
+            print("toPixels", n, objectTime, bulkTime, same);
+
+            // 顺时针旋转90度
+            List<OCRResult.BoundingBox> objectRotated = new ArrayList<>();
+            objectTime = measure(() -> {
+                objectRotated.clear();
+                for (OCRResult result : results) {
+                    OCRResult.BoundingBox box = result.getBoundingBox();
+                    objectRotated.add(new OCRResult.BoundingBox(
+                            1.0 - box.getY() - box.getHeight(), box.getX(), box.getHeight(), box.getWidth()));
+                }
+                return objectRotated.size();
+            });
+            BoxArray[] bulkRotated = new BoxArray[1];
+            bulkTime = measure(() -> {
+                bulkRotated[0] = BoxGeometry.transform(boxes, BoxTransform.ROTATE_90);
+                return bulkRotated[0].size();
+            });
+            same = true;
+            for (int i = 0; i < n && same; i++) {
+                same = objectRotated.get(i).toString().equals(bulkRotated[0].get(i).toString());
+            }
+            print("rotate90", n, objectTime, bulkTime, same);
+
+            // 交并比：若干查询框对全部边界框
+            double[] objectIou = new double[n];
+            objectTime = measure(() -> {
+                long checksum = 0;
+                for (int q = 0; q < IOU_QUERIES; q++) {
+                    OCRResult.BoundingBox query = results.get(q * (n / IOU_QUERIES)).getBoundingBox();
+                    for (int j = 0; j < n; j++) {
+                        objectIou[j] = iou(query, results.get(j).getBoundingBox());
+                    }
+                    checksum += Double.doubleToLongBits(objectIou[n - 1]);
+                }
+                return checksum;
+            });
+            double[] bulkIou = new double[n];
+            bulkTime = measure(() -> {
+                long checksum = 0;
+                for (int q = 0; q < IOU_QUERIES; q++) {
+                    BoxGeometry.iou(boxes, q * (n / IOU_QUERIES), boxes, bulkIou);
+                    checksum += Double.doubleToLongBits(bulkIou[n - 1]);
+                }
+                return checksum;
+            });
+            print("iou x" + IOU_QUERIES, n, objectTime, bulkTime, Arrays.equals(objectIou, bulkIou));
+
+            // 贪心NMS
+            List<Integer> objectKept = new ArrayList<>();
+            objectTime = measure(() -> {
+                objectKept.clear();
+                objectKept.addAll(objectNms(results, NMS_THRESHOLD));
+                return objectKept.size();
+            });
+            int[][] bulkKept = new int[1][];
+            bulkTime = measure(() -> {
+                bulkKept[0] = BoxGeometry.nms(boxes, scores, NMS_THRESHOLD);
+                return bulkKept[0].length;
+            });
+            same = objectKept.size() == bulkKept[0].length;
+            for (int i = 0; i < bulkKept[0].length && same; i++) {
+                same = objectKept.get(i) == bulkKept[0][i];
+            }
+            print("nms", n, objectTime, bulkTime, same);
+
+            // Soft-NMS（仅批量实现）
+            double softTime = measure(() -> BoxGeometry.softNmsGaussian(boxes, scores, 0.5, 0.3, null).length);
+            System.out.printf(Locale.ROOT, "%-10s %8d %12s %12.0f %8s %6s%n", "soft-nms", n, "-", softTime, "-", "-");
+            System.out.println();
+        }
+    }
+
+    /**
+     * 预热批量实现，使向量化代码在计时前完成JIT编译
+     */
+    private static void warmUp() {
+        List<OCRResult> results = generate(4096, new Random(1));
+        BoxArray boxes = BoxArray.of(results);
+        double[] scores = new double[boxes.size()];
+        double[] overlaps = new double[boxes.size()];
+        Arrays.fill(scores, 0.5);
+        long deadline = System.nanoTime() + 3 * MIN_MEASURE_NANOS;
+        while (System.nanoTime() < deadline) {
+            sink += BoxGeometry.toPixels(boxes, IMAGE_WIDTH, IMAGE_HEIGHT).size();
+            sink += BoxGeometry.transform(boxes, BoxTransform.ROTATE_90).size();
+            BoxGeometry.iou(boxes, 0, boxes, overlaps);
+            sink += BoxGeometry.nms(boxes, scores, NMS_THRESHOLD).length;
+        }
+    }
+
+    /**
+     * 基线：对象列表上的贪心NMS，逐个与已保留的结果比较
+     */
+    private static List<Integer> objectNms(List<OCRResult> results, double threshold) {
+        List<Integer> order = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingDouble((Integer i) -> results.get(i).getConfidence()).reversed());
+        List<Integer> kept = new ArrayList<>();
+        for (int candidate : order) {
+            OCRResult.BoundingBox box = results.get(candidate).getBoundingBox();
+            boolean suppressed = false;
+            for (int k : kept) {
+                if (iou(results.get(k).getBoundingBox(), box) > threshold) {
+                    suppressed = true;
+                    break;
+                }
+            }
+            if (!suppressed) {
+                kept.add(candidate);
+            }
+        }
+        return kept;
+    }
+
+    private static double iou(OCRResult.BoundingBox a, OCRResult.BoundingBox b) {
+        double intersectWidth = Math.max(Math.min(a.getMaxX(), b.getMaxX()) - Math.max(a.getX(), b.getX()), 0.0);
+        double intersectHeight = Math.max(Math.min(a.getMaxY(), b.getMaxY()) - Math.max(a.getY(), b.getY()), 0.0);
+        double intersection = intersectWidth * intersectHeight;
+        double union = a.getWidth() * a.getHeight() + b.getWidth() * b.getHeight() - intersection;
+        return union > 0 ? intersection / union : 0.0;
+    }
+
+    private static List<OCRResult> generate(int n, Random random) {
+        List<OCRResult> results = new ArrayList<>(n);
+        while (results.size() < n) {
+            double width = 0.05 + random.nextDouble() * 0.3;
+            double height = 0.008 + random.nextDouble() * 0.012;
+            double x = random.nextDouble() * (1 - width);
+            double y = random.nextDouble() * (1 - height);
+            for (int copy = 0; copy < 3 && results.size() < n; copy++) {
+                double jitter = copy == 0 ? 0 : (random.nextDouble() - 0.5) * 0.004;
+                OCRResult.BoundingBox box = new OCRResult.BoundingBox(x + jitter, y + jitter / 4, width, height);
+                results.add(new OCRResult("text", random.nextDouble(), box));
+            }
+        }
+        return results;
+    }
+
+    private interface Task {
+        long run();
+    }
+
+    /**
+     * 反复运行直到累计时间超过下限（至少3次），返回单次最小耗时（微秒）
+     */
+    private static double measure(Task task) {
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        int runs = 0;
+        while (runs < 3 || total < MIN_MEASURE_NANOS) {
+            long start = System.nanoTime();
+            sink += task.run();
+            long elapsed = System.nanoTime() - start;
+            best = Math.min(best, elapsed);
+            total += elapsed;
+            runs++;
+        }
+        return best / 1000.0;
+    }
+
+    private static void print(String name, int n, double objectMicros, double bulkMicros, boolean same) {
+        System.out.printf(Locale.ROOT, "%-10s %8d %12.0f %12.0f %7.1fx %6s%n", name, n, objectMicros, bulkMicros,
+                objectMicros / bulkMicros, same ? "是" : "否");
+    }
+}
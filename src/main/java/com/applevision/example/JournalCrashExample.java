@@ -0,0 +1,219 @@
+package com.applevision.example;
+
+import com.applevision.OCREngine;
+import com.applevision.OCRResult;
+import com.applevision.journal.JobJournal;
+import com.applevision.journal.JournalRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 断点续跑日志崩溃测试
+ *
+ * 反复启动处理同一清单的子进程，在随机时刻强制结束（相当于kill -9），最后让一个子进程跑完，然后核对：
+ * <ul>
+ *   <li>清单中的每个输入在日志中恰好有一条完成记录；</li>
+ *   <li>每条记录的结果位置都指向输出文件中该输入的结果行；</li>
+ *   <li>在日志末尾追加半条记录后重新打开，不完整的尾部被截断，已有记录不受影响；</li>
+ *   <li>使用索引快照与从头重放日志的恢复耗时对比。</li>
+ * </ul>
+ * 子进程用多个线程并发识别（模拟引擎），每个结果先写入并刷盘到本进程的输出文件，再写日志。
+ *
+ * 用法:
+ *   java JournalCrashExample [输入数] [强制结束次数] [工作线程数]
+ */
+public class JournalCrashExample {
+    private static final int CHECKPOINT_INTERVAL = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "--worker".equals(args[0])) {
+            runWorker(Paths.get(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            return;
+        }
+        int inputs = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int crashes = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        Path workDir = Files.createTempDirectory("applevision-journal");
+        Random random = new Random(7);
+        try {
+            for (int run = 0; run <= crashes; run++) {
+                Process process = startWorker(workDir, inputs, threads);
+                if (run < crashes) {
+                    Thread.sleep(1000 + random.nextInt(2000));
+                    process.destroyForcibly();
+                    process.waitFor();
+                    System.out.println("第 " + (run + 1) + " 次强制结束子进程");
+                } else if (process.waitFor() != 0) {
+                    throw new IllegalStateException("Worker exited with " + process.exitValue());
+                }
+            }
+            verify(workDir, inputs);
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    private static Process startWorker(Path workDir, int inputs, int threads) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-Dsun.stdout.encoding=UTF-8", "-cp", System.getProperty("java.class.path"),
+                JournalCrashExample.class.getName(), "--worker", workDir.toString(),
+                String.valueOf(inputs), String.valueOf(threads))
+                .inheritIO()
+                .start();
+    }
+
+    /**
+     * 子进程：打开日志，跳过已完成的输入，并发处理剩余输入
+     */
+    private static void runWorker(Path workDir, int inputs, int threads) throws Exception {
+        OCREngine engine = new SimulatedOCREngine(0, 2_000);
+        Path output = workDir.resolve("results-" + ProcessHandle.current().pid() + ".tsv");
+        try (JobJournal journal = new JobJournal(workDir.resolve("journal"), CHECKPOINT_INTERVAL);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.APPEND)) {
+            System.out.printf(Locale.ROOT, "  恢复: 快照 %d 条，重放 %d 条，截断 %d 字节，耗时 %.1f ms，剩余 %d%n",
+                    journal.getRecoveredFromIndexCount(), journal.getReplayedRecordCount(),
+                    journal.getTruncatedBytes(), journal.getRecoveryMillis(), inputs - journal.getCompletedCount());
+            AtomicLong cursor = new AtomicLong();
+            Object claimLock = new Object();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            for (int t = 0; t < threads; t++) {
+                pool.execute(() -> {
+                    try {
+                        while (true) {
+                            long ordinal;
+                            synchronized (claimLock) {
+                                ordinal = journal.nextPending(cursor.get());
+                                cursor.set(ordinal + 1);
+                            }
+                            if (ordinal >= inputs) {
+                                return;
+                            }
+                            String path = inputPath(ordinal);
+                            List<OCRResult> results = engine.recognizeText(path);
+                            byte[] line = (ordinal + "\t" + path + "\t" + results.get(0).getText() + "\n")
+                                    .getBytes(StandardCharsets.UTF_8);
+                            long offset;
+                            synchronized (out) {
+                                offset = out.size();
+                                out.write(ByteBuffer.wrap(line));
+                            }
+                            out.force(false);
+                            journal.markDone(ordinal, path, contentDigest(path),
+                                    output.getFileName() + ":" + offset + ":" + line.length);
+                        }
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+            }
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.HOURS);
+            System.out.println("  完成: " + journal.getCompletedCount() + "，fsync次数: " + journal.getSyncCount());
+        }
+    }
+
+    private static void verify(Path workDir, int inputs) throws IOException {
+        Path journalDir = workDir.resolve("journal");
+        BitSet seen = new BitSet(inputs);
+        List<String> problems = new ArrayList<>();
+        long[] records = new long[1];
+        try (JobJournal journal = new JobJournal(journalDir)) {
+            journal.forEachRecord(record -> {
+                records[0]++;
+                int ordinal = (int) record.getOrdinal();
+                if (seen.get(ordinal)) {
+                    problems.add("重复记录: " + ordinal);
+                }
+                seen.set(ordinal);
+                if (!checkLocation(workDir, record)) {
+                    problems.add("结果位置无效: " + record);
+                }
+            });
+        }
+        System.out.println();
+        System.out.println("日志记录: " + records[0] + "，覆盖输入: " + seen.cardinality() + " / " + inputs
+                + "，问题: " + problems.size());
+        for (String problem : problems.subList(0, Math.min(10, problems.size()))) {
+            System.out.println("  " + problem);
+        }
+
+        // 模拟写入中途崩溃：在日志末尾追加半条记录
+        try (RandomAccessFile file = new RandomAccessFile(journalDir.resolve("journal.log").toFile(), "rw")) {
+            file.seek(file.length());
+            file.writeInt(64);
+            file.writeInt(12345);
+            file.write(new byte[20]);
+        }
+        try (JobJournal journal = new JobJournal(journalDir)) {
+            System.out.println("追加半条记录后重新打开: 截断 " + journal.getTruncatedBytes() + " 字节，完成数 "
+                    + journal.getCompletedCount() + (journal.getCompletedCount() == inputs ? "（一致）" : "（不一致）"));
+        }
+
+        // 恢复耗时：使用快照 / 删除快照后从头重放
+        double withIndex;
+        try (JobJournal journal = new JobJournal(journalDir)) {
+            withIndex = journal.getRecoveryMillis();
+        }
+        Files.delete(journalDir.resolve("journal.index"));
+        try (JobJournal journal = new JobJournal(journalDir)) {
+            System.out.printf(Locale.ROOT, "恢复耗时: 使用快照 %.1f ms，从头重放 %d 条记录 %.1f ms%n",
+                    withIndex, journal.getReplayedRecordCount(), journal.getRecoveryMillis());
+        }
+    }
+
+    private static boolean checkLocation(Path workDir, JournalRecord record) {
+        String[] parts = record.getResultLocation().split(":");
+        try (FileChannel channel = FileChannel.open(workDir.resolve(parts[0]), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.parseInt(parts[2]));
+            channel.read(buffer, Long.parseLong(parts[1]));
+            String line = new String(buffer.array(), StandardCharsets.UTF_8);
+            return line.startsWith(record.getOrdinal() + "\t" + record.getPath() + "\t");
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static String inputPath(long ordinal) {
+        return "/data/backfill/" + (ordinal / 1000) + "/scan-" + ordinal + ".png";
+    }
+
+    /**
+     * 模拟的文件内容摘要（输入文件并不存在，以路径代替内容）
+     */
+    private static byte[] contentDigest(String path) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(path.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.applevision.example;
+
+import com.applevision.OCREngine;
+import com.applevision.OCRResult;
+import com.applevision.RecognitionOptions;
+import com.applevision.VisionOCR;
+import com.applevision.language.LanguageRouter;
+import com.applevision.language.ScriptHistogram;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 语言路由示例
+ *
+ * simulated 模式：模拟多个来源的中文、日文、英文页面（每个来源以一种语言为主，夹杂少量其他语言页面），
+ * 对比"先按默认中文识别，语言不对再重新识别"的做法与 {@link LanguageRouter} 的识别次数、耗时和结果质量。
+ * 模拟引擎中快速级别的耗时为精确级别的四分之一，与Vision一样不能识别中日文页面（输出拉丁字母乱码）；
+ * 识别语言不含页面语言时结果质量下降（日文页面丢失假名）。另用 {@link LanguageRouter#FAST_PROBE_OPTIONS}
+ * 探测一遍作对照，中日文来源会被快速探测的乱码路由到英文。
+ *
+ * vision 模式：用 {@link LanguageRouter} 识别目录中各子目录（每个子目录视为一个来源）的图片，输出每张图片选出的语言。
+ *
+ * 用法:
+ *   java LanguageRoutingExample [simulated [来源数] [每个来源的页数]]
+ *   java LanguageRoutingExample vision &lt;图片目录&gt;
+ */
+public class LanguageRoutingExample {
+    private static final String[] LANGUAGES = {"zh", "ja", "en"};
+    private static final double[] SOURCE_SHARES = {0.6, 0.25, 0.15};
+    private static final double OTHER_LANGUAGE_PAGES = 0.05;
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "simulated";
+        if ("vision".equals(mode)) {
+            if (args.length < 2) {
+                System.out.println("使用方法: java LanguageRoutingExample vision <图片目录>");
+                System.exit(1);
+            }
+            runVision(new File(args[1]));
+            return;
+        }
+        int sources = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int pagesPerSource = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        runSimulated(sources, pagesPerSource);
+    }
+
+    private static void runSimulated(int sources, int pagesPerSource) {
+        List<String> pages = generatePages(sources, pagesPerSource, new Random(42));
+        System.out.println("来源: " + sources + "，页面: " + pages.size());
+        System.out.printf("%-10s %8s %8s %10s %10s %10s%n", "方式", "精确识别", "快速识别", "引擎耗时ms", "总耗时ms", "平均置信度");
+
+        // 现有做法：默认中文识别，结果的文字系统不是中文时换语言再识别一次
+        MultilingualEngine engine = new MultilingualEngine(1000, 250);
+        long start = System.nanoTime();
+        double confidence = 0;
+        for (String page : pages) {
+            List<OCRResult> results = engine.recognizeText(page, RecognitionOptions.DEFAULT);
+            List<String> languages = LanguageRouter.route(ScriptHistogram.of(results), RecognitionOptions.DEFAULT.getLanguages());
+            if (!languages.equals(RecognitionOptions.DEFAULT.getLanguages())) {
+                results = engine.recognizeText(page, RecognitionOptions.forLanguages(languages));
+            }
+            confidence += averageConfidence(results);
+        }
+        print("重新识别", engine, System.nanoTime() - start, confidence / pages.size());
+        long baselinePasses = engine.accuratePasses.sum() + engine.fastPasses.sum();
+
+        engine = new MultilingualEngine(1000, 250);
+        LanguageRouter router = new LanguageRouter(engine, 1024);
+        start = System.nanoTime();
+        confidence = 0;
+        for (String page : pages) {
+            confidence += averageConfidence(router.recognizeText(page));
+        }
+        print("语言路由", engine, System.nanoTime() - start, confidence / pages.size());
+        printRouterStats(router);
+        // 路由器的计数假定基线能把所有非中文页面换成正确语言，模拟中中文模型读日文页面会丢失假名而不换语言，
+        // 实测的基线调用次数因此更少
+        System.out.println("与重新识别相比实际少调用引擎: "
+                + (baselinePasses - engine.accuratePasses.sum() - engine.fastPasses.sum()) + " 次");
+
+        System.out.println();
+        engine = new MultilingualEngine(1000, 250);
+        router = new LanguageRouter(engine, 1024, LanguageRouter.FAST_PROBE_OPTIONS, LanguageRoutingExample::source);
+        start = System.nanoTime();
+        confidence = 0;
+        for (String page : pages) {
+            confidence += averageConfidence(router.recognizeText(page));
+        }
+        print("快速探测", engine, System.nanoTime() - start, confidence / pages.size());
+    }
+
+    private static String source(String page) {
+        return page.substring(0, page.indexOf('/'));
+    }
+
+    private static void runVision(File directory) {
+        File[] sources = directory.listFiles(File::isDirectory);
+        if (sources == null || sources.length == 0) {
+            System.err.println("错误：目录中没有子目录: " + directory);
+            System.exit(1);
+            return;
+        }
+        Arrays.sort(sources);
+        LanguageRouter router = new LanguageRouter(new VisionOCR(), 1024);
+        for (File source : sources) {
+            File[] files = source.listFiles(File::isFile);
+            if (files == null) {
+                continue;
+            }
+            Arrays.sort(files);
+            for (File file : files) {
+                try {
+                    List<OCRResult> results = router.recognizeText(file.getAbsolutePath());
+                    System.out.println(file + " -> " + router.getRoute(source.getAbsolutePath())
+                            + "，" + results.size() + " 个文本块");
+                } catch (RuntimeException e) {
+                    System.out.println(file + " 识别失败: " + e.getMessage());
+                }
+            }
+        }
+        printRouterStats(router);
+    }
+
+    private static void printRouterStats(LanguageRouter router) {
+        System.out.println();
+        System.out.println("路由请求: " + router.getRequestCount()
+                + "，精确识别: " + router.getAccuratePassCount()
+                + "，探测识别: " + router.getProbePassCount()
+                + "，探测结果复用: " + router.getProbeReuseCount());
+        System.out.println("来源缓存命中: " + router.getCacheHitCount()
+                + "，换语言重新识别: " + router.getRerouteCount()
+                + "，相对先中文后重识别净省去的识别: " + router.getAvoidedExtraPasses());
+    }
+
+    private static void print(String name, MultilingualEngine engine, long elapsedNanos, double confidence) {
+        System.out.printf(Locale.ROOT, "%-10s %8d %8d %10.0f %10.0f %10.3f%n", name,
+                engine.accuratePasses.sum(), engine.fastPasses.sum(), engine.busyMicros.sum() / 1000.0,
+                elapsedNanos / 1e6, confidence);
+    }
+
+    private static double averageConfidence(List<OCRResult> results) {
+        double sum = 0;
+        for (OCRResult result : results) {
+            sum += result.getConfidence();
+        }
+        return results.isEmpty() ? 0 : sum / results.size();
+    }
+
+    /**
+     * 生成页面路径 "source-N/page-M.语言"，页面顺序打乱，模拟多个来源交错到达
+     */
+    private static List<String> generatePages(int sources, int pagesPerSource, Random random) {
+        List<String> pages = new ArrayList<>();
+        for (int s = 0; s < sources; s++) {
+            String dominant = pick(random);
+            for (int p = 0; p < pagesPerSource; p++) {
+                String language = random.nextDouble() < OTHER_LANGUAGE_PAGES
+                        ? LANGUAGES[random.nextInt(LANGUAGES.length)] : dominant;
+                pages.add("source-" + s + "/page-" + p + "." + language);
+            }
+        }
+        Collections.shuffle(pages, random);
+        return pages;
+    }
+
+    private static String pick(Random random) {
+        double value = random.nextDouble();
+        for (int i = 0; i < LANGUAGES.length - 1; i++) {
+            value -= SOURCE_SHARES[i];
+            if (value < 0) {
+                return LANGUAGES[i];
+            }
+        }
+        return LANGUAGES[LANGUAGES.length - 1];
+    }
+
+    /**
+     * 模拟多语言识别引擎
+     * 页面语言由路径后缀决定。快速级别识别中日文页面时返回拉丁字母乱码；
+ * 识别语言为空（自动检测）或包含页面语言时返回正确文本；
+     * 否则中文模型识别日文页面时丢失假名，非拉丁语言模型之外的文字被识别为乱码，置信度降低。
+     */
+    static class MultilingualEngine implements OCREngine {
+        private static final String ZH = "扫描文件中的中文段落，包含日期和金额等信息";
+        private static final String JA = "スキャンした書類の日本語の段落です。日付と金額が含まれます";
+        private static final String EN = "An English paragraph from a scanned document with dates and amounts";
+
+        final LongAdder accuratePasses = new LongAdder();
+        final LongAdder fastPasses = new LongAdder();
+        final LongAdder busyMicros = new LongAdder();
+        private final long accurateMicros;
+        private final long fastMicros;
+
+        MultilingualEngine(long accurateMicros, long fastMicros) {
+            this.accurateMicros = accurateMicros;
+            this.fastMicros = fastMicros;
+        }
+
+        @Override
+        public List<OCRResult> recognizeText(String imagePath) {
+            return recognizeText(imagePath, RecognitionOptions.DEFAULT);
+        }
+
+        @Override
+        public List<OCRResult> recognizeText(String imagePath, RecognitionOptions options) {
+            boolean fast = options.getLevel() == RecognitionOptions.Level.FAST;
+            long micros = fast ? fastMicros : accurateMicros;
+            (fast ? fastPasses : accuratePasses).increment();
+            busyMicros.add(micros);
+            long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(micros);
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+
+            String page = imagePath.substring(imagePath.lastIndexOf('.') + 1);
+            List<String> languages = options.getLanguages();
+            boolean hasZh = languages.contains("zh-Hans") || languages.contains("zh-Hant");
+            boolean hasJa = languages.contains("ja-JP");
+            String text;
+            double confidence;
+            if (fast && !"en".equals(page)) {
+                // Vision的快速级别不支持中日韩文字
+                text = "Il1 rn lIl1 rnI lI1";
+                confidence = 0.5;
+            } else if (languages.isEmpty() || ("zh".equals(page) && hasZh) || ("ja".equals(page) && hasJa)
+                    || "en".equals(page)) {
+                text = "zh".equals(page) ? ZH : "ja".equals(page) ? JA : EN;
+                confidence = fast ? 0.8 : 0.95;
+            } else if ("ja".equals(page) && hasZh) {
+                text = JA.replaceAll("[\\p{IsHiragana}\\p{IsKatakana}]", "");
+                confidence = 0.5;
+            } else if ("zh".equals(page) && hasJa) {
+                text = ZH;
+                confidence = 0.85;
+            } else {
+                text = "lI1l rn lIl1 rnI";
+                confidence = 0.2;
+            }
+            return Collections.singletonList(
+                    new OCRResult(text, confidence, new OCRResult.BoundingBox(0.1, 0.1, 0.8, 0.1)));
+        }
+    }
+}
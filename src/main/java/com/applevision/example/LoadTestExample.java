@@ -0,0 +1,162 @@
+package com.applevision.example;
+
+import com.applevision.OCREngine;
+import com.applevision.VisionOCR;
+import com.applevision.loadtest.LoadGenerator;
+import com.applevision.loadtest.LoadTestReport;
+import com.applevision.trace.ReplayOCREngine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测命令行工具
+ * 以固定目标速率（开环）驱动OCR引擎，从语料目录循环读取图片，
+ * 输出校正协同遗漏后的延迟百分位、吞吐、错误率，并可通过阶梯递增速率找出单机最大可持续速率。
+ *
+ * 用法:
+ *   java LoadTestExample --corpus &lt;目录&gt; --rate 20 --duration 30
+ *   java LoadTestExample --corpus &lt;目录&gt; --ramp 5,5,60 --duration 20 --slo-p99-ms 2000 --json result.json
+ *   java LoadTestExample --engine simulated --sim-latency-ms 20 --concurrency 4 --ramp 50,50,400
+ *   java LoadTestExample --engine replay --trace trace.avtr --ramp 5,5,60 --slo-p99-ms 2000
+ */
+public class LoadTestExample {
+    private static final List<String> IMAGE_EXTENSIONS =
+            Arrays.asList(".jpg", ".jpeg", ".png", ".gif", ".bmp", ".tif", ".tiff");
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseOptions(args);
+        if (options == null) {
+            printUsage();
+            System.exit(1);
+        }
+
+        String engineName = options.getOrDefault("engine", "vision");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "4"));
+        long durationSeconds = Long.parseLong(options.getOrDefault("duration", "10"));
+        long sloP99Micros = (long) (Double.parseDouble(options.getOrDefault("slo-p99-ms", "0")) * 1000);
+        double maxErrorRate = Double.parseDouble(options.getOrDefault("max-error-rate", "0.01"));
+
+        OCREngine engine;
+        List<String> corpus;
+        if ("simulated".equals(engineName)) {
+            long latencyMicros = (long) (Double.parseDouble(options.getOrDefault("sim-latency-ms", "20")) * 1000);
+            engine = new SimulatedOCREngine(0, latencyMicros);
+            corpus = options.containsKey("corpus")
+                    ? loadCorpus(options.get("corpus"))
+                    : Collections.singletonList("simulated.png");
+        } else if ("replay".equals(engineName)) {
+            if (!options.containsKey("trace")) {
+                System.err.println("错误：replay 引擎需要指定 --trace");
+                System.exit(1);
+            }
+            ReplayOCREngine replay = new ReplayOCREngine(Paths.get(options.get("trace")),
+                    Double.parseDouble(options.getOrDefault("latency-scale", "1")));
+            engine = replay;
+            corpus = replay.getRequestKeys();
+        } else if ("vision".equals(engineName)) {
+            if (!options.containsKey("corpus")) {
+                System.err.println("错误：使用 vision 引擎时必须指定 --corpus");
+                System.exit(1);
+            }
+            engine = new VisionOCR();
+            corpus = loadCorpus(options.get("corpus"));
+        } else {
+            System.err.println("错误：未知的引擎: " + engineName);
+            System.exit(1);
+            return;
+        }
+        if (corpus.isEmpty()) {
+            System.err.println("错误：语料目录中没有图片文件");
+            System.exit(1);
+        }
+
+        System.out.println("引擎: " + engineName + ", 语料: " + corpus.size() + " 张, 并发上限: " + concurrency);
+        System.out.println("==========================================");
+
+        LoadGenerator generator = new LoadGenerator(engine, corpus, concurrency, durationSeconds * 2, TimeUnit.SECONDS);
+        String json;
+        if (options.containsKey("ramp")) {
+            String[] ramp = options.get("ramp").split(",");
+            if (ramp.length != 3) {
+                System.err.println("错误：--ramp 格式应为 起始速率,步长,最大速率");
+                System.exit(1);
+            }
+            List<LoadTestReport> reports = generator.runRamp(Double.parseDouble(ramp[0]), Double.parseDouble(ramp[1]),
+                    Double.parseDouble(ramp[2]), durationSeconds, TimeUnit.SECONDS, sloP99Micros, maxErrorRate);
+            for (LoadTestReport report : reports) {
+                System.out.print(report.toText());
+                System.out.println("可持续: " + (report.isSustainable(sloP99Micros, maxErrorRate) ? "是" : "否"));
+                System.out.println("------------------------------------------");
+            }
+            double maxRate = LoadGenerator.findMaxSustainableRate(reports, sloP99Micros, maxErrorRate);
+            System.out.println(String.format(Locale.ROOT, "最大可持续速率: %.1f/s", maxRate));
+            json = LoadTestReport.toJson(reports, maxRate);
+        } else {
+            double rate = Double.parseDouble(options.getOrDefault("rate", "10"));
+            LoadTestReport report = generator.run(rate, durationSeconds, TimeUnit.SECONDS);
+            System.out.print(report.toText());
+            json = report.toJson();
+        }
+
+        if (options.containsKey("json")) {
+            Files.write(Paths.get(options.get("json")), json.getBytes(StandardCharsets.UTF_8));
+            System.out.println("JSON结果已写入: " + options.get("json"));
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                return null;
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    private static List<String> loadCorpus(String directory) {
+        File dir = new File(directory);
+        File[] files = dir.listFiles();
+        List<String> corpus = new ArrayList<>();
+        if (files == null) {
+            return corpus;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = file.getName().toLowerCase(Locale.ROOT);
+            if (file.isFile() && IMAGE_EXTENSIONS.stream().anyMatch(name::endsWith)) {
+                corpus.add(file.getAbsolutePath());
+            }
+        }
+        return corpus;
+    }
+
+    private static void printUsage() {
+        System.out.println("使用方法: java LoadTestExample [选项]");
+        System.out.println("  --engine vision|simulated|replay 被压测的引擎（默认 vision）");
+        System.out.println("  --corpus <目录>             图片语料目录");
+        System.out.println("  --rate <请求/秒>            固定目标速率（默认 10）");
+        System.out.println("  --ramp <起始,步长,最大>     阶梯递增速率，寻找最大可持续速率");
+        System.out.println("  --duration <秒>             每轮（每个阶梯）发送时长（默认 10）");
+        System.out.println("  --concurrency <n>           同时执行的最大请求数（默认 4）");
+        System.out.println("  --slo-p99-ms <毫秒>         判定可持续的p99延迟上限");
+        System.out.println("  --max-error-rate <比例>     判定可持续的最大错误率（默认 0.01）");
+        System.out.println("  --json <文件>               将结果以JSON写入文件");
+        System.out.println("  --sim-latency-ms <毫秒>     模拟引擎单次识别耗时（默认 20）");
+        System.out.println("  --trace <文件>              重放引擎使用的轨迹文件（由 TraceRecordExample 录制）");
+        System.out.println("  --latency-scale <系数>      重放延迟缩放系数（默认 1）");
+    }
+}
@@ -0,0 +1,85 @@
+package com.applevision.example;
+
+import com.applevision.scheduler.MicroBatchScheduler;
+import com.applevision.util.LatencyHistogram;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 微批调度器基准测试
+ * 使用模拟引擎（单次调用固定开销 + 每张图片处理时间），以泊松到达的开环负载
+ * 在不同到达速率下对比三种配置的延迟与吞吐曲线：
+ * 不合批、固定等待窗口、自适应等待窗口。
+ *
+ * 低速率下自适应窗口应与不合批的延迟接近（不引入固定等待），
+ * 高速率下应与固定窗口的吞吐接近（批次被充分填满）。
+ */
+public class MicroBatchBenchmark {
+    private static final long CALL_OVERHEAD_MICROS = 2000;
+    private static final long PER_IMAGE_MICROS = 300;
+    private static final int MAX_BATCH_SIZE = 16;
+    private static final long MAX_WAIT_MICROS = 5000;
+
+    public static void main(String[] args) throws Exception {
+        long durationMillis = args.length > 0 ? Long.parseLong(args[0]) : 2000;
+        int[] rates = {20, 50, 100, 200, 400, 800, 1600, 2400};
+
+        System.out.println("模拟引擎: 单次调用开销 " + CALL_OVERHEAD_MICROS + "us, 每张图片 " + PER_IMAGE_MICROS + "us");
+        System.out.println("每个速率持续 " + durationMillis + " 毫秒，延迟单位为微秒");
+        System.out.println();
+        System.out.printf("%-10s %8s %10s %8s %8s %8s %8s %8s%n",
+                "配置", "目标速率", "实际吞吐", "p50", "p99", "max", "平均批次", "窗口");
+
+        for (int rate : rates) {
+            run("no-batch", rate, durationMillis, 1, false);
+            run("fixed", rate, durationMillis, MAX_BATCH_SIZE, false);
+            run("adaptive", rate, durationMillis, MAX_BATCH_SIZE, true);
+            System.out.println();
+        }
+    }
+
+    private static void run(String name, int ratePerSecond, long durationMillis, int maxBatchSize,
+                            boolean adaptive) throws Exception {
+        SimulatedOCREngine engine = new SimulatedOCREngine(CALL_OVERHEAD_MICROS, PER_IMAGE_MICROS);
+        MicroBatchScheduler scheduler = new MicroBatchScheduler(engine, maxBatchSize,
+                MAX_WAIT_MICROS, TimeUnit.MICROSECONDS, adaptive, 1);
+        LatencyHistogram histogram = new LatencyHistogram();
+        AtomicLong lastCompletion = new AtomicLong();
+        Random random = new Random(42);
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        long meanInterArrival = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long scheduled = start;
+        CompletableFuture<?> last = CompletableFuture.completedFuture(null);
+        int submitted = 0;
+
+        while (scheduled < end) {
+            long wait;
+            while ((wait = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            // 延迟从计划发送时间起算，避免生成器落后时低估延迟
+            final long intended = scheduled;
+            last = scheduler.submit("image-" + submitted + ".png").whenComplete((r, e) -> {
+                long now = System.nanoTime();
+                histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(now - intended));
+                lastCompletion.accumulateAndGet(now, Math::max);
+            });
+            submitted++;
+            scheduled += (long) (-Math.log(1.0 - random.nextDouble()) * meanInterArrival);
+        }
+        last.join();
+        scheduler.close();
+
+        double elapsedSeconds = (lastCompletion.get() - start) / 1e9;
+        System.out.printf("%-10s %8d %10.1f %8d %8d %8d %8.2f %8d%n",
+                name, ratePerSecond, histogram.getTotalCount() / elapsedSeconds,
+                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+                histogram.getMaxValue(), scheduler.getAverageBatchSize(), scheduler.getCurrentWindowMicros());
+    }
+}
@@ -0,0 +1,145 @@
+package com.applevision.example;
+
+import com.applevision.OCREngine;
+import com.applevision.OCRResult;
+import com.applevision.VisionOCR;
+import com.applevision.document.MultiPageRecognizer;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 多页文档识别基准测试
+ * 生成一份100页、CCITT T.6压缩的二值TIFF（与传真扫描件相同的编码），
+ * 分别以顺序（并行度1）和并行方式识别，对比总耗时与首页结果的到达时间，并核对两次结果一致。
+ *
+ * 默认使用模拟引擎（每页固定处理时间），TIFF解码是真实的CPU开销；
+ * 在macOS上指定 vision 时使用真实的Vision识别。
+ *
+ * 用法:
+ *   java MultiPageBenchmark [simulated|vision] [页数] [并行度] [内存预算MB]
+ */
+public class MultiPageBenchmark {
+    private static final int PAGE_WIDTH = 1728;
+    private static final int PAGE_HEIGHT = 2200;
+    private static final long SIMULATED_PAGE_MICROS = 40_000;
+
+    public static void main(String[] args) throws Exception {
+        String engineName = args.length > 0 ? args[0] : "simulated";
+        int pageCount = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long budgetBytes = (args.length > 3 ? Long.parseLong(args[3]) : 64) * 1024 * 1024;
+
+        OCREngine engine = "vision".equals(engineName)
+                ? new VisionOCR()
+                : new SimulatedOCREngine(0, SIMULATED_PAGE_MICROS);
+
+        File document = File.createTempFile("multipage-benchmark", ".tif");
+        document.deleteOnExit();
+        long writeStart = System.nanoTime();
+        writeDocument(document, pageCount);
+        System.out.printf(Locale.ROOT, "已生成 %d 页TIFF（%dx%d，%.1f MB），耗时 %d ms%n", pageCount,
+                PAGE_WIDTH, PAGE_HEIGHT, document.length() / 1024.0 / 1024.0,
+                (System.nanoTime() - writeStart) / 1_000_000);
+        System.out.println("引擎: " + engineName + ", 内存预算: " + budgetBytes / 1024 / 1024 + " MB");
+        System.out.println();
+
+        // 预热
+        run(engine, document, parallelism, budgetBytes);
+
+        System.out.printf("%-10s %6s %10s %10s %10s %12s%n", "模式", "并行度", "总耗时ms", "每页ms", "首页ms", "峰值预留MB");
+        Result sequential = run(engine, document, 1, budgetBytes);
+        print("sequential", 1, pageCount, sequential);
+        Result parallel = run(engine, document, parallelism, budgetBytes);
+        print("parallel", parallelism, pageCount, parallel);
+
+        System.out.printf(Locale.ROOT, "%n加速比: %.2fx%n", (double) sequential.elapsedNanos / parallel.elapsedNanos);
+        System.out.println("结果一致: " + (sequential.pages.toString().equals(parallel.pages.toString()) ? "是" : "否"));
+    }
+
+    private static Result run(OCREngine engine, File document, int parallelism, long budgetBytes) throws IOException {
+        try (MultiPageRecognizer recognizer = new MultiPageRecognizer(engine, parallelism, budgetBytes)) {
+            long start = System.nanoTime();
+            long[] firstPage = {-1};
+            int[] expectedPage = {0};
+            List<List<OCRResult>> pages = recognizer.recognize(document, (pageIndex, results) -> {
+                if (pageIndex != expectedPage[0]++) {
+                    throw new IllegalStateException("Page delivered out of order: " + pageIndex);
+                }
+                if (firstPage[0] < 0) {
+                    firstPage[0] = System.nanoTime() - start;
+                }
+            });
+            return new Result(pages, System.nanoTime() - start, firstPage[0], recognizer.getPeakReservedBytes());
+        }
+    }
+
+    private static void print(String name, int parallelism, int pageCount, Result result) {
+        System.out.printf(Locale.ROOT, "%-10s %6d %10.1f %10.2f %10.1f %12.1f%n", name, parallelism,
+                result.elapsedNanos / 1e6, result.elapsedNanos / 1e6 / pageCount, result.firstPageNanos / 1e6,
+                result.peakReservedBytes / 1024.0 / 1024.0);
+    }
+
+    /**
+     * 生成多页二值TIFF，每页若干行文字
+     */
+    private static void writeDocument(File file, int pageCount) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionType("CCITT T.6");
+            writer.prepareWriteSequence(null);
+            for (int page = 0; page < pageCount; page++) {
+                writer.writeToSequence(new IIOImage(renderPage(page), null, null), param);
+            }
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static BufferedImage renderPage(int page) {
+        BufferedImage image = new BufferedImage(PAGE_WIDTH, PAGE_HEIGHT, BufferedImage.TYPE_BYTE_BINARY);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, PAGE_WIDTH, PAGE_HEIGHT);
+            graphics.setColor(Color.BLACK);
+            graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 36));
+            for (int line = 0; line < 40; line++) {
+                graphics.drawString("Page " + (page + 1) + " line " + (line + 1) + " The quick brown fox jumps",
+                        120, 150 + line * 50);
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    private static final class Result {
+        final List<List<OCRResult>> pages;
+        final long elapsedNanos;
+        final long firstPageNanos;
+        final long peakReservedBytes;
+
+        Result(List<List<OCRResult>> pages, long elapsedNanos, long firstPageNanos, long peakReservedBytes) {
+            this.pages = pages;
+            this.elapsedNanos = elapsedNanos;
+            this.firstPageNanos = firstPageNanos;
+            this.peakReservedBytes = peakReservedBytes;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.applevision.example;
+
+import com.applevision.scheduler.PriorityScheduler;
+import com.applevision.scheduler.PriorityScheduler.Priority;
+import com.applevision.util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 优先级调度示例
+ * 使用模拟引擎构造混合负载：批量回填一次性提交大量请求，交互请求以固定速率到达。
+ * 分别以“全部同一类别”（等同于先来先服务）和“区分优先级”两种方式提交，
+ * 对比各类别的排队等待时间直方图，验证交互延迟受到保护且批量请求不会被饿死。
+ */
+public class PrioritySchedulerExample {
+    private static final int WORKERS = 4;
+    private static final long PER_IMAGE_MICROS = 5000;
+    private static final int BACKFILL_REQUESTS = 3000;
+    private static final int INTERACTIVE_RATE = 40;
+    private static final long INTERACTIVE_DURATION_MILLIS = 3000;
+    private static final long INTERACTIVE_DEADLINE_MILLIS = 500;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("模拟引擎: 每张图片 " + PER_IMAGE_MICROS + "us, 工作线程 " + WORKERS);
+        System.out.println("批量回填 " + BACKFILL_REQUESTS + " 张, 交互请求 " + INTERACTIVE_RATE + " 张/秒, 截止时间 "
+                + INTERACTIVE_DEADLINE_MILLIS + " 毫秒");
+        System.out.println();
+
+        run("先来先服务", false);
+        run("优先级调度", true);
+    }
+
+    private static void run(String name, boolean prioritized) throws Exception {
+        PriorityScheduler scheduler = new PriorityScheduler(
+                new SimulatedOCREngine(0, PER_IMAGE_MICROS), WORKERS, 2, TimeUnit.SECONDS);
+        scheduler.setTenantQuota("noisy-user", 5);
+
+        Priority interactiveClass = prioritized ? Priority.INTERACTIVE : Priority.NORMAL;
+        Priority bulkClass = prioritized ? Priority.BULK : Priority.NORMAL;
+
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < BACKFILL_REQUESTS; i++) {
+            futures.add(scheduler.submit("backfill-" + i + ".png", bulkClass, "backfill"));
+        }
+
+        // 某个租户瞬间提交大量交互请求，超出配额的部分会被直接拒绝
+        for (int i = 0; i < 50; i++) {
+            futures.add(scheduler.submit("burst-" + i + ".png", interactiveClass, "noisy-user"));
+        }
+
+        LatencyHistogram interactiveLatency = new LatencyHistogram();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / INTERACTIVE_RATE;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(INTERACTIVE_DURATION_MILLIS);
+        for (long next = start; next < end; next += intervalNanos) {
+            long sleep = next - System.nanoTime();
+            if (sleep > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleep);
+            }
+            long submitted = System.nanoTime();
+            futures.add(scheduler.submit("upload.png", interactiveClass, "web",
+                    INTERACTIVE_DEADLINE_MILLIS, TimeUnit.MILLISECONDS)
+                    .whenComplete((r, e) -> {
+                        if (e == null) {
+                            interactiveLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - submitted));
+                        }
+                    }));
+        }
+        for (CompletableFuture<?> future : futures) {
+            future.handle((r, e) -> null).join();
+        }
+        scheduler.close();
+
+        System.out.println("=== " + name + " ===");
+        for (Priority priority : Priority.values()) {
+            LatencyHistogram wait = scheduler.getQueueWaitHistogram(priority);
+            if (wait.getTotalCount() == 0) {
+                continue;
+            }
+            System.out.printf("%-12s 排队等待(us) p50=%d p99=%d max=%d, 完成 %d, 丢弃 %d, 饥饿提升 %d%n",
+                    priority, wait.getValueAtPercentile(50), wait.getValueAtPercentile(99), wait.getMaxValue(),
+                    scheduler.getCompletedCount(priority), scheduler.getDroppedCount(priority),
+                    scheduler.getStarvationPromotionCount(priority));
+        }
+        System.out.printf("交互请求端到端延迟(us, 仅成功) p50=%d p99=%d, 成功 %d%n",
+                interactiveLatency.getValueAtPercentile(50), interactiveLatency.getValueAtPercentile(99),
+                interactiveLatency.getTotalCount());
+        System.out.println("超出租户配额被拒绝: " + scheduler.getRejectedByQuotaCount());
+        System.out.println();
+    }
+}
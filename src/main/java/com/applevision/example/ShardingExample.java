@@ -0,0 +1,154 @@
+package com.applevision.example;
+
+import com.applevision.OCREngine;
+import com.applevision.VisionOCR;
+import com.applevision.shard.ShardWorker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * 多进程分片示例
+ *
+ * 在临时共享目录中生成清单，启动多个 {@link ShardWorker} 子进程（模拟引擎）并发处理，
+ * 运行期间随机强制结束部分子进程并启动替补进程，全部结束后核对最终输出：
+ * 清单中的每个输入恰好出现一次，且路径与清单一致，没有遗留的租约。
+ * 被结束的进程持有的分块在租约过期后由其他进程抢占。
+ *
+ * 在多台Mac上使用时，把共享目录放在各节点都能访问的文件系统上，
+ * 在其中放置清单 manifest.txt 和只含分块大小的文件 chunk-size，各节点运行：
+ * <pre>
+ *   java ShardingExample --worker &lt;共享目录&gt; &lt;节点标识&gt; vision
+ * </pre>
+ *
+ * 用法:
+ *   java ShardingExample [输入数] [进程数] [强制结束次数] [分块大小]
+ */
+public class ShardingExample {
+    private static final long LEASE_TTL_MILLIS = 1_500;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "--worker".equals(args[0])) {
+            runWorker(Paths.get(args[1]), args[2], args.length > 3 ? args[3] : "simulated");
+            return;
+        }
+        int inputs = args.length > 0 ? Integer.parseInt(args[0]) : 3_000;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int kills = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int chunkSize = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+
+        Path shared = Files.createTempDirectory("applevision-shard");
+        try {
+            List<String> manifest = new ArrayList<>(inputs);
+            for (int i = 0; i < inputs; i++) {
+                manifest.add("/data/backfill/" + (i / 1000) + "/scan-" + i + ".png");
+            }
+            Files.write(shared.resolve("manifest.txt"), manifest, StandardCharsets.UTF_8);
+            Files.write(shared.resolve("chunk-size"), String.valueOf(chunkSize).getBytes(StandardCharsets.UTF_8));
+
+            List<Process> processes = new ArrayList<>();
+            int nextId = 0;
+            for (; nextId < workers; nextId++) {
+                processes.add(startWorker(shared, "worker-" + nextId));
+            }
+            Random random = new Random(11);
+            for (int k = 0; k < kills; k++) {
+                Thread.sleep(800 + random.nextInt(1200));
+                List<Process> alive = new ArrayList<>();
+                for (Process process : processes) {
+                    if (process.isAlive()) {
+                        alive.add(process);
+                    }
+                }
+                if (alive.isEmpty()) {
+                    break;
+                }
+                Process victim = alive.get(random.nextInt(alive.size()));
+                victim.destroyForcibly();
+                victim.waitFor();
+                System.out.println("强制结束进程 " + victim.pid() + "，启动替补 worker-" + nextId);
+                processes.add(startWorker(shared, "worker-" + nextId++));
+            }
+            for (Process process : processes) {
+                process.waitFor();
+            }
+            verify(shared, manifest, chunkSize);
+        } finally {
+            try (Stream<Path> paths = Files.walk(shared)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private static Process startWorker(Path shared, String workerId) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-Dsun.stdout.encoding=UTF-8", "-cp", System.getProperty("java.class.path"),
+                ShardingExample.class.getName(), "--worker", shared.toString(), workerId)
+                .inheritIO()
+                .start();
+    }
+
+    private static void runWorker(Path shared, String workerId, String engineName) throws Exception {
+        int chunkSize = Integer.parseInt(new String(Files.readAllBytes(shared.resolve("chunk-size")),
+                StandardCharsets.UTF_8).trim());
+        OCREngine engine = "vision".equals(engineName)
+                ? new VisionOCR() : new SimulatedOCREngine(0, 4_000);
+        ShardWorker worker = new ShardWorker(engine, shared.resolve("manifest.txt"), shared, workerId,
+                chunkSize, LEASE_TTL_MILLIS);
+        worker.run();
+        System.out.println("  " + workerId + " 完成: 处理输入 " + worker.getInputsProcessed()
+                + "，提交分块 " + worker.getChunksCommitted()
+                + "，抢占租约 " + worker.getChunksStolen()
+                + "，放弃分块 " + worker.getChunksAbandoned()
+                + "，提交冲突 " + worker.getCommitConflicts());
+    }
+
+    private static void verify(Path shared, List<String> manifest, int chunkSize) throws IOException {
+        int[] seen = new int[manifest.size()];
+        int mismatched = 0;
+        int chunkFiles = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(shared.resolve("output"), "chunk-*.tsv")) {
+            for (Path file : stream) {
+                chunkFiles++;
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    String[] fields = line.split("\t");
+                    int ordinal = Integer.parseInt(fields[0]);
+                    seen[ordinal]++;
+                    if (!manifest.get(ordinal).equals(fields[1]) || !"OK".equals(fields[2])) {
+                        mismatched++;
+                    }
+                }
+            }
+        }
+        int missing = 0;
+        int duplicated = 0;
+        for (int count : seen) {
+            if (count == 0) {
+                missing++;
+            } else if (count > 1) {
+                duplicated++;
+            }
+        }
+        int leftoverLeases;
+        try (Stream<Path> leases = Files.list(shared.resolve("leases"))) {
+            leftoverLeases = (int) leases.count();
+        }
+        int expectedChunks = (manifest.size() + chunkSize - 1) / chunkSize;
+        System.out.println();
+        System.out.println("分块输出: " + chunkFiles + " / " + expectedChunks
+                + "，缺失输入: " + missing + "，重复输入: " + duplicated + "，内容不符: " + mismatched
+                + "，遗留租约: " + leftoverLeases);
+        System.out.println(missing == 0 && duplicated == 0 && mismatched == 0 && chunkFiles == expectedChunks
+                ? "核对通过：每个输入在最终输出中恰好出现一次" : "核对失败");
+    }
+}
@@ -0,0 +1,67 @@
+package com.applevision.example;
+
+import com.applevision.OCREngine;
+import com.applevision.OCRResult;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 模拟OCR引擎
+ * 不依赖本地库，按固定的单次调用开销和单张图片处理时间休眠后返回合成结果，
+ * 用于在非macOS环境下演示和压测调度组件
+ */
+public class SimulatedOCREngine implements OCREngine {
+    private final long callOverheadNanos;
+    private final long perImageNanos;
+
+    /**
+     * 构造函数
+     *
+     * @param callOverheadMicros 每次引擎调用（单张或批量）的固定开销（微秒）
+     * @param perImageMicros 每张图片的处理时间（微秒）
+     */
+    public SimulatedOCREngine(long callOverheadMicros, long perImageMicros) {
+        this.callOverheadNanos = TimeUnit.MICROSECONDS.toNanos(callOverheadMicros);
+        this.perImageNanos = TimeUnit.MICROSECONDS.toNanos(perImageMicros);
+    }
+
+    @Override
+    public List<OCRResult> recognizeText(String imagePath) {
+        sleepNanos(callOverheadNanos + perImageNanos);
+        return syntheticResult(imagePath);
+    }
+
+    @Override
+    public List<OCRResult> recognizeImage(BufferedImage image) {
+        sleepNanos(callOverheadNanos + perImageNanos);
+        return syntheticResult(image.getWidth() + "x" + image.getHeight());
+    }
+
+    @Override
+    public List<List<OCRResult>> recognizeTextBatch(List<String> imagePaths) {
+        sleepNanos(callOverheadNanos + perImageNanos * imagePaths.size());
+        List<List<OCRResult>> results = new ArrayList<>(imagePaths.size());
+        for (String imagePath : imagePaths) {
+            results.add(syntheticResult(imagePath));
+        }
+        return results;
+    }
+
+    private static List<OCRResult> syntheticResult(String imagePath) {
+        return Collections.singletonList(
+                new OCRResult(imagePath, 0.99, new OCRResult.BoundingBox(0.1, 0.1, 0.8, 0.1)));
+    }
+
+    private static void sleepNanos(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.applevision.example;
+
+import com.applevision.OCRResult;
+import com.applevision.VisionOCR;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 流式识别示例
+ * 演示两种逐块接收识别结果的方式：
+ * 1. 回调方式：每识别出一个文本块立即处理，无需等待完整结果列表
+ * 2. Flow.Publisher方式：订阅者每次只请求一个文本块（背压），收到指定数量后取消
+ */
+public class StreamingOCRExample {
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.out.println("使用方法: java StreamingOCRExample <图像文件路径> [最多接收的文本块数]");
+            System.exit(1);
+        }
+        String imagePath = args[0];
+        int limit = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        VisionOCR ocr = new VisionOCR();
+
+        // 1. 回调方式
+        System.out.println("=== 回调方式 ===");
+        AtomicInteger count = new AtomicInteger();
+        long startTime = System.currentTimeMillis();
+        ocr.recognizeText(imagePath, result -> {
+            int index = count.incrementAndGet();
+            System.out.println("[" + (System.currentTimeMillis() - startTime) + "ms] 文本块 " + index + ": "
+                    + result.getText());
+        });
+        System.out.println("共接收 " + count.get() + " 个文本块");
+
+        // 2. Flow.Publisher方式，逐个请求，接收 limit 个后取消
+        System.out.println();
+        System.out.println("=== Flow.Publisher方式（最多接收 " + limit + " 个） ===");
+        CountDownLatch done = new CountDownLatch(1);
+        ocr.recognizeTextPublisher(imagePath).subscribe(new Flow.Subscriber<OCRResult>() {
+            private Flow.Subscription subscription;
+            private int received = 0;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(OCRResult item) {
+                received++;
+                System.out.println("文本块 " + received + ": " + item.getText()
+                        + " (置信度: " + String.format("%.2f", item.getConfidence()) + ")");
+                if (received >= limit) {
+                    System.out.println("已达到上限，取消订阅");
+                    subscription.cancel();
+                    done.countDown();
+                } else {
+                    subscription.request(1);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                System.err.println("识别失败: " + throwable.getMessage());
+                done.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                System.out.println("识别完成，共接收 " + received + " 个文本块");
+                done.countDown();
+            }
+        });
+        done.await();
+    }
+}
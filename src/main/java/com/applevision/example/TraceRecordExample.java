@@ -0,0 +1,89 @@
+package com.applevision.example;
+
+import com.applevision.OCREngine;
+import com.applevision.VisionOCR;
+import com.applevision.trace.RecordingOCREngine;
+import com.applevision.trace.TraceReader;
+import com.applevision.trace.TraceRecord;
+import com.applevision.util.LatencyHistogram;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 轨迹录制示例
+ * 通过 {@link RecordingOCREngine} 识别目录中的全部图片并录制轨迹，随后读回轨迹输出统计信息。
+ * 录制得到的轨迹可在任意平台上用重放引擎压测：
+ * <pre>
+ *   java LoadTestExample --engine replay --trace trace.avtr --rate 20
+ * </pre>
+ *
+ * 用法:
+ *   java TraceRecordExample &lt;图片目录&gt; &lt;轨迹文件&gt; [vision|simulated] [轮数]
+ */
+public class TraceRecordExample {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("使用方法: java TraceRecordExample <图片目录> <轨迹文件> [vision|simulated] [轮数]");
+            System.exit(1);
+        }
+        File directory = new File(args[0]);
+        Path traceFile = Paths.get(args[1]);
+        String engineName = args.length > 2 ? args[2] : "vision";
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+        File[] files = directory.listFiles(File::isFile);
+        if (files == null || files.length == 0) {
+            System.err.println("错误：目录中没有文件: " + directory);
+            System.exit(1);
+            return;
+        }
+        Arrays.sort(files);
+
+        OCREngine delegate = "simulated".equals(engineName) ? new SimulatedOCREngine(0, 20_000) : new VisionOCR();
+        int failures = 0;
+        try (RecordingOCREngine recorder = new RecordingOCREngine(delegate, traceFile)) {
+            for (int round = 0; round < rounds; round++) {
+                for (File file : files) {
+                    try {
+                        recorder.recognizeText(file.getAbsolutePath());
+                    } catch (RuntimeException e) {
+                        failures++;
+                    }
+                }
+            }
+            System.out.println("录制请求: " + recorder.getRecordCount() + "，识别失败: " + failures
+                    + "，写入失败: " + recorder.getWriteErrors());
+        }
+
+        List<TraceRecord> records = TraceReader.readAll(traceFile);
+        LatencyHistogram latency = new LatencyHistogram();
+        List<String> distinct = new ArrayList<>();
+        long blocks = 0;
+        for (TraceRecord record : records) {
+            latency.recordValue(record.getLatencyMicros());
+            if (!distinct.contains(record.getDigestHex())) {
+                distinct.add(record.getDigestHex());
+            }
+            if (!record.isError()) {
+                blocks += record.getResults().size();
+            }
+        }
+        long traceSize = Files.size(traceFile);
+        System.out.println("轨迹文件: " + traceFile + "，" + traceSize + " 字节，"
+                + records.size() + " 条记录，" + distinct.size() + " 个不同输入，" + blocks + " 个文本块");
+        if (!records.isEmpty()) {
+            System.out.printf(Locale.ROOT, "每条记录平均 %.1f 字节%n", (double) traceSize / records.size());
+            System.out.printf(Locale.ROOT, "录制延迟(ms): p50=%.1f p99=%.1f max=%.1f%n",
+                    latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(99) / 1000.0,
+                    latency.getMaxValue() / 1000.0);
+        }
+    }
+}
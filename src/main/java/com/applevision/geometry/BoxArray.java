@@ -0,0 +1,133 @@
+package com.applevision.geometry;
+
+import com.applevision.OCRResult;
+
+import java.util.List;
+
+/**
+ * 归一化边界框数组
+ * 以列式（结构数组）布局保存一组 {@link OCRResult.BoundingBox}：x、y、宽、高各占一个连续的double数组，
+ * 供 {@link BoxGeometry} 的批量运算逐列顺序访问，避免逐个对象的间接寻址。
+ */
+public final class BoxArray {
+    final double[] x;
+    final double[] y;
+    final double[] width;
+    final double[] height;
+    private final int size;
+
+    /**
+     * 使用已有的坐标数组构造，不拷贝数组
+     *
+     * @param x 左上角X坐标 (归一化坐标 0.0-1.0)
+     * @param y 左上角Y坐标 (归一化坐标 0.0-1.0)
+     * @param width 宽度 (归一化坐标 0.0-1.0)
+     * @param height 高度 (归一化坐标 0.0-1.0)
+     * @throws IllegalArgumentException 如果数组长度不一致
+     */
+    public BoxArray(double[] x, double[] y, double[] width, double[] height) {
+        if (y.length != x.length || width.length != x.length || height.length != x.length) {
+            throw new IllegalArgumentException("Coordinate arrays must have the same length");
+        }
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.size = x.length;
+    }
+
+    /**
+     * 创建指定大小、坐标全为0的数组
+     *
+     * @param size 边界框数量
+     */
+    public BoxArray(int size) {
+        this(new double[size], new double[size], new double[size], new double[size]);
+    }
+
+    /**
+     * 从识别结果列表提取边界框
+     *
+     * @param results 识别结果
+     * @return 与结果顺序一致的边界框数组
+     */
+    public static BoxArray of(List<OCRResult> results) {
+        BoxArray boxes = new BoxArray(results.size());
+        for (int i = 0; i < boxes.size; i++) {
+            boxes.set(i, results.get(i).getBoundingBox());
+        }
+        return boxes;
+    }
+
+    /**
+     * 从边界框列表构造
+     *
+     * @param boundingBoxes 边界框
+     * @return 与列表顺序一致的边界框数组
+     */
+    public static BoxArray ofBoxes(List<OCRResult.BoundingBox> boundingBoxes) {
+        BoxArray boxes = new BoxArray(boundingBoxes.size());
+        for (int i = 0; i < boxes.size; i++) {
+            boxes.set(i, boundingBoxes.get(i));
+        }
+        return boxes;
+    }
+
+    /**
+     * 获取边界框数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取第i个边界框
+     *
+     * @param i 下标
+     * @return 边界框对象
+     */
+    public OCRResult.BoundingBox get(int i) {
+        return new OCRResult.BoundingBox(x[i], y[i], width[i], height[i]);
+    }
+
+    /**
+     * 设置第i个边界框
+     *
+     * @param i 下标
+     * @param box 边界框对象
+     */
+    public void set(int i, OCRResult.BoundingBox box) {
+        x[i] = box.getX();
+        y[i] = box.getY();
+        width[i] = box.getWidth();
+        height[i] = box.getHeight();
+    }
+
+    /**
+     * 获取左上角X坐标数组（不拷贝）
+     */
+    public double[] getX() {
+        return x;
+    }
+
+    /**
+     * 获取左上角Y坐标数组（不拷贝）
+     */
+    public double[] getY() {
+        return y;
+    }
+
+    /**
+     * 获取宽度数组（不拷贝）
+     */
+    public double[] getWidth() {
+        return width;
+    }
+
+    /**
+     * 获取高度数组（不拷贝）
+     */
+    public double[] getHeight() {
+        return height;
+    }
+}
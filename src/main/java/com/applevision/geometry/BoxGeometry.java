@@ -0,0 +1,386 @@
+package com.applevision.geometry;
+
+import com.applevision.OCRResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 边界框批量几何运算
+ * 在 {@link BoxArray} 的列式坐标数组上批量执行坐标转换、翻转/旋转、交并比（IoU）与非极大值抑制（NMS），
+ * 用于合并分块识别、多语言识别或重复识别产生的重叠结果。
+ *
+ * 内层循环由 {@link GeometryKernel} 实现：JDK 22+ 构建并以 {@code --add-modules jdk.incubator.vector}
+ * 运行时使用Vector API实现，否则使用标量实现。系统属性 {@code applevision.geometry.kernel}
+ * 可设为 {@code scalar} 或 {@code vector} 强制选择（后者在不可用时抛出异常），默认 {@code auto}。
+ */
+public final class BoxGeometry {
+    private static final GeometryKernel KERNEL = loadKernel();
+
+    private BoxGeometry() {
+    }
+
+    /**
+     * 获取当前使用的内层循环实现名称
+     *
+     * @return "vector-&lt;位数&gt;" 或 "scalar"
+     */
+    public static String getKernelName() {
+        return KERNEL.name();
+    }
+
+    /**
+     * 批量转换为像素坐标，结果与逐个调用 {@link OCRResult.BoundingBox#toPixelBoundingBox(int, int)} 相同
+     *
+     * @param boxes 归一化边界框
+     * @param imageWidth 图像宽度
+     * @param imageHeight 图像高度
+     * @return 像素边界框
+     */
+    public static PixelBoxArray toPixels(BoxArray boxes, int imageWidth, int imageHeight) {
+        int n = boxes.size();
+        PixelBoxArray pixels = new PixelBoxArray(n);
+        KERNEL.scaleToInt(boxes.x, n, imageWidth, pixels.x);
+        KERNEL.scaleToInt(boxes.y, n, imageHeight, pixels.y);
+        KERNEL.scaleToInt(boxes.width, n, imageWidth, pixels.width);
+        KERNEL.scaleToInt(boxes.height, n, imageHeight, pixels.height);
+        return pixels;
+    }
+
+    /**
+     * 对所有边界框应用图像变换
+     *
+     * @param boxes 归一化边界框
+     * @param transform 图像变换
+     * @return 变换后的边界框（新数组）
+     */
+    public static BoxArray transform(BoxArray boxes, BoxTransform transform) {
+        int n = boxes.size();
+        BoxArray result = new BoxArray(n);
+        switch (transform) {
+            case FLIP_HORIZONTAL:
+                KERNEL.linear(1.0, -1.0, boxes.x, -1.0, boxes.width, n, result.x);
+                System.arraycopy(boxes.y, 0, result.y, 0, n);
+                break;
+            case FLIP_VERTICAL:
+                System.arraycopy(boxes.x, 0, result.x, 0, n);
+                KERNEL.linear(1.0, -1.0, boxes.y, -1.0, boxes.height, n, result.y);
+                break;
+            case ROTATE_90:
+                KERNEL.linear(1.0, -1.0, boxes.y, -1.0, boxes.height, n, result.x);
+                System.arraycopy(boxes.x, 0, result.y, 0, n);
+                break;
+            case ROTATE_180:
+                KERNEL.linear(1.0, -1.0, boxes.x, -1.0, boxes.width, n, result.x);
+                KERNEL.linear(1.0, -1.0, boxes.y, -1.0, boxes.height, n, result.y);
+                break;
+            case ROTATE_270:
+                System.arraycopy(boxes.y, 0, result.x, 0, n);
+                KERNEL.linear(1.0, -1.0, boxes.x, -1.0, boxes.width, n, result.y);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown transform: " + transform);
+        }
+        if (transform.swapsDimensions()) {
+            System.arraycopy(boxes.height, 0, result.width, 0, n);
+            System.arraycopy(boxes.width, 0, result.height, 0, n);
+        } else {
+            System.arraycopy(boxes.width, 0, result.width, 0, n);
+            System.arraycopy(boxes.height, 0, result.height, 0, n);
+        }
+        return result;
+    }
+
+    /**
+     * 计算边界框 a[i] 与 b 中每个边界框的交并比
+     *
+     * @param a 边界框数组
+     * @param i a中的下标
+     * @param b 边界框数组
+     * @param out 输出数组，长度不小于 b.size()
+     */
+    public static void iou(BoxArray a, int i, BoxArray b, double[] out) {
+        KERNEL.iou(a.x[i], a.y[i], a.width[i], a.height[i], b.x, b.y, b.width, b.height, 0, b.size(), out, 0);
+    }
+
+    /**
+     * 计算两组边界框两两之间的交并比
+     * 矩阵元素数不能超过 int 范围（约 46000 × 46000）；更大的输入请用 {@link #iou(BoxArray, int, BoxArray, double[])}
+     * 逐行计算并就地处理
+     *
+     * @param a 边界框数组（行）
+     * @param b 边界框数组（列）
+     * @return 按行存放的 a.size() × b.size() 矩阵
+     * @throws IllegalArgumentException 如果矩阵元素数超出 int 范围
+     */
+    public static double[] iouMatrix(BoxArray a, BoxArray b) {
+        int rows = a.size();
+        int columns = b.size();
+        int cells;
+        try {
+            cells = Math.multiplyExact(rows, columns);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("IoU matrix of " + rows + " x " + columns
+                    + " exceeds the maximum array size; compute it row by row with iou(a, i, b, out)");
+        }
+        double[] matrix = new double[cells];
+        for (int i = 0; i < rows; i++) {
+            KERNEL.iou(a.x[i], a.y[i], a.width[i], a.height[i], b.x, b.y, b.width, b.height, 0, columns,
+                    matrix, i * columns);
+        }
+        return matrix;
+    }
+
+    /**
+     * 贪心非极大值抑制
+     * 按分数从高到低依次保留边界框，并移除与其交并比大于阈值的其余边界框。
+     * 每保留一个边界框，对剩余候选批量计算交并比后原地压缩，后续只遍历未被抑制的候选。
+     *
+     * @param boxes 边界框
+     * @param scores 每个边界框的分数（如置信度）
+     * @param iouThreshold 交并比阈值
+     * @return 保留的边界框下标，按分数从高到低排列（分数相同时下标小的在前）
+     */
+    public static int[] nms(BoxArray boxes, double[] scores, double iouThreshold) {
+        Candidates candidates = Candidates.sortedByScore(boxes, scores);
+        int alive = candidates.size;
+        int[] kept = new int[alive];
+        int keptCount = 0;
+        double[] overlaps = new double[alive];
+        for (int i = 0; i < alive; i++) {
+            kept[keptCount++] = candidates.index[i];
+            candidates.iouAgainst(i, alive, overlaps);
+            int write = i + 1;
+            for (int j = i + 1; j < alive; j++) {
+                if (overlaps[j] <= iouThreshold) {
+                    candidates.move(j, write++);
+                }
+            }
+            alive = write;
+        }
+        return Arrays.copyOf(kept, keptCount);
+    }
+
+    /**
+     * 线性衰减的Soft-NMS
+     * 每轮保留剩余候选中分数最高的边界框，与其交并比大于阈值的候选分数乘以 (1 - IoU)，
+     * 分数低于 scoreThreshold 的候选被移除。
+     *
+     * @param boxes 边界框
+     * @param scores 每个边界框的初始分数
+     * @param iouThreshold 开始衰减的交并比阈值
+     * @param scoreThreshold 保留的最低分数
+     * @param outScores 可为null；否则写入每个保留边界框衰减后的分数（按原下标），其余位置为0
+     * @return 保留的边界框下标，按被选中的顺序排列
+     */
+    public static int[] softNmsLinear(BoxArray boxes, double[] scores, double iouThreshold,
+                                      double scoreThreshold, double[] outScores) {
+        return softNms(boxes, scores, false, iouThreshold, scoreThreshold, outScores);
+    }
+
+    /**
+     * 高斯衰减的Soft-NMS
+     * 每轮保留剩余候选中分数最高的边界框，其余候选分数乘以 exp(-IoU² / sigma)，
+     * 分数低于 scoreThreshold 的候选被移除。
+     *
+     * @param boxes 边界框
+     * @param scores 每个边界框的初始分数
+     * @param sigma 高斯衰减参数，越小衰减越强
+     * @param scoreThreshold 保留的最低分数
+     * @param outScores 可为null；否则写入每个保留边界框衰减后的分数（按原下标），其余位置为0
+     * @return 保留的边界框下标，按被选中的顺序排列
+     */
+    public static int[] softNmsGaussian(BoxArray boxes, double[] scores, double sigma,
+                                        double scoreThreshold, double[] outScores) {
+        if (sigma <= 0) {
+            throw new IllegalArgumentException("sigma must be positive: " + sigma);
+        }
+        return softNms(boxes, scores, true, sigma, scoreThreshold, outScores);
+    }
+
+    /**
+     * 合并重叠的识别结果
+     * 以置信度为分数执行贪心非极大值抑制，保留的结果按原列表顺序返回
+     *
+     * @param results 识别结果（如分块识别或多次识别合并后的结果）
+     * @param iouThreshold 交并比阈值，大于该值的两个结果视为重复
+     * @return 去重后的识别结果
+     */
+    public static List<OCRResult> suppressDuplicates(List<OCRResult> results, double iouThreshold) {
+        double[] scores = new double[results.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = results.get(i).getConfidence();
+        }
+        int[] kept = nms(BoxArray.of(results), scores, iouThreshold);
+        Arrays.sort(kept);
+        List<OCRResult> merged = new ArrayList<>(kept.length);
+        for (int index : kept) {
+            merged.add(results.get(index));
+        }
+        return merged;
+    }
+
+    private static int[] softNms(BoxArray boxes, double[] scores, boolean gaussian, double parameter,
+                                 double scoreThreshold, double[] outScores) {
+        Candidates candidates = Candidates.copyOf(boxes, scores);
+        if (outScores != null) {
+            Arrays.fill(outScores, 0, boxes.size(), 0.0);
+        }
+        // 初始分数低于阈值的候选直接移除
+        int alive = 0;
+        for (int j = 0; j < candidates.size; j++) {
+            if (candidates.score[j] >= scoreThreshold) {
+                candidates.move(j, alive++);
+            }
+        }
+
+        int[] kept = new int[alive];
+        int keptCount = 0;
+        double[] overlaps = new double[alive];
+        for (int i = 0; i < alive; i++) {
+            int best = i;
+            for (int j = i + 1; j < alive; j++) {
+                if (candidates.score[j] > candidates.score[best]) {
+                    best = j;
+                }
+            }
+            candidates.swap(i, best);
+            kept[keptCount++] = candidates.index[i];
+            if (outScores != null) {
+                outScores[candidates.index[i]] = candidates.score[i];
+            }
+
+            candidates.iouAgainst(i, alive, overlaps);
+            int write = i + 1;
+            for (int j = i + 1; j < alive; j++) {
+                double overlap = overlaps[j];
+                double weight = gaussian
+                        ? Math.exp(-(overlap * overlap) / parameter)
+                        : (overlap > parameter ? 1.0 - overlap : 1.0);
+                candidates.score[j] *= weight;
+                if (candidates.score[j] >= scoreThreshold) {
+                    candidates.move(j, write++);
+                }
+            }
+            alive = write;
+        }
+        return Arrays.copyOf(kept, keptCount);
+    }
+
+    private static GeometryKernel loadKernel() {
+        String mode = System.getProperty("applevision.geometry.kernel", "auto");
+        if (!"scalar".equals(mode)) {
+            try {
+                Class<?> kernelClass = Class.forName("com.applevision.geometry.VectorGeometryKernel");
+                return (GeometryKernel) kernelClass.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                if ("vector".equals(mode)) {
+                    throw new IllegalStateException("Vector API kernel is not available; build with JDK 22+ "
+                            + "and run with --add-modules jdk.incubator.vector", e);
+                }
+            }
+        }
+        return new ScalarGeometryKernel();
+    }
+
+    /**
+     * NMS工作区：候选边界框坐标、分数与原下标的可变副本，支持原地压缩
+     */
+    private static final class Candidates {
+        final double[] x;
+        final double[] y;
+        final double[] width;
+        final double[] height;
+        final double[] score;
+        final int[] index;
+        final int size;
+
+        private Candidates(int size) {
+            this.x = new double[size];
+            this.y = new double[size];
+            this.width = new double[size];
+            this.height = new double[size];
+            this.score = new double[size];
+            this.index = new int[size];
+            this.size = size;
+        }
+
+        static Candidates copyOf(BoxArray boxes, double[] scores) {
+            int n = checkScores(boxes, scores);
+            Candidates candidates = new Candidates(n);
+            System.arraycopy(boxes.x, 0, candidates.x, 0, n);
+            System.arraycopy(boxes.y, 0, candidates.y, 0, n);
+            System.arraycopy(boxes.width, 0, candidates.width, 0, n);
+            System.arraycopy(boxes.height, 0, candidates.height, 0, n);
+            System.arraycopy(scores, 0, candidates.score, 0, n);
+            for (int i = 0; i < n; i++) {
+                candidates.index[i] = i;
+            }
+            return candidates;
+        }
+
+        static Candidates sortedByScore(BoxArray boxes, double[] scores) {
+            int n = checkScores(boxes, scores);
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            // 稳定排序：分数相同时保持原下标顺序
+            Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+            Candidates candidates = new Candidates(n);
+            for (int i = 0; i < n; i++) {
+                int source = order[i];
+                candidates.x[i] = boxes.x[source];
+                candidates.y[i] = boxes.y[source];
+                candidates.width[i] = boxes.width[source];
+                candidates.height[i] = boxes.height[source];
+                candidates.score[i] = scores[source];
+                candidates.index[i] = source;
+            }
+            return candidates;
+        }
+
+        private static int checkScores(BoxArray boxes, double[] scores) {
+            if (scores.length < boxes.size()) {
+                throw new IllegalArgumentException("scores has " + scores.length + " entries for "
+                        + boxes.size() + " boxes");
+            }
+            return boxes.size();
+        }
+
+        void iouAgainst(int i, int alive, double[] out) {
+            KERNEL.iou(x[i], y[i], width[i], height[i], x, y, width, height, i + 1, alive, out, 0);
+        }
+
+        void move(int from, int to) {
+            if (from != to) {
+                x[to] = x[from];
+                y[to] = y[from];
+                width[to] = width[from];
+                height[to] = height[from];
+                score[to] = score[from];
+                index[to] = index[from];
+            }
+        }
+
+        void swap(int a, int b) {
+            if (a != b) {
+                swap(x, a, b);
+                swap(y, a, b);
+                swap(width, a, b);
+                swap(height, a, b);
+                swap(score, a, b);
+                int t = index[a];
+                index[a] = index[b];
+                index[b] = t;
+            }
+        }
+
+        private static void swap(double[] values, int a, int b) {
+            double t = values[a];
+            values[a] = values[b];
+            values[b] = t;
+        }
+    }
+}
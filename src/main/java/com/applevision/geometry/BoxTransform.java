@@ -0,0 +1,42 @@
+package com.applevision.geometry;
+
+/**
+ * 图像变换
+ * 描述整幅图像的翻转或顺时针旋转，用于把在变换后的图像上得到的边界框换算到原图坐标，或反之。
+ * 坐标均为左上角原点的归一化坐标，旋转不改变归一化坐标的取值范围。
+ */
+public enum BoxTransform {
+    /** 水平翻转：x' = 1 - x - width */
+    FLIP_HORIZONTAL,
+    /** 垂直翻转：y' = 1 - y - height */
+    FLIP_VERTICAL,
+    /** 顺时针旋转90度：x' = 1 - y - height，y' = x，宽高互换 */
+    ROTATE_90,
+    /** 旋转180度：同时水平和垂直翻转 */
+    ROTATE_180,
+    /** 顺时针旋转270度：x' = y，y' = 1 - x - width，宽高互换 */
+    ROTATE_270;
+
+    /**
+     * 获取逆变换
+     *
+     * @return 将变换后坐标还原为原坐标的变换
+     */
+    public BoxTransform inverse() {
+        switch (this) {
+            case ROTATE_90:
+                return ROTATE_270;
+            case ROTATE_270:
+                return ROTATE_90;
+            default:
+                return this;
+        }
+    }
+
+    /**
+     * 是否交换宽高
+     */
+    public boolean swapsDimensions() {
+        return this == ROTATE_90 || this == ROTATE_270;
+    }
+}
@@ -0,0 +1,30 @@
+package com.applevision.geometry;
+
+/**
+ * 批量几何运算的内层循环
+ * 标量实现见 {@link ScalarGeometryKernel}；JDK 22+ 构建并以 --add-modules jdk.incubator.vector 运行时，
+ * 使用基于Vector API的实现（源码位于 src/main/java22）。两种实现的运算顺序一致，结果逐位相同。
+ */
+interface GeometryKernel {
+
+    /**
+     * 实现名称，用于基准测试输出
+     */
+    String name();
+
+    /**
+     * out[i] = (int) (values[i] * scale)，i ∈ [0, n)
+     */
+    void scaleToInt(double[] values, int n, double scale, int[] out);
+
+    /**
+     * out[i] = c + a * p[i] + b * q[i]，i ∈ [0, n)
+     */
+    void linear(double c, double a, double[] p, double b, double[] q, int n, double[] out);
+
+    /**
+     * 计算边界框a与 [from, to) 范围内每个边界框的交并比，第j个写入 out[outOffset + j]
+     */
+    void iou(double ax, double ay, double aw, double ah,
+             double[] x, double[] y, double[] w, double[] h, int from, int to, double[] out, int outOffset);
+}
@@ -0,0 +1,71 @@
+package com.applevision.geometry;
+
+import com.applevision.OCRResult;
+
+/**
+ * 像素边界框数组
+ * 以列式布局保存一组 {@link OCRResult.PixelBoundingBox}，由 {@link BoxGeometry#toPixels} 生成
+ */
+public final class PixelBoxArray {
+    final int[] x;
+    final int[] y;
+    final int[] width;
+    final int[] height;
+
+    /**
+     * 创建指定大小、坐标全为0的数组
+     *
+     * @param size 边界框数量
+     */
+    public PixelBoxArray(int size) {
+        this.x = new int[size];
+        this.y = new int[size];
+        this.width = new int[size];
+        this.height = new int[size];
+    }
+
+    /**
+     * 获取边界框数量
+     */
+    public int size() {
+        return x.length;
+    }
+
+    /**
+     * 获取第i个边界框
+     *
+     * @param i 下标
+     * @return 像素边界框对象
+     */
+    public OCRResult.PixelBoundingBox get(int i) {
+        return new OCRResult.PixelBoundingBox(x[i], y[i], width[i], height[i]);
+    }
+
+    /**
+     * 获取左上角X坐标数组（不拷贝）
+     */
+    public int[] getX() {
+        return x;
+    }
+
+    /**
+     * 获取左上角Y坐标数组（不拷贝）
+     */
+    public int[] getY() {
+        return y;
+    }
+
+    /**
+     * 获取宽度数组（不拷贝）
+     */
+    public int[] getWidth() {
+        return width;
+    }
+
+    /**
+     * 获取高度数组（不拷贝）
+     */
+    public int[] getHeight() {
+        return height;
+    }
+}
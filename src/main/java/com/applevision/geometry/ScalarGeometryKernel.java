@@ -0,0 +1,42 @@
+package com.applevision.geometry;
+
+/**
+ * 标量实现
+ * 循环体无分支、按列顺序访问，C2编译器可对其中大部分做自动向量化
+ */
+final class ScalarGeometryKernel implements GeometryKernel {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public void scaleToInt(double[] values, int n, double scale, int[] out) {
+        for (int i = 0; i < n; i++) {
+            out[i] = (int) (values[i] * scale);
+        }
+    }
+
+    @Override
+    public void linear(double c, double a, double[] p, double b, double[] q, int n, double[] out) {
+        for (int i = 0; i < n; i++) {
+            out[i] = c + a * p[i] + b * q[i];
+        }
+    }
+
+    @Override
+    public void iou(double ax, double ay, double aw, double ah,
+                    double[] x, double[] y, double[] w, double[] h, int from, int to, double[] out, int outOffset) {
+        double aMaxX = ax + aw;
+        double aMaxY = ay + ah;
+        double aArea = aw * ah;
+        for (int j = from; j < to; j++) {
+            double intersectWidth = Math.max(Math.min(aMaxX, x[j] + w[j]) - Math.max(ax, x[j]), 0.0);
+            double intersectHeight = Math.max(Math.min(aMaxY, y[j] + h[j]) - Math.max(ay, y[j]), 0.0);
+            double intersection = intersectWidth * intersectHeight;
+            double union = aArea + w[j] * h[j] - intersection;
+            out[outOffset + j] = union > 0 ? intersection / union : 0.0;
+        }
+    }
+}
@@ -0,0 +1,631 @@
+package com.applevision.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.BitSet;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 批量作业的断点续跑日志
+ *
+ * 目录中包含两个文件：
+ * <pre>
+ * journal.log   只追加的完成记录，每条为 int 长度 | int CRC32 | 记录内容
+ *               记录内容: long 序号 | string 路径 | bytes 内容摘要 | string 结果位置
+ * journal.index 压缩索引快照: int 魔数 "AVJI" | byte 版本 | long 已覆盖的日志长度 | long 完成数
+ *               | int 位图字数, long[] 已完成序号位图 | int 指纹数, long[] 路径指纹（升序） | long CRC32
+ * </pre>
+ * string 和 bytes 为 int 长度加内容（string 为UTF-8）。
+ *
+ * 多个工作线程可以同时调用 {@link #markDone}。追加的记录采用组提交：调用在记录落盘（fsync）后返回，
+ * 同时等待的调用共用一次fsync，并发越高每条记录分摊的fsync越少。
+ * 打开日志时先加载索引快照，只重放快照之后追加的记录，末尾不完整或校验失败的记录被截断，
+ * 恢复时间与上次快照后的记录数成正比。每追加 checkpointInterval 条记录以及 {@link #close()} 时
+ * 写一次新快照（写临时文件后原子重命名），快照损坏时从头重放日志。
+ *
+ * 已完成的输入可以按清单序号（位图，{@link #nextPending(long)} 跳过已完成的区间）
+ * 或按路径（64位路径指纹）查询，重启后的作业只需处理剩余的输入。
+ * 同一目录同时只能由一个日志对象打开：构造时对 journal.log 加排他锁，已被其他进程或本进程中
+ * 另一个未关闭的日志对象打开时抛出 {@link IOException}。
+ * 追加记录时写入失败会把日志截断回写入前的长度；截断也失败时日志进入失败状态，之后的追加都被拒绝，
+ * 未写完的记录在下次打开时作为不完整尾部截断。
+ */
+public class JobJournal implements Closeable {
+    /** 清单序号的上限（位图以int为下标） */
+    public static final long MAX_ORDINAL = Integer.MAX_VALUE - 1;
+
+    static final String LOG_FILE = "journal.log";
+    static final String INDEX_FILE = "journal.index";
+    static final int INDEX_MAGIC = 0x41564A49;
+    static final int INDEX_VERSION = 1;
+
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(JobJournal::newDigest);
+
+    private final Path directory;
+    private final Path logPath;
+    private final Path indexPath;
+    private final int checkpointInterval;
+    private final FileChannel log;
+
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private final Object checkpointLock = new Object();
+
+    // 以下字段由 appendLock 保护
+    private final BitSet doneOrdinals;
+    private final LongHashSet donePaths;
+    private long completed;
+    private long appendedBytes;
+    private long sinceCheckpoint;
+    private boolean closed;
+    private IOException failure;
+
+    private volatile long syncedBytes;
+    private volatile long syncCount;
+    private final long recoveredRecords;
+    private final long replayedRecords;
+    private final long truncatedBytes;
+    private final long recoveryNanos;
+
+    /**
+     * 打开或创建日志，每10万条记录写一次索引快照
+     *
+     * @param directory 日志目录，不存在时自动创建
+     * @throws IOException 如果日志无法读取或创建，或已被其他进程打开
+     */
+    public JobJournal(Path directory) throws IOException {
+        this(directory, 100_000);
+    }
+
+    /**
+     * 打开或创建日志
+     *
+     * @param directory 日志目录，不存在时自动创建
+     * @param checkpointInterval 每追加多少条记录写一次索引快照
+     * @throws IOException 如果日志无法读取或创建，或已被其他进程打开
+     */
+    public JobJournal(Path directory, int checkpointInterval) throws IOException {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("checkpointInterval must be positive: " + checkpointInterval);
+        }
+        long start = System.nanoTime();
+        this.directory = directory;
+        this.logPath = directory.resolve(LOG_FILE);
+        this.indexPath = directory.resolve(INDEX_FILE);
+        this.checkpointInterval = checkpointInterval;
+        Files.createDirectories(directory);
+        this.log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        boolean recovered = false;
+        try {
+            lock();
+            Snapshot snapshot = readSnapshot(indexPath);
+            if (snapshot != null && snapshot.coveredBytes > log.size()) {
+                // 日志比快照短（被截断或替换），快照不可信
+                snapshot = null;
+            }
+            if (snapshot == null) {
+                snapshot = new Snapshot(0, 0, new BitSet(), new LongHashSet(1024));
+            }
+            this.doneOrdinals = snapshot.ordinals;
+            this.donePaths = snapshot.paths;
+            this.completed = snapshot.completed;
+            this.recoveredRecords = snapshot.completed;
+
+            long[] replay = replay(snapshot.coveredBytes);
+            this.replayedRecords = replay[1];
+            this.truncatedBytes = log.size() - replay[0];
+            if (truncatedBytes > 0) {
+                log.truncate(replay[0]);
+                log.force(true);
+            }
+            this.appendedBytes = replay[0];
+            this.syncedBytes = replay[0];
+            this.sinceCheckpoint = replayedRecords;
+            log.position(appendedBytes);
+            recovered = true;
+        } finally {
+            if (!recovered) {
+                log.close();
+            }
+        }
+        this.recoveryNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * 记录一个输入已完成，记录落盘后返回
+     *
+     * @param ordinal 输入在清单中的序号；没有清单时为-1
+     * @param path 输入路径
+     * @param digest 输入内容的摘要
+     * @param resultLocation 识别结果的保存位置；调用方应在此之前确保结果本身已落盘
+     * @throws IOException 如果写入或落盘失败，或日志已因此前的写入失败而不可用
+     */
+    public void markDone(long ordinal, String path, byte[] digest, String resultLocation) throws IOException {
+        byte[] frame = encode(new JournalRecord(ordinal, path, digest, resultLocation));
+        long fingerprint = fingerprint(path);
+        long end;
+        boolean checkpointDue;
+        synchronized (appendLock) {
+            if (closed) {
+                throw new IOException("Journal is closed: " + directory);
+            }
+            if (failure != null) {
+                throw new IOException("Journal is unusable after a failed write: " + directory, failure);
+            }
+            write(frame);
+            appendedBytes += frame.length;
+            end = appendedBytes;
+            apply(ordinal, fingerprint);
+            checkpointDue = ++sinceCheckpoint >= checkpointInterval;
+        }
+        sync(end);
+        if (checkpointDue) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * 清单中的某一序号是否已完成
+     */
+    public boolean isDone(long ordinal) {
+        if (ordinal < 0 || ordinal > MAX_ORDINAL) {
+            return false;
+        }
+        synchronized (appendLock) {
+            return doneOrdinals.get((int) ordinal);
+        }
+    }
+
+    /**
+     * 某一路径是否已完成
+     * 按64位路径指纹判断，千万级输入时误判的概率约为1e-5以下
+     */
+    public boolean isDone(String path) {
+        long fingerprint = fingerprint(path);
+        synchronized (appendLock) {
+            return donePaths.contains(fingerprint);
+        }
+    }
+
+    /**
+     * 获取不小于 fromOrdinal 的第一个未完成序号，按位图跳过已完成的区间
+     *
+     * @param fromOrdinal 起始序号
+     * @return 未完成的序号（可能超出清单长度，调用方应自行判断）
+     */
+    public long nextPending(long fromOrdinal) {
+        if (fromOrdinal < 0) {
+            throw new IllegalArgumentException("fromOrdinal must not be negative: " + fromOrdinal);
+        }
+        if (fromOrdinal > MAX_ORDINAL) {
+            return fromOrdinal;
+        }
+        synchronized (appendLock) {
+            return doneOrdinals.nextClearBit((int) fromOrdinal);
+        }
+    }
+
+    /**
+     * 获取已完成的输入数（同一输入重复记录时只计一次）
+     */
+    public long getCompletedCount() {
+        synchronized (appendLock) {
+            return completed;
+        }
+    }
+
+    /**
+     * 按追加顺序读取全部已落盘的记录，例如用于汇总结果位置
+     *
+     * @param consumer 记录处理函数
+     * @throws IOException 如果日志无法读取
+     */
+    public void forEachRecord(Consumer<JournalRecord> consumer) throws IOException {
+        long limit = syncedBytes;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logPath), 64 * 1024))) {
+            long offset = 0;
+            while (offset < limit) {
+                int length = in.readInt();
+                in.readInt();
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                offset += FRAME_HEADER_BYTES + length;
+                consumer.accept(decode(payload));
+            }
+        }
+    }
+
+    /**
+     * 立即写一次索引快照，之后打开日志时只需重放快照之后的记录
+     *
+     * @throws IOException 如果快照写入失败
+     */
+    public void checkpoint() throws IOException {
+        synchronized (checkpointLock) {
+            long covered;
+            long count;
+            BitSet ordinals;
+            long[] paths;
+            synchronized (appendLock) {
+                covered = appendedBytes;
+                count = completed;
+                ordinals = (BitSet) doneOrdinals.clone();
+                paths = donePaths.toSortedArray();
+                sinceCheckpoint = 0;
+            }
+            sync(covered);
+            writeSnapshot(covered, count, ordinals, paths);
+        }
+    }
+
+    /**
+     * 获取打开日志时从快照恢复的完成数
+     */
+    public long getRecoveredFromIndexCount() {
+        return recoveredRecords;
+    }
+
+    /**
+     * 获取打开日志时重放的记录数
+     */
+    public long getReplayedRecordCount() {
+        return replayedRecords;
+    }
+
+    /**
+     * 获取打开日志时截断的不完整尾部字节数（上次进程在写入中途退出）
+     */
+    public long getTruncatedBytes() {
+        return truncatedBytes;
+    }
+
+    /**
+     * 获取打开日志（加载快照并重放）的耗时（毫秒）
+     */
+    public double getRecoveryMillis() {
+        return recoveryNanos / 1e6;
+    }
+
+    /**
+     * 获取已执行的fsync次数，与记录数之比反映组提交的效果
+     */
+    public long getSyncCount() {
+        return syncCount;
+    }
+
+    /**
+     * 写最后一次快照并关闭日志
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (checkpointLock) {
+            synchronized (appendLock) {
+                if (closed) {
+                    return;
+                }
+            }
+            try {
+                checkpoint();
+            } finally {
+                synchronized (appendLock) {
+                    closed = true;
+                }
+                log.close();
+            }
+        }
+    }
+
+    /**
+     * 计算文件内容的SHA-256摘要
+     *
+     * @param path 文件路径
+     * @return 32字节摘要
+     * @throws IOException 如果文件无法读取
+     */
+    public static byte[] digest(Path path) throws IOException {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * 组提交：已有其他调用把本记录刷入磁盘时直接返回，否则由本线程对当前已追加的全部记录执行一次fsync
+     */
+    private void sync(long end) throws IOException {
+        if (syncedBytes >= end) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedBytes >= end) {
+                return;
+            }
+            long target;
+            synchronized (appendLock) {
+                target = appendedBytes;
+            }
+            log.force(false);
+            syncedBytes = target;
+            syncCount++;
+        }
+    }
+
+    /**
+     * 在 appendLock 内追加一帧；写入失败时截断已写入的部分，保证后续记录从帧边界开始
+     */
+    private void write(byte[] frame) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        try {
+            while (buffer.hasRemaining()) {
+                log.write(buffer);
+            }
+        } catch (IOException e) {
+            try {
+                log.truncate(appendedBytes);
+                log.position(appendedBytes);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+                failure = e;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 对日志文件加排他锁，锁随通道关闭释放
+     */
+    private void lock() throws IOException {
+        FileLock lock;
+        try {
+            lock = log.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            throw new IOException("Journal is already open: " + directory);
+        }
+    }
+
+    private void apply(long ordinal, long fingerprint) {
+        boolean added = donePaths.add(fingerprint);
+        if (ordinal >= 0) {
+            added |= !doneOrdinals.get((int) ordinal);
+            doneOrdinals.set((int) ordinal);
+        }
+        if (added) {
+            completed++;
+        }
+    }
+
+    /**
+     * 从给定偏移重放日志直到末尾或第一条不完整、校验失败的记录
+     *
+     * @return {有效日志长度, 重放记录数}
+     */
+    private long[] replay(long fromBytes) throws IOException {
+        long size = log.size();
+        long offset = fromBytes;
+        long records = 0;
+        log.position(fromBytes);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(log), 64 * 1024));
+        CRC32 crc = new CRC32();
+        while (size - offset >= FRAME_HEADER_BYTES) {
+            int length = in.readInt();
+            int expected = in.readInt();
+            if (length < 0 || length > MAX_RECORD_BYTES || size - offset - FRAME_HEADER_BYTES < length) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != expected) {
+                break;
+            }
+            JournalRecord record;
+            try {
+                record = decode(payload);
+            } catch (IOException | IllegalArgumentException e) {
+                break;
+            }
+            apply(record.getOrdinal(), fingerprint(record.getPath()));
+            offset += FRAME_HEADER_BYTES + length;
+            records++;
+        }
+        return new long[]{offset, records};
+    }
+
+    private static byte[] encode(JournalRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeLong(record.getOrdinal());
+        writeBytes(out, record.getPath().getBytes(StandardCharsets.UTF_8));
+        writeBytes(out, record.getDigest());
+        writeBytes(out, record.getResultLocation().getBytes(StandardCharsets.UTF_8));
+        byte[] frame = bytes.toByteArray();
+        int length = frame.length - FRAME_HEADER_BYTES;
+        if (length > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Journal record too large: " + length + " bytes");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(frame, FRAME_HEADER_BYTES, length);
+        ByteBuffer.wrap(frame).putInt(length).putInt((int) crc.getValue());
+        return frame;
+    }
+
+    private static JournalRecord decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long ordinal = in.readLong();
+        String path = new String(readBytes(in), StandardCharsets.UTF_8);
+        byte[] digest = readBytes(in);
+        String location = new String(readBytes(in), StandardCharsets.UTF_8);
+        return new JournalRecord(ordinal, path, digest, location);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_RECORD_BYTES) {
+            throw new IOException("Malformed journal record");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private void writeSnapshot(long covered, long count, BitSet ordinals, long[] paths) throws IOException {
+        Path temp = directory.resolve(INDEX_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CRC32 crc = new CRC32();
+            OutputStream stream = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(stream, crc), 64 * 1024));
+            out.writeInt(INDEX_MAGIC);
+            out.writeByte(INDEX_VERSION);
+            out.writeLong(covered);
+            out.writeLong(count);
+            long[] words = ordinals.toLongArray();
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+            out.writeInt(paths.length);
+            for (long path : paths) {
+                out.writeLong(path);
+            }
+            out.flush();
+            // 校验和本身不计入校验范围，直接写入通道
+            ByteBuffer trailer = ByteBuffer.allocate(8).putLong(crc.getValue());
+            trailer.flip();
+            while (trailer.hasRemaining()) {
+                channel.write(trailer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, indexPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory();
+    }
+
+    private static Snapshot readSnapshot(Path indexPath) throws IOException {
+        if (!Files.isRegularFile(indexPath)) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(indexPath), 64 * 1024)) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(stream, crc));
+            if (in.readInt() != INDEX_MAGIC || in.readByte() != INDEX_VERSION) {
+                return null;
+            }
+            long covered = in.readLong();
+            long count = in.readLong();
+            int wordCount = in.readInt();
+            if (wordCount < 0 || wordCount > (MAX_ORDINAL >>> 6) + 1) {
+                return null;
+            }
+            long[] words = new long[wordCount];
+            for (int i = 0; i < wordCount; i++) {
+                words[i] = in.readLong();
+            }
+            int pathCount = in.readInt();
+            if (pathCount < 0) {
+                return null;
+            }
+            LongHashSet paths = new LongHashSet(pathCount);
+            for (int i = 0; i < pathCount; i++) {
+                paths.add(in.readLong());
+            }
+            long expected = crc.getValue();
+            if (new DataInputStream(stream).readLong() != expected) {
+                return null;
+            }
+            return new Snapshot(covered, count, BitSet.valueOf(words), paths);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private void syncDirectory() {
+        // 确保重命名本身落盘；部分平台不支持打开目录，忽略即可
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * 路径的64位指纹（SHA-256前8字节），0保留为空槽标记
+     */
+    static long fingerprint(String path) {
+        MessageDigest digest = SHA256.get();
+        byte[] hash = digest.digest(path.getBytes(StandardCharsets.UTF_8));
+        long value = ByteBuffer.wrap(hash).getLong();
+        return value != 0 ? value : 1;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class Snapshot {
+        final long coveredBytes;
+        final long completed;
+        final BitSet ordinals;
+        final LongHashSet paths;
+
+        Snapshot(long coveredBytes, long completed, BitSet ordinals, LongHashSet paths) {
+            this.coveredBytes = coveredBytes;
+            this.completed = completed;
+            this.ordinals = ordinals;
+            this.paths = paths;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.applevision.journal;
+
+/**
+ * 作业日志记录
+ * 一个已完成输入的序号、路径、内容摘要和识别结果的保存位置
+ */
+public class JournalRecord {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long ordinal;
+    private final String path;
+    private final byte[] digest;
+    private final String resultLocation;
+
+    /**
+     * 构造函数
+     *
+     * @param ordinal 输入在清单中的序号；没有清单时为-1
+     * @param path 输入路径
+     * @param digest 输入内容的摘要（如SHA-256）
+     * @param resultLocation 识别结果的保存位置（如输出文件名和偏移），由调用方定义格式
+     */
+    public JournalRecord(long ordinal, String path, byte[] digest, String resultLocation) {
+        if (ordinal < -1 || ordinal > JobJournal.MAX_ORDINAL) {
+            throw new IllegalArgumentException("ordinal out of range: " + ordinal);
+        }
+        if (path == null || digest == null || resultLocation == null) {
+            throw new IllegalArgumentException("path, digest and resultLocation must not be null");
+        }
+        this.ordinal = ordinal;
+        this.path = path;
+        this.digest = digest.clone();
+        this.resultLocation = resultLocation;
+    }
+
+    /**
+     * 获取输入在清单中的序号，没有清单时为-1
+     */
+    public long getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * 获取输入路径
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * 获取输入内容的摘要
+     */
+    public byte[] getDigest() {
+        return digest.clone();
+    }
+
+    /**
+     * 获取十六进制形式的内容摘要
+     */
+    public String getDigestHex() {
+        char[] chars = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            chars[i * 2] = HEX[(digest[i] >>> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[digest[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 获取识别结果的保存位置
+     */
+    public String getResultLocation() {
+        return resultLocation;
+    }
+
+    @Override
+    public String toString() {
+        return "JournalRecord{" +
+                "ordinal=" + ordinal +
+                ", path='" + path + '\'' +
+                ", digest=" + getDigestHex() +
+                ", resultLocation='" + resultLocation + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,84 @@
+package com.applevision.journal;
+
+import java.util.Arrays;
+
+/**
+ * long值的开放寻址哈希集合（线性探测），用于保存路径指纹
+ * 0作为空槽标记，调用方不应存入0。非线程安全。
+ */
+final class LongHashSet {
+    private long[] slots;
+    private int size;
+
+    LongHashSet(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2L) {
+            capacity <<= 1;
+        }
+        slots = new long[capacity];
+    }
+
+    boolean add(long value) {
+        if ((size + 1) * 2L > slots.length) {
+            resize(slots.length << 1);
+        }
+        int mask = slots.length - 1;
+        int index = mix(value) & mask;
+        while (slots[index] != 0) {
+            if (slots[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        slots[index] = value;
+        size++;
+        return true;
+    }
+
+    boolean contains(long value) {
+        int mask = slots.length - 1;
+        int index = mix(value) & mask;
+        while (slots[index] != 0) {
+            if (slots[index] == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 返回全部元素（升序）
+     */
+    long[] toSortedArray() {
+        long[] values = new long[size];
+        int i = 0;
+        for (long slot : slots) {
+            if (slot != 0) {
+                values[i++] = slot;
+            }
+        }
+        Arrays.sort(values);
+        return values;
+    }
+
+    private void resize(int capacity) {
+        long[] old = slots;
+        slots = new long[capacity];
+        size = 0;
+        for (long value : old) {
+            if (value != 0) {
+                add(value);
+            }
+        }
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,361 @@
+package com.applevision.language;
+
+import com.applevision.OCREngine;
+import com.applevision.OCRResult;
+import com.applevision.RecognitionOptions;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 按文字系统路由识别语言
+ *
+ * 默认的中文识别语言对日文、英文等图片效果较差，常见做法是先按中文识别一遍，发现不对再换语言重新识别。
+ * 本类在引擎前增加一层路由，尽量只用一次精确识别拿到正确语言的结果：
+ * <ul>
+ *   <li>同一来源（默认为图片所在目录）的语言判定保存在有界LRU缓存中。命中时直接按缓存的语言精确识别，
+ *       再用结果的文字系统直方图校验，与缓存不一致时才换语言重新识别并更新缓存；
+ *       结果平均置信度过低时（语言不对的模型可能输出同一文字系统的乱码）先探测一次再校验；</li>
+ *   <li>未命中时先用探测选项（默认为 {@link RecognitionOptions#DEFAULT}）识别一遍，
+ *       按 {@link ScriptHistogram} 选出语言后再精确识别一次。探测选项与选出的精确选项相同时直接复用探测结果，
+ *       因此中文图片只识别一次，其他语言再识别一次。探测结果字母太少或平均置信度过低时视为无法判断，
+ *       按中文识别且不写入缓存，避免一次失败的探测决定整个来源的语言。</li>
+ * </ul>
+ * Vision的快速级别不支持中日韩文字，中文图片的快速探测结果是拉丁字母乱码或空结果，
+ * 足够长的乱码会被判定为英文并缓存。{@link #FAST_PROBE_OPTIONS} 只适合已知不含中日韩文字的来源。
+ *
+ * 显式传入 {@link RecognitionOptions} 的调用和 {@link #recognizeImage(BufferedImage)} 不经过路由，直接交给引擎。
+ * 线程安全。
+ */
+public class LanguageRouter implements OCREngine {
+    /** 默认的探测选项：与默认识别选项相同（精确级别、简体中文），中文图片的探测结果直接作为最终结果 */
+    public static final RecognitionOptions DEFAULT_PROBE_OPTIONS = RecognitionOptions.DEFAULT;
+    /** 快速级别、自动检测语言、不做语言校正的探测选项，不能识别中日韩文字，需要显式传入 */
+    public static final RecognitionOptions FAST_PROBE_OPTIONS =
+            new RecognitionOptions(Collections.<String>emptyList(), RecognitionOptions.Level.FAST, false);
+
+    /** 缓存命中时结果的平均置信度低于该值，则探测一次以确认语言 */
+    static final double MIN_CONFIDENCE = 0.4;
+    /** 少于该字母数时直方图不足以判断文字系统 */
+    static final int MIN_LETTERS = 8;
+    /** 日文假名占汉字与假名总数的比例达到该值时判定为日文 */
+    static final double KANA_SHARE = 0.1;
+    /** 次要文字系统占全部字母的比例达到该值时，将其语言追加在主要语言之后 */
+    static final double SECONDARY_SHARE = 0.2;
+
+    private static final List<String> JAPANESE = Collections.singletonList("ja-JP");
+    private static final List<String> CHINESE = RecognitionOptions.DEFAULT.getLanguages();
+    private static final Map<Character.UnicodeScript, List<String>> SCRIPT_LANGUAGES = new LinkedHashMap<>();
+
+    static {
+        SCRIPT_LANGUAGES.put(Character.UnicodeScript.HAN, CHINESE);
+        SCRIPT_LANGUAGES.put(Character.UnicodeScript.HANGUL, Collections.singletonList("ko-KR"));
+        SCRIPT_LANGUAGES.put(Character.UnicodeScript.LATIN, Collections.singletonList("en-US"));
+        SCRIPT_LANGUAGES.put(Character.UnicodeScript.CYRILLIC, Arrays.asList("ru-RU", "uk-UA"));
+        SCRIPT_LANGUAGES.put(Character.UnicodeScript.THAI, Collections.singletonList("th-TH"));
+        SCRIPT_LANGUAGES.put(Character.UnicodeScript.ARABIC, Collections.singletonList("ar-SA"));
+    }
+
+    private final OCREngine engine;
+    private final RecognitionOptions probeOptions;
+    private final Function<String, String> sourceKey;
+    private final Map<String, List<String>> routes;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder accuratePasses = new LongAdder();
+    private final LongAdder probePasses = new LongAdder();
+    private final LongAdder probeReuses = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder reroutes = new LongAdder();
+    private final LongAdder avoidedExtraPasses = new LongAdder();
+
+    /**
+     * 使用默认探测选项，以图片所在目录作为来源
+     *
+     * @param engine 实际执行识别的引擎
+     * @param cacheCapacity 最多缓存多少个来源的语言判定
+     */
+    public LanguageRouter(OCREngine engine, int cacheCapacity) {
+        this(engine, cacheCapacity, DEFAULT_PROBE_OPTIONS, LanguageRouter::parentDirectory);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param engine 实际执行识别的引擎
+     * @param cacheCapacity 最多缓存多少个来源的语言判定
+     * @param probeOptions 缓存未命中时探测文字系统所用的识别选项
+     * @param sourceKey 由图片路径得到来源标识的函数，同一来源的图片共用语言判定
+     */
+    public LanguageRouter(OCREngine engine, int cacheCapacity, RecognitionOptions probeOptions,
+                          Function<String, String> sourceKey) {
+        if (cacheCapacity < 1) {
+            throw new IllegalArgumentException("cacheCapacity must be positive: " + cacheCapacity);
+        }
+        if (engine == null || probeOptions == null || sourceKey == null) {
+            throw new IllegalArgumentException("engine, probeOptions and sourceKey must not be null");
+        }
+        this.engine = engine;
+        this.probeOptions = probeOptions;
+        this.sourceKey = sourceKey;
+        this.routes = new LinkedHashMap<String, List<String>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+                return size() > cacheCapacity;
+            }
+        };
+    }
+
+    /**
+     * 按路由选出的语言识别图片中的文字，来源由构造时的函数从路径得到
+     *
+     * @param imagePath 图片的路径
+     * @return 识别结果列表
+     * @throws RuntimeException 如果OCR过程中发生错误
+     */
+    @Override
+    public List<OCRResult> recognizeText(String imagePath) {
+        return recognizeText(imagePath, sourceKey.apply(imagePath));
+    }
+
+    /**
+     * 按路由选出的语言识别图片中的文字
+     *
+     * @param imagePath 图片的路径
+     * @param source 来源标识（如上传用户、扫描仪或目录），同一来源的图片共用语言判定
+     * @return 识别结果列表
+     * @throws RuntimeException 如果OCR过程中发生错误
+     */
+    public List<OCRResult> recognizeText(String imagePath, String source) {
+        requests.increment();
+        List<String> cached = getRoute(source);
+        if (cached != null) {
+            cacheHits.increment();
+            int passes = 1;
+            List<OCRResult> results = accurate(imagePath, cached);
+            List<String> detected = route(ScriptHistogram.of(results), cached);
+            if (detected.get(0).equals(cached.get(0)) && averageConfidence(results) < MIN_CONFIDENCE) {
+                // 语言模型不匹配时可能输出同一文字系统的乱码，置信度过低时用探测结果重新判断
+                probePasses.increment();
+                passes++;
+                List<OCRResult> probe = engine.recognizeText(imagePath, probeOptions);
+                if (isConclusive(probe)) {
+                    detected = route(ScriptHistogram.of(probe), cached);
+                }
+            }
+            if (detected.get(0).equals(cached.get(0))) {
+                countAvoided(cached, passes);
+                return results;
+            }
+            // 来源的语言发生变化（或缓存的判定有误），换语言重新识别
+            reroutes.increment();
+            putRoute(source, detected);
+            countAvoided(detected, passes + 1);
+            return accurate(imagePath, detected);
+        }
+
+        probePasses.increment();
+        List<OCRResult> probe = engine.recognizeText(imagePath, probeOptions);
+        List<String> detected = CHINESE;
+        if (isConclusive(probe)) {
+            detected = route(ScriptHistogram.of(probe), CHINESE);
+            putRoute(source, detected);
+        }
+        if (probeOptions.equals(RecognitionOptions.forLanguages(detected))) {
+            probeReuses.increment();
+            countAvoided(detected, 1);
+            return probe;
+        }
+        countAvoided(detected, 2);
+        return accurate(imagePath, detected);
+    }
+
+    /**
+     * 显式指定识别选项，不经过路由
+     */
+    @Override
+    public List<OCRResult> recognizeText(String imagePath, RecognitionOptions options) {
+        return engine.recognizeText(imagePath, options);
+    }
+
+    /**
+     * 已解码的图像没有来源信息，不经过路由
+     */
+    @Override
+    public List<OCRResult> recognizeImage(BufferedImage image) {
+        return engine.recognizeImage(image);
+    }
+
+    /**
+     * 根据文字系统直方图选择识别语言
+     * 字母最多的语言排在最前，占比达到 {@link #SECONDARY_SHARE} 的其他语言依次追加；
+     * 汉字中夹有足够多假名时按日文处理。
+     *
+     * @param histogram 文字系统直方图
+     * @param fallback 字母太少或文字系统无对应语言时返回的语言
+     * @return 按优先级排列的语言代码
+     */
+    public static List<String> route(ScriptHistogram histogram, List<String> fallback) {
+        if (histogram.getLetterCount() < MIN_LETTERS) {
+            return fallback;
+        }
+        int kana = histogram.getCount(Character.UnicodeScript.HIRAGANA)
+                + histogram.getCount(Character.UnicodeScript.KATAKANA);
+        int han = histogram.getCount(Character.UnicodeScript.HAN);
+
+        Map<List<String>, Integer> weights = new LinkedHashMap<>();
+        if (kana > 0 && kana >= KANA_SHARE * (han + kana)) {
+            weights.put(JAPANESE, han + kana);
+        } else if (han > 0) {
+            weights.put(CHINESE, han);
+        }
+        for (Map.Entry<Character.UnicodeScript, List<String>> entry : SCRIPT_LANGUAGES.entrySet()) {
+            if (entry.getKey() != Character.UnicodeScript.HAN) {
+                int count = histogram.getCount(entry.getKey());
+                if (count > 0) {
+                    weights.put(entry.getValue(), count);
+                }
+            }
+        }
+        if (weights.isEmpty()) {
+            return fallback;
+        }
+
+        List<Map.Entry<List<String>, Integer>> ranked = new ArrayList<>(weights.entrySet());
+        ranked.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        List<String> languages = new ArrayList<>(ranked.get(0).getKey());
+        for (int i = 1; i < ranked.size(); i++) {
+            if (ranked.get(i).getValue() >= SECONDARY_SHARE * histogram.getLetterCount()) {
+                for (String language : ranked.get(i).getKey()) {
+                    if (!languages.contains(language)) {
+                        languages.add(language);
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableList(languages);
+    }
+
+    /**
+     * 获取某一来源缓存的语言判定
+     *
+     * @param source 来源标识
+     * @return 按优先级排列的语言代码；未缓存时返回null
+     */
+    public List<String> getRoute(String source) {
+        synchronized (routes) {
+            return routes.get(source);
+        }
+    }
+
+    /**
+     * 获取已缓存语言判定的来源数量
+     */
+    public int getCachedSourceCount() {
+        synchronized (routes) {
+            return routes.size();
+        }
+    }
+
+    /**
+     * 获取经过路由的请求数
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * 获取精确识别的次数（不含复用为最终结果的探测）
+     */
+    public long getAccuratePassCount() {
+        return accuratePasses.sum();
+    }
+
+    /**
+     * 获取探测识别的次数
+     */
+    public long getProbePassCount() {
+        return probePasses.sum();
+    }
+
+    /**
+     * 获取探测结果直接作为最终结果的次数
+     */
+    public long getProbeReuseCount() {
+        return probeReuses.sum();
+    }
+
+    /**
+     * 获取来源缓存命中的次数，每次命中省去一次探测识别
+     */
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * 获取缓存命中后校验不一致、换语言重新识别的次数
+     */
+    public long getRerouteCount() {
+        return reroutes.sum();
+    }
+
+    /**
+     * 获取相对基线净省去的识别次数
+     * 基线为"先按默认中文识别，语言不对再换语言重新识别"：最终语言是中文的请求识别一次，其他请求识别两次。
+     * 每个请求按基线次数减去实际调用引擎的次数（探测与精确识别都计入）累加，
+     * 探测后再精确识别的中文请求、缓存命中后重新探测或换语言的请求会使该值减少，可能为负数。
+     */
+    public long getAvoidedExtraPasses() {
+        return avoidedExtraPasses.sum();
+    }
+
+    private List<OCRResult> accurate(String imagePath, List<String> languages) {
+        accuratePasses.increment();
+        return engine.recognizeText(imagePath, RecognitionOptions.forLanguages(languages));
+    }
+
+    /**
+     * 按请求最终使用的语言和实际识别次数累加相对基线省去的次数
+     */
+    private void countAvoided(List<String> languages, int passes) {
+        int baseline = CHINESE.contains(languages.get(0)) ? 1 : 2;
+        avoidedExtraPasses.add(baseline - passes);
+    }
+
+    /**
+     * 探测结果是否足以判断文字系统：字母数达到 {@link #MIN_LETTERS} 且平均置信度不低于 {@link #MIN_CONFIDENCE}
+     */
+    private static boolean isConclusive(List<OCRResult> probe) {
+        return ScriptHistogram.of(probe).getLetterCount() >= MIN_LETTERS && averageConfidence(probe) >= MIN_CONFIDENCE;
+    }
+
+    private static double averageConfidence(List<OCRResult> results) {
+        if (results.isEmpty()) {
+            return 1.0;
+        }
+        double sum = 0;
+        for (OCRResult result : results) {
+            sum += result.getConfidence();
+        }
+        return sum / results.size();
+    }
+
+    private void putRoute(String source, List<String> languages) {
+        synchronized (routes) {
+            routes.put(source, languages);
+        }
+    }
+
+    private static String parentDirectory(String imagePath) {
+        String parent = new File(imagePath).getAbsoluteFile().getParent();
+        return parent != null ? parent : imagePath;
+    }
+}
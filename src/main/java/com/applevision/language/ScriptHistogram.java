@@ -0,0 +1,86 @@
+package com.applevision.language;
+
+import com.applevision.OCRResult;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文字系统直方图
+ * 按 {@link Character.UnicodeScript} 统计识别结果中各文字系统的字母数，
+ * 数字、标点和空白（COMMON、INHERITED）不计入。不可变。
+ */
+public final class ScriptHistogram {
+    private final Map<Character.UnicodeScript, Integer> counts;
+    private final int letterCount;
+
+    private ScriptHistogram(Map<Character.UnicodeScript, Integer> counts, int letterCount) {
+        this.counts = counts;
+        this.letterCount = letterCount;
+    }
+
+    /**
+     * 统计识别结果中全部文本块的文字系统
+     *
+     * @param results 识别结果
+     * @return 直方图
+     */
+    public static ScriptHistogram of(List<OCRResult> results) {
+        Map<Character.UnicodeScript, Integer> counts = new EnumMap<>(Character.UnicodeScript.class);
+        int letterCount = 0;
+        for (OCRResult result : results) {
+            String text = result.getText();
+            for (int i = 0; i < text.length(); ) {
+                int codePoint = text.codePointAt(i);
+                i += Character.charCount(codePoint);
+                if (!Character.isLetter(codePoint)) {
+                    continue;
+                }
+                Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+                if (script == Character.UnicodeScript.COMMON || script == Character.UnicodeScript.INHERITED) {
+                    continue;
+                }
+                counts.merge(script, 1, Integer::sum);
+                letterCount++;
+            }
+        }
+        return new ScriptHistogram(counts, letterCount);
+    }
+
+    /**
+     * 获取某一文字系统的字母数
+     */
+    public int getCount(Character.UnicodeScript script) {
+        return counts.getOrDefault(script, 0);
+    }
+
+    /**
+     * 获取计入统计的字母总数
+     */
+    public int getLetterCount() {
+        return letterCount;
+    }
+
+    /**
+     * 获取字母数最多的文字系统
+     *
+     * @return 文字系统；没有字母时返回null
+     */
+    public Character.UnicodeScript getDominantScript() {
+        Character.UnicodeScript dominant = null;
+        int max = 0;
+        for (Map.Entry<Character.UnicodeScript, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > max) {
+                max = entry.getValue();
+                dominant = entry.getKey();
+            }
+        }
+        return dominant;
+    }
+
+    @Override
+    public String toString() {
+        return "ScriptHistogram" + counts;
+    }
+}
@@ -0,0 +1,234 @@
+package com.applevision.loadtest;
+
+import com.applevision.OCREngine;
+import com.applevision.util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开环负载生成器
+ * 按固定目标速率向引擎发送请求，发送节奏不受请求完成情况影响。
+ *
+ * 延迟从每个请求的计划发送时间起算，而不是从实际开始执行的时间起算，
+ * 因此当引擎变慢、请求在本地排队时，排队时间会被计入延迟，
+ * 避免协同遗漏（coordinated omission）导致的延迟低估。
+ * 排空超时后仍未完成的请求按“已等待时间”计入延迟并记为未完成。
+ * 这时已在引擎中执行的本地调用无法中断，{@link #run} 会等它们实际结束后才返回，
+ * 避免与阶梯压测的下一阶梯重叠而影响其吞吐和延迟；这些调用的数量和等待时间记入报告。
+ */
+public class LoadGenerator {
+    private final OCREngine engine;
+    private final List<String> corpus;
+    private final int maxConcurrency;
+    private final long drainTimeoutNanos;
+
+    /**
+     * 构造函数
+     *
+     * @param engine 被压测的引擎
+     * @param corpus 图片路径列表，按顺序循环使用
+     * @param maxConcurrency 同时执行的最大请求数，超出部分在本地排队（排队时间计入延迟）
+     * @param drainTimeout 发送阶段结束后等待在途请求完成的最长时间
+     * @param unit drainTimeout 的时间单位
+     */
+    public LoadGenerator(OCREngine engine, List<String> corpus, int maxConcurrency, long drainTimeout, TimeUnit unit) {
+        if (corpus.isEmpty()) {
+            throw new IllegalArgumentException("corpus must not be empty");
+        }
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        this.engine = engine;
+        this.corpus = new ArrayList<>(corpus);
+        this.maxConcurrency = maxConcurrency;
+        this.drainTimeoutNanos = unit.toNanos(drainTimeout);
+    }
+
+    /**
+     * 以固定速率运行一轮压测
+     *
+     * @param ratePerSecond 目标速率（请求/秒）
+     * @param duration 发送阶段时长
+     * @param unit duration 的时间单位
+     * @return 压测报告
+     */
+    public LoadTestReport run(double ratePerSecond, long duration, TimeUnit unit) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("ratePerSecond must be positive: " + ratePerSecond);
+        }
+        LatencyHistogram latency = new LatencyHistogram();
+        LatencyHistogram serviceTime = new LatencyHistogram();
+        LongAdder succeeded = new LongAdder();
+        LongAdder failed = new LongAdder();
+        AtomicLong lastCompletion = new AtomicLong();
+        AtomicInteger running = new AtomicInteger();
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency,
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "load-generator-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        double intervalNanos = 1e9 / ratePerSecond;
+        long durationNanos = unit.toNanos(duration);
+        long start = System.nanoTime();
+        long sent = 0;
+        List<Long> intendedStarts = new ArrayList<>();
+        List<AtomicLong> completions = new ArrayList<>();
+
+        while (true) {
+            long intended = start + (long) (sent * intervalNanos);
+            if (intended - start >= durationNanos) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            String imagePath = corpus.get((int) (sent % corpus.size()));
+            AtomicLong completedAt = new AtomicLong();
+            intendedStarts.add(intended);
+            completions.add(completedAt);
+            executor.execute(() -> {
+                running.incrementAndGet();
+                long begin = System.nanoTime();
+                boolean ok;
+                try {
+                    engine.recognizeText(imagePath);
+                    ok = true;
+                } catch (RuntimeException e) {
+                    ok = false;
+                } finally {
+                    running.decrementAndGet();
+                }
+                long end = System.nanoTime();
+                if (!completedAt.compareAndSet(0, end)) {
+                    return; // 已在排空超时后被记为未完成
+                }
+                latency.recordValue(TimeUnit.NANOSECONDS.toMicros(end - intended));
+                serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(end - begin));
+                if (ok) {
+                    succeeded.increment();
+                    lastCompletion.accumulateAndGet(end, Math::max);
+                } else {
+                    failed.increment();
+                }
+            });
+            sent++;
+        }
+
+        boolean drained = shutdownAndDrain(executor);
+        long drainEnd = System.nanoTime();
+        int abandoned = drained ? 0 : running.get();
+
+        long incomplete = 0;
+        for (int i = 0; i < completions.size(); i++) {
+            if (completions.get(i).compareAndSet(0, -1)) {
+                incomplete++;
+                latency.recordValue(TimeUnit.NANOSECONDS.toMicros(drainEnd - intendedStarts.get(i)));
+            }
+        }
+        long settleNanos = drained ? 0 : awaitAbandoned(executor);
+
+        long completionTime = lastCompletion.get() == 0 ? drainEnd : lastCompletion.get();
+        double elapsedSeconds = Math.max(1e-9, (completionTime - start) / 1e9);
+        return new LoadTestReport(ratePerSecond, durationNanos / 1e9, sent, succeeded.sum(), failed.sum(),
+                incomplete, succeeded.sum() / elapsedSeconds, latency, serviceTime, abandoned, settleNanos / 1e9);
+    }
+
+    /**
+     * 阶梯递增速率压测，用于寻找单机最大可持续速率
+     * 任一阶梯不可持续后再多跑一个阶梯确认饱和即停止
+     *
+     * @param startRate 起始速率（请求/秒）
+     * @param stepRate 每个阶梯增加的速率（请求/秒）
+     * @param maxRate 最大速率（请求/秒）
+     * @param stepDuration 每个阶梯的时长
+     * @param unit stepDuration 的时间单位
+     * @param p99SloMicros p99延迟上限（微秒），小于等于0表示不检查延迟
+     * @param maxErrorRate 可接受的最大错误率
+     * @return 各阶梯的报告
+     */
+    public List<LoadTestReport> runRamp(double startRate, double stepRate, double maxRate, long stepDuration,
+                                        TimeUnit unit, long p99SloMicros, double maxErrorRate) {
+        if (stepRate <= 0) {
+            throw new IllegalArgumentException("stepRate must be positive: " + stepRate);
+        }
+        List<LoadTestReport> reports = new ArrayList<>();
+        int unsustainableSteps = 0;
+        for (double rate = startRate; rate <= maxRate + 1e-9; rate += stepRate) {
+            LoadTestReport report = run(rate, stepDuration, unit);
+            reports.add(report);
+            if (!report.isSustainable(p99SloMicros, maxErrorRate) && ++unsustainableSteps >= 2) {
+                break;
+            }
+        }
+        return reports;
+    }
+
+    /**
+     * 找出最大可持续速率，即从最低阶梯开始连续可持续的最后一个阶梯的速率
+     *
+     * @param reports 阶梯压测报告，按速率递增排列
+     * @param p99SloMicros p99延迟上限（微秒），小于等于0表示不检查延迟
+     * @param maxErrorRate 可接受的最大错误率
+     * @return 最大可持续速率，最低阶梯即不可持续时返回0
+     */
+    public static double findMaxSustainableRate(List<LoadTestReport> reports, long p99SloMicros, double maxErrorRate) {
+        double max = 0;
+        for (LoadTestReport report : reports) {
+            if (!report.isSustainable(p99SloMicros, maxErrorRate)) {
+                break;
+            }
+            max = report.getTargetRate();
+        }
+        return max;
+    }
+
+    /**
+     * 等待在途请求完成，超时后丢弃尚未开始的请求
+     *
+     * @return 全部请求在超时前完成时返回true
+     */
+    private boolean shutdownAndDrain(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(drainTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 已在引擎中执行的本地调用无法中断，其后完成的结果会被忽略
+        executor.shutdownNow();
+        return false;
+    }
+
+    /**
+     * 等待排空超时后仍在引擎中执行的调用实际结束，被中断时不再等待
+     *
+     * @return 等待的时间（纳秒）
+     */
+    private static long awaitAbandoned(ExecutorService executor) {
+        long begin = System.nanoTime();
+        if (!Thread.currentThread().isInterrupted()) {
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return System.nanoTime() - begin;
+    }
+}
@@ -0,0 +1,280 @@
+package com.applevision.loadtest;
+
+import com.applevision.util.LatencyHistogram;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 压测结果报告
+ * 记录单个目标速率下的发送量、成功/失败数、实际吞吐以及延迟分布，
+ * 可输出为可读文本或JSON
+ */
+public class LoadTestReport {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final double targetRate;
+    private final double durationSeconds;
+    private final long sent;
+    private final long succeeded;
+    private final long failed;
+    private final long incomplete;
+    private final double achievedThroughput;
+    private final LatencyHistogram latency;
+    private final LatencyHistogram serviceTime;
+    private final long abandoned;
+    private final double settleSeconds;
+
+    /**
+     * 构造函数
+     *
+     * @param targetRate 目标速率（请求/秒）
+     * @param durationSeconds 发送阶段时长（秒）
+     * @param sent 计划发送的请求数
+     * @param succeeded 成功请求数
+     * @param failed 失败请求数
+     * @param incomplete 排空超时后仍未完成的请求数
+     * @param achievedThroughput 实际成功吞吐（请求/秒）
+     * @param latency 从计划发送时间到完成的延迟（微秒，已校正协同遗漏）
+     * @param serviceTime 从实际开始执行到完成的耗时（微秒，未校正）
+     */
+    public LoadTestReport(double targetRate, double durationSeconds, long sent, long succeeded, long failed,
+                          long incomplete, double achievedThroughput, LatencyHistogram latency,
+                          LatencyHistogram serviceTime) {
+        this(targetRate, durationSeconds, sent, succeeded, failed, incomplete, achievedThroughput, latency,
+                serviceTime, 0, 0.0);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param targetRate 目标速率（请求/秒）
+     * @param durationSeconds 发送阶段时长（秒）
+     * @param sent 计划发送的请求数
+     * @param succeeded 成功请求数
+     * @param failed 失败请求数
+     * @param incomplete 排空超时后仍未完成的请求数
+     * @param achievedThroughput 实际成功吞吐（请求/秒）
+     * @param latency 从计划发送时间到完成的延迟（微秒，已校正协同遗漏）
+     * @param serviceTime 从实际开始执行到完成的耗时（微秒，未校正）
+     * @param abandoned 排空超时时仍在引擎中执行、无法中断的调用数
+     * @param settleSeconds 排空超时后等待这些调用结束的时间（秒）
+     */
+    public LoadTestReport(double targetRate, double durationSeconds, long sent, long succeeded, long failed,
+                          long incomplete, double achievedThroughput, LatencyHistogram latency,
+                          LatencyHistogram serviceTime, long abandoned, double settleSeconds) {
+        this.targetRate = targetRate;
+        this.durationSeconds = durationSeconds;
+        this.sent = sent;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.incomplete = incomplete;
+        this.achievedThroughput = achievedThroughput;
+        this.latency = latency;
+        this.serviceTime = serviceTime;
+        this.abandoned = abandoned;
+        this.settleSeconds = settleSeconds;
+    }
+
+    /**
+     * 获取目标速率
+     *
+     * @return 目标速率（请求/秒）
+     */
+    public double getTargetRate() {
+        return targetRate;
+    }
+
+    /**
+     * 获取发送阶段时长
+     *
+     * @return 时长（秒）
+     */
+    public double getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    /**
+     * 获取计划发送的请求数
+     *
+     * @return 请求数
+     */
+    public long getSent() {
+        return sent;
+    }
+
+    /**
+     * 获取成功请求数
+     *
+     * @return 请求数
+     */
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * 获取失败请求数
+     *
+     * @return 请求数
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * 获取排空超时后仍未完成的请求数
+     *
+     * @return 请求数
+     */
+    public long getIncomplete() {
+        return incomplete;
+    }
+
+    /**
+     * 获取排空超时时仍在引擎中执行的调用数
+     * 这些调用无法中断，压测等它们结束后才返回，不会与下一阶梯重叠
+     *
+     * @return 调用数
+     */
+    public long getAbandoned() {
+        return abandoned;
+    }
+
+    /**
+     * 获取排空超时后等待无法中断的调用结束的时间
+     *
+     * @return 时间（秒）
+     */
+    public double getSettleSeconds() {
+        return settleSeconds;
+    }
+
+    /**
+     * 获取实际成功吞吐
+     *
+     * @return 吞吐（请求/秒）
+     */
+    public double getAchievedThroughput() {
+        return achievedThroughput;
+    }
+
+    /**
+     * 获取错误率
+     *
+     * @return 失败与未完成请求占发送总数的比例
+     */
+    public double getErrorRate() {
+        return sent == 0 ? 0.0 : (double) (failed + incomplete) / sent;
+    }
+
+    /**
+     * 获取从计划发送时间起算的延迟分布（微秒）
+     *
+     * @return 延迟直方图
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * 获取从实际开始执行起算的服务耗时分布（微秒）
+     *
+     * @return 服务耗时直方图
+     */
+    public LatencyHistogram getServiceTime() {
+        return serviceTime;
+    }
+
+    /**
+     * 判断该速率是否可持续
+     *
+     * @param p99SloMicros p99延迟上限（微秒），小于等于0表示不检查延迟
+     * @param maxErrorRate 可接受的最大错误率
+     * @return 实际吞吐达到目标速率的95%、错误率和p99延迟均在范围内时返回true
+     */
+    public boolean isSustainable(long p99SloMicros, double maxErrorRate) {
+        if (achievedThroughput < targetRate * 0.95 || getErrorRate() > maxErrorRate) {
+            return false;
+        }
+        return p99SloMicros <= 0 || latency.getValueAtPercentile(99) <= p99SloMicros;
+    }
+
+    /**
+     * 输出为可读文本
+     *
+     * @return 文本报告
+     */
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "目标速率: %.1f/s, 实际吞吐: %.1f/s, 时长: %.1fs%n",
+                targetRate, achievedThroughput, durationSeconds));
+        sb.append(String.format(Locale.ROOT, "发送: %d, 成功: %d, 失败: %d, 未完成: %d, 错误率: %.2f%%%n",
+                sent, succeeded, failed, incomplete, getErrorRate() * 100));
+        if (abandoned > 0) {
+            sb.append(String.format(Locale.ROOT, "排空超时时仍在执行的调用: %d，等待其结束 %.1fs%n",
+                    abandoned, settleSeconds));
+        }
+        sb.append("延迟(ms, 校正后):");
+        appendPercentiles(sb, latency);
+        sb.append(String.format("%n服务耗时(ms):  "));
+        appendPercentiles(sb, serviceTime);
+        sb.append(String.format("%n"));
+        return sb.toString();
+    }
+
+    /**
+     * 输出为JSON对象
+     *
+     * @return JSON字符串
+     */
+    public String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"targetRate\":%.3f,\"durationSeconds\":%.3f,\"sent\":%d,\"succeeded\":%d,\"failed\":%d,"
+                        + "\"incomplete\":%d,\"errorRate\":%.6f,\"achievedThroughput\":%.3f,"
+                        + "\"abandoned\":%d,\"settleSeconds\":%.3f,"
+                        + "\"latencyMicros\":%s,\"serviceTimeMicros\":%s}",
+                targetRate, durationSeconds, sent, succeeded, failed, incomplete, getErrorRate(),
+                achievedThroughput, abandoned, settleSeconds, histogramJson(latency), histogramJson(serviceTime));
+    }
+
+    /**
+     * 将阶梯压测的结果输出为JSON
+     *
+     * @param reports 各阶梯的报告
+     * @param maxSustainableRate 最大可持续速率，未找到时为0
+     * @return JSON字符串
+     */
+    public static String toJson(List<LoadTestReport> reports, double maxSustainableRate) {
+        StringBuilder sb = new StringBuilder("{\"steps\":[");
+        for (int i = 0; i < reports.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(reports.get(i).toJson());
+        }
+        sb.append(String.format(Locale.ROOT, "],\"maxSustainableRate\":%.3f}", maxSustainableRate));
+        return sb.toString();
+    }
+
+    private static void appendPercentiles(StringBuilder sb, LatencyHistogram histogram) {
+        for (double p : PERCENTILES) {
+            sb.append(String.format(Locale.ROOT, " p%s=%.2f", formatPercentile(p),
+                    histogram.getValueAtPercentile(p) / 1000.0));
+        }
+        sb.append(String.format(Locale.ROOT, " max=%.2f", histogram.getMaxValue() / 1000.0));
+    }
+
+    private static String histogramJson(LatencyHistogram histogram) {
+        StringBuilder sb = new StringBuilder("{");
+        sb.append(String.format(Locale.ROOT, "\"count\":%d,\"mean\":%.1f", histogram.getTotalCount(), histogram.getMean()));
+        for (double p : PERCENTILES) {
+            sb.append(String.format(Locale.ROOT, ",\"p%s\":%d", formatPercentile(p), histogram.getValueAtPercentile(p)));
+        }
+        sb.append(String.format(Locale.ROOT, ",\"max\":%d}", histogram.getMaxValue()));
+        return sb.toString();
+    }
+
+    private static String formatPercentile(double p) {
+        return p == Math.rint(p) ? String.valueOf((long) p) : String.valueOf(p);
+    }
+}
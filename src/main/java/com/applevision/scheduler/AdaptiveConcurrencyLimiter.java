@@ -0,0 +1,516 @@
+package com.applevision.scheduler;
+
+import com.applevision.OCREngine;
+import com.applevision.OCRResult;
+import com.applevision.RecognitionOptions;
+import com.applevision.util.LatencyHistogram;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 自适应并发限制器
+ * 包装引擎，限制同时在引擎中执行的调用数，并根据观测到的延迟自动调整该限制，
+ * 使引擎工作在其实际容量附近，而不必事先知道容量。
+ *
+ * 调用在调用方线程中执行。每凑满一个采样窗口（至少 {@value #MIN_WINDOW_SAMPLES} 次调用，
+ * 且不少于当前限制）计算一次窗口平均延迟，与基线延迟（近两个基线周期内窗口平均延迟的最小值，
+ * 即引擎未排队时的延迟）比较，按梯度算法更新限制：
+ * <pre>
+ *   gradient = clamp(tolerance * baseline / windowAverage, 0.5, 1.0)
+ *   target   = gradient &lt; 1 ? limit * gradient + 1 : limit + sqrt(limit)
+ *   limit    = limit + smoothing * (target - limit)
+ * </pre>
+ * 延迟在基线的容忍范围内时限制较快增长，超出后按延迟比例乘性下降，最终稳定在延迟刚好达到容忍上限的并发数附近。
+ * 在途调用数不到限制一半时（负载不足）限制不再增长，避免空闲期间限制无意义地膨胀。
+ * 引擎抛出异常的调用不计入延迟采样。
+ *
+ * 超出限制的调用按到达顺序排队，许可释放时直接转交给最早排队的调用；排队数达到 maxQueueLength 或等待超过 maxQueueWait 时以
+ * {@link RejectedExecutionException} 拒绝；maxQueueLength 为0时超出限制的调用立即被拒绝。
+ * 当前限制、限制的调整次数和每次调整（{@link LimitListener}）都可以作为指标导出。线程安全。
+ */
+public class AdaptiveConcurrencyLimiter implements OCREngine, AutoCloseable {
+    /** 采样窗口的最少调用数 */
+    static final int MIN_WINDOW_SAMPLES = 10;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double SMOOTHING = 0.2;
+    private static final long BASELINE_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * 限制调整监听器
+     */
+    public interface LimitListener {
+        /**
+         * 限制发生变化时调用
+         * 在完成调用的线程上、许可转交给排队调用之后于限制器的锁外调用，不同线程的通知可能交错。
+         * 抛出的异常不会传播给识别调用方，只计入 {@link #getListenerFailureCount()}。
+         *
+         * @param previousLimit 调整前的限制
+         * @param newLimit 调整后的限制
+         * @param windowLatencyMicros 触发调整的采样窗口的平均延迟（微秒）
+         * @param baselineLatencyMicros 当前基线延迟（微秒）
+         */
+        void onLimitChange(int previousLimit, int newLimit, long windowLatencyMicros, long baselineLatencyMicros);
+    }
+
+    private final OCREngine engine;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final int maxQueueLength;
+    private final long maxQueueWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private final List<LimitListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final LatencyHistogram serviceTimeHistogram = new LatencyHistogram();
+    private final LatencyHistogram queueWaitHistogram = new LatencyHistogram();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder queuedTotal = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedTimeout = new LongAdder();
+    private final LongAdder limitIncreases = new LongAdder();
+    private final LongAdder limitDecreases = new LongAdder();
+    private final LongAdder listenerFailures = new LongAdder();
+
+    // 以下字段由 lock 保护
+    private double estimatedLimit;
+    private int limit;
+    private int inFlight;
+    private boolean closed;
+    private int windowSamples;
+    private long windowLatencySum;
+    private int windowMaxInFlight;
+    private long currentPeriodMin = Long.MAX_VALUE;
+    private long previousPeriodMin = Long.MAX_VALUE;
+    private long periodStartNanos = System.nanoTime();
+    private volatile long baselineNanos;
+    private volatile long windowAverageNanos;
+
+    /**
+     * 构造函数（初始限制为1，容忍延迟比基线高出25%，超出限制的调用无限期排队）
+     *
+     * @param engine 实际执行识别的引擎
+     * @param maxLimit 限制的上限
+     */
+    public AdaptiveConcurrencyLimiter(OCREngine engine, int maxLimit) {
+        this(engine, 1, 1, maxLimit, 1.25, Integer.MAX_VALUE, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param engine 实际执行识别的引擎
+     * @param initialLimit 初始限制
+     * @param minLimit 限制的下限
+     * @param maxLimit 限制的上限
+     * @param tolerance 窗口平均延迟不超过基线的该倍数时视为引擎未过载，不小于1
+     * @param maxQueueLength 超出限制时最多排队的调用数，0表示不排队、直接拒绝
+     * @param maxQueueWait 排队的最长等待时间，超时后拒绝
+     * @param unit maxQueueWait 的时间单位
+     */
+    public AdaptiveConcurrencyLimiter(OCREngine engine, int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, int maxQueueLength, long maxQueueWait, TimeUnit unit) {
+        if (engine == null) {
+            throw new IllegalArgumentException("engine must not be null");
+        }
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limit bounds: min=" + minLimit + ", max=" + maxLimit);
+        }
+        if (initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("initialLimit must be in [" + minLimit + ", " + maxLimit + "]: "
+                    + initialLimit);
+        }
+        if (!(tolerance >= 1)) {
+            throw new IllegalArgumentException("tolerance must be at least 1: " + tolerance);
+        }
+        if (maxQueueLength < 0) {
+            throw new IllegalArgumentException("maxQueueLength must not be negative: " + maxQueueLength);
+        }
+        if (maxQueueWait < 0) {
+            throw new IllegalArgumentException("maxQueueWait must not be negative: " + maxQueueWait);
+        }
+        this.engine = engine;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.maxQueueLength = maxQueueLength;
+        this.maxQueueWaitNanos = unit.toNanos(maxQueueWait);
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public List<OCRResult> recognizeText(String imagePath) {
+        return execute(() -> engine.recognizeText(imagePath));
+    }
+
+    @Override
+    public List<OCRResult> recognizeText(String imagePath, RecognitionOptions options) {
+        return execute(() -> engine.recognizeText(imagePath, options));
+    }
+
+    @Override
+    public List<OCRResult> recognizeImage(BufferedImage image) {
+        return execute(() -> engine.recognizeImage(image));
+    }
+
+    /**
+     * 添加限制调整监听器
+     *
+     * @param listener 监听器
+     */
+    public void addLimitListener(LimitListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 获取当前限制
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取当前在引擎中执行的调用数
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取当前排队等待的调用数
+     */
+    public int getQueueLength() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取限制上调的次数
+     */
+    public long getLimitIncreaseCount() {
+        return limitIncreases.sum();
+    }
+
+    /**
+     * 获取限制下调的次数
+     */
+    public long getLimitDecreaseCount() {
+        return limitDecreases.sum();
+    }
+
+    /**
+     * 获取限制调整监听器抛出异常的次数
+     */
+    public long getListenerFailureCount() {
+        return listenerFailures.sum();
+    }
+
+    /**
+     * 获取当前基线延迟（微秒），尚无采样时为0
+     */
+    public long getBaselineLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(baselineNanos);
+    }
+
+    /**
+     * 获取最近一个采样窗口的平均延迟（微秒），尚无采样时为0
+     */
+    public long getWindowLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(windowAverageNanos);
+    }
+
+    /**
+     * 获取成功完成的调用数
+     */
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    /**
+     * 获取引擎抛出异常的调用数
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * 获取曾经排队等待的调用数
+     */
+    public long getQueuedCount() {
+        return queuedTotal.sum();
+    }
+
+    /**
+     * 获取因排队已满被拒绝的调用数
+     */
+    public long getRejectedQueueFullCount() {
+        return rejectedQueueFull.sum();
+    }
+
+    /**
+     * 获取因排队超时被拒绝的调用数
+     */
+    public long getRejectedTimeoutCount() {
+        return rejectedTimeout.sum();
+    }
+
+    /**
+     * 获取引擎调用耗时（不含排队）直方图，单位为微秒
+     */
+    public LatencyHistogram getServiceTimeHistogram() {
+        return serviceTimeHistogram;
+    }
+
+    /**
+     * 获取排队等待时间直方图，单位为微秒，只包含最终获得执行许可的调用
+     */
+    public LatencyHistogram getQueueWaitHistogram() {
+        return queueWaitHistogram;
+    }
+
+    /**
+     * 关闭限制器
+     * 拒绝新的调用和正在排队的调用，已在引擎中执行的调用不受影响
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            for (Waiter waiter : waiters) {
+                waiter.condition.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> T execute(Supplier<T> call) {
+        acquire();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = call.get();
+            success = true;
+            return result;
+        } finally {
+            release(System.nanoTime() - start, success);
+        }
+    }
+
+    private void acquire() {
+        long arrival = System.nanoTime();
+        lock.lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("Limiter is closed");
+            }
+            if (waiters.isEmpty() && inFlight < limit) {
+                takePermit();
+                return;
+            }
+            if (waiters.size() >= maxQueueLength) {
+                rejectedQueueFull.increment();
+                throw new RejectedExecutionException("Concurrency limit " + limit + " reached and "
+                        + waiters.size() + " calls already queued");
+            }
+            Waiter waiter = new Waiter(lock.newCondition());
+            waiters.addLast(waiter);
+            queuedTotal.increment();
+            try {
+                long remaining = maxQueueWaitNanos;
+                while (!waiter.granted && !closed) {
+                    if (remaining <= 0) {
+                        rejectedTimeout.increment();
+                        throw new RejectedExecutionException("Timed out waiting for a permit, limit " + limit);
+                    }
+                    if (maxQueueWaitNanos == Long.MAX_VALUE) {
+                        waiter.condition.await();
+                    } else {
+                        remaining = waiter.condition.awaitNanos(remaining);
+                    }
+                }
+                if (!waiter.granted) {
+                    throw new RejectedExecutionException("Limiter is closed");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // 中断与转交许可同时发生时，把许可交给下一个排队的调用
+                if (waiter.granted) {
+                    inFlight--;
+                    grantWaiters();
+                }
+                throw new RejectedExecutionException("Interrupted while waiting for a permit", e);
+            } finally {
+                if (!waiter.granted) {
+                    waiters.remove(waiter);
+                }
+            }
+            queueWaitHistogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - arrival));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按排队顺序把空闲的许可直接转交给排队的调用；调用时必须持有 lock
+     */
+    private void grantWaiters() {
+        while (inFlight < limit && !waiters.isEmpty()) {
+            Waiter waiter = waiters.pollFirst();
+            waiter.granted = true;
+            takePermit();
+            waiter.condition.signal();
+        }
+    }
+
+    private void takePermit() {
+        inFlight++;
+        if (inFlight > windowMaxInFlight) {
+            windowMaxInFlight = inFlight;
+        }
+    }
+
+    private void release(long latencyNanos, boolean success) {
+        if (success) {
+            completed.increment();
+            serviceTimeHistogram.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        } else {
+            failed.increment();
+        }
+        LimitChange change = null;
+        lock.lock();
+        try {
+            inFlight--;
+            if (success) {
+                change = sample(latencyNanos);
+            }
+            grantWaiters();
+        } finally {
+            lock.unlock();
+        }
+        if (change != null) {
+            notifyListeners(change);
+        }
+    }
+
+    private void notifyListeners(LimitChange change) {
+        for (LimitListener listener : listeners) {
+            try {
+                listener.onLimitChange(change.previousLimit, change.newLimit, change.windowLatencyMicros,
+                        change.baselineLatencyMicros);
+            } catch (RuntimeException e) {
+                listenerFailures.increment();
+            }
+        }
+    }
+
+    /**
+     * 累计一次延迟采样，窗口凑满时更新基线和限制；调用时必须持有 lock
+     *
+     * @return 限制的变化，由调用方释放 lock 后通知监听器；限制未变化时为null
+     */
+    private LimitChange sample(long latencyNanos) {
+        windowSamples++;
+        windowLatencySum += latencyNanos;
+        if (windowSamples < Math.max(MIN_WINDOW_SAMPLES, limit)) {
+            return null;
+        }
+        long average = windowLatencySum / windowSamples;
+        int maxInFlight = windowMaxInFlight;
+        windowSamples = 0;
+        windowLatencySum = 0;
+        windowMaxInFlight = inFlight;
+        windowAverageNanos = average;
+
+        long now = System.nanoTime();
+        if (now - periodStartNanos >= BASELINE_PERIOD_NANOS) {
+            previousPeriodMin = currentPeriodMin;
+            currentPeriodMin = Long.MAX_VALUE;
+            periodStartNanos = now;
+        }
+        currentPeriodMin = Math.min(currentPeriodMin, average);
+        long baseline = Math.min(currentPeriodMin, previousPeriodMin);
+        baselineNanos = baseline;
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * baseline / Math.max(1, average)));
+        if (gradient >= 1.0 && maxInFlight * 2 < limit) {
+            return null;
+        }
+        // 未超出容忍范围时按 sqrt(limit) 较快增长，超出后按延迟比例收缩并只保留一个调用的余量
+        double target = gradient >= 1.0
+                ? estimatedLimit + Math.sqrt(estimatedLimit)
+                : estimatedLimit * gradient + 1;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit,
+                estimatedLimit + SMOOTHING * (target - estimatedLimit)));
+        int previous = limit;
+        limit = (int) estimatedLimit;
+        if (limit == previous) {
+            return null;
+        }
+        if (limit > previous) {
+            limitIncreases.increment();
+            grantWaiters();
+        } else {
+            limitDecreases.increment();
+        }
+        return new LimitChange(previous, limit, TimeUnit.NANOSECONDS.toMicros(average),
+                TimeUnit.NANOSECONDS.toMicros(baseline));
+    }
+
+    /**
+     * 一次限制调整，在锁外交给监听器
+     */
+    private static class LimitChange {
+        final int previousLimit;
+        final int newLimit;
+        final long windowLatencyMicros;
+        final long baselineLatencyMicros;
+
+        LimitChange(int previousLimit, int newLimit, long windowLatencyMicros, long baselineLatencyMicros) {
+            this.previousLimit = previousLimit;
+            this.newLimit = newLimit;
+            this.windowLatencyMicros = windowLatencyMicros;
+            this.baselineLatencyMicros = baselineLatencyMicros;
+        }
+    }
+
+    /**
+     * 排队等待许可的调用
+     */
+    private static class Waiter {
+        final Condition condition;
+        boolean granted;
+
+        Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.applevision.scheduler;
+
+import com.applevision.OCREngine;
+import com.applevision.OCRResult;
+import com.applevision.RecognitionOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 微批调度器
+ * 将多个线程并发提交的单张图片识别请求合并为微批，通过一次
+ * {@link OCREngine#recognizeTextBatch(List)} 调用交给引擎处理，再分别完成每个调用方的Future。
+ *
+ * 批次大小受 maxBatchSize 限制，等待窗口受 maxWait 限制。自适应模式下，窗口根据
+ * 近期请求到达间隔动态计算：到达稀疏时窗口为0，请求立即下发；到达密集时只等待
+ * 预计凑满批次所需的时间，因此不会给每个请求额外增加固定延迟。
+ * 窗口结束时若引擎仍在处理上一批，则继续收集请求直到引擎空闲，批次随负载自然增大。
+ * 带识别选项的请求与其他请求一起排队和计入批次，下发时逐个以
+ * {@link OCREngine#recognizeText(String, RecognitionOptions)} 交给引擎，选项不会丢失。
+ */
+public class MicroBatchScheduler implements OCREngine, AutoCloseable {
+    private static final double EWMA_ALPHA = 0.2;
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final long BUSY_POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final OCREngine engine;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final boolean adaptive;
+    private final BlockingQueue<PendingRequest> queue = new LinkedBlockingQueue<>();
+    private final Semaphore inFlightBatches;
+    private final ExecutorService dispatchExecutor;
+    private final Thread collectorThread;
+    // 提交时持读锁检查关闭状态并入队，关闭时持写锁置位，保证关闭后不会再有请求进入队列
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    private final LongAdder dispatchedBatches = new LongAdder();
+    private final LongAdder dispatchedRequests = new LongAdder();
+
+    private volatile boolean closed = false;
+    private volatile double ewmaInterArrivalNanos = Double.NaN;
+    private volatile long currentWindowNanos = 0;
+    private long lastArrivalNanos = Long.MIN_VALUE;
+
+    /**
+     * 构造函数（自适应窗口，同一时刻只有一个批次在引擎中执行）
+     *
+     * @param engine 实际执行识别的引擎
+     * @param maxBatchSize 单个批次的最大请求数
+     * @param maxWait 最长等待时间
+     * @param unit maxWait 的时间单位
+     */
+    public MicroBatchScheduler(OCREngine engine, int maxBatchSize, long maxWait, TimeUnit unit) {
+        this(engine, maxBatchSize, maxWait, unit, true, 1);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param engine 实际执行识别的引擎
+     * @param maxBatchSize 单个批次的最大请求数
+     * @param maxWait 最长等待时间
+     * @param unit maxWait 的时间单位
+     * @param adaptive 是否根据到达速率自适应调整等待窗口；为false时每批固定等待 maxWait
+     * @param maxConcurrentBatches 同时在引擎中执行的最大批次数
+     */
+    public MicroBatchScheduler(OCREngine engine, int maxBatchSize, long maxWait, TimeUnit unit,
+                               boolean adaptive, int maxConcurrentBatches) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        if (maxWait < 0) {
+            throw new IllegalArgumentException("maxWait must not be negative: " + maxWait);
+        }
+        if (maxConcurrentBatches < 1) {
+            throw new IllegalArgumentException("maxConcurrentBatches must be positive: " + maxConcurrentBatches);
+        }
+        this.engine = engine;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = unit.toNanos(maxWait);
+        this.adaptive = adaptive;
+        this.inFlightBatches = new Semaphore(maxConcurrentBatches);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.dispatchExecutor = Executors.newFixedThreadPool(maxConcurrentBatches, r -> {
+            Thread t = new Thread(r, "micro-batch-dispatch-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.collectorThread = new Thread(this::collectLoop, "micro-batch-collector");
+        this.collectorThread.setDaemon(true);
+        this.collectorThread.start();
+    }
+
+    /**
+     * 异步提交单张图片的识别请求
+     *
+     * @param imagePath 图片的路径
+     * @return 识别结果的Future；调度器关闭后提交的请求以 RejectedExecutionException 失败
+     */
+    public CompletableFuture<List<OCRResult>> submit(String imagePath) {
+        return submit(imagePath, null);
+    }
+
+    /**
+     * 异步提交按指定选项识别单张图片的请求
+     *
+     * @param imagePath 图片的路径
+     * @param options 识别选项，为null时使用引擎的默认识别方式并参与批量调用
+     * @return 识别结果的Future；调度器关闭后提交的请求以 RejectedExecutionException 失败
+     */
+    public CompletableFuture<List<OCRResult>> submit(String imagePath, RecognitionOptions options) {
+        CompletableFuture<List<OCRResult>> future = new CompletableFuture<>();
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                future.completeExceptionally(new RejectedExecutionException("Scheduler is closed"));
+                return future;
+            }
+            queue.add(new PendingRequest(imagePath, options, future, System.nanoTime()));
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        return future;
+    }
+
+    /**
+     * 同步识别单张图片，请求会与其他并发请求合并成批
+     *
+     * @param imagePath 图片的路径
+     * @return 识别结果列表
+     * @throws RuntimeException 如果OCR过程中发生错误
+     */
+    @Override
+    public List<OCRResult> recognizeText(String imagePath) {
+        return await(submit(imagePath));
+    }
+
+    /**
+     * 按指定选项同步识别单张图片
+     *
+     * @param imagePath 图片的路径
+     * @param options 识别选项
+     * @return 识别结果列表
+     * @throws RuntimeException 如果OCR过程中发生错误
+     */
+    @Override
+    public List<OCRResult> recognizeText(String imagePath, RecognitionOptions options) {
+        return await(submit(imagePath, options));
+    }
+
+    @Override
+    public List<List<OCRResult>> recognizeTextBatch(List<String> imagePaths) {
+        List<CompletableFuture<List<OCRResult>>> futures = new ArrayList<>(imagePaths.size());
+        for (String imagePath : imagePaths) {
+            futures.add(submit(imagePath));
+        }
+        List<List<OCRResult>> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<List<OCRResult>> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    /**
+     * 获取已下发的批次数
+     *
+     * @return 批次数
+     */
+    public long getDispatchedBatchCount() {
+        return dispatchedBatches.sum();
+    }
+
+    /**
+     * 获取已下发的请求数
+     *
+     * @return 请求数
+     */
+    public long getDispatchedRequestCount() {
+        return dispatchedRequests.sum();
+    }
+
+    /**
+     * 获取平均批次大小
+     *
+     * @return 平均每批请求数，尚未下发任何批次时返回0
+     */
+    public double getAverageBatchSize() {
+        long batches = dispatchedBatches.sum();
+        return batches == 0 ? 0.0 : (double) dispatchedRequests.sum() / batches;
+    }
+
+    /**
+     * 获取当前等待窗口
+     *
+     * @return 最近一次计算出的等待窗口（微秒）
+     */
+    public long getCurrentWindowMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(currentWindowNanos);
+    }
+
+    /**
+     * 获取当前估计的请求到达速率
+     *
+     * @return 每秒到达的请求数，尚无数据时返回0
+     */
+    public double getArrivalRatePerSecond() {
+        double interArrival = ewmaInterArrivalNanos;
+        return Double.isNaN(interArrival) || interArrival <= 0 ? 0.0 : 1e9 / interArrival;
+    }
+
+    /**
+     * 关闭调度器
+     * 停止接收新请求，已入队的请求仍会被处理完毕
+     */
+    @Override
+    public void close() {
+        markClosed();
+        try {
+            collectorThread.join();
+            rejectPending("Scheduler is closed");
+            dispatchExecutor.shutdown();
+            dispatchExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dispatchExecutor.shutdownNow();
+        }
+    }
+
+    private void collectLoop() {
+        try {
+            while (!closed || !queue.isEmpty()) {
+                PendingRequest first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<PendingRequest> batch = new ArrayList<>(maxBatchSize);
+                addToBatch(batch, first);
+                drainInto(batch);
+
+                boolean permitAcquired = false;
+                while (batch.size() < maxBatchSize) {
+                    long deadline = first.enqueueNanos + windowFor(batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining > 0) {
+                        PendingRequest next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next != null) {
+                            addToBatch(batch, next);
+                            drainInto(batch);
+                        }
+                        continue;
+                    }
+                    // 窗口已到：引擎空闲则立即下发，否则在等待引擎空闲期间继续收集请求
+                    if (inFlightBatches.tryAcquire(BUSY_POLL_NANOS, TimeUnit.NANOSECONDS)) {
+                        permitAcquired = true;
+                        break;
+                    }
+                    drainInto(batch);
+                }
+
+                if (!permitAcquired) {
+                    inFlightBatches.acquire();
+                }
+                try {
+                    dispatchExecutor.execute(() -> {
+                        try {
+                            dispatch(batch);
+                        } catch (Throwable t) {
+                            // 引擎抛出Error等非运行时异常时也要完成每个Future，避免调用方永远等待
+                            for (PendingRequest request : batch) {
+                                request.future.completeExceptionally(t);
+                            }
+                            throw t;
+                        } finally {
+                            inFlightBatches.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // 下发线程池已关闭（如 close() 等待时被中断），归还许可并拒绝本批次，收集线程继续处理剩余请求
+                    inFlightBatches.release();
+                    for (PendingRequest request : batch) {
+                        request.future.completeExceptionally(e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            markClosed();
+            rejectPending("Scheduler was interrupted");
+        }
+    }
+
+    private void markClosed() {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+    }
+
+    private void rejectPending(String message) {
+        PendingRequest pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(new RejectedExecutionException(message));
+        }
+    }
+
+    private void drainInto(List<PendingRequest> batch) {
+        List<PendingRequest> drained = new ArrayList<>();
+        queue.drainTo(drained, maxBatchSize - batch.size());
+        for (PendingRequest request : drained) {
+            addToBatch(batch, request);
+        }
+    }
+
+    private void addToBatch(List<PendingRequest> batch, PendingRequest request) {
+        batch.add(request);
+        observeArrival(request.enqueueNanos);
+    }
+
+    /**
+     * 使用指数加权移动平均估计请求到达间隔（仅在收集线程中调用）
+     */
+    private void observeArrival(long enqueueNanos) {
+        if (lastArrivalNanos != Long.MIN_VALUE) {
+            long delta = Math.max(0, enqueueNanos - lastArrivalNanos);
+            double previous = ewmaInterArrivalNanos;
+            ewmaInterArrivalNanos = Double.isNaN(previous) ? delta : previous + EWMA_ALPHA * (delta - previous);
+        }
+        lastArrivalNanos = Math.max(lastArrivalNanos, enqueueNanos);
+    }
+
+    /**
+     * 计算批次中已有 currentSize 个请求时的等待窗口
+     * 自适应模式下，若在最长等待时间内预计等不到下一个请求则不等待；
+     * 否则只等待按当前到达速率凑满批次所需的时间
+     */
+    private long windowFor(int currentSize) {
+        long window;
+        if (!adaptive) {
+            window = maxWaitNanos;
+        } else {
+            double interArrival = ewmaInterArrivalNanos;
+            if (Double.isNaN(interArrival) || interArrival >= maxWaitNanos) {
+                window = 0;
+            } else {
+                double toFill = interArrival * (maxBatchSize - currentSize);
+                window = (long) Math.min(maxWaitNanos, toFill);
+            }
+        }
+        currentWindowNanos = window;
+        return window;
+    }
+
+    private void dispatch(List<PendingRequest> batch) {
+        dispatchedBatches.increment();
+        dispatchedRequests.add(batch.size());
+
+        // 批量接口不接受选项，带选项的请求逐个下发
+        List<PendingRequest> plain = new ArrayList<>(batch.size());
+        for (PendingRequest request : batch) {
+            if (request.options == null) {
+                plain.add(request);
+            } else {
+                try {
+                    request.future.complete(engine.recognizeText(request.imagePath, request.options));
+                } catch (RuntimeException e) {
+                    request.future.completeExceptionally(e);
+                }
+            }
+        }
+        if (!plain.isEmpty()) {
+            dispatchPlain(plain);
+        }
+    }
+
+    private void dispatchPlain(List<PendingRequest> batch) {
+        List<String> imagePaths = new ArrayList<>(batch.size());
+        for (PendingRequest request : batch) {
+            imagePaths.add(request.imagePath);
+        }
+
+        List<List<OCRResult>> results;
+        try {
+            results = engine.recognizeTextBatch(imagePaths);
+            if (results == null || results.size() != batch.size()) {
+                throw new IllegalStateException("Engine returned " + (results == null ? "null" : results.size())
+                        + " results for a batch of " + batch.size());
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).future.completeExceptionally(e);
+            } else {
+                // 批量调用失败时逐张重试，避免一张坏图拖累同批的其他请求
+                for (PendingRequest request : batch) {
+                    try {
+                        request.future.complete(engine.recognizeText(request.imagePath));
+                    } catch (RuntimeException single) {
+                        request.future.completeExceptionally(single);
+                    }
+                }
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future.complete(results.get(i));
+        }
+    }
+
+    private static List<OCRResult> await(CompletableFuture<List<OCRResult>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class PendingRequest {
+        final String imagePath;
+        final RecognitionOptions options;
+        final CompletableFuture<List<OCRResult>> future;
+        final long enqueueNanos;
+
+        PendingRequest(String imagePath, RecognitionOptions options, CompletableFuture<List<OCRResult>> future,
+                       long enqueueNanos) {
+            this.imagePath = imagePath;
+            this.options = options;
+            this.future = future;
+            this.enqueueNanos = enqueueNanos;
+        }
+    }
+}
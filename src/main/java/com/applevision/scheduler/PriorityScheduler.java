@@ -0,0 +1,521 @@
+package com.applevision.scheduler;
+
+import com.applevision.OCREngine;
+import com.applevision.OCRResult;
+import com.applevision.RecognitionOptions;
+import com.applevision.util.LatencyHistogram;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 优先级调度器
+ * 为交互流量与批量流量共用同一组工作线程时提供隔离：
+ * <ul>
+ *   <li>多个优先级类别，按权重进行加权公平排队（基于开始时间标签的公平排队）</li>
+ *   <li>按租户限制排队与执行中的请求总数，超出配额的提交直接被拒绝</li>
+ *   <li>下发前根据引擎耗时估计判断请求能否在截止时间前完成，无法完成的直接丢弃</li>
+ *   <li>任何非空类别超过饥饿阈值未被服务时优先下发，保证低优先级类别不会被饿死</li>
+ * </ul>
+ * 每个类别的排队等待时间记录在独立的直方图中，便于验证交互延迟是否受到保护。
+ */
+public class PriorityScheduler implements OCREngine, AutoCloseable {
+    /** 未指定租户时使用的默认租户 */
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final double SERVICE_TIME_EWMA_ALPHA = 0.1;
+
+    /**
+     * 请求优先级类别
+     */
+    public enum Priority {
+        /** 交互请求，如用户上传 */
+        INTERACTIVE(16),
+        /** 普通请求 */
+        NORMAL(4),
+        /** 批量请求，如夜间回填 */
+        BULK(1);
+
+        private final int defaultWeight;
+
+        Priority(int defaultWeight) {
+            this.defaultWeight = defaultWeight;
+        }
+
+        /**
+         * 获取默认权重
+         *
+         * @return 默认权重
+         */
+        public int getDefaultWeight() {
+            return defaultWeight;
+        }
+    }
+
+    private final OCREngine engine;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Map<Priority, ArrayDeque<PendingRequest>> queues = new EnumMap<>(Priority.class);
+    private final Map<Priority, Double> lastFinishTags = new EnumMap<>(Priority.class);
+    private final Map<Priority, Integer> weights = new EnumMap<>(Priority.class);
+    private final Map<Priority, LatencyHistogram> queueWaitHistograms = new EnumMap<>(Priority.class);
+    private final Map<Priority, LongAdder> completedCounts = new EnumMap<>(Priority.class);
+    private final Map<Priority, LongAdder> droppedCounts = new EnumMap<>(Priority.class);
+    private final Map<Priority, LongAdder> starvationPromotions = new EnumMap<>(Priority.class);
+    private final Map<Priority, Long> lastServedNanos = new EnumMap<>(Priority.class);
+    private final Map<String, Integer> tenantQuotas = new ConcurrentHashMap<>();
+    // 只保存有未完成请求的租户，计数降为0时移除条目
+    private final Map<String, Integer> tenantOutstanding = new ConcurrentHashMap<>();
+    private final LongAdder rejectedByQuota = new LongAdder();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final long starvationThresholdNanos;
+    private volatile int defaultTenantQuota = Integer.MAX_VALUE;
+    private volatile double estimatedServiceNanos = 0;
+    private double virtualTime = 0;
+    private boolean closed = false;
+
+    /**
+     * 构造函数
+     *
+     * @param engine 实际执行识别的引擎
+     * @param workerCount 工作线程数，即同时在引擎中执行的最大请求数
+     * @param starvationThreshold 饥饿阈值，任一非空类别超过该时间未被服务即被优先下发
+     * @param unit starvationThreshold 的时间单位
+     */
+    public PriorityScheduler(OCREngine engine, int workerCount, long starvationThreshold, TimeUnit unit) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("workerCount must be positive: " + workerCount);
+        }
+        this.engine = engine;
+        this.starvationThresholdNanos = unit.toNanos(starvationThreshold);
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+            lastFinishTags.put(priority, 0.0);
+            weights.put(priority, priority.getDefaultWeight());
+            queueWaitHistograms.put(priority, new LatencyHistogram());
+            completedCounts.put(priority, new LongAdder());
+            droppedCounts.put(priority, new LongAdder());
+            starvationPromotions.put(priority, new LongAdder());
+            lastServedNanos.put(priority, System.nanoTime());
+        }
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::workLoop, "priority-scheduler-worker-" + (i + 1));
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * 设置类别权重
+     *
+     * @param priority 优先级类别
+     * @param weight 权重，必须为正数
+     */
+    public void setWeight(Priority priority, int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight must be positive: " + weight);
+        }
+        lock.lock();
+        try {
+            weights.put(priority, weight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 设置租户配额
+     *
+     * @param tenant 租户标识
+     * @param maxOutstanding 该租户排队与执行中的请求总数上限
+     */
+    public void setTenantQuota(String tenant, int maxOutstanding) {
+        if (maxOutstanding < 1) {
+            throw new IllegalArgumentException("maxOutstanding must be positive: " + maxOutstanding);
+        }
+        tenantQuotas.put(tenant, maxOutstanding);
+    }
+
+    /**
+     * 设置未单独配置配额的租户所使用的默认配额
+     *
+     * @param maxOutstanding 排队与执行中的请求总数上限
+     */
+    public void setDefaultTenantQuota(int maxOutstanding) {
+        if (maxOutstanding < 1) {
+            throw new IllegalArgumentException("maxOutstanding must be positive: " + maxOutstanding);
+        }
+        this.defaultTenantQuota = maxOutstanding;
+    }
+
+    /**
+     * 提交识别请求（无截止时间）
+     *
+     * @param imagePath 图片的路径
+     * @param priority 优先级类别
+     * @param tenant 租户标识
+     * @return 识别结果的Future；超出租户配额或调度器已关闭时以 RejectedExecutionException 失败
+     */
+    public CompletableFuture<List<OCRResult>> submit(String imagePath, Priority priority, String tenant) {
+        return submit(imagePath, priority, tenant, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 提交识别请求
+     *
+     * @param imagePath 图片的路径
+     * @param priority 优先级类别
+     * @param tenant 租户标识
+     * @param timeout 从提交起算的截止时间，小于等于0表示无截止时间
+     * @param unit timeout 的时间单位
+     * @return 识别结果的Future；超出租户配额或调度器已关闭时以 RejectedExecutionException 失败，
+     *         预计无法在截止时间前完成时以 TimeoutException 失败
+     */
+    public CompletableFuture<List<OCRResult>> submit(String imagePath, Priority priority, String tenant,
+                                                     long timeout, TimeUnit unit) {
+        return submit(imagePath, null, priority, tenant, timeout, unit);
+    }
+
+    /**
+     * 提交按指定选项识别的请求
+     *
+     * @param imagePath 图片的路径
+     * @param options 识别选项，为null时使用引擎的默认识别方式
+     * @param priority 优先级类别
+     * @param tenant 租户标识
+     * @param timeout 从提交起算的截止时间，小于等于0表示无截止时间
+     * @param unit timeout 的时间单位
+     * @return 识别结果的Future；超出租户配额或调度器已关闭时以 RejectedExecutionException 失败，
+     *         预计无法在截止时间前完成时以 TimeoutException 失败
+     */
+    public CompletableFuture<List<OCRResult>> submit(String imagePath, RecognitionOptions options, Priority priority,
+                                                     String tenant, long timeout, TimeUnit unit) {
+        CompletableFuture<List<OCRResult>> future = new CompletableFuture<>();
+        long now = System.nanoTime();
+        long deadline = timeout > 0 ? saturatedAdd(now, unit.toNanos(timeout)) : Long.MAX_VALUE;
+
+        int quota = tenantQuotas.getOrDefault(tenant, defaultTenantQuota);
+        boolean[] admitted = new boolean[1];
+        tenantOutstanding.compute(tenant, (t, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= quota) {
+                return count;
+            }
+            admitted[0] = true;
+            return current + 1;
+        });
+        if (!admitted[0]) {
+            rejectedByQuota.increment();
+            future.completeExceptionally(new RejectedExecutionException(
+                    "Tenant " + tenant + " exceeded its quota of " + quota + " outstanding requests"));
+            return future;
+        }
+
+        lock.lock();
+        try {
+            if (closed) {
+                release(tenant);
+                future.completeExceptionally(new RejectedExecutionException("Scheduler is closed"));
+                return future;
+            }
+            ArrayDeque<PendingRequest> queue = queues.get(priority);
+            if (queue.isEmpty()) {
+                // 空闲类别的饥饿计时从其重新有请求时开始
+                lastServedNanos.put(priority, now);
+            }
+            double startTag = Math.max(virtualTime, lastFinishTags.get(priority));
+            lastFinishTags.put(priority, startTag + 1.0 / weights.get(priority));
+            queue.addLast(new PendingRequest(imagePath, options, priority, tenant, future, now, deadline, startTag));
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return future;
+    }
+
+    /**
+     * 以 NORMAL 类别、默认租户同步识别单张图片
+     *
+     * @param imagePath 图片的路径
+     * @return 识别结果列表
+     * @throws RuntimeException 如果OCR过程中发生错误或请求被拒绝
+     */
+    @Override
+    public List<OCRResult> recognizeText(String imagePath) {
+        return await(submit(imagePath, Priority.NORMAL, DEFAULT_TENANT));
+    }
+
+    /**
+     * 以 NORMAL 类别、默认租户按指定选项同步识别单张图片
+     *
+     * @param imagePath 图片的路径
+     * @param options 识别选项
+     * @return 识别结果列表
+     * @throws RuntimeException 如果OCR过程中发生错误或请求被拒绝
+     */
+    @Override
+    public List<OCRResult> recognizeText(String imagePath, RecognitionOptions options) {
+        return await(submit(imagePath, options, Priority.NORMAL, DEFAULT_TENANT, 0, TimeUnit.NANOSECONDS));
+    }
+
+    private static List<OCRResult> await(CompletableFuture<List<OCRResult>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * 获取类别的排队等待时间直方图（微秒）
+     *
+     * @param priority 优先级类别
+     * @return 等待时间直方图
+     */
+    public LatencyHistogram getQueueWaitHistogram(Priority priority) {
+        return queueWaitHistograms.get(priority);
+    }
+
+    /**
+     * 获取类别已完成（含失败）的请求数
+     *
+     * @param priority 优先级类别
+     * @return 请求数
+     */
+    public long getCompletedCount(Priority priority) {
+        return completedCounts.get(priority).sum();
+    }
+
+    /**
+     * 获取类别因无法满足截止时间而被丢弃的请求数
+     *
+     * @param priority 优先级类别
+     * @return 请求数
+     */
+    public long getDroppedCount(Priority priority) {
+        return droppedCounts.get(priority).sum();
+    }
+
+    /**
+     * 获取类别因饥饿保护而被提前下发的次数
+     *
+     * @param priority 优先级类别
+     * @return 次数
+     */
+    public long getStarvationPromotionCount(Priority priority) {
+        return starvationPromotions.get(priority).sum();
+    }
+
+    /**
+     * 获取因超出租户配额而被拒绝的请求数
+     *
+     * @return 请求数
+     */
+    public long getRejectedByQuotaCount() {
+        return rejectedByQuota.sum();
+    }
+
+    /**
+     * 获取类别当前排队中的请求数
+     *
+     * @param priority 优先级类别
+     * @return 请求数
+     */
+    public int getQueueDepth(Priority priority) {
+        lock.lock();
+        try {
+            return queues.get(priority).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 关闭调度器
+     * 停止接收新请求，已入队的请求仍会被处理完毕
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void workLoop() {
+        while (true) {
+            PendingRequest request;
+            try {
+                request = take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (request == null) {
+                return;
+            }
+            execute(request);
+        }
+    }
+
+    /**
+     * 取出下一个可下发的请求，已无法满足截止时间的请求在此处被丢弃
+     *
+     * @return 下一个请求，调度器关闭且队列为空时返回null
+     */
+    private PendingRequest take() throws InterruptedException {
+        while (true) {
+            PendingRequest request;
+            lock.lock();
+            try {
+                while ((request = pollNext()) == null) {
+                    if (closed) {
+                        return null;
+                    }
+                    notEmpty.await();
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            long now = System.nanoTime();
+            queueWaitHistograms.get(request.priority).recordValue(
+                    TimeUnit.NANOSECONDS.toMicros(now - request.enqueueNanos));
+            if (request.deadlineNanos != Long.MAX_VALUE
+                    && now + (long) estimatedServiceNanos > request.deadlineNanos) {
+                droppedCounts.get(request.priority).increment();
+                finish(request);
+                request.future.completeExceptionally(new TimeoutException(
+                        "Request for " + request.imagePath + " cannot complete before its deadline"));
+                continue;
+            }
+            return request;
+        }
+    }
+
+    /**
+     * 选出开始标签最小的队头请求；若某个非空类别已超过饥饿阈值未被服务，则优先选择其中最久未被服务的
+     * 调用方必须持有锁
+     */
+    private PendingRequest pollNext() {
+        long now = System.nanoTime();
+        Priority selected = null;
+        Priority starved = null;
+        for (Priority priority : Priority.values()) {
+            PendingRequest head = queues.get(priority).peekFirst();
+            if (head == null) {
+                continue;
+            }
+            if (selected == null || head.startTag < queues.get(selected).peekFirst().startTag) {
+                selected = priority;
+            }
+            long servedAt = lastServedNanos.get(priority);
+            if (now - servedAt > starvationThresholdNanos
+                    && (starved == null || servedAt < lastServedNanos.get(starved))) {
+                starved = priority;
+            }
+        }
+        if (selected == null) {
+            return null;
+        }
+        if (starved != null && starved != selected) {
+            starvationPromotions.get(starved).increment();
+            selected = starved;
+        }
+        PendingRequest request = queues.get(selected).pollFirst();
+        lastServedNanos.put(selected, now);
+        virtualTime = Math.max(virtualTime, request.startTag);
+        return request;
+    }
+
+    private void execute(PendingRequest request) {
+        long start = System.nanoTime();
+        List<OCRResult> results = null;
+        RuntimeException failure = null;
+        try {
+            results = request.options == null
+                    ? engine.recognizeText(request.imagePath)
+                    : engine.recognizeText(request.imagePath, request.options);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        long elapsed = System.nanoTime() - start;
+        double previous = estimatedServiceNanos;
+        estimatedServiceNanos = previous == 0 ? elapsed : previous + SERVICE_TIME_EWMA_ALPHA * (elapsed - previous);
+        completedCounts.get(request.priority).increment();
+        // 先释放租户配额再完成Future，调用方在回调中立即重新提交时不会被误拒
+        finish(request);
+        if (failure != null) {
+            request.future.completeExceptionally(failure);
+        } else {
+            request.future.complete(results);
+        }
+    }
+
+    private void finish(PendingRequest request) {
+        release(request.tenant);
+    }
+
+    private void release(String tenant) {
+        tenantOutstanding.computeIfPresent(tenant, (t, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * 不溢出的加法，超出 long 范围时取 Long.MAX_VALUE（b 非负）
+     */
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return ((a ^ sum) & (b ^ sum)) < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static final class PendingRequest {
+        final String imagePath;
+        final RecognitionOptions options;
+        final Priority priority;
+        final String tenant;
+        final CompletableFuture<List<OCRResult>> future;
+        final long enqueueNanos;
+        final long deadlineNanos;
+        final double startTag;
+
+        PendingRequest(String imagePath, RecognitionOptions options, Priority priority, String tenant,
+                       CompletableFuture<List<OCRResult>> future, long enqueueNanos, long deadlineNanos,
+                       double startTag) {
+            this.imagePath = imagePath;
+            this.options = options;
+            this.priority = priority;
+            this.tenant = tenant;
+            this.future = future;
+            this.enqueueNanos = enqueueNanos;
+            this.deadlineNanos = deadlineNanos;
+            this.startTag = startTag;
+        }
+    }
+}
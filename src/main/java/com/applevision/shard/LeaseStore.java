@@ -0,0 +1,239 @@
+package com.applevision.shard;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * 共享目录上的租约文件
+ *
+ * 每个分块一个租约文件 chunk-N.lease，内容为持有者、令牌和到期时间（Unix毫秒）三行：
+ * <ul>
+ *   <li>获取：先写临时文件，再用硬链接创建租约文件，文件已存在时失败，因此不会读到写了一半的租约；</li>
+ *   <li>续期：先把租约文件原子重命名为私有文件再核对令牌（同一时刻只有一个节点能取走它），
+ *       令牌是自己的才用硬链接放回新的租约，否则把取走的文件恢复原样；放回时文件已存在
+ *       （取走期间他人获取了租约）视为租约丢失。因此续期不会覆盖抢占者的新租约；</li>
+ *   <li>释放：同样取走并核对令牌后删除；</li>
+ *   <li>抢占：租约过期超过宽限期后原子重命名为墓碑文件（多个抢占者中只有一个成功），
+ *       若墓碑中的令牌与判断过期时读到的不同（期间已被他人重新获取），则把它恢复回去。</li>
+ * </ul>
+ * 到期时间使用各节点的本地时钟，节点间的时钟偏差应明显小于宽限期。
+ * 租约只用于避免重复劳动，最终输出的唯一性由 {@link ShardWorker} 的原子提交保证。
+ */
+final class LeaseStore {
+    private final Path directory;
+    private final String owner;
+    private final long ttlMillis;
+    private final long graceMillis;
+
+    /**
+     * 一个已持有的租约
+     */
+    static final class Lease {
+        final int chunk;
+        final String token;
+        final long expiresAt;
+        /** 被抢占的原持有者；正常获取时为null */
+        final String stolenFrom;
+
+        Lease(int chunk, String token, long expiresAt, String stolenFrom) {
+            this.chunk = chunk;
+            this.token = token;
+            this.expiresAt = expiresAt;
+            this.stolenFrom = stolenFrom;
+        }
+    }
+
+    private static final class Content {
+        final String owner;
+        final String token;
+        final long expiresAt;
+
+        Content(String owner, String token, long expiresAt) {
+            this.owner = owner;
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    LeaseStore(Path directory, String owner, long ttlMillis, long graceMillis) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.owner = owner;
+        this.ttlMillis = ttlMillis;
+        this.graceMillis = graceMillis;
+    }
+
+    /**
+     * 尝试获取分块的租约，租约被他人持有且未过期时返回null
+     */
+    Lease tryAcquire(int chunk) throws IOException {
+        Path path = leaseFile(chunk);
+        String stolenFrom = null;
+        for (int attempt = 0; attempt < 3; attempt++) {
+            String token = owner + ":" + UUID.randomUUID();
+            long expiresAt = System.currentTimeMillis() + ttlMillis;
+            if (createExclusive(path, new Content(owner, token, expiresAt))) {
+                return new Lease(chunk, token, expiresAt, stolenFrom);
+            }
+
+            Content current = read(path);
+            long expiresAtCurrent;
+            if (current != null) {
+                expiresAtCurrent = current.expiresAt;
+            } else {
+                // 文件已被删除，或内容无法解析：按修改时间估计到期时间
+                try {
+                    expiresAtCurrent = Files.getLastModifiedTime(path).toMillis() + ttlMillis;
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+            }
+            if (expiresAtCurrent + graceMillis > System.currentTimeMillis()) {
+                return null;
+            }
+
+            Path tombstone = directory.resolve(path.getFileName() + ".expired-" + UUID.randomUUID());
+            try {
+                moveAtomic(path, tombstone);
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+            Content moved = read(tombstone);
+            if (!Objects.equals(tokenOf(moved), tokenOf(current))) {
+                // 判断过期之后租约已被他人重新获取，把它恢复回去
+                try {
+                    Files.createLink(path, tombstone);
+                } catch (FileAlreadyExistsException ignored) {
+                }
+                Files.deleteIfExists(tombstone);
+                return null;
+            }
+            Files.deleteIfExists(tombstone);
+            stolenFrom = current != null ? current.owner : "unknown";
+        }
+        return null;
+    }
+
+    /**
+     * 续期租约
+     *
+     * @return 续期后的租约；租约已不属于自己时返回null
+     */
+    Lease renew(Lease lease) throws IOException {
+        Path path = leaseFile(lease.chunk);
+        if (!lease.token.equals(tokenOf(read(path)))) {
+            return null;
+        }
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        Path temp = writeTemp(new Content(owner, lease.token, expiresAt));
+        try {
+            Path claimed = claim(path, lease.token);
+            if (claimed == null) {
+                return null;
+            }
+            Files.deleteIfExists(claimed);
+            try {
+                Files.createLink(path, temp);
+            } catch (FileAlreadyExistsException e) {
+                // 租约文件被取走的间隙中他人获取了租约
+                return null;
+            }
+            return new Lease(lease.chunk, lease.token, expiresAt, lease.stolenFrom);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 释放租约（仍属于自己时删除租约文件）
+     */
+    void release(Lease lease) throws IOException {
+        Path path = leaseFile(lease.chunk);
+        if (!lease.token.equals(tokenOf(read(path)))) {
+            return;
+        }
+        Path claimed = claim(path, lease.token);
+        if (claimed != null) {
+            Files.deleteIfExists(claimed);
+        }
+    }
+
+    /**
+     * 把租约文件原子重命名为私有文件后核对令牌，令牌不是自己的时恢复原文件
+     *
+     * @return 重命名后的文件；租约文件不存在或不属于自己时返回null
+     */
+    private Path claim(Path path, String token) throws IOException {
+        Path claimed = directory.resolve(path.getFileName() + ".claimed-" + UUID.randomUUID());
+        try {
+            moveAtomic(path, claimed);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (token.equals(tokenOf(read(claimed)))) {
+            return claimed;
+        }
+        // 核对令牌之前租约已被他人抢占并重新获取，把它恢复回去
+        try {
+            Files.createLink(path, claimed);
+        } catch (FileAlreadyExistsException ignored) {
+        }
+        Files.deleteIfExists(claimed);
+        return null;
+    }
+
+    private Path leaseFile(int chunk) {
+        return directory.resolve("chunk-" + chunk + ".lease");
+    }
+
+    private boolean createExclusive(Path path, Content content) throws IOException {
+        Path temp = writeTemp(content);
+        try {
+            Files.createLink(path, temp);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path writeTemp(Content content) throws IOException {
+        Path temp = directory.resolve(".tmp-" + UUID.randomUUID());
+        String text = content.owner + "\n" + content.token + "\n" + content.expiresAt + "\n";
+        Files.write(temp, text.getBytes(StandardCharsets.UTF_8));
+        return temp;
+    }
+
+    private static Content read(Path path) {
+        try {
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            if (lines.size() < 3) {
+                return null;
+            }
+            return new Content(lines.get(0), lines.get(1), Long.parseLong(lines.get(2)));
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String tokenOf(Content content) {
+        return content != null ? content.token : null;
+    }
+
+    private static void moveAtomic(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            throw new IOException("Shared directory does not support atomic rename: " + source.getParent(), e);
+        }
+    }
+}
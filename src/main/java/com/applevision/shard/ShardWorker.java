@@ -0,0 +1,323 @@
+package com.applevision.shard;
+
+import com.applevision.OCREngine;
+import com.applevision.OCRResult;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 基于共享目录租约的分片工作节点，无需协调服务
+ *
+ * 清单文件每行一个输入路径，按 chunkSize 行划分为分块。多个节点（或进程）指向同一个共享目录运行，
+ * 各自通过租约文件认领分块（见 {@link LeaseStore}），持有期间由后台线程按租期的三分之一续期，
+ * 节点退出或失联后其租约过期，由其他节点抢占并从头处理该分块。
+ *
+ * 共享目录结构：
+ * <pre>
+ * leases/chunk-N.lease   分块N的租约
+ * output/chunk-N.tsv     分块N的最终输出，存在即表示分块已完成
+ * </pre>
+ * 分块结果先写入临时文件并刷盘，再以硬链接提交为最终输出，已存在时提交失败并丢弃，
+ * 因此即使两个节点因时钟偏差或网络分区同时处理同一分块，最终输出中每个输入也恰好出现一次。
+ *
+ * 输出每行对应一个输入：序号、路径、状态（OK/ERROR），OK 时接文本块数和各文本块的
+ * 文本、置信度、x、y、宽、高，ERROR 时接失败信息，字段以制表符分隔，文本中的制表符、换行和反斜杠被转义。
+ */
+public class ShardWorker {
+    private final OCREngine engine;
+    private final Path manifest;
+    private final Path leaseDirectory;
+    private final Path outputDirectory;
+    private final String workerId;
+    private final int chunkSize;
+    private final long leaseTtlMillis;
+    private final LeaseStore leases;
+
+    private final AtomicReference<LeaseStore.Lease> currentLease = new AtomicReference<>();
+    /** 续期期间持有；释放租约前在此锁下停止心跳，等待进行中的续期结束 */
+    private final Object heartbeatLock = new Object();
+    private final AtomicBoolean leaseLost = new AtomicBoolean();
+    private final AtomicLong inputsProcessed = new AtomicLong();
+    private final AtomicLong chunksCommitted = new AtomicLong();
+    private final AtomicLong chunksStolen = new AtomicLong();
+    private final AtomicLong chunksAbandoned = new AtomicLong();
+    private final AtomicLong commitConflicts = new AtomicLong();
+    private final AtomicLong renewFailures = new AtomicLong();
+
+    /**
+     * 构造函数
+     *
+     * @param engine 识别引擎
+     * @param manifest 清单文件，每行一个输入路径；所有节点必须使用内容相同的清单
+     * @param sharedDirectory 所有节点共享的目录
+     * @param workerId 节点标识，写入租约文件，便于排查
+     * @param chunkSize 每个分块的输入数
+     * @param leaseTtlMillis 租期（毫秒），节点失联后其分块最多等待约这么久后被抢占
+     * @throws IOException 如果共享目录无法创建
+     */
+    public ShardWorker(OCREngine engine, Path manifest, Path sharedDirectory, String workerId,
+                       int chunkSize, long leaseTtlMillis) throws IOException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        if (leaseTtlMillis < 30) {
+            throw new IllegalArgumentException("leaseTtlMillis too small: " + leaseTtlMillis);
+        }
+        this.engine = engine;
+        this.manifest = manifest;
+        this.leaseDirectory = sharedDirectory.resolve("leases");
+        this.outputDirectory = Files.createDirectories(sharedDirectory.resolve("output"));
+        this.workerId = workerId;
+        this.chunkSize = chunkSize;
+        this.leaseTtlMillis = leaseTtlMillis;
+        this.leases = new LeaseStore(leaseDirectory, workerId, leaseTtlMillis, leaseTtlMillis / 2);
+    }
+
+    /**
+     * 认领并处理分块，直到全部分块都有最终输出
+     * 暂时没有可认领的分块（均被其他节点持有）时等待后重新扫描
+     *
+     * @throws IOException 如果清单无法读取或共享目录无法访问
+     * @throws InterruptedException 如果等待时被中断
+     */
+    public void run() throws IOException, InterruptedException {
+        List<String> inputs = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+        int chunks = (inputs.size() + chunkSize - 1) / chunkSize;
+        removeStaleTemporaryFiles();
+
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lease-heartbeat-" + workerId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, leaseTtlMillis / 3);
+        heartbeat.scheduleAtFixedRate(this::renewCurrentLease, period, period, TimeUnit.MILLISECONDS);
+        try {
+            // 各节点从随机位置开始扫描，减少对同一分块的争抢
+            int start = chunks == 0 ? 0 : ThreadLocalRandom.current().nextInt(chunks);
+            while (true) {
+                boolean pending = false;
+                boolean progressed = false;
+                for (int k = 0; k < chunks; k++) {
+                    int chunk = (start + k) % chunks;
+                    if (Files.exists(outputFile(chunk))) {
+                        continue;
+                    }
+                    pending = true;
+                    LeaseStore.Lease lease = leases.tryAcquire(chunk);
+                    if (lease == null) {
+                        continue;
+                    }
+                    if (lease.stolenFrom != null) {
+                        chunksStolen.incrementAndGet();
+                    }
+                    try {
+                        if (!Files.exists(outputFile(chunk))) {
+                            process(chunk, lease, inputs);
+                            progressed = true;
+                        }
+                    } finally {
+                        // 先停止该租约的心跳，避免释放后进行中的续期把租约文件放回去
+                        LeaseStore.Lease held;
+                        synchronized (heartbeatLock) {
+                            held = currentLease.getAndSet(null);
+                        }
+                        leases.release(held != null ? held : lease);
+                    }
+                }
+                if (!pending) {
+                    return;
+                }
+                if (!progressed) {
+                    Thread.sleep(Math.max(1, leaseTtlMillis / 4));
+                }
+            }
+        } finally {
+            heartbeat.shutdownNow();
+        }
+    }
+
+    private void process(int chunk, LeaseStore.Lease lease, List<String> inputs) throws IOException {
+        leaseLost.set(false);
+        currentLease.set(lease);
+        int from = chunk * chunkSize;
+        int to = Math.min(inputs.size(), from + chunkSize);
+        Path temp = outputDirectory.resolve("chunk-" + chunk + ".tsv.tmp-" + workerId + "-" + System.nanoTime());
+        boolean complete = true;
+        try {
+            try (FileOutputStream stream = new FileOutputStream(temp.toFile());
+                 Writer out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
+                for (int ordinal = from; ordinal < to; ordinal++) {
+                    if (!holdsLease()) {
+                        complete = false;
+                        break;
+                    }
+                    writeLine(out, ordinal, inputs.get(ordinal));
+                    inputsProcessed.incrementAndGet();
+                }
+                out.flush();
+                stream.getFD().sync();
+            }
+            if (!complete || !holdsLease()) {
+                chunksAbandoned.incrementAndGet();
+                return;
+            }
+            try {
+                Files.createLink(outputFile(chunk), temp);
+                chunksCommitted.incrementAndGet();
+            } catch (FileAlreadyExistsException e) {
+                commitConflicts.incrementAndGet();
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void writeLine(Writer out, int ordinal, String path) throws IOException {
+        StringBuilder line = new StringBuilder(128);
+        line.append(ordinal).append('\t').append(escape(path)).append('\t');
+        try {
+            List<OCRResult> results = engine.recognizeText(path);
+            line.append("OK\t").append(results.size());
+            for (OCRResult result : results) {
+                OCRResult.BoundingBox box = result.getBoundingBox();
+                line.append('\t').append(escape(result.getText()))
+                        .append(String.format(Locale.ROOT, "\t%.4f\t%.6f\t%.6f\t%.6f\t%.6f",
+                                result.getConfidence(), box.getX(), box.getY(), box.getWidth(), box.getHeight()));
+            }
+        } catch (RuntimeException e) {
+            line.append("ERROR\t").append(escape(String.valueOf(e.getMessage())));
+        }
+        out.write(line.append('\n').toString());
+    }
+
+    private boolean holdsLease() {
+        LeaseStore.Lease lease = currentLease.get();
+        return !leaseLost.get() && lease != null && System.currentTimeMillis() < lease.expiresAt;
+    }
+
+    private void renewCurrentLease() {
+        synchronized (heartbeatLock) {
+            LeaseStore.Lease lease = currentLease.get();
+            if (lease == null) {
+                return;
+            }
+            try {
+                LeaseStore.Lease renewed = leases.renew(lease);
+                if (renewed == null) {
+                    leaseLost.set(true);
+                } else {
+                    currentLease.compareAndSet(lease, renewed);
+                }
+            } catch (IOException e) {
+                // 暂时无法访问共享目录：不续期，租约到期后 holdsLease() 返回false
+                renewFailures.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 删除被终止的节点遗留的临时输出（修改时间早于两个租期）
+     */
+    private void removeStaleTemporaryFiles() throws IOException {
+        long cutoff = System.currentTimeMillis() - 2 * leaseTtlMillis;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(outputDirectory, "*.tmp-*")) {
+            for (Path path : stream) {
+                try {
+                    if (Files.getLastModifiedTime(path).toMillis() < cutoff) {
+                        Files.deleteIfExists(path);
+                    }
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private Path outputFile(int chunk) {
+        return outputDirectory.resolve("chunk-" + chunk + ".tsv");
+    }
+
+    static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * 获取本节点处理的输入数（包括被放弃或提交冲突的分块中的输入）
+     */
+    public long getInputsProcessed() {
+        return inputsProcessed.get();
+    }
+
+    /**
+     * 获取本节点成功提交的分块数
+     */
+    public long getChunksCommitted() {
+        return chunksCommitted.get();
+    }
+
+    /**
+     * 获取本节点抢占的过期租约数
+     */
+    public long getChunksStolen() {
+        return chunksStolen.get();
+    }
+
+    /**
+     * 获取因租约丢失或过期而放弃的分块数
+     */
+    public long getChunksAbandoned() {
+        return chunksAbandoned.get();
+    }
+
+    /**
+     * 获取提交时发现分块已由其他节点完成的次数
+     */
+    public long getCommitConflicts() {
+        return commitConflicts.get();
+    }
+
+    /**
+     * 获取续期时共享目录访问失败的次数
+     */
+    public long getRenewFailures() {
+        return renewFailures.get();
+    }
+}
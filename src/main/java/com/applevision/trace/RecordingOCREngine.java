@@ -0,0 +1,212 @@
+package com.applevision.trace;
+
+import com.applevision.OCREngine;
+import com.applevision.OCRResult;
+import com.applevision.RecognitionOptions;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 录制引擎
+ * 包装任意 {@link OCREngine}（通常为 {@link com.applevision.VisionOCR}），原样转发请求，
+ * 同时把每次请求的输入摘要、大小、调用方式、实测延迟和返回结果写入轨迹文件，
+ * 供 {@link ReplayOCREngine} 在任意平台上重放。
+ *
+ * 延迟只包含被包装引擎的执行时间；输入摘要在引擎返回后计算，其耗时由调用线程承担但不计入延迟。
+ * 轨迹写入失败不会影响识别请求本身，只累加 {@link #getWriteErrors()}。
+ */
+public class RecordingOCREngine implements OCREngine, AutoCloseable {
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final OCREngine delegate;
+    private final TraceWriter writer;
+    private final long startNanos;
+    private final AtomicLong lastFlushNanos;
+    private final AtomicLong writeErrors = new AtomicLong();
+
+    /**
+     * 构造函数
+     *
+     * @param delegate 被录制的引擎
+     * @param traceFile 轨迹文件路径（已存在的文件会被覆盖）
+     * @throws IOException 如果轨迹文件无法创建
+     */
+    public RecordingOCREngine(OCREngine delegate, Path traceFile) throws IOException {
+        this.delegate = delegate;
+        this.writer = new TraceWriter(traceFile, System.currentTimeMillis());
+        this.startNanos = System.nanoTime();
+        this.lastFlushNanos = new AtomicLong(startNanos);
+    }
+
+    @Override
+    public List<OCRResult> recognizeText(String imagePath) {
+        long start = System.nanoTime();
+        List<OCRResult> results;
+        try {
+            results = delegate.recognizeText(imagePath);
+        } catch (RuntimeException e) {
+            recordFile(imagePath, TraceFormat.PLAIN_TEXT, start, System.nanoTime() - start, null, e);
+            throw e;
+        }
+        recordFile(imagePath, TraceFormat.PLAIN_TEXT, start, System.nanoTime() - start, results, null);
+        return results;
+    }
+
+    @Override
+    public List<OCRResult> recognizeText(String imagePath, RecognitionOptions options) {
+        String description = TraceFormat.describe(options);
+        long start = System.nanoTime();
+        List<OCRResult> results;
+        try {
+            results = delegate.recognizeText(imagePath, options);
+        } catch (RuntimeException e) {
+            recordFile(imagePath, description, start, System.nanoTime() - start, null, e);
+            throw e;
+        }
+        recordFile(imagePath, description, start, System.nanoTime() - start, results, null);
+        return results;
+    }
+
+    @Override
+    public List<OCRResult> recognizeImage(BufferedImage image) {
+        long start = System.nanoTime();
+        List<OCRResult> results = null;
+        RuntimeException failure = null;
+        try {
+            results = delegate.recognizeImage(image);
+            return results;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            long latency = System.nanoTime() - start;
+            String options = "recognizeImage " + image.getWidth() + "x" + image.getHeight();
+            record(start, TraceFormat.digestImage(image), (long) image.getWidth() * image.getHeight() * 4,
+                    options, latency, results, failure);
+        }
+    }
+
+    /**
+     * 批量识别，整批延迟按图片数平均分摊到每条记录
+     */
+    @Override
+    public List<List<OCRResult>> recognizeTextBatch(List<String> imagePaths) {
+        long start = System.nanoTime();
+        List<List<OCRResult>> results;
+        String options = "recognizeTextBatch " + imagePaths.size();
+        try {
+            results = delegate.recognizeTextBatch(imagePaths);
+        } catch (RuntimeException e) {
+            long share = (System.nanoTime() - start) / Math.max(1, imagePaths.size());
+            for (String imagePath : imagePaths) {
+                recordFile(imagePath, options, start, share, null, e);
+            }
+            throw e;
+        }
+        long share = (System.nanoTime() - start) / Math.max(1, imagePaths.size());
+        for (int i = 0; i < imagePaths.size(); i++) {
+            recordFile(imagePaths.get(i), options, start, share, results.get(i), null);
+        }
+        return results;
+    }
+
+    /**
+     * 逐块识别，文本块照常实时回调；完整结束后记录全部文本块，被调用方中止的请求不记录
+     */
+    @Override
+    public void recognizeText(String imagePath, Consumer<OCRResult> consumer) {
+        List<OCRResult> results = new ArrayList<>();
+        boolean[] consumerFailed = {false};
+        long start = System.nanoTime();
+        try {
+            delegate.recognizeText(imagePath, result -> {
+                results.add(result);
+                try {
+                    consumer.accept(result);
+                } catch (RuntimeException e) {
+                    consumerFailed[0] = true;
+                    throw e;
+                }
+            });
+        } catch (RuntimeException e) {
+            if (!consumerFailed[0]) {
+                recordFile(imagePath, "recognizeTextStreaming", start, System.nanoTime() - start, null, e);
+            }
+            throw e;
+        }
+        recordFile(imagePath, "recognizeTextStreaming", start, System.nanoTime() - start, results, null);
+    }
+
+    /**
+     * 获取轨迹写入失败（含输入无法读取而未能计算摘要）的次数
+     */
+    public long getWriteErrors() {
+        return writeErrors.get();
+    }
+
+    /**
+     * 获取已写入的记录数
+     */
+    public long getRecordCount() {
+        return writer.getRecordCount();
+    }
+
+    /**
+     * 刷新并关闭轨迹文件；被包装的引擎不会被关闭
+     *
+     * @throws IOException 如果轨迹文件关闭失败
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void recordFile(String imagePath, String options, long start, long latencyNanos,
+                            List<OCRResult> results, RuntimeException failure) {
+        Path path = Paths.get(imagePath);
+        byte[] digest;
+        long size;
+        try {
+            digest = TraceFormat.digestFile(path);
+            size = Files.size(path);
+        } catch (IOException | RuntimeException e) {
+            writeErrors.incrementAndGet();
+            return;
+        }
+        record(start, digest, size, options, latencyNanos, results, failure);
+    }
+
+    private void record(long start, byte[] digest, long size, String options, long latencyNanos,
+                        List<OCRResult> results, RuntimeException failure) {
+        if (results == null && failure == null) {
+            // 引擎抛出了Error，不记录
+            return;
+        }
+        String error = null;
+        if (failure != null) {
+            error = failure.getMessage() != null ? failure.getMessage() : failure.getClass().getName();
+        }
+        TraceRecord record = new TraceRecord(
+                TimeUnit.NANOSECONDS.toMicros(start - startNanos), digest, size, options,
+                TimeUnit.NANOSECONDS.toMicros(latencyNanos), failure == null ? results : null, error);
+        try {
+            writer.write(record);
+            long now = System.nanoTime();
+            long lastFlush = lastFlushNanos.get();
+            if (now - lastFlush >= FLUSH_INTERVAL_NANOS && lastFlushNanos.compareAndSet(lastFlush, now)) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            writeErrors.incrementAndGet();
+        }
+    }
+}
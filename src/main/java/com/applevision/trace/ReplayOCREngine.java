@@ -0,0 +1,195 @@
+package com.applevision.trace;
+
+import com.applevision.OCREngine;
+import com.applevision.OCRResult;
+import com.applevision.RecognitionOptions;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 重放引擎
+ * 从 {@link RecordingOCREngine} 录制的轨迹文件加载记录，按录制时的延迟返回录制的结果或失败，
+ * 不依赖本地库和原始图片，可在任意平台上用于基准测试和容量规划。
+ *
+ * 请求按输入内容的SHA-256摘要匹配记录。{@link #recognizeText(String)} 的参数可以是
+ * {@link #getRequestKeys()} 返回的摘要（无需原始图片），也可以是内容与录制时相同的图片路径。
+ * 同一输入被录制多次时，依次轮流返回各次录制的延迟和结果。
+ * 请求优先匹配输入和调用方式都相同的记录：不带选项的 {@link #recognizeText(String)} 匹配同样不带选项的录制，
+ * 带 {@link RecognitionOptions} 的请求匹配选项相同的录制；没有这样的记录时才退回只按输入匹配。
+ */
+public class ReplayOCREngine implements OCREngine {
+    private final List<TraceRecord> records;
+    private final Map<String, List<TraceRecord>> recordsByDigest = new HashMap<>();
+    private final Map<String, List<TraceRecord>> recordsByOptions = new HashMap<>();
+    private final Map<String, AtomicInteger> cursors = new HashMap<>();
+    private final double latencyScale;
+
+    /**
+     * 按录制时的延迟重放
+     *
+     * @param traceFile 轨迹文件路径
+     * @throws IOException 如果轨迹文件无法读取
+     */
+    public ReplayOCREngine(Path traceFile) throws IOException {
+        this(traceFile, 1.0);
+    }
+
+    /**
+     * 按缩放后的延迟重放
+     *
+     * @param traceFile 轨迹文件路径
+     * @param latencyScale 延迟缩放系数，例如0.5模拟速度快一倍的硬件，0表示不等待
+     * @throws IOException 如果轨迹文件无法读取
+     */
+    public ReplayOCREngine(Path traceFile, double latencyScale) throws IOException {
+        this(TraceReader.readAll(traceFile), latencyScale);
+    }
+
+    /**
+     * 使用已加载的记录构造
+     *
+     * @param records 轨迹记录
+     * @param latencyScale 延迟缩放系数，0表示不等待
+     */
+    public ReplayOCREngine(List<TraceRecord> records, double latencyScale) {
+        if (records.isEmpty()) {
+            throw new IllegalArgumentException("Trace contains no records");
+        }
+        if (latencyScale < 0) {
+            throw new IllegalArgumentException("latencyScale must not be negative: " + latencyScale);
+        }
+        this.records = Collections.unmodifiableList(new ArrayList<>(records));
+        this.latencyScale = latencyScale;
+        for (TraceRecord record : records) {
+            String key = record.getDigestHex();
+            recordsByDigest.computeIfAbsent(key, k -> new ArrayList<>()).add(record);
+            cursors.putIfAbsent(key, new AtomicInteger());
+            String optionsKey = key + "\n" + record.getOptions();
+            recordsByOptions.computeIfAbsent(optionsKey, k -> new ArrayList<>()).add(record);
+            cursors.putIfAbsent(optionsKey, new AtomicInteger());
+        }
+    }
+
+    /**
+     * 重放与输入匹配的记录
+     *
+     * @param imagePath 录制记录的摘要（见 {@link #getRequestKeys()}），或内容与录制时相同的图片路径
+     * @return 录制的识别结果
+     * @throws RuntimeException 如果找不到匹配的记录，或录制的请求本身失败
+     */
+    @Override
+    public List<OCRResult> recognizeText(String imagePath) {
+        String key = recordsByDigest.containsKey(imagePath) ? imagePath : digestOf(imagePath);
+        String plainKey = key + "\n" + TraceFormat.PLAIN_TEXT;
+        return replay(recordsByOptions.containsKey(plainKey) ? plainKey : key, imagePath);
+    }
+
+    /**
+     * 重放与输入和识别选项匹配的记录
+     *
+     * @param imagePath 录制记录的摘要（见 {@link #getRequestKeys()}），或内容与录制时相同的图片路径
+     * @param options 识别选项
+     * @return 录制的识别结果
+     * @throws RuntimeException 如果找不到匹配的记录，或录制的请求本身失败
+     */
+    @Override
+    public List<OCRResult> recognizeText(String imagePath, RecognitionOptions options) {
+        String key = recordsByDigest.containsKey(imagePath) ? imagePath : digestOf(imagePath);
+        String optionsKey = key + "\n" + TraceFormat.describe(options);
+        return replay(recordsByOptions.containsKey(optionsKey) ? optionsKey : key, imagePath);
+    }
+
+    /**
+     * 重放与图像像素匹配的记录
+     *
+     * @param image 与录制时像素相同的图像
+     * @return 录制的识别结果
+     * @throws RuntimeException 如果找不到匹配的记录，或录制的请求本身失败
+     */
+    @Override
+    public List<OCRResult> recognizeImage(BufferedImage image) {
+        return replay(TraceFormat.toHex(TraceFormat.digestImage(image)),
+                "image " + image.getWidth() + "x" + image.getHeight());
+    }
+
+    /**
+     * 获取全部记录的请求键（输入摘要），按录制顺序排列，包含重复请求
+     * 可直接作为 {@link com.applevision.loadtest.LoadGenerator} 的语料，保持录制时的输入分布
+     *
+     * @return 请求键列表
+     */
+    public List<String> getRequestKeys() {
+        List<String> keys = new ArrayList<>(records.size());
+        for (TraceRecord record : records) {
+            keys.add(record.getDigestHex());
+        }
+        return keys;
+    }
+
+    /**
+     * 获取全部轨迹记录，按录制顺序排列
+     */
+    public List<TraceRecord> getRecords() {
+        return records;
+    }
+
+    /**
+     * 获取不同输入的数量
+     */
+    public int getDistinctInputCount() {
+        return recordsByDigest.size();
+    }
+
+    private List<OCRResult> replay(String key, String description) {
+        List<TraceRecord> candidates = recordsByOptions.containsKey(key)
+                ? recordsByOptions.get(key) : recordsByDigest.get(key);
+        if (candidates == null) {
+            throw new RuntimeException("No recorded request for: " + description);
+        }
+        int index = Math.floorMod(cursors.get(key).getAndIncrement(), candidates.size());
+        TraceRecord record = candidates.get(index);
+
+        long delayNanos = (long) (TimeUnit.MICROSECONDS.toNanos(record.getLatencyMicros()) * latencyScale);
+        long deadline = System.nanoTime() + delayNanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+
+        if (record.isError()) {
+            throw new RuntimeException(record.getError());
+        }
+        return new ArrayList<>(record.getResults());
+    }
+
+    private static String digestOf(String imagePath) {
+        Path path;
+        try {
+            path = Paths.get(imagePath);
+        } catch (InvalidPathException e) {
+            throw new RuntimeException("No recorded request for: " + imagePath);
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new RuntimeException("No recorded request for: " + imagePath);
+        }
+        try {
+            return TraceFormat.toHex(TraceFormat.digestFile(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read image: " + imagePath, e);
+        }
+    }
+}
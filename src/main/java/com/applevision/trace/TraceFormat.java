@@ -0,0 +1,154 @@
+package com.applevision.trace;
+
+import com.applevision.OCRResult;
+import com.applevision.RecognitionOptions;
+
+import java.awt.image.BufferedImage;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 轨迹文件格式
+ *
+ * 整个文件为GZIP压缩流，解压后依次为：
+ * <pre>
+ * 文件头: int 魔数 "AVTR" | byte 版本 | long 录制开始时间（Unix毫秒）
+ * 记录:   byte 类型（1 成功 / 2 失败）
+ *         varint 开始偏移（微秒） | byte[32] SHA-256 | varint 字节数 | string 选项 | varint 延迟（微秒）
+ *         成功: varint 文本块数，每个文本块为 string 文本 | float 置信度 | float x, y, width, height
+ *         失败: string 失败信息
+ * </pre>
+ * string 为 varint 长度加UTF-8字节。置信度与归一化坐标以float保存，精度约为1e-7。
+ */
+final class TraceFormat {
+    static final int MAGIC = 0x41565452;
+    static final int VERSION = 1;
+    static final int RECORD_RESULT = 1;
+    static final int RECORD_ERROR = 2;
+    static final int DIGEST_LENGTH = 32;
+    /** 不带识别选项的 recognizeText 调用在轨迹中的选项描述 */
+    static final String PLAIN_TEXT = "recognizeText";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private TraceFormat() {
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative varint: " + value);
+        }
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in trace");
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        long length = readVarLong(in);
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("String too long in trace: " + length);
+        }
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 计算文件内容的SHA-256摘要
+     */
+    static byte[] digestFile(Path path) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * 计算图像像素（宽、高及逐行ARGB值）的SHA-256摘要，与图像的内存布局无关
+     */
+    static byte[] digestImage(BufferedImage image) {
+        MessageDigest digest = newDigest();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] row = new int[width];
+        byte[] bytes = new byte[width * 4];
+        digest.update(new byte[]{
+                (byte) (width >>> 24), (byte) (width >>> 16), (byte) (width >>> 8), (byte) width,
+                (byte) (height >>> 24), (byte) (height >>> 16), (byte) (height >>> 8), (byte) height});
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0, i = 0; x < width; x++) {
+                int argb = row[x];
+                bytes[i++] = (byte) (argb >>> 24);
+                bytes[i++] = (byte) (argb >>> 16);
+                bytes[i++] = (byte) (argb >>> 8);
+                bytes[i++] = (byte) argb;
+            }
+            digest.update(bytes);
+        }
+        return digest.digest();
+    }
+
+    /**
+     * 带识别选项的调用在轨迹中的选项描述，录制与重放使用同一描述进行匹配
+     */
+    static String describe(RecognitionOptions options) {
+        String description = "recognizeText languages=" + String.join(",", options.getLanguages())
+                + " level=" + options.getLevel()
+                + " correction=" + options.isLanguageCorrection();
+        OCRResult.BoundingBox roi = options.getRegionOfInterest();
+        if (roi != null) {
+            description += " roi=" + roi.getX() + "," + roi.getY() + "," + roi.getWidth() + "," + roi.getHeight();
+        }
+        return description;
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >>> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,124 @@
+package com.applevision.trace;
+
+import com.applevision.OCRResult;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 轨迹文件读取器
+ * 按写入顺序逐条读取记录。录制进程异常退出时文件末尾可能不完整，
+ * 此时读到最后一条完整记录后即视为结束。
+ */
+public class TraceReader implements Closeable {
+    private final DataInputStream in;
+    private final long startEpochMillis;
+
+    /**
+     * 打开轨迹文件并校验文件头
+     *
+     * @param path 轨迹文件路径
+     * @throws IOException 如果文件无法读取或不是轨迹文件
+     */
+    public TraceReader(Path path) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(path), 64 * 1024), 64 * 1024));
+        try {
+            if (in.readInt() != TraceFormat.MAGIC) {
+                throw new IOException("Not a trace file: " + path);
+            }
+            int version = in.readUnsignedByte();
+            if (version != TraceFormat.VERSION) {
+                throw new IOException("Unsupported trace version: " + version);
+            }
+            this.startEpochMillis = in.readLong();
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 读取一个轨迹文件中的全部记录
+     *
+     * @param path 轨迹文件路径
+     * @return 按写入顺序排列的记录
+     * @throws IOException 如果文件无法读取或不是轨迹文件
+     */
+    public static List<TraceRecord> readAll(Path path) throws IOException {
+        List<TraceRecord> records = new ArrayList<>();
+        try (TraceReader reader = new TraceReader(path)) {
+            TraceRecord record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 获取录制开始时间（Unix毫秒）
+     */
+    public long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @return 下一条记录；没有更多完整记录时返回null
+     * @throws IOException 如果文件内容损坏
+     */
+    public TraceRecord next() throws IOException {
+        int type;
+        try {
+            type = in.read();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (type < 0) {
+            return null;
+        }
+        if (type != TraceFormat.RECORD_RESULT && type != TraceFormat.RECORD_ERROR) {
+            throw new IOException("Unknown trace record type: " + type);
+        }
+        try {
+            long offsetMicros = TraceFormat.readVarLong(in);
+            byte[] digest = new byte[TraceFormat.DIGEST_LENGTH];
+            in.readFully(digest);
+            long size = TraceFormat.readVarLong(in);
+            String options = TraceFormat.readString(in);
+            long latencyMicros = TraceFormat.readVarLong(in);
+            if (type == TraceFormat.RECORD_ERROR) {
+                return new TraceRecord(offsetMicros, digest, size, options, latencyMicros, null,
+                        TraceFormat.readString(in));
+            }
+            long count = TraceFormat.readVarLong(in);
+            List<OCRResult> results = new ArrayList<>((int) Math.min(count, 1024));
+            for (long i = 0; i < count; i++) {
+                String text = TraceFormat.readString(in);
+                double confidence = in.readFloat();
+                OCRResult.BoundingBox box = new OCRResult.BoundingBox(
+                        in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat());
+                results.add(new OCRResult(text, confidence, box));
+            }
+            return new TraceRecord(offsetMicros, digest, size, options, latencyMicros, results, null);
+        } catch (EOFException e) {
+            // 末尾记录不完整（录制进程未正常关闭）
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
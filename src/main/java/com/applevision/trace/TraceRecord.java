@@ -0,0 +1,120 @@
+package com.applevision.trace;
+
+import com.applevision.OCRResult;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 轨迹记录
+ * 一次识别请求的元数据、实测延迟以及返回的结果（或失败信息）
+ */
+public class TraceRecord {
+    private final long offsetMicros;
+    private final byte[] digest;
+    private final long size;
+    private final String options;
+    private final long latencyMicros;
+    private final List<OCRResult> results;
+    private final String error;
+
+    /**
+     * 构造函数
+     *
+     * @param offsetMicros 请求开始时间相对于录制开始的偏移（微秒）
+     * @param digest 输入内容的SHA-256摘要
+     * @param size 输入内容的字节数
+     * @param options 请求选项的文本描述（调用方式、图像尺寸等）
+     * @param latencyMicros 被录制引擎的实测延迟（微秒）
+     * @param results 识别结果；请求失败时为null
+     * @param error 失败信息；请求成功时为null
+     */
+    public TraceRecord(long offsetMicros, byte[] digest, long size, String options, long latencyMicros,
+                       List<OCRResult> results, String error) {
+        if (digest.length != TraceFormat.DIGEST_LENGTH) {
+            throw new IllegalArgumentException("digest must be " + TraceFormat.DIGEST_LENGTH + " bytes");
+        }
+        this.offsetMicros = offsetMicros;
+        this.digest = digest.clone();
+        this.size = size;
+        this.options = options;
+        this.latencyMicros = latencyMicros;
+        this.results = results == null ? null : Collections.unmodifiableList(results);
+        this.error = error;
+    }
+
+    /**
+     * 获取请求开始时间相对于录制开始的偏移（微秒），可用于重放原始到达过程
+     */
+    public long getOffsetMicros() {
+        return offsetMicros;
+    }
+
+    /**
+     * 获取输入内容的SHA-256摘要
+     */
+    public byte[] getDigest() {
+        return digest.clone();
+    }
+
+    /**
+     * 获取输入内容摘要的十六进制表示，重放时作为请求键使用
+     */
+    public String getDigestHex() {
+        return TraceFormat.toHex(digest);
+    }
+
+    /**
+     * 获取输入内容的字节数
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * 获取请求选项的文本描述
+     */
+    public String getOptions() {
+        return options;
+    }
+
+    /**
+     * 获取实测延迟（微秒）
+     */
+    public long getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    /**
+     * 获取识别结果；请求失败时为null
+     */
+    public List<OCRResult> getResults() {
+        return results;
+    }
+
+    /**
+     * 获取失败信息；请求成功时为null
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * 请求是否失败
+     */
+    public boolean isError() {
+        return error != null;
+    }
+
+    @Override
+    public String toString() {
+        return "TraceRecord{" +
+                "offsetMicros=" + offsetMicros +
+                ", digest=" + getDigestHex() +
+                ", size=" + size +
+                ", options='" + options + '\'' +
+                ", latencyMicros=" + latencyMicros +
+                (error != null ? ", error='" + error + '\'' : ", results=" + results.size()) +
+                '}';
+    }
+}
@@ -0,0 +1,84 @@
+package com.applevision.trace;
+
+import com.applevision.OCRResult;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 轨迹文件写入器
+ * 格式见 {@link TraceFormat}。线程安全，多个线程可以同时追加记录。
+ * {@link #flush()} 使用同步刷新，已刷新的记录在进程异常退出后仍可读取。
+ */
+public class TraceWriter implements Closeable, Flushable {
+    private final DataOutputStream out;
+    private long recordCount = 0;
+
+    /**
+     * 创建轨迹文件并写入文件头（已存在的文件会被覆盖）
+     *
+     * @param path 轨迹文件路径
+     * @param startEpochMillis 录制开始时间（Unix毫秒）
+     * @throws IOException 如果文件无法创建
+     */
+    public TraceWriter(Path path, long startEpochMillis) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(path), 64 * 1024, true), 64 * 1024));
+        out.writeInt(TraceFormat.MAGIC);
+        out.writeByte(TraceFormat.VERSION);
+        out.writeLong(startEpochMillis);
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @param record 轨迹记录
+     * @throws IOException 如果写入失败
+     */
+    public synchronized void write(TraceRecord record) throws IOException {
+        out.writeByte(record.isError() ? TraceFormat.RECORD_ERROR : TraceFormat.RECORD_RESULT);
+        TraceFormat.writeVarLong(out, record.getOffsetMicros());
+        out.write(record.getDigest());
+        TraceFormat.writeVarLong(out, record.getSize());
+        TraceFormat.writeString(out, record.getOptions());
+        TraceFormat.writeVarLong(out, record.getLatencyMicros());
+        if (record.isError()) {
+            TraceFormat.writeString(out, record.getError());
+        } else {
+            TraceFormat.writeVarLong(out, record.getResults().size());
+            for (OCRResult result : record.getResults()) {
+                TraceFormat.writeString(out, result.getText());
+                out.writeFloat((float) result.getConfidence());
+                OCRResult.BoundingBox box = result.getBoundingBox();
+                out.writeFloat((float) box.getX());
+                out.writeFloat((float) box.getY());
+                out.writeFloat((float) box.getWidth());
+                out.writeFloat((float) box.getHeight());
+            }
+        }
+        recordCount++;
+    }
+
+    /**
+     * 获取已写入的记录数
+     */
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
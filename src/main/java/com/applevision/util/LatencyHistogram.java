@@ -0,0 +1,168 @@
+package com.applevision.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 延迟直方图工具类
+ * 采用对数分段、段内线性分桶的方式记录非负数值（通常为微秒），
+ * 相对误差约为 1/32，支持多线程并发记录
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * HALF_SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalSum = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * 记录一个数值
+     *
+     * @param value 数值，负数按0处理
+     */
+    public void recordValue(long value) {
+        recordValue(value, 1);
+    }
+
+    /**
+     * 记录一个数值若干次
+     *
+     * @param value 数值，负数按0处理
+     * @param count 记录次数
+     */
+    public void recordValue(long value, long count) {
+        if (count <= 0) {
+            return;
+        }
+        long v = Math.max(0, value);
+        counts.addAndGet(indexOf(v), count);
+        totalCount.addAndGet(count);
+        totalSum.addAndGet(v * count);
+        long currentMax;
+        while (v > (currentMax = maxValue.get())) {
+            if (maxValue.compareAndSet(currentMax, v)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 将另一个直方图的数据合并到当前直方图
+     *
+     * @param other 另一个直方图
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) {
+                counts.addAndGet(i, c);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        totalSum.addAndGet(other.totalSum.get());
+        long otherMax = other.maxValue.get();
+        long currentMax;
+        while (otherMax > (currentMax = maxValue.get())) {
+            if (maxValue.compareAndSet(currentMax, otherMax)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 获取指定百分位的数值
+     *
+     * @param percentile 百分位 (0.0 到 100.0)
+     * @return 该百分位对应的数值（所在分桶的上界），无数据时返回0
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = totalCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        double p = Math.min(100.0, Math.max(0.0, percentile));
+        long target = Math.max(1, (long) Math.ceil(p / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    /**
+     * 获取记录总数
+     *
+     * @return 记录总数
+     */
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * 获取平均值
+     *
+     * @return 平均值，无数据时返回0
+     */
+    public double getMean() {
+        long total = totalCount.get();
+        return total == 0 ? 0.0 : (double) totalSum.get() / total;
+    }
+
+    /**
+     * 获取最大值
+     *
+     * @return 最大值
+     */
+    public long getMaxValue() {
+        return maxValue.get();
+    }
+
+    /**
+     * 清空所有记录
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalSum.set(0);
+        maxValue.set(0);
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * HALF_SUB_BUCKET_COUNT + (subBucket - HALF_SUB_BUCKET_COUNT);
+    }
+
+    private static long highestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram{" +
+                "count=" + getTotalCount() +
+                ", mean=" + String.format("%.1f", getMean()) +
+                ", p50=" + getValueAtPercentile(50) +
+                ", p90=" + getValueAtPercentile(90) +
+                ", p99=" + getValueAtPercentile(99) +
+                ", max=" + getMaxValue() +
+                '}';
+    }
+}
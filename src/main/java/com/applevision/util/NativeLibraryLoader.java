@@ -1,9 +1,11 @@
 package com.applevision.util;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 
 /**
@@ -12,6 +14,7 @@ import java.nio.file.StandardCopyOption;
  */
 public class NativeLibraryLoader {
     private static boolean loaded = false;
+    private static Path extractedLibrary = null;
     private static final String LIBRARY_NAME = "libapplevision.dylib";
     private static final String LIBRARY_PATH = "/META-INF/native/" + LIBRARY_NAME;
     
@@ -41,6 +44,41 @@ public class NativeLibraryLoader {
      * 从JAR文件中提取并加载本地库
      */
     private static void loadFromJar() {
+        System.load(extractFromJar().toString());
+        loaded = true;
+    }
+
+    /**
+     * 获取本地库文件路径
+     * 优先在 java.library.path 中查找，找不到时从JAR中提取到临时文件。
+     * 供不经过 System.load 的加载方式（如外部函数接口）使用
+     *
+     * @return 本地库文件路径
+     * @throws RuntimeException 如果找不到本地库
+     */
+    public static synchronized Path getLibraryPath() {
+        String libraryPath = System.getProperty("java.library.path", "");
+        for (String dir : libraryPath.split(File.pathSeparator)) {
+            if (dir.isEmpty()) {
+                continue;
+            }
+            Path candidate = Paths.get(dir, LIBRARY_NAME);
+            if (Files.isRegularFile(candidate)) {
+                return candidate;
+            }
+        }
+        return extractFromJar();
+    }
+
+    /**
+     * 将JAR中的本地库提取到临时文件，同一进程内只提取一次
+     *
+     * @return 临时文件路径
+     */
+    private static synchronized Path extractFromJar() {
+        if (extractedLibrary != null) {
+            return extractedLibrary;
+        }
         try (InputStream is = NativeLibraryLoader.class.getResourceAsStream(LIBRARY_PATH)) {
             if (is == null) {
                 throw new RuntimeException("Native library not found in JAR: " + LIBRARY_PATH);
@@ -53,13 +91,11 @@ public class NativeLibraryLoader {
             // 设置执行权限
             tempLib.toFile().setExecutable(true);
             
-            // 加载库
-            System.load(tempLib.toString());
-            loaded = true;
-            
             // 确保临时文件在JVM退出时被删除
             tempLib.toFile().deleteOnExit();
-            
+
+            extractedLibrary = tempLib;
+            return tempLib;
         } catch (IOException e) {
             throw new RuntimeException("Failed to load native library from JAR", e);
         }
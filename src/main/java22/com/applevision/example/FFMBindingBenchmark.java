@@ -0,0 +1,91 @@
+package com.applevision.example;
+
+import com.applevision.BindingDiagnostics;
+import com.applevision.OCRResult;
+import com.applevision.VisionOCR;
+import com.applevision.ffm.FFMVisionOCR;
+import com.applevision.util.NativeLibraryLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * 外部函数接口绑定基准测试
+ * 测量每次调用的耗时（含参数传递、本地调用与结果解码）。
+ *
+ * 默认调用两条绑定的合成入口（FFM的 avocr_echo 与JNI的 {@link BindingDiagnostics#echoBlocks}）：本地代码不识别，
+ * 只生成指定数量的文本块并按各自的方式交给Java，测得的即为封送方式本身的开销。
+ * 在Linux上配合桩库只能测量FFM一侧；在macOS上不指定库路径时两侧都会测量。
+ *
+ * 指定图片路径时改为对该图片做真实识别，此时耗时以Vision识别为主，
+ * 只用于确认两条路径在真实结果上的表现一致，迭代次数应取较小的值。
+ *
+ * 用法:
+ *   java --enable-native-access=ALL-UNNAMED FFMBindingBenchmark [库路径] [文本块数] [迭代次数] [图片路径]
+ */
+public class FFMBindingBenchmark {
+    private static final int DEFAULT_ECHO_ITERATIONS = 100_000;
+    private static final int DEFAULT_IMAGE_ITERATIONS = 20;
+
+    public static void main(String[] args) throws Exception {
+        Path libraryPath = args.length > 0 && !args[0].isEmpty() ? Paths.get(args[0]) : null;
+        int blocks = args.length > 1 && !args[1].isEmpty() ? Integer.parseInt(args[1]) : 40;
+        Path imagePath = args.length > 3 && !args[3].isEmpty() ? Paths.get(args[3]) : null;
+        if (imagePath != null && !Files.isRegularFile(imagePath)) {
+            System.err.println("图片不存在: " + imagePath);
+            System.exit(1);
+        }
+        int defaultIterations = imagePath == null ? DEFAULT_ECHO_ITERATIONS : DEFAULT_IMAGE_ITERATIONS;
+        int iterations = args.length > 2 && !args[2].isEmpty() ? Integer.parseInt(args[2]) : defaultIterations;
+        // 真实识别每次耗时以毫秒计，只需少量预热
+        int warmup = imagePath == null ? Math.min(iterations, 20_000) : 1;
+        boolean jni = libraryPath == null && NativeLibraryLoader.isMacOS();
+
+        if (imagePath == null) {
+            System.out.println("合成结果: 每次调用 " + blocks + " 个文本块，迭代次数: " + iterations);
+        } else {
+            System.out.println("真实识别: " + imagePath + "，迭代次数: " + iterations);
+        }
+        try (FFMVisionOCR ffm = libraryPath != null ? new FFMVisionOCR(libraryPath) : new FFMVisionOCR()) {
+            IntFunction<List<OCRResult>> call = imagePath == null
+                    ? ffm::echoBlocks : n -> ffm.recognizeText(imagePath.toString());
+            List<OCRResult> sample = call.apply(blocks);
+            System.out.println("每次调用文本块数: " + sample.size());
+            if (!sample.isEmpty()) {
+                System.out.println("首个文本块: " + sample.get(0));
+            }
+            measure("FFM", call, blocks, iterations, warmup);
+        }
+
+        if (jni) {
+            VisionOCR vision = new VisionOCR();
+            IntFunction<List<OCRResult>> call = imagePath == null
+                    ? n -> BindingDiagnostics.echoBlocks(vision, n) : n -> vision.recognizeText(imagePath.toString());
+            measure("JNI", call, blocks, iterations, warmup);
+        } else {
+            System.out.println("JNI: 需要在macOS上使用真实本地库（不指定库路径）运行");
+        }
+    }
+
+    private static void measure(String name, IntFunction<List<OCRResult>> call, int blocks, int iterations,
+                                int warmup) {
+        for (int i = 0; i < warmup; i++) {
+            call.apply(blocks);
+        }
+        long totalBlocks = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            totalBlocks += call.apply(blocks).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        double perCall = (double) elapsed / iterations;
+        System.out.printf("%s: 每次调用 %.1f ns", name, perCall);
+        if (totalBlocks > 0) {
+            System.out.printf(", 每个文本块 %.1f ns", (double) elapsed / totalBlocks);
+        }
+        System.out.println();
+    }
+}
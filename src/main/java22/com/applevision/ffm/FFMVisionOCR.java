@@ -0,0 +1,337 @@
+package com.applevision.ffm;
+
+import com.applevision.OCREngine;
+import com.applevision.OCRResult;
+import com.applevision.RecognitionOptions;
+import com.applevision.util.NativeLibraryLoader;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SymbolLookup;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于外部函数接口（java.lang.foreign）的OCR绑定
+ * 通过 applevision_c.h 中的纯C接口调用本地库，作为JNI桥接的替代方案：
+ * <ul>
+ *   <li>图片路径以UTF-8字节写入本地内存后传入，无需 GetStringUTFChars</li>
+ *   <li>识别结果由本地代码写入调用方预先分配的缓冲区，在Java侧解码为 {@link OCRResult}，
+ *       本地代码不回调Java、不查找类和方法</li>
+ *   <li>缓冲区在受限作用域（confined arena）中分配，跨调用复用，仅在容量不足时按倍数扩容；
+ *       容量不足时本地代码保留已收集的结果，扩容后直接拷贝取出，不会重新识别</li>
+ * </ul>
+ * 由于使用受限作用域，实例只能在创建它的线程中使用；多线程场景请为每个线程创建独立实例。
+ * 需要 JDK 22 或更高版本。
+ */
+public final class FFMVisionOCR implements OCREngine, AutoCloseable {
+    /** 文本块结构体大小，与 avocr_block 一致 */
+    static final long BLOCK_SIZE = 48;
+    private static final long OFFSET_X = 0;
+    private static final long OFFSET_Y = 8;
+    private static final long OFFSET_WIDTH = 16;
+    private static final long OFFSET_HEIGHT = 24;
+    private static final long OFFSET_CONFIDENCE = 32;
+    private static final long OFFSET_TEXT_OFFSET = 36;
+    private static final long OFFSET_TEXT_LENGTH = 40;
+
+    private static final int ERR_BUFFER_TOO_SMALL = -4;
+    private static final int ERROR_CAPACITY = 512;
+    private static final int INITIAL_BLOCK_CAPACITY = 64;
+    private static final int INITIAL_TEXT_CAPACITY = 16 * 1024;
+    private static final int INITIAL_PATH_CAPACITY = 1024;
+
+    private final Arena libraryArena;
+    private final MethodHandle recognizePath;
+    private final MethodHandle recognizePathWithOptions;
+    private final MethodHandle echo;
+    private final MethodHandle copyResult;
+    private final MethodHandle freeResult;
+
+    private Arena bufferArena;
+    private MemorySegment pathBuffer;
+    private MemorySegment blockBuffer;
+    private MemorySegment textBuffer;
+    private MemorySegment requiredBuffer;
+    private MemorySegment overflowBuffer;
+    private MemorySegment errorBuffer;
+    private int blockCapacity;
+    private int textCapacity;
+    private int pathCapacity;
+    private byte[] textScratch = new byte[256];
+
+    /**
+     * 使用默认本地库构造
+     * 本地库位置由 {@link NativeLibraryLoader#getLibraryPath()} 决定
+     */
+    public FFMVisionOCR() {
+        this(NativeLibraryLoader.getLibraryPath());
+    }
+
+    /**
+     * 使用指定本地库构造
+     *
+     * @param libraryPath 实现了 applevision_c.h 的本地库路径（如Linux下的桩库）
+     */
+    public FFMVisionOCR(Path libraryPath) {
+        this.libraryArena = Arena.ofConfined();
+        SymbolLookup lookup = SymbolLookup.libraryLookup(libraryPath, libraryArena);
+        this.recognizePath = downcall(lookup, libraryPath, "avocr_recognize_path", FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,
+                ValueLayout.ADDRESS, ValueLayout.JAVA_INT,
+                ValueLayout.ADDRESS, ValueLayout.JAVA_INT,
+                ValueLayout.ADDRESS, ValueLayout.JAVA_INT,
+                ValueLayout.ADDRESS, ValueLayout.ADDRESS,
+                ValueLayout.ADDRESS, ValueLayout.JAVA_INT));
+        this.recognizePathWithOptions = downcall(lookup, libraryPath, "avocr_recognize_path_with_options",
+                FunctionDescriptor.of(
+                        ValueLayout.JAVA_INT,
+                        ValueLayout.ADDRESS, ValueLayout.JAVA_INT,
+                        ValueLayout.ADDRESS, ValueLayout.JAVA_INT,
+                        ValueLayout.JAVA_INT, ValueLayout.JAVA_INT,
+                        ValueLayout.JAVA_DOUBLE, ValueLayout.JAVA_DOUBLE, ValueLayout.JAVA_DOUBLE, ValueLayout.JAVA_DOUBLE,
+                        ValueLayout.ADDRESS, ValueLayout.JAVA_INT,
+                        ValueLayout.ADDRESS, ValueLayout.JAVA_INT,
+                        ValueLayout.ADDRESS, ValueLayout.ADDRESS,
+                        ValueLayout.ADDRESS, ValueLayout.JAVA_INT));
+        this.echo = downcall(lookup, libraryPath, "avocr_echo", FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,
+                ValueLayout.JAVA_INT,
+                ValueLayout.ADDRESS, ValueLayout.JAVA_INT,
+                ValueLayout.ADDRESS, ValueLayout.JAVA_INT,
+                ValueLayout.ADDRESS, ValueLayout.ADDRESS,
+                ValueLayout.ADDRESS, ValueLayout.JAVA_INT));
+        this.copyResult = downcall(lookup, libraryPath, "avocr_copy_result", FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,
+                ValueLayout.ADDRESS,
+                ValueLayout.ADDRESS, ValueLayout.JAVA_INT,
+                ValueLayout.ADDRESS, ValueLayout.JAVA_INT,
+                ValueLayout.ADDRESS));
+        this.freeResult = downcall(lookup, libraryPath, "avocr_free_result",
+                FunctionDescriptor.ofVoid(ValueLayout.ADDRESS));
+        allocateBuffers(INITIAL_PATH_CAPACITY, INITIAL_BLOCK_CAPACITY, INITIAL_TEXT_CAPACITY);
+    }
+
+    private static MethodHandle downcall(SymbolLookup lookup, Path libraryPath, String name,
+                                         FunctionDescriptor descriptor) {
+        MemorySegment symbol = lookup.find(name)
+                .orElseThrow(() -> new RuntimeException("Symbol " + name + " not found in " + libraryPath));
+        return Linker.nativeLinker().downcallHandle(symbol, descriptor);
+    }
+
+    /**
+     * 识别图片中的文字并返回结果
+     *
+     * @param imagePath 图片的路径
+     * @return 识别结果列表，包含文字内容及位置坐标
+     * @throws RuntimeException 如果OCR过程中发生错误
+     */
+    @Override
+    public List<OCRResult> recognizeText(String imagePath) {
+        byte[] path = imagePath.getBytes(StandardCharsets.UTF_8);
+        writePath(path, 0);
+
+        int count;
+        try {
+            count = (int) recognizePath.invokeExact(pathBuffer, path.length,
+                    blockBuffer, blockCapacity,
+                    textBuffer, textCapacity,
+                    requiredBuffer, overflowBuffer,
+                    errorBuffer, ERROR_CAPACITY);
+        } catch (Throwable t) {
+            throw nativeFailure(t);
+        }
+        return collect(count);
+    }
+
+    /**
+     * 按指定选项识别图片中的文字
+     * 语言以逗号分隔的UTF-8字节紧接在路径之后写入同一缓冲区
+     *
+     * @param imagePath 图片的路径
+     * @param options 识别语言、识别级别、语言校正和识别区域选项
+     * @return 识别结果列表，包含文字内容及位置坐标（相对于整张图像）
+     * @throws RuntimeException 如果OCR过程中发生错误
+     */
+    @Override
+    public List<OCRResult> recognizeText(String imagePath, RecognitionOptions options) {
+        byte[] path = imagePath.getBytes(StandardCharsets.UTF_8);
+        byte[] languages = String.join(",", options.getLanguages()).getBytes(StandardCharsets.UTF_8);
+        writePath(path, languages.length);
+        MemorySegment.copy(languages, 0, pathBuffer, ValueLayout.JAVA_BYTE, path.length, languages.length);
+        OCRResult.BoundingBox roi = options.getRegionOfInterest();
+        if (roi == null) {
+            roi = new OCRResult.BoundingBox(0.0, 0.0, 1.0, 1.0);
+        }
+
+        int count;
+        try {
+            count = (int) recognizePathWithOptions.invokeExact(pathBuffer, path.length,
+                    pathBuffer.asSlice(path.length), languages.length,
+                    options.getLevel() == RecognitionOptions.Level.FAST ? 1 : 0,
+                    options.isLanguageCorrection() ? 1 : 0,
+                    roi.getX(), roi.getY(), roi.getWidth(), roi.getHeight(),
+                    blockBuffer, blockCapacity,
+                    textBuffer, textCapacity,
+                    requiredBuffer, overflowBuffer,
+                    errorBuffer, ERROR_CAPACITY);
+        } catch (Throwable t) {
+            throw nativeFailure(t);
+        }
+        return collect(count);
+    }
+
+    /**
+     * 生成合成结果，不加载图像也不识别
+     * 本地代码生成 blockCount 个文本块（第i个为 "第&lt;i&gt;行 line &lt;i&gt; synthetic"），
+     * 结果的写入与解码方式与 {@link #recognizeText(String)} 相同，用于测量绑定本身的开销
+     *
+     * @param blockCount 文本块数
+     * @return 合成的结果列表
+     */
+    public List<OCRResult> echoBlocks(int blockCount) {
+        int count;
+        try {
+            count = (int) echo.invokeExact(blockCount,
+                    blockBuffer, blockCapacity,
+                    textBuffer, textCapacity,
+                    requiredBuffer, overflowBuffer,
+                    errorBuffer, ERROR_CAPACITY);
+        } catch (Throwable t) {
+            throw nativeFailure(t);
+        }
+        return collect(count);
+    }
+
+    /**
+     * 释放本地缓冲区并卸载本地库
+     */
+    @Override
+    public void close() {
+        bufferArena.close();
+        libraryArena.close();
+    }
+
+    /**
+     * 把路径写入路径缓冲区，并为其后 extra 字节的附加数据预留空间
+     */
+    private void writePath(byte[] path, int extra) {
+        int required = path.length + extra;
+        if (required > pathCapacity) {
+            allocateBuffers(Math.max(required, pathCapacity * 2), blockCapacity, textCapacity);
+        }
+        MemorySegment.copy(path, 0, pathBuffer, ValueLayout.JAVA_BYTE, 0, path.length);
+    }
+
+    /**
+     * 处理本地调用的返回值：缓冲区不足时按倍数扩容，从本地保留的结果中拷贝取出后释放，然后解码
+     */
+    private List<OCRResult> collect(int count) {
+        if (count == ERR_BUFFER_TOO_SMALL) {
+            MemorySegment overflow = overflowBuffer.get(ValueLayout.ADDRESS, 0);
+            if (overflow.address() == 0) {
+                throw new RuntimeException(readError() + " (code " + count + ")");
+            }
+            try {
+                int requiredBlocks = requiredBuffer.getAtIndex(ValueLayout.JAVA_INT, 0);
+                int requiredText = requiredBuffer.getAtIndex(ValueLayout.JAVA_INT, 1);
+                allocateBuffers(pathCapacity, grow(blockCapacity, requiredBlocks), grow(textCapacity, requiredText));
+                count = (int) copyResult.invokeExact(overflow,
+                        blockBuffer, blockCapacity,
+                        textBuffer, textCapacity,
+                        requiredBuffer);
+            } catch (Throwable t) {
+                throw nativeFailure(t);
+            } finally {
+                try {
+                    freeResult.invokeExact(overflow);
+                } catch (Throwable t) {
+                    throw nativeFailure(t);
+                }
+            }
+        }
+        if (count < 0) {
+            throw new RuntimeException(readError() + " (code " + count + ")");
+        }
+        return decode(count);
+    }
+
+    /**
+     * 容量不足时扩容到所需大小与当前容量两倍中的较大者，避免结果逐渐变大时反复扩容
+     */
+    private static int grow(int capacity, int required) {
+        if (required <= capacity) {
+            return capacity;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(required, 2L * capacity));
+    }
+
+    private static RuntimeException nativeFailure(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new RuntimeException("Native call failed", t);
+    }
+
+    private List<OCRResult> decode(int count) {
+        List<OCRResult> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long base = i * BLOCK_SIZE;
+            int textOffset = blockBuffer.get(ValueLayout.JAVA_INT, base + OFFSET_TEXT_OFFSET);
+            int textLength = blockBuffer.get(ValueLayout.JAVA_INT, base + OFFSET_TEXT_LENGTH);
+            if (textLength > textScratch.length) {
+                textScratch = new byte[Math.max(textLength, textScratch.length * 2)];
+            }
+            MemorySegment.copy(textBuffer, ValueLayout.JAVA_BYTE, textOffset, textScratch, 0, textLength);
+            String text = new String(textScratch, 0, textLength, StandardCharsets.UTF_8);
+
+            OCRResult.BoundingBox boundingBox = new OCRResult.BoundingBox(
+                    blockBuffer.get(ValueLayout.JAVA_DOUBLE, base + OFFSET_X),
+                    blockBuffer.get(ValueLayout.JAVA_DOUBLE, base + OFFSET_Y),
+                    blockBuffer.get(ValueLayout.JAVA_DOUBLE, base + OFFSET_WIDTH),
+                    blockBuffer.get(ValueLayout.JAVA_DOUBLE, base + OFFSET_HEIGHT));
+            double confidence = blockBuffer.get(ValueLayout.JAVA_FLOAT, base + OFFSET_CONFIDENCE);
+            results.add(new OCRResult(text, confidence, boundingBox));
+        }
+        return results;
+    }
+
+    private String readError() {
+        int length = 0;
+        while (length < ERROR_CAPACITY && errorBuffer.get(ValueLayout.JAVA_BYTE, length) != 0) {
+            length++;
+        }
+        byte[] bytes = new byte[length];
+        MemorySegment.copy(errorBuffer, ValueLayout.JAVA_BYTE, 0, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 在新的受限作用域中分配缓冲区，并释放旧的作用域
+     */
+    private void allocateBuffers(int newPathCapacity, int newBlockCapacity, int newTextCapacity) {
+        Arena newArena = Arena.ofConfined();
+        pathBuffer = newArena.allocate(newPathCapacity, 8);
+        blockBuffer = newArena.allocate(newBlockCapacity * BLOCK_SIZE, 8);
+        textBuffer = newArena.allocate(Math.max(1, newTextCapacity), 8);
+        requiredBuffer = newArena.allocate(2L * Integer.BYTES, 8);
+        overflowBuffer = newArena.allocate(ValueLayout.ADDRESS);
+        errorBuffer = newArena.allocate(ERROR_CAPACITY, 8);
+        if (bufferArena != null) {
+            bufferArena.close();
+        }
+        bufferArena = newArena;
+        pathCapacity = newPathCapacity;
+        blockCapacity = newBlockCapacity;
+        textCapacity = newTextCapacity;
+    }
+}
@@ -0,0 +1,88 @@
+package com.applevision.geometry;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 基于Vector API（jdk.incubator.vector）的实现
+ * 使用平台首选宽度的double向量，尾部不足一个向量的元素按标量处理。
+ * 运算顺序与 {@link ScalarGeometryKernel} 一致，结果逐位相同。
+ * 运行时需要 --add-modules jdk.incubator.vector，否则本类无法加载，{@link BoxGeometry} 回退到标量实现。
+ */
+final class VectorGeometryKernel implements GeometryKernel {
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    /** 与 DOUBLES 通道数相同的int向量，用于 double 到 int 的转换 */
+    private static final VectorSpecies<Integer> INTS =
+            IntVector.SPECIES_PREFERRED.withShape(VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+
+    private final ScalarGeometryKernel tail = new ScalarGeometryKernel();
+
+    @Override
+    public String name() {
+        return "vector-" + DOUBLES.vectorBitSize();
+    }
+
+    @Override
+    public void scaleToInt(double[] values, int n, double scale, int[] out) {
+        int i = 0;
+        int upper = DOUBLES.loopBound(n);
+        for (; i < upper; i += DOUBLES.length()) {
+            DoubleVector.fromArray(DOUBLES, values, i).mul(scale)
+                    .convertShape(VectorOperators.D2I, INTS, 0)
+                    .reinterpretAsInts()
+                    .intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = (int) (values[i] * scale);
+        }
+    }
+
+    @Override
+    public void linear(double c, double a, double[] p, double b, double[] q, int n, double[] out) {
+        int i = 0;
+        int upper = DOUBLES.loopBound(n);
+        DoubleVector vc = DoubleVector.broadcast(DOUBLES, c);
+        for (; i < upper; i += DOUBLES.length()) {
+            DoubleVector vp = DoubleVector.fromArray(DOUBLES, p, i);
+            DoubleVector vq = DoubleVector.fromArray(DOUBLES, q, i);
+            vc.add(vp.mul(a)).add(vq.mul(b)).intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = c + a * p[i] + b * q[i];
+        }
+    }
+
+    @Override
+    public void iou(double ax, double ay, double aw, double ah,
+                    double[] x, double[] y, double[] w, double[] h, int from, int to, double[] out, int outOffset) {
+        double aMaxX = ax + aw;
+        double aMaxY = ay + ah;
+        double aArea = aw * ah;
+        DoubleVector vAx = DoubleVector.broadcast(DOUBLES, ax);
+        DoubleVector vAy = DoubleVector.broadcast(DOUBLES, ay);
+        DoubleVector vAMaxX = DoubleVector.broadcast(DOUBLES, aMaxX);
+        DoubleVector vAMaxY = DoubleVector.broadcast(DOUBLES, aMaxY);
+        DoubleVector vAArea = DoubleVector.broadcast(DOUBLES, aArea);
+        DoubleVector zero = DoubleVector.zero(DOUBLES);
+
+        int j = from;
+        int upper = from + DOUBLES.loopBound(to - from);
+        for (; j < upper; j += DOUBLES.length()) {
+            DoubleVector vx = DoubleVector.fromArray(DOUBLES, x, j);
+            DoubleVector vy = DoubleVector.fromArray(DOUBLES, y, j);
+            DoubleVector vw = DoubleVector.fromArray(DOUBLES, w, j);
+            DoubleVector vh = DoubleVector.fromArray(DOUBLES, h, j);
+            DoubleVector intersectWidth = vAMaxX.min(vx.add(vw)).sub(vAx.max(vx)).max(0.0);
+            DoubleVector intersectHeight = vAMaxY.min(vy.add(vh)).sub(vAy.max(vy)).max(0.0);
+            DoubleVector intersection = intersectWidth.mul(intersectHeight);
+            DoubleVector union = vAArea.add(vw.mul(vh)).sub(intersection);
+            VectorMask<Double> positive = union.compare(VectorOperators.GT, 0.0);
+            zero.blend(intersection.div(union), positive).intoArray(out, outOffset + j);
+        }
+        tail.iou(ax, ay, aw, ah, x, y, w, h, j, to, out, outOffset);
+    }
+}